@@ -11,6 +11,8 @@ CLI_FNAME=commons-cli-1.3.1.jar
 JUNIT_FNAME=junit-4.12.jar
 HAMCREST_FNAME=hamcrest-core-1.3.jar
 ASSERTJ_FNAME=assertj-core-3.3.0.jar
+JMH_FNAMES="jmh-core-1.37.jar jmh-generator-annprocess-1.37.jar jopt-simple-5.0.4.jar commons-math3-3.6.1.jar"
+JMH_PATHS="org/openjdk/jmh/jmh-core/1.37 org/openjdk/jmh/jmh-generator-annprocess/1.37 net/sf/jopt-simple/jopt-simple/5.0.4 org/apache/commons/commons-math3/3.6.1"
 
 # Colour control commands.
 RED=`tput setaf 1`
@@ -83,6 +85,21 @@ then
 	installed_nothing=false
 fi
 
+# Install JMH (for 'make jmh') if not already done so.
+set -- $JMH_PATHS
+for fname in $JMH_FNAMES
+do
+	if [ ! -f "lib/$fname" ]
+	then
+		echo -e "${YELLOW}Installing $fname...${RESET}\n\n"
+
+		curl -L http://search.maven.org/remotecontent?filepath=$1/$fname > lib/$fname
+
+		installed_nothing=false
+	fi
+	shift
+done
+
 if $installed_nothing
 then
 	echo -e "${YELLOW}(Nothing to install, you're good)${RESET}"
@@ -0,0 +1,7 @@
+/* Value of a blank variable not matching the declared type. */
+
+package main
+
+func main() {
+	var _ int = "s" // Error: Can't use a string value as an int.
+}
@@ -0,0 +1,11 @@
+/* Types defined in terms of each other. */
+
+package main
+
+type a struct {
+	x b // Error: Invalid recursive type.
+}
+type b [2]a
+
+func main() {
+}
@@ -0,0 +1,11 @@
+/* Void function call as the value of a top-level blank variable. */
+
+package main
+
+func f() {
+}
+
+var _ = f() // Error: f() doesn't return a value.
+
+func main() {
+}
@@ -17,26 +17,34 @@ total_bad=0
 
 export CLASSPATH=$CLASSPATH:../src/
 
+# A single compiler serves every program, rather than starting a JVM per program.
+coproc GOLITE { java golite/Main -server; }
+
+# Compiles the given program, setting output to what the compiler printed.
 calljava()
-{	if [[ $f1 =~ "/parse/" ]]; then
-		output=$(java golite/Main -parse $f1)
-	elif [[ $f1 =~ "/weeding/" ]]; then
-		output=$(java golite/Main -weed $f1)
-	elif [[ $f1 =~ "/type/" ]]; then
-		output=$(java golite/Main -type $f1)
-	elif [[ $f1 =~ "/actual/" ]]; then
-		output=$(java golite/Main -type $f1)
-	elif [[ $f1 =~ "/general/" ]]; then
-		output=$(java golite/Main -type $f1)
+{
+	if [[ $1 =~ "/parse/" || $1 =~ "/weeding/" ]]; then
+		opt=-parse
 	else
-		output=$(java golite/Main -type $f1)
+		opt=-type
 	fi
-	echo $output
+
+	echo "$opt $1" >&${GOLITE[1]}
+
+	output=""
+	while read -r line <&${GOLITE[0]}
+	do
+		case $line in
+			"OUT "*) output="$output ${line#OUT }" ;;
+			"END "*) break ;;
+		esac
+	done
+	output=$(echo $output)
 }
 
 for f1 in $valid_progs
 do
-	output=$(calljava)
+	calljava $f1
 	if [[ $output = "VALID" ]]
 	then
 		((valid_ok++))
@@ -51,7 +59,7 @@ done
 
 for f2 in $invalid_progs
 do
-	output=$(calljava)
+	calljava $f2
 	if [[ $output = "INVALID" ]]
 	then
 		((invalid_ok++))
@@ -64,6 +72,8 @@ do
 	fi
 done
 
+echo quit >&${GOLITE[1]}
+
 echo "Valid OK: $valid_ok/$valid_prog_cnt"
 echo "Valid BAD: $valid_bad/$valid_prog_cnt"
 echo "Invalid OK: $invalid_ok/$invalid_prog_cnt"
@@ -0,0 +1,38 @@
+/* Zero values of large, multi-dimensional and struct arrays, whose elements are all distinct */
+
+package main
+
+type cell struct {
+	alive bool
+	neighbours [8]int
+}
+
+var grid [1000][1000]int
+
+func main() {
+	grid[0][0] = 1
+	grid[999][999] = 2
+	println(grid[0][0], grid[1][0], grid[0][1], grid[999][999], grid[998][999])
+
+	var cube [4][4][4]float64
+	cube[1][2][3] = 1.5
+	println(cube[1][2][3], cube[2][2][3], cube[1][3][3], cube[1][2][2])
+
+	var cells [16]cell
+	cells[3].alive = true
+	cells[3].neighbours[7] = 5
+	println(cells[3].alive, cells[4].alive, cells[3].neighbours[7], cells[2].neighbours[7])
+
+	var words [3]string
+	words[1] = "b"
+	println(words[0] == "", words[1], words[2] == "")
+
+	var lists [2][]int
+	var s []int
+	s = append(s, 1)
+	lists[0] = s
+	s = lists[1]
+	s = append(s, 2)
+	lists[1] = s
+	println(lists[0][0], lists[1][0])
+}
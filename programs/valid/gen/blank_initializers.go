@@ -0,0 +1,23 @@
+/* Values of blank variables, evaluated for their side effects */
+package main
+
+var calls int
+
+func f(s string) int {
+	println(s)
+	calls++
+	return calls
+}
+
+var _ = f("global")
+var _, g, _ int = f("global 1"), 10, f("global 2")
+
+func main() {
+	var _ = f("local")
+	var _, y = f("local 1"), 20
+	var (
+		_ int = f("grouped")
+		z     = 30
+	)
+	println(calls, g, y, z)
+}
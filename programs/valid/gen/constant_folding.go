@@ -0,0 +1,82 @@
+/* Constant folding and propagation, with 32-bit semantics, and constant if and switch conditions */
+
+package main
+
+var size = 2 * 1024 - 1
+var mask = size >> 4
+var scale float64 = 1.5
+var debug = false
+var zero int
+var counter = 10
+
+type celsius float64
+
+func bump() {
+	counter++
+}
+
+func main() {
+	println(size, mask, size & ^mask, size &^ mask, mask | 1 << 12, size ^ mask)
+	println(2147483647 + 1, -2147483647 - 2, 65536 * 65536, 0x7fffffff * 3, 017 % 5)
+	println(-7 / 2, -7 % 2, 7 / -2, 1 << 31, 1 << 40, -8 >> 1, -8 >> 40)
+	println(scale * 2.0, float64(size) / 2.0, int(scale * 3.0), int(-scale * 3.0))
+	println('a' + '\n', 'z' - 'a', -'a', zero, zero + size)
+	println(size < 2048, scale >= 1.5, !debug, debug || size == 2047, debug && counter > 0)
+	var c celsius
+	println(c + celsius(scale))
+
+	bump()
+	println(counter)
+
+	if debug {
+		println("debugging")
+	} else if size > 1000 {
+		println("big")
+	} else {
+		println("small")
+	}
+
+	if !debug {
+	}
+
+	for i := 0; i < 3; i++ {
+		if true {
+			continue
+		}
+		println("never")
+	}
+
+	switch size {
+	case 1, 2:
+		println("tiny")
+	case 2047:
+		println("2047")
+	default:
+		println("other")
+	}
+
+	switch {
+	case debug:
+		println("debugging")
+	case size > 4096:
+		println("huge")
+	}
+
+	switch mask {
+	case 0:
+		println("zero")
+	default:
+		println("default")
+	}
+
+	x := 3
+	if x > 2 && !debug {
+		println("x > 2")
+	}
+	switch x {
+	case size:
+		println("size")
+	default:
+		println("x")
+	}
+}
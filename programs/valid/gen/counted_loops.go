@@ -0,0 +1,78 @@
+/* Counted loops, iterating over ranges, and loops that only look like them */
+
+package main
+
+var limit int
+
+func shrink() int {
+	limit--
+	return limit
+}
+
+func main() {
+	n := 5
+
+	// Increasing and decreasing, strict and inclusive, with steps.
+	for i := 0; i < n; i++ {
+		print(i, " ")
+	}
+	println()
+	for i := n; i >= 0; i -= 2 {
+		print(i, " ")
+	}
+	println()
+	for i := 1; i <= 10; i += 3 {
+		print(i, " ")
+	}
+	println()
+	for i := n * 2; i > n; i-- {
+		print(i, " ")
+	}
+	println()
+
+	// Nested, with a bound depending on the outer counter, and continue.
+	sum := 0
+	for i := 0; i < n; i++ {
+		for j := 0; j < n - 1 - i; j++ {
+			if j % 2 == 0 {
+				continue
+			}
+			sum += i * j
+		}
+	}
+	println(sum)
+
+	// No iterations.
+	for i := 3; i < 3; i++ {
+		println("never")
+	}
+
+	// The body writes the counter.
+	for i := 0; i < 10; i++ {
+		print(i, " ")
+		i += 2
+	}
+	println()
+
+	// The body writes the bound.
+	m := 8
+	for i := 0; i < m; i++ {
+		print(i, " ")
+		m--
+	}
+	println()
+
+	// A function called in the body writes the global bound.
+	limit = 8
+	for i := 0; i < limit; i++ {
+		print(i, " ")
+		shrink()
+	}
+	println()
+
+	// The post statement isn't a constant step.
+	for i := 1; i < 100; i *= 3 {
+		print(i, " ")
+	}
+	println()
+}
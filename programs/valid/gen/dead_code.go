@@ -0,0 +1,80 @@
+/* Functions, variables and statements that can't affect the output */
+
+package main
+
+type unused struct {
+	a, b int
+}
+
+var calls int
+var limit int = 10
+var unusedGlobal = 3 * 7
+var unusedTable [1000]int
+
+func double(n int) int {
+	calls++
+	return n * 2
+}
+
+var initialized = double(4)
+
+func helper(n int) int {
+	return n - 1
+}
+
+func neverCalled(n int) int {
+	return helper(n) + unusedGlobal
+}
+
+func classify(n int) string {
+	if n < 0 {
+		return "negative"
+		println("unreachable")
+	}
+	for i := 0; i < n; i++ {
+		if i == 3 {
+			break
+			n = 0
+		}
+	}
+	{
+		return "non-negative"
+	}
+	return "unreachable"
+}
+
+func sum(n int) int {
+	s := 0
+	unusedSum := 0
+	var scratch [8]int
+	var kept int
+	for i := 0; i < n; i++ {
+		s += i
+		unusedSum += i * 2
+		scratch[i%8] = i
+		if i > 100 {
+			continue
+			unusedSum--
+		}
+	}
+
+	// The call is kept for its effect.
+	kept = double(s)
+	var u unused
+	u.a = 1
+	return s
+}
+
+func main() {
+	println(classify(-1), classify(5))
+	println(sum(10), calls, initialized, limit)
+	for i := 0; i < 3; i++ {
+		switch i {
+		case 0:
+			println("zero")
+			continue
+			println("unreachable")
+		}
+		println(i)
+	}
+}
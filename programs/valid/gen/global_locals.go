@@ -0,0 +1,74 @@
+/* Globals read in loops, from locals unless a call in the loop can assign them */
+
+package main
+
+type point struct {
+	x, y int
+}
+
+var step int = 3
+var total int
+var counts [4]int
+var history []int
+var origin point
+
+func bump(n int) {
+	total += n
+}
+
+func record(n int) {
+	history = append(history, n)
+}
+
+func sum(n int) int {
+	s := 0
+	for i := 0; i < n; i++ {
+		s += i * step
+	}
+	return s
+}
+
+func fib(n int) int {
+	if n < 2 {
+		return n
+	}
+	return fib(n-1) + fib(n-2)
+}
+
+func main() {
+	// Read-only global, and a global only assigned by a callee.
+	for i := 0; i < 5; i++ {
+		bump(step)
+		println(i, total)
+	}
+
+	// Element stores don't assign the global itself.
+	for i := 0; i < 8; i++ {
+		counts[i%4] += i
+	}
+	println(counts[0], counts[1], counts[2], counts[3])
+
+	// Slice assigned by a callee.
+	for i := 0; i < 3; i++ {
+		record(i * step)
+		history = append(history, total)
+	}
+	for i := 0; i < 6; i++ {
+		print(history[i], " ")
+	}
+	println()
+
+	// Global assigned in the loop itself.
+	for total > 0 {
+		total -= 10
+	}
+	println(total, sum(4), fib(10))
+
+	// Struct fields.
+	for i := 0; i < 3; i++ {
+		origin.x += i
+		var p point
+		p.y = origin.x
+		println(p.x, p.y)
+	}
+}
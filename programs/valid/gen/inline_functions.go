@@ -0,0 +1,107 @@
+/* Calls to small leaf functions, inlined or not */
+
+package main
+
+var base int = 10
+var count int
+
+type celsius float64
+
+// Leaf functions, inlined.
+func pow(b int, e int) int {
+	r := 1
+	for i := 0; i < e; i++ {
+		r *= b
+	}
+	return r
+}
+
+func scale(x int) int {
+	return x * base
+}
+
+func average(a, b float64) float64 {
+	sum := a + b
+	return sum / 2.0
+}
+
+func freezing() celsius {
+	var c celsius
+	return c
+}
+
+func check(x int) {
+	if x < 0 {
+		x = -x
+	}
+}
+
+func nothing() {
+}
+
+func clamp(x int) int {
+	if x > 100 {
+		x = 100
+	}
+	return x
+}
+
+// Not inlined: side effects, calls and early returns.
+func tick() int {
+	count++
+	return count
+}
+
+func log(x int) {
+	println("log", x)
+}
+
+func twice(x int) int {
+	return scale(scale(x))
+}
+
+func sign(x int) int {
+	if x < 0 {
+		return -1
+	}
+	return 1
+}
+
+func main() {
+	// Calls in simple statements.
+	x := pow(2, 10)
+	println(x, pow(3, 4)+pow(2, 3))
+	var y int = scale(x)
+	y += scale(1)
+	println(y, average(1.5, 2.0), freezing())
+	check(-3)
+	nothing()
+	println(clamp(x), clamp(42))
+
+	// Loops, and results used as arguments.
+	for i := 0; i < 4; i++ {
+		p := pow(i, 2)
+		println(i, p, sign(p-4))
+	}
+
+	// Global shadowed at the call site.
+	{
+		base := 3
+		println(scale(base), base)
+	}
+
+	// Parameter names shared with the caller.
+	b, e := 5, 2
+	println(pow(e, b), b, e)
+
+	// Conditional calls.
+	if x > 0 && scale(x) > 10000 {
+		println("big")
+	}
+	println(x < 0 || pow(2, 2) == 4)
+
+	// Calls with side effects keep their order.
+	println(tick(), scale(count), tick())
+	log(scale(2))
+	println(twice(2), sign(-5), count)
+}
@@ -0,0 +1,41 @@
+/* Overflowed values are wrapped wherever they're observed, but not in between. */
+
+package main
+
+func id(x int) int {
+	return x
+}
+
+func main() {
+	var x int = 2147483647
+	var y int = 65536
+
+	// Arguments, shifted values and switch tags see the wrapped value.
+	println(id(x + 1))
+	println((y * y) >> 1, (y * 32768) >> 4)
+	switch x + 1 {
+	case -2147483648:
+		println("wrapped")
+	default:
+		println("not wrapped")
+	}
+
+	// Masks only keep the low bits, wrapped or not.
+	println((x + 1) & 255, (x * 3) & 0xffff)
+
+	// Counters of loops running up to the edges of the range.
+	sum := 0
+	for i := 2147483640; i < 2147483647; i++ {
+		sum += i & 7
+	}
+	println(sum)
+	for i := -2147483645; i > -2147483648; i-- {
+		println(i - 1)
+	}
+
+	var a [4]int
+	for i := 0; i < 4; i++ {
+		a[i] = (i + 1) * 1073741824
+	}
+	println(a[0], a[1], a[2], a[3])
+}
@@ -0,0 +1,27 @@
+/* Integer division and modulo with negative operands, on constants and at run time */
+package main
+
+func main() {
+	// Folded.
+	println(-7/2, -7%2, 7/-2, 7%-2, -7/-2, -7%-2, -8/2, -8%2)
+
+	// At run time.
+	var a, b = -7, 2
+	println(a/b, a%b, -a/-b, -a%-b, a/-b, a%-b)
+
+	var c = a
+	c /= b
+	var d = a
+	d %= b
+	println(c, d)
+
+	// The loop counter is non-negative, i-4 isn't.
+	for i := 0; i < 5; i++ {
+		print(i/2, i%2, (i-4)/2, (i-4)%2, i/b, (i-4)%b, " ")
+	}
+	println()
+
+	var min = -2147483647 - 1
+	var m1 = -1
+	println(min/m1, min%m1)
+}
@@ -0,0 +1,40 @@
+/* Printing values of every base type, constant or not */
+
+package main
+
+type age int
+type flag bool
+
+func main() {
+	var i int = 42
+	var f float64 = 2.5
+	var b bool = true
+	var r rune = 'a'
+	var s string = "text"
+	var a age = age(7)
+	var n flag = flag(b)
+
+	// Variables.
+	print(i, f, b, r, s, a, n)
+	println()
+	println(i, f, b, r, s, a, n)
+
+	// Constants.
+	println(1+2, 0.5, true && false, 'b', "const", age(3))
+	print("no newline", " ")
+	print(-7)
+	println()
+
+	// Strings that can't go in a format string.
+	println("100%", "%d", "%s%%", s)
+	println("tab\there", `raw\n`, "quote \"q\"")
+	print("50% ", i, "%\n")
+
+	// Single values.
+	print(s)
+	print("\n")
+	println(s)
+	print()
+	println()
+	println(-i, i*1000000, f/4.0)
+}
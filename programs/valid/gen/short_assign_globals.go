@@ -0,0 +1,27 @@
+/* Short declarations of several variables, some new and some assigned, next to globals */
+package main
+
+var g1 int = 10
+var gs string = "gs"
+var g2 float64 = 1.5
+
+func main() {
+	x, z := 3, "z"
+	println(x, z, g1, gs, g2)
+
+	for i := 0; i < 4; i++ {
+		k, l := i, i*2
+		print(k, l, " ")
+	}
+	println()
+
+	// x is assigned, y is declared.
+	x, y := x+1, g2*2.0
+	println(x, y, g1, gs, g2)
+
+	{
+		g1, w := 20, "w"
+		println(g1, w, gs)
+	}
+	println(g1, gs)
+}
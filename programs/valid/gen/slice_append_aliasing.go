@@ -0,0 +1,28 @@
+/* Appends share the backing array of a slice while it has spare capacity. */
+
+package main
+
+func main() {
+	var s []int
+	s = append(s, 1)
+	s = append(s, 2)
+	s = append(s, 3)
+
+	// s has length 3 and capacity 4, so both appends write to the same element.
+	t := append(s, 4)
+	u := append(s, 5)
+	println(t[3], u[3])
+
+	// t is full, so appending to it copies into a new backing array.
+	v := append(t, 6)
+	v[0] = 100
+	println(t[0], v[0], v[4])
+
+	// Copying a slice copies its header, not its length.
+	var a []int
+	a = append(a, 7)
+	b := a
+	a = append(a, 8)
+	b = append(b, 9)
+	println(a[1], b[1])
+}
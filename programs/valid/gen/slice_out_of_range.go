@@ -0,0 +1,15 @@
+/* Indexing a slice past its length, within a longer backing array shared with another slice */
+
+package main
+
+func main() {
+	var s, u []int
+	s = append(s, 1)
+	s = append(s, 2)
+	s = append(s, 3)
+	u = append(s, 4)
+	s[2] = 30
+	println(s[2], u[2], u[3])
+	println(s[3])
+	println("unreachable")
+}
@@ -0,0 +1,42 @@
+/* Structs as classes: field access, keyword fields, nesting, arrays of structs and equality */
+
+package main
+
+type point struct {
+	x, y int
+}
+
+type shape struct {
+	name string
+	origin point
+	corners [2]point
+	class, lambda, __init int
+}
+
+var global shape
+
+func main() {
+	var s, t shape
+	println(s == t, s.origin == t.origin)
+
+	s.name = "square"
+	s.origin.x, s.origin.y = 1, 2
+	s.corners[1].x = 3
+	s.class, s.lambda, s.__init = 4, 5, 6
+	println(s.name, s.origin.x, s.origin.y, s.corners[0].x, s.corners[1].x)
+	println(s.class, s.lambda, s.__init)
+	println(s == t, s.corners[0] == t.corners[0], s.corners[1] != t.corners[1])
+
+	var ps [3]point
+	ps[0].x = 7
+	println(ps[0].x, ps[1].x, ps[1] == ps[2])
+
+	var anon struct {
+		in, pass bool
+	}
+	anon.in = true
+	println(anon.in, anon.pass)
+
+	global.origin.y = 8
+	println(global.origin.y, global.origin == s.origin)
+}
@@ -0,0 +1,93 @@
+/* Switch tags evaluated once, and switches over many constant cases */
+
+package main
+
+var calls int
+
+func next() int {
+	calls++
+	return calls
+}
+
+func opcode(op int) string {
+	switch op {
+	case 0:
+		return "nop"
+	case 1, 2:
+		return "load"
+	case 3:
+		return "store"
+	case -4:
+		return "neg"
+	case 0x10, 017:
+		return "jump"
+	default:
+		return "halt"
+	case 6:
+		return "add"
+	case 7:
+		return "sub"
+	}
+	return ""
+}
+
+func state(s string) int {
+	var n int
+	switch s {
+	case "idle":
+		n = 1
+	case "start":
+		n = 2
+	case "run":
+		n = 3
+	case "pause":
+		n = 4
+	case "resume":
+		n = 5
+	case "stop":
+		n = 6
+	case "fail":
+		n = 7
+	case "reset":
+		n = 8
+	}
+	return n
+}
+
+func main() {
+	// The tag is evaluated once, whatever case matches.
+	for i := 0; i < 3; i++ {
+		switch next() {
+		case 10:
+			println("ten")
+		case 11:
+			println("eleven")
+		case 3:
+			println("three", calls)
+		default:
+			println("other", calls)
+		}
+	}
+
+	// A default case coming first.
+	switch x := next(); x * 2 {
+	default:
+		println("default", x)
+	case 0:
+		println("zero")
+	}
+
+	for i := -5; i < 20; i++ {
+		print(opcode(i), " ")
+	}
+	println()
+
+	println(state("idle"), state("pause"), state("reset"), state("unknown"))
+
+	switch r := 'c'; r {
+	case 'a', 'b', 'c', 'd':
+		println("abcd")
+	case 'e', 'f', 'g', 'h', '\n':
+		println("efgh")
+	}
+}
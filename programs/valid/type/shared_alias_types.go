@@ -0,0 +1,33 @@
+/* Type check struct types sharing aliased field types at several levels of nesting */
+package main
+
+type num int
+type pair struct {
+	a, b num
+}
+type quad struct {
+	l, r pair
+}
+type oct struct {
+	l, r quad
+}
+type tree struct {
+	l, r oct
+	leaves [4]quad
+	extra []pair
+}
+
+var t tree
+
+func weight(o oct) num {
+	return num(o.l.l.a + o.r.r.b)
+}
+
+func main() {
+	t.l.l.l.a = num(1)
+	t.r.r.r.b = num(2)
+	var extra []pair
+	extra = append(extra, t.l.l.l)
+	t.extra = extra
+	println(weight(t.r), t.extra[0].a)
+}
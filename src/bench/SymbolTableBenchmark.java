@@ -0,0 +1,134 @@
+import golite.symbol.Symbol;
+import golite.symbol.SymbolTable;
+import golite.symbol.VariableSymbol;
+import golite.type.TypeFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+
+
+/**
+ * Compares symbol lookups (getSymbol and getScopeDepth) in the symbol table with those in the
+ * deque of scopes it replaced, searched innermost scope first, for increasingly deep nestings of
+ * scopes.
+ *
+ * Usage: java SymbolTableBenchmark
+ */
+public class SymbolTableBenchmark {
+
+    // Names declared in each scope.
+    private static final int NAMES_PER_SCOPE = 8;
+    // Lookups per measurement.
+    private static final int LOOKUPS = 2000000;
+
+    /**
+     * The previous symbol table, reduced to what lookups need.
+     */
+    private static class ScopeDequeSymbolTable {
+
+        private final Deque<LinkedHashMap<String, Symbol>> scopes =
+            new ArrayDeque<LinkedHashMap<String, Symbol>>();
+
+        public void scope() {
+            this.scopes.push(new LinkedHashMap<String, Symbol>());
+        }
+
+        public void putSymbol(Symbol symbol) {
+            this.scopes.peek().put(symbol.getName(), symbol);
+        }
+
+        public int getScopeDepth(String name) {
+            int i = this.scopes.size() - 1;
+            for (LinkedHashMap<String, Symbol> scope : this.scopes) {
+                if (scope.get(name) != null)
+                    return i;
+
+                i--;
+            }
+
+            return -1;
+        }
+
+        public Symbol getSymbol(String name) {
+            Symbol symbol = null;
+            for (LinkedHashMap<String, Symbol> scope : this.scopes) {
+                symbol = scope.get(name);
+                if (symbol != null)
+                    break;
+            }
+
+            return symbol;
+        }
+
+    }
+
+    public static void main(String[] args) {
+        System.out.println("depth   old getSymbol  new getSymbol   old getScopeDepth  new getScopeDepth");
+
+        for (int depth : new int[] { 2, 8, 32, 128 }) {
+            ScopeDequeSymbolTable oldTable = new ScopeDequeSymbolTable();
+            SymbolTable newTable = new SymbolTable();
+
+            // Names are looked up uniformly over all scopes, like references to locals, parameters
+            // and globals from the innermost block.
+            String[] names = new String[depth * NAMES_PER_SCOPE];
+            for (int d = 0; d < depth; d++) {
+                oldTable.scope();
+                newTable.scope();
+
+                for (int i = 0; i < NAMES_PER_SCOPE; i++) {
+                    String name = "v" + d + "_" + i;
+                    Symbol symbol = new VariableSymbol(name, TypeFactory.getIntType(), null);
+                    oldTable.putSymbol(symbol);
+                    newTable.putSymbol(symbol);
+                    names[d * NAMES_PER_SCOPE + i] = name;
+                }
+            }
+
+            // Warm up, then measure.
+            for (int i = 0; i < 5; i++) {
+                lookUpOld(oldTable, names, false);
+                lookUpNew(newTable, names, false);
+                lookUpOld(oldTable, names, true);
+                lookUpNew(newTable, names, true);
+            }
+
+            System.out.println(String.format("%5d %12.1f ns %12.1f ns %16.1f ns %16.1f ns", depth,
+                lookUpOld(oldTable, names, false), lookUpNew(newTable, names, false),
+                lookUpOld(oldTable, names, true), lookUpNew(newTable, names, true)));
+        }
+    }
+
+    // Each lookup returns nanoseconds per lookup.
+
+    private static double lookUpOld(ScopeDequeSymbolTable table, String[] names, boolean depths) {
+        long sink = 0, t = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            String name = names[i % names.length];
+            sink += depths ? table.getScopeDepth(name) : table.getSymbol(name).hashCode();
+        }
+
+        return done(t, sink);
+    }
+
+    private static double lookUpNew(SymbolTable table, String[] names, boolean depths) {
+        long sink = 0, t = System.nanoTime();
+        for (int i = 0; i < LOOKUPS; i++) {
+            String name = names[i % names.length];
+            sink += depths ? table.getScopeDepth(name) : table.getSymbol(name).hashCode();
+        }
+
+        return done(t, sink);
+    }
+
+    private static double done(long start, long sink) {
+        double nanos = (System.nanoTime() - start) / (double) LOOKUPS;
+        // Use the sink, so that lookups aren't optimized away.
+        if (sink == 42)
+            System.out.print("");
+
+        return nanos;
+    }
+
+}
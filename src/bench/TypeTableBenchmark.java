@@ -0,0 +1,144 @@
+import golite.CompilationUnit;
+import golite.type.GoLiteType;
+import golite.type.TypeTable;
+import golite.analysis.*;
+import golite.node.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+
+/**
+ * Compares the memory footprint and lookup time of the type table with those of the
+ * HashMap<Node, GoLiteType> it replaced, on a generated program of about 100k lines.
+ *
+ * Usage: java TypeTableBenchmark [lines]
+ */
+public class TypeTableBenchmark {
+
+    // Number of lookup rounds over every typed node.
+    private static final int ROUNDS = 50;
+
+    public static void main(String[] args) throws Exception {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        CompilationUnit unit = new CompilationUnit(null, generateProgram(lines), false);
+        TypeTable typeTable = unit.getTypeTable();
+
+        // Typed nodes, in the order a traversal of the AST visits them.
+        final ArrayList<Node> nodes = new ArrayList<Node>();
+        final TypeTable table = typeTable;
+        unit.getAST().apply(new DepthFirstAdapter() {
+            @Override
+            public void defaultIn(Node node) {
+                if (table.containsKey(node))
+                    nodes.add(node);
+            }
+        });
+
+        System.out.println(lines + " lines, " + nodes.size() + " typed nodes");
+
+        // Build each table twice, measuring the second build only: the first one runs while garbage
+        // left over from compiling the program is still being reclaimed.
+        HashMap<Node, GoLiteType> hashMap = null;
+        TypeTable dense = null;
+        long hashMapBytes = 0, denseBytes = 0;
+
+        for (int i = 0; i < 2; i++) {
+            hashMap = null;
+            long before = usedMemory();
+            hashMap = new HashMap<Node, GoLiteType>();
+            for (Node n : nodes)
+                hashMap.put(n, typeTable.get(n));
+            hashMapBytes = usedMemory() - before;
+
+            dense = null;
+            before = usedMemory();
+            dense = new TypeTable();
+            for (Node n : nodes)
+                dense.put(n, typeTable.get(n));
+            denseBytes = usedMemory() - before;
+        }
+
+        System.out.println(String.format("memory:  HashMap %6.1f MB, TypeTable %6.1f MB",
+            hashMapBytes / 1e6, denseBytes / 1e6));
+
+        // Warm up both, then time them.
+        for (int i = 0; i < 5; i++) {
+            lookUp(hashMap, nodes);
+            lookUp(dense, nodes);
+        }
+
+        long t = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++)
+            lookUp(hashMap, nodes);
+        double hashMapNanos = (System.nanoTime() - t) / (double) ROUNDS / nodes.size();
+
+        t = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++)
+            lookUp(dense, nodes);
+        double denseNanos = (System.nanoTime() - t) / (double) ROUNDS / nodes.size();
+
+        System.out.println(String.format("lookup:  HashMap %6.1f ns, TypeTable %6.1f ns",
+            hashMapNanos, denseNanos));
+
+        // Keep everything reachable until the end, so that the memory measurements only see the
+        // tables being built.
+        if (hashMap.size() != dense.size() || unit.getTypeTable() != typeTable)
+            System.out.println("size mismatch");
+    }
+
+    private static int lookUp(HashMap<Node, GoLiteType> map, ArrayList<Node> nodes) {
+        int found = 0;
+        for (Node n : nodes) {
+            if (map.get(n) != null)
+                found++;
+        }
+
+        return found;
+    }
+
+    private static int lookUp(TypeTable table, ArrayList<Node> nodes) {
+        int found = 0;
+        for (Node n : nodes) {
+            if (table.get(n) != null)
+                found++;
+        }
+
+        return found;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Generates a well-typed program of about the given number of lines, made of many copies of a
+     * function mixing declarations, loops, slices, conditions and arithmetic.
+     */
+    static String generateProgram(int lines) {
+        StringBuilder sb = new StringBuilder("package main\n\n");
+
+        for (int f = 0, n = 2; n < lines; f++, n += 13) {
+            sb.append("func f").append(f).append("(a int, b float64) int {\n");
+            sb.append("\tvar x, y int = a, a * 2\n");
+            sb.append("\tvar s []int\n");
+            sb.append("\tfor i := 0; i < 10; i++ {\n");
+            sb.append("\t\tx = x + i * y - a % 7\n");
+            sb.append("\t\ts = append(s, x)\n");
+            sb.append("\t\tif x > 100 && b < 2.5 {\n");
+            sb.append("\t\t\ty += s[i] << 1\n");
+            sb.append("\t\t}\n");
+            sb.append("\t}\n");
+            sb.append("\treturn x + y\n");
+            sb.append("}\n\n");
+        }
+
+        return sb.toString();
+    }
+
+}
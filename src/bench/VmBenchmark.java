@@ -0,0 +1,88 @@
+
+import golite.CompilationUnit;
+import golite.vm.Program;
+import golite.vm.VM;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.InputStream;
+import java.io.PrintStream;
+
+
+/**
+ * Compares the running time of GoLite programs on the register VM with that of the interpreter and
+ * of the generated Python code, and checks that all three print the same output.
+ *
+ * The VM and the interpreter are each run once to warm up, then timed over a second run. Python is
+ * timed by wall clock, starting the interpreter included.
+ *
+ * Usage: java [-Dpython=python3] VmBenchmark file.go...
+ */
+public class VmBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String python = System.getProperty("python", "python");
+
+        System.out.println(String.format("%-24s %10s %11s %11s %11s %9s", "program", "words",
+            "vm (ms)", "interp (ms)", "python (ms)", "speedup"));
+
+        for (String path : args) {
+            CompilationUnit unit = new CompilationUnit(path, false);
+
+            Program program = unit.getProgram();
+            runVM(program);
+            long t = System.nanoTime();
+            String vmOut = runVM(program);
+            double vmMillis = (System.nanoTime() - t) / 1e6;
+
+            runInterpreter(unit);
+            t = System.nanoTime();
+            String interpOut = runInterpreter(unit);
+            double interpMillis = (System.nanoTime() - t) / 1e6;
+
+            File py = File.createTempFile("vm_bench", ".py");
+            py.deleteOnExit();
+            FileWriter writer = new FileWriter(py);
+            writer.write(unit.getGeneratedCode(false));
+            writer.close();
+
+            t = System.nanoTime();
+            String pyOut = runPython(python, py);
+            double pyMillis = (System.nanoTime() - t) / 1e6;
+
+            String name = new File(path).getName();
+            System.out.println(String.format("%-24s %10d %11.1f %11.1f %11.1f %8.1fx", name,
+                program.size(), vmMillis, interpMillis, pyMillis, pyMillis / vmMillis));
+            if (!vmOut.equals(interpOut) || !vmOut.equals(pyOut))
+                System.out.println("  WARNING: outputs differ");
+        }
+    }
+
+    private static String runVM(Program program) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new VM(program).run(new PrintStream(out));
+        return out.toString();
+    }
+
+    private static String runInterpreter(CompilationUnit unit) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        unit.getInterpreter().run(new PrintStream(out));
+        return out.toString();
+    }
+
+    private static String runPython(String python, File py) throws Exception {
+        Process process = new ProcessBuilder(python, py.getPath()).redirectErrorStream(true)
+            .start();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputStream in = process.getInputStream();
+        byte[] buffer = new byte[8192];
+        for (int n; (n = in.read(buffer)) > 0; )
+            out.write(buffer, 0, n);
+        process.waitFor();
+
+        return out.toString();
+    }
+
+}
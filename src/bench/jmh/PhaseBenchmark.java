@@ -0,0 +1,224 @@
+package jmh;
+
+import golite.CompilationUnit;
+import golite.GoLiteLexer;
+import golite.Weeder;
+import golite.generator.CodeGenerator;
+import golite.symbol.SymbolTableBuilder;
+import golite.type.TypeChecker;
+import golite.type.TypeTable;
+import golite.node.*;
+import golite.parser.*;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * JMH benchmarks for each phase of the compiler, run in isolation on the products of the phases
+ * before it: scanning, parsing, weeding, building the symbol table (as with '-ut'), type checking
+ * and code generation (with and without '-safe').
+ *
+ * The input is either a synthetic program of the given number of lines, or the corpus of valid
+ * programs under programs/valid (those that compile, each compiled separately). Run with
+ * '-prof gc' to also get the allocation rate of each phase (see 'make jmh').
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class PhaseBenchmark {
+
+    /** Input: "corpus", or the number of lines of the synthetic program. */
+    @Param({ "corpus", "1000", "10000", "100000", "1000000" })
+    public String input;
+
+    /** Directory of the corpus, relative to src (overridden by -Dgolite.corpus). */
+    private static final String CORPUS = System.getProperty("golite.corpus", "../programs/valid");
+
+    /** Program sources. */
+    private List<String> sources;
+    /** ASTs, one per source. */
+    private List<Start> asts;
+    /** Type tables, one per source. */
+    private List<TypeTable> typeTables;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        this.sources = new ArrayList<String>();
+        this.asts = new ArrayList<Start>();
+        this.typeTables = new ArrayList<TypeTable>();
+
+        List<String> candidates = new ArrayList<String>();
+        if (this.input.equals("corpus"))
+            candidates.addAll(readCorpus(Paths.get(CORPUS)));
+        else
+            candidates.add(generateProgram(Integer.parseInt(this.input)));
+
+        // Keep only the programs that make it through every phase.
+        for (String source : candidates) {
+            CompilationUnit unit = new CompilationUnit(null, source, false);
+            try {
+                unit.getGeneratedCode(true);
+            } catch (Exception e) {
+                continue;
+            }
+
+            this.sources.add(source);
+            this.asts.add(unit.getAST());
+            this.typeTables.add(unit.getTypeTable());
+        }
+
+        if (this.sources.isEmpty())
+            throw new IllegalStateException("No valid programs for input " + this.input);
+    }
+
+    @Benchmark
+    public void scan(Blackhole bh) throws Exception {
+        for (String source : this.sources) {
+            GoLiteLexer lexer = new GoLiteLexer(new PushbackReader(new StringReader(source), 1024));
+
+            Token token;
+            do {
+                token = lexer.next();
+                bh.consume(token);
+            } while (!(token instanceof EOF));
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole bh) throws Exception {
+        for (String source : this.sources) {
+            bh.consume(new Parser(new GoLiteLexer(new PushbackReader(new StringReader(source),
+                1024))).parse());
+        }
+    }
+
+    @Benchmark
+    public void weed(Blackhole bh) {
+        for (Start ast : this.asts) {
+            Weeder weeder = new Weeder();
+            ast.apply(weeder);
+            bh.consume(weeder);
+        }
+    }
+
+    @Benchmark
+    public void buildSymbolTable(Blackhole bh) {
+        for (Start ast : this.asts) {
+            SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder();
+            ast.apply(symbolTableBuilder);
+            bh.consume(symbolTableBuilder.getTable());
+        }
+    }
+
+    @Benchmark
+    public void typeCheck(Blackhole bh) {
+        for (Start ast : this.asts) {
+            TypeChecker typeChecker = new TypeChecker();
+            ast.apply(typeChecker);
+            bh.consume(typeChecker.getTypeTable());
+        }
+    }
+
+    @Benchmark
+    public void generateCode(Blackhole bh) {
+        this.generateCode(bh, false);
+    }
+
+    @Benchmark
+    public void generateSafeCode(Blackhole bh) {
+        this.generateCode(bh, true);
+    }
+
+    private void generateCode(Blackhole bh, boolean wrap) {
+        for (int i = 0; i < this.asts.size(); i++) {
+            CodeGenerator codeGenerator = new CodeGenerator(this.typeTables.get(i), wrap);
+            this.asts.get(i).apply(codeGenerator);
+            bh.consume(codeGenerator.getGeneratedCode());
+        }
+    }
+
+    /**
+     * Reads every '.go' file under the given directory, in a fixed order.
+     */
+    private static List<String> readCorpus(Path root) throws IOException {
+        List<Path> paths = new ArrayList<Path>();
+        try (Stream<Path> walk = Files.walk(root)) {
+            Iterator<Path> it = walk.iterator();
+            while (it.hasNext()) {
+                Path p = it.next();
+                if (Files.isRegularFile(p) && p.toString().endsWith(".go"))
+                    paths.add(p);
+            }
+        }
+
+        paths.sort(null);
+
+        List<String> sources = new ArrayList<String>();
+        for (Path p : paths)
+            sources.add(new String(Files.readAllBytes(p), StandardCharsets.UTF_8));
+
+        return sources;
+    }
+
+    /**
+     * Generates a well-typed program of about the given number of lines, made of many copies of a
+     * struct type and a function mixing declarations, loops, arrays, slices, switches, conditions,
+     * arithmetic and printing.
+     */
+    static String generateProgram(int lines) {
+        StringBuilder sb = new StringBuilder("package main\n\n");
+
+        int f = 0;
+        for (int n = 2; n < lines; f++, n += 27) {
+            sb.append("type point").append(f).append(" struct {\n");
+            sb.append("\tx, y int\n");
+            sb.append("\ttag string\n");
+            sb.append("}\n\n");
+            sb.append("func g").append(f).append("(n int, p point").append(f).append(") int {\n");
+            sb.append("\tvar a [8]int\n");
+            sb.append("\tvar s []float64\n");
+            sb.append("\tsum := 0\n");
+            sb.append("\tfor i := 0; i < n; i++ {\n");
+            sb.append("\t\ta[i % 8] += i * p.x\n");
+            sb.append("\t\ts = append(s, float64(i) / 2.0)\n");
+            sb.append("\t\tswitch {\n");
+            sb.append("\t\tcase a[i % 8] > 100:\n");
+            sb.append("\t\t\tsum -= p.y\n");
+            sb.append("\t\tdefault:\n");
+            sb.append("\t\t\tsum += a[i % 8] << 1\n");
+            sb.append("\t\t}\n");
+            sb.append("\t}\n");
+            sb.append("\tif sum > 0 && p.tag != \"\" {\n");
+            sb.append("\t\tprintln(p.tag, sum, s[0])\n");
+            sb.append("\t}\n");
+            sb.append("\treturn sum\n");
+            sb.append("}\n\n");
+        }
+
+        sb.append("func main() {\n");
+        sb.append("\tvar p point0\n");
+        sb.append("\tp.x, p.y, p.tag = 3, 4, \"p\"\n");
+        sb.append("\tprintln(g0(10, p))\n");
+        sb.append("}\n");
+
+        return sb.toString();
+    }
+
+}
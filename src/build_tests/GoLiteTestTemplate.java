@@ -3,23 +3,37 @@ package test;
 import golite.GoLiteLexer;
 import golite.PrettyPrinter;
 import golite.Weeder;
+import golite.c.CCompiler;
+import golite.c.CGenerator;
+import golite.exception.InterpreterException;
 import golite.exception.SymbolTableException;
 import golite.exception.TypeCheckException;
 import golite.exception.WeederException;
 import golite.generator.CodeGenerator;
+import golite.interp.Interpreter;
+import golite.java.JavaGenerator;
+import golite.java.JavaProgram;
+import golite.java.MemoryCompiler;
+import golite.jvm.BytecodeGenerator;
+import golite.jvm.JarWriter;
 import golite.symbol.SymbolTable;
 import golite.symbol.SymbolTableBuilder;
 import golite.type.TypeChecker;
+import golite.vm.Lowering;
+import golite.vm.VM;
 import golite.lexer.*;
 import golite.parser.*;
 import golite.node.*;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.InputStreamReader;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.PushbackReader;
 import java.io.StringReader;
@@ -149,6 +163,173 @@ public class <<<INSERT NAME HERE>>> {
         }
     }
 
+    /**
+     * Compile a GoLite program to JVM bytecode and write it to an executable jar.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @param outPath - Filepath to output jar
+     * @throws IOException
+     * @throws Compiler-specific exceptions if a failure is encountered during compilation
+     */
+    private static void generateJar(String inPath, String outPath)
+        throws IOException, LexerException, ParserException {
+
+        Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
+        Parser parser = new Parser(lexer);
+        Weeder weeder = new Weeder();
+
+        Start ast = parser.parse();
+        ast.apply(weeder);
+
+        TypeChecker typeChecker = new TypeChecker();
+        ast.apply(typeChecker);
+
+        BytecodeGenerator bytecodeGenerator = new BytecodeGenerator(typeChecker.getTypeTable());
+        ast.apply(bytecodeGenerator);
+
+        JarWriter.write(bytecodeGenerator.getClassFiles(), new FileOutputStream(outPath));
+    }
+
+    /**
+     * Compile a GoLite program to C and build an executable from it with the system C compiler.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @param outPath - Filepath to output executable
+     * @throws IOException
+     * @throws Compiler-specific exceptions if a failure is encountered during compilation
+     */
+    private static void generateExecutable(String inPath, String outPath)
+        throws IOException, LexerException, ParserException {
+
+        Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
+        Parser parser = new Parser(lexer);
+        Weeder weeder = new Weeder();
+
+        Start ast = parser.parse();
+        ast.apply(weeder);
+
+        TypeChecker typeChecker = new TypeChecker();
+        ast.apply(typeChecker);
+
+        CGenerator cGenerator = new CGenerator(typeChecker.getTypeTable());
+        ast.apply(cGenerator);
+
+        File source = new File(outPath + ".c");
+        try (PrintWriter out = new PrintWriter(new FileWriter(source))) {
+            out.print(cGenerator.getGeneratedCode());
+        }
+
+        try {
+            CCompiler.compile(source, new File(outPath));
+        } finally {
+            source.delete();
+        }
+    }
+
+    /**
+     * Compile a GoLite program and run it with the interpreter.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @return Output of the program, followed by the error it failed with, if any
+     * @throws IOException
+     * @throws Compiler-specific exceptions if a failure is encountered during compilation
+     */
+    private static String interpret(String inPath)
+        throws IOException, LexerException, ParserException {
+
+        Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
+        Parser parser = new Parser(lexer);
+        Weeder weeder = new Weeder();
+
+        Start ast = parser.parse();
+        ast.apply(weeder);
+
+        TypeChecker typeChecker = new TypeChecker();
+        ast.apply(typeChecker);
+
+        Interpreter interpreter = new Interpreter(typeChecker.getTypeTable());
+        ast.apply(interpreter);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            interpreter.run(new PrintStream(out));
+        } catch (InterpreterException e) {
+            return out.toString() + e.getMessage() + "\n";
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Compile a GoLite program to register VM bytecode and run it on the VM.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @return Output of the program, followed by the error it failed with, if any
+     * @throws IOException
+     * @throws Compiler-specific exceptions if a failure is encountered during compilation
+     */
+    private static String runVm(String inPath)
+        throws IOException, LexerException, ParserException {
+
+        Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
+        Parser parser = new Parser(lexer);
+        Weeder weeder = new Weeder();
+
+        Start ast = parser.parse();
+        ast.apply(weeder);
+
+        TypeChecker typeChecker = new TypeChecker();
+        ast.apply(typeChecker);
+
+        Lowering lowering = new Lowering(typeChecker.getTypeTable());
+        ast.apply(lowering);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            new VM(lowering.getProgram()).run(new PrintStream(out));
+        } catch (InterpreterException e) {
+            return out.toString() + e.getMessage() + "\n";
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Compile a GoLite program to Java, compile that in memory and run it.
+     *
+     * @param inPath - Filepath to GoLite program
+     * @return Output of the program, followed by the error it failed with, if any
+     * @throws IOException
+     * @throws Compiler-specific exceptions if a failure is encountered during compilation
+     */
+    private static String runJava(String inPath)
+        throws IOException, LexerException, ParserException {
+
+        Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
+        Parser parser = new Parser(lexer);
+        Weeder weeder = new Weeder();
+
+        Start ast = parser.parse();
+        ast.apply(weeder);
+
+        TypeChecker typeChecker = new TypeChecker();
+        ast.apply(typeChecker);
+
+        JavaGenerator javaGenerator = new JavaGenerator(typeChecker.getTypeTable());
+        ast.apply(javaGenerator);
+        JavaProgram program = new JavaProgram(MemoryCompiler.compile(JavaGenerator.CLASS_NAME,
+            javaGenerator.getGeneratedCode()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            program.run(new PrintStream(out));
+        } catch (InterpreterException e) {
+            return out.toString() + e.getMessage() + "\n";
+        }
+
+        return out.toString();
+    }
+
     /**
      * Run a phase of Vince's reference GoLite compiler on a GoLite program.
      *
@@ -66,6 +66,16 @@ OUT_VALID_TYPE_TNAME = "GoLiteValidTypingTest"
 OUT_INVALID_TYPE_TNAME = "GoLiteInvalidTypingTest"
 # Output name for test checking code generation.
 OUT_GEN_TNAME = "GoLiteCodeGenerationTest"
+# Output name for test checking JVM bytecode generation.
+OUT_JVM_TNAME = "GoLiteJvmTest"
+# Output name for test checking C code generation.
+OUT_C_TNAME = "GoLiteCTest"
+# Output name for test checking the interpreter.
+OUT_RUN_TNAME = "GoLiteInterpreterTest"
+# Output name for test checking the register VM.
+OUT_VM_TNAME = "GoLiteVmTest"
+# Output name for test checking Java code generation.
+OUT_JAVA_TNAME = "GoLiteJavaTest"
 
 
 def capitalize(in_str):
@@ -166,8 +176,13 @@ def create_test_method_str(prog_fname, prog_fpath, tpe, ref):
 		'invalid_parse' for testing no parse is produced for the program,
 		'pretty' for testing the pretty printer on the program, 'valid_type'
 		for testing the correct type check of the program, 'invalid_type' for
-		testing type check flags the program, or 'gen' for testing the correct
-		output of generated Python code after compilation
+		testing type check flags the program, 'gen' for testing the correct
+		output of generated Python code after compilation, 'jvm' for
+		testing the correct output of generated JVM bytecode, 'c' for testing
+		the correct output of generated C code, 'run' for testing the correct
+		output of the interpreter, 'vm' for testing the correct output of the
+		register VM, or 'java' for testing the correct output of generated
+		Java code compiled in memory
 	@param ref - If True, then the test method is built for the reference
 		compiler, otherwise it's build for the GoLite compiler
 	@return Corresponding test method source
@@ -207,14 +222,16 @@ def create_test_method_str(prog_fname, prog_fpath, tpe, ref):
 
 	# Create the method body for a code generator test, asserting the generated
 	# code produces output that's equal to the expected output for a program
-	# with given filepath.
-	def create_gen_method_body(prog_fpath, tabs):
+	# with given filepath. The code is Python, an executable jar if jvm is True,
+	# or an executable compiled from C if c is True.
+	def create_gen_method_body(prog_fpath, tabs, jvm=False, c=False):
 		# Path to the program's corresponding .out file with the expected
 		# output.
 		prog_out_fpath = os.path.splitext(prog_fpath)[0] + ".out"
 
-		# Temporary file for generated Python code.
-		gen_prog_fname = ".tmp.golite.py"
+		# Temporary file for generated code.
+		gen_prog_fname = ".tmp.golite.jar" if jvm else ".tmp.golite" if c \
+			else ".tmp.golite.py"
 		gen_prog_path = os.path.join(OUT_TEST_DIRPATH, gen_prog_fname)
 
 		body = '\t' * tabs
@@ -225,12 +242,20 @@ def create_test_method_str(prog_fname, prog_fpath, tpe, ref):
 		body += ('\t' * tabs) + "try {\n"
 		
 		body += '\t' * (tabs + 1)
-		body += "generateCode(\"%s\", \"%s\");\n\n" % (prog_fpath,
-			gen_prog_path)
+		body += "%s(\"%s\", \"%s\");\n\n" % (
+			"generateJar" if jvm else "generateExecutable" if c else "generateCode",
+			prog_fpath, gen_prog_path)
 
 		body += '\t' * (tabs + 1)
 		body += "ProcessBuilder pb "
-		body += "= new ProcessBuilder(\"python\", \"%s\");\n" % (gen_prog_path)
+		if jvm:
+			body += "= new ProcessBuilder(\"java\", \"-jar\", \"%s\");\n" \
+				% (gen_prog_path)
+		elif c:
+			body += "= new ProcessBuilder(\"%s\");\n" % (gen_prog_path)
+		else:
+			body += "= new ProcessBuilder(\"python\", \"%s\");\n" \
+				% (gen_prog_path)
 		body += '\t' * (tabs + 1)
 		body += "Process p = pb.start();\n"
 		body += '\t' * (tabs + 1)
@@ -290,6 +315,45 @@ def create_test_method_str(prog_fname, prog_fpath, tpe, ref):
 
 		return body
 
+	# Create the method body for an interpreter test, asserting the program
+	# with given filepath prints output that's equal to its expected output when
+	# run in this JVM by the given test method (the interpreter by default).
+	def create_run_method_body(prog_fpath, tabs, method="interpret"):
+		# Path to the program's corresponding .out file with the expected
+		# output.
+		prog_out_fpath = os.path.splitext(prog_fpath)[0] + ".out"
+
+		# The output is read line by line like the expected output, so that a
+		# missing newline at the end of either doesn't matter.
+		body = '\t' * tabs
+		body += "BufferedReader r = new BufferedReader(new StringReader("
+		body += "%s(\"%s\")));\n" % (method, prog_fpath)
+		body += '\t' * tabs
+		body += "String out = \"\", s;\n"
+		body += '\t' * tabs
+		body += "while ((s = r.readLine()) != null) out += s + \"\\n\";\n"
+		body += '\t' * tabs
+		body += "r.close();\n\n"
+
+		body += '\t' * tabs
+		body += "r = new BufferedReader(new FileReader(\"%s\"));\n" % prog_out_fpath
+		body += ('\t' * tabs) + "try {\n"
+
+		body += '\t' * (tabs + 1)
+		body += "String ex = \"\";\n"
+		body += '\t' * (tabs + 1)
+		body += "while ((s = r.readLine()) != null) ex += s + \"\\n\";\n\n"
+
+		body += '\t' * (tabs + 1)
+		body += "assertEquals(ex, out);\n"
+
+		body += ('\t' * tabs) + "} finally {\n"
+		body += '\t' * (tabs + 1)
+		body += "r.close();\n"
+		body += ('\t' * tabs) + "}"
+
+		return body
+
 	test_name = to_test_name(prog_fname)
 
 	if is_other_groups_test(prog_fpath):
@@ -323,13 +387,24 @@ def create_test_method_str(prog_fname, prog_fpath, tpe, ref):
 			["SymbolTableException", "TypeCheckException"], prog_fpath, 2)
 	elif tpe == 'gen':
 		method_body = create_gen_method_body(prog_fpath, 2)
+	elif tpe == 'jvm':
+		method_body = create_gen_method_body(prog_fpath, 2, True)
+	elif tpe == 'c':
+		method_body = create_gen_method_body(prog_fpath, 2, c=True)
+	elif tpe == 'run':
+		method_body = create_run_method_body(prog_fpath, 2)
+	elif tpe == 'vm':
+		method_body = create_run_method_body(prog_fpath, 2, "runVm")
+	elif tpe == 'java':
+		method_body = create_run_method_body(prog_fpath, 2, "runJava")
 	else:
 		raise ValueError("'tpe' argument must be 'valid_parse', "
-			"'invalid_parse', 'pretty', 'valid_type', or 'invalid_type'.")
+			"'invalid_parse', 'pretty', 'valid_type', 'invalid_type', 'gen', "
+			"'jvm', 'c', 'run', 'vm' or 'java'.")
 
 	test_method_str = "\t@Test\n"
 	test_method_str += "\tpublic void %s() " % test_name
-	if ref or tpe == 'gen':
+	if ref or tpe in ('gen', 'jvm', 'c', 'run', 'vm', 'java'):
 		test_method_str += "throws IOException, InterruptedException, "
 		test_method_str += "LexerException, ParserException {\n"
 	else:
@@ -363,8 +438,12 @@ def create_test(test_name, progs_dirpaths, tpe, ref, test_ignore_path,
 		'invalid_parse' for testing no parse is produced for the program,
 		'pretty' for testing the pretty printer on the program, 'valid_type'
 		for testing the correct type check of the program, 'invalid_type' for
-		testing type check flags the program, or 'gen' for testing the correct
-		output of generated Python code after compilation
+		testing type check flags the program, 'gen' for testing the correct
+		output of generated Python code after compilation, 'jvm' for
+		testing the correct output of generated JVM bytecode, 'run' for
+		testing the correct output of the interpreter, 'vm' for testing the
+		correct output of the register VM, or 'java' for testing the correct
+		output of generated Java code compiled in memory
 	@param ref - If True, then the test is built for the reference compiler,
 		otherwise it's build for the GoLite compiler
 	@param test_ignore_path - Filepath to test ignore file, listing filepaths to
@@ -491,6 +570,51 @@ def main():
 			args.ignore_path, os.path.join(OUT_TEST_DIRPATH,
 				'%s.java' % OUT_GEN_TNAME))
 
+	# Create the JVM bytecode generator test (but not for the reference
+	# compiler), against the same expected outputs.
+	if not args.ref:
+		logging.info("Creating JVM bytecode generator tests...")
+		create_test(OUT_JVM_TNAME,
+			[VALID_ACTUAL_PROGS_DIRPATH, VALID_GEN_PROGS_DIRPATH], 'jvm', False,
+			args.ignore_path, os.path.join(OUT_TEST_DIRPATH,
+				'%s.java' % OUT_JVM_TNAME))
+
+	# Create the C code generator test (but not for the reference compiler),
+	# against the same expected outputs.
+	if not args.ref:
+		logging.info("Creating C code generator tests...")
+		create_test(OUT_C_TNAME,
+			[VALID_ACTUAL_PROGS_DIRPATH, VALID_GEN_PROGS_DIRPATH], 'c', False,
+			args.ignore_path, os.path.join(OUT_TEST_DIRPATH,
+				'%s.java' % OUT_C_TNAME))
+
+	# Create the interpreter test (but not for the reference compiler), against
+	# the same expected outputs.
+	if not args.ref:
+		logging.info("Creating interpreter tests...")
+		create_test(OUT_RUN_TNAME,
+			[VALID_ACTUAL_PROGS_DIRPATH, VALID_GEN_PROGS_DIRPATH], 'run', False,
+			args.ignore_path, os.path.join(OUT_TEST_DIRPATH,
+				'%s.java' % OUT_RUN_TNAME))
+
+	# Create the register VM test (but not for the reference compiler), against
+	# the same expected outputs.
+	if not args.ref:
+		logging.info("Creating register VM tests...")
+		create_test(OUT_VM_TNAME,
+			[VALID_ACTUAL_PROGS_DIRPATH, VALID_GEN_PROGS_DIRPATH], 'vm', False,
+			args.ignore_path, os.path.join(OUT_TEST_DIRPATH,
+				'%s.java' % OUT_VM_TNAME))
+
+	# Create the Java code generator test (but not for the reference
+	# compiler), against the same expected outputs.
+	if not args.ref:
+		logging.info("Creating Java code generator tests...")
+		create_test(OUT_JAVA_TNAME,
+			[VALID_ACTUAL_PROGS_DIRPATH, VALID_GEN_PROGS_DIRPATH], 'java', False,
+			args.ignore_path, os.path.join(OUT_TEST_DIRPATH,
+				'%s.java' % OUT_JAVA_TNAME))
+
 	# Read in the test suite template.
 	with open(SUITE_TEMPALTE_FPATH) as fin:
 		suite_str = fin.read()
@@ -505,10 +629,11 @@ def main():
 	else:
 		suite_str = suite_str.replace(
 			to_template_marker("INSERT TEST CLASSES HERE"),
-			"%s.class,\n\t%s.class,\n\t%s.class,\n\t%s.class,\n\t%s.class,\n\t%s.class" %
+			"%s.class,\n\t%s.class,\n\t%s.class,\n\t%s.class,\n\t%s.class,\n\t%s.class,\n\t%s.class,\n\t%s.class,\n\t%s.class,\n\t%s.class,\n\t%s.class" %
 				(OUT_VALID_PARSE_TNAME, OUT_INVALID_PARSE_TNAME,
 					OUT_PRETTY_TNAME, OUT_VALID_TYPE_TNAME,
-					OUT_INVALID_TYPE_TNAME, OUT_GEN_TNAME))
+					OUT_INVALID_TYPE_TNAME, OUT_GEN_TNAME, OUT_JVM_TNAME,
+					OUT_C_TNAME, OUT_RUN_TNAME, OUT_VM_TNAME, OUT_JAVA_TNAME))
 
 	# Save the test suite source to file.
 	with open(OUT_SUITE_FPATH, 'w') as fout:
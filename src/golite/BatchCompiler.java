@@ -0,0 +1,286 @@
+package golite;
+
+import golite.exception.SymbolTableException;
+import golite.exception.TypeCheckException;
+import golite.exception.WeederException;
+import golite.lexer.*;
+import golite.parser.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+
+/**
+ * Batch compiler. Compiles every GoLite program under the given files, directories or globs
+ * concurrently on a fork-join pool, each program in its own compilation unit (with its own weeder,
+ * symbol table, type checker and code generator), and reports which programs are valid along with
+ * the time spent in each phase.
+ */
+class BatchCompiler {
+
+    // Phases, in order.
+    final static int PARSE = 0;
+    final static int WEED = 1;
+    final static int TYPE = 2;
+    final static int GEN = 3;
+
+    // Phase names, indexed by phase (with -ut, building the symbol table counts as type checking).
+    private final static String[] PHASE_NAMES = { "parse", "weed", "type", "gen" };
+
+    /**
+     * Result of compiling a single program.
+     */
+    private static class Result {
+
+        /** Filepath to the program. */
+        private final String path;
+        /** Error, or null if the program is valid. */
+        private String error;
+        /** Nanoseconds spent in each phase. */
+        private final long[] phaseTimes = new long[PHASE_NAMES.length];
+
+        /**
+         * Constructor.
+         *
+         * @param path - Filepath to the program
+         */
+        public Result(String path) {
+            this.path = path;
+        }
+
+    }
+
+    /**
+     * Compiles a range of programs, splitting it until a single program is left.
+     */
+    private class CompileAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Range of results to fill in. */
+        private final int lo, hi;
+
+        /**
+         * Constructor.
+         */
+        public CompileAction(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.hi - this.lo == 1) {
+                compile(results.get(this.lo));
+            } else {
+                int mid = (this.lo + this.hi) >>> 1;
+                invokeAll(new CompileAction(this.lo, mid), new CompileAction(mid, this.hi));
+            }
+        }
+
+    }
+
+    /** Last phase to run. */
+    private final int lastPhase;
+    /** Flag indicating whether top-declarations are allowed to be unordered. */
+    private final boolean ut;
+    /** Flag indicating whether to enforce wrap-arounds for integers in generated code. */
+    private final boolean wrap;
+    /** Results, one per program. */
+    private final List<Result> results = new ArrayList<Result>();
+
+    /**
+     * Constructor.
+     *
+     * @param lastPhase - Last phase to run (at least WEED, like '-parse')
+     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
+     * @param wrap - Flag indicating whether to enforce wrap-arounds for integers at the cost of
+     *  slower code
+     */
+    public BatchCompiler(int lastPhase, boolean ut, boolean wrap) {
+        this.lastPhase = Math.max(lastPhase, WEED);
+        this.ut = ut;
+        this.wrap = wrap;
+    }
+
+    /**
+     * Compiles every program under the given files, directories or globs and prints the report to
+     * stdout. Generated code is written next to each program, as 'foo.golite.py' for 'foo.go'.
+     *
+     * @param paths - Files, directories (searched recursively for '.go' files) or globs
+     * @return Exit status
+     * @throws IOException
+     */
+    public int run(String[] paths) throws IOException {
+        for (String path : expand(paths))
+            this.results.add(new Result(path));
+
+        long start = System.nanoTime();
+        if (!this.results.isEmpty()) {
+            ForkJoinPool pool = new ForkJoinPool();
+            try {
+                pool.invoke(new CompileAction(0, this.results.size()));
+            } finally {
+                pool.shutdown();
+            }
+        }
+        long wallTime = System.nanoTime() - start;
+
+        report(wallTime);
+        return 0;
+    }
+
+    /**
+     * Expands the given files, directories and globs into a sorted list of program filepaths.
+     *
+     * @param paths - Files, directories or globs
+     * @return Program filepaths
+     * @throws IOException
+     */
+    private static List<String> expand(String[] paths) throws IOException {
+        TreeSet<String> programs = new TreeSet<String>();
+
+        for (String path : paths) {
+            if (path.indexOf('*') >= 0 || path.indexOf('?') >= 0 || path.indexOf('[') >= 0
+                    || path.indexOf('{') >= 0) {
+                // Walk from the deepest directory without wildcards.
+                int wildcard = path.length();
+                for (char c : "*?[{".toCharArray()) {
+                    if (path.indexOf(c) >= 0)
+                        wildcard = Math.min(wildcard, path.indexOf(c));
+                }
+
+                int slash = path.lastIndexOf(File.separatorChar, wildcard);
+                Path root = Paths.get(slash < 0 ? "." : path.substring(0, slash + 1));
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:"
+                    + (slash < 0 ? "./" + path : path));
+
+                if (Files.isDirectory(root))
+                    addPrograms(root, matcher, programs);
+            } else if (new File(path).isDirectory()) {
+                addPrograms(Paths.get(path),
+                    FileSystems.getDefault().getPathMatcher("glob:**.go"), programs);
+            } else if (new File(path).exists())
+                programs.add(path);
+            else
+                throw new IOException(path + " does not exist");
+        }
+
+        return new ArrayList<String>(programs);
+    }
+
+    /**
+     * Adds the regular files under the given directory that match the given matcher.
+     */
+    private static void addPrograms(Path root, PathMatcher matcher, TreeSet<String> programs)
+            throws IOException {
+        try (Stream<Path> walk = Files.walk(root)) {
+            Iterator<Path> it = walk.iterator();
+            while (it.hasNext()) {
+                Path p = it.next();
+                if (Files.isRegularFile(p) && matcher.matches(p))
+                    programs.add(p.toString());
+            }
+        }
+    }
+
+    /**
+     * Compiles a single program up to the last phase, recording the outcome and phase timings.
+     * Everything it uses is local to the call, so programs can be compiled concurrently.
+     *
+     * @param result - Result to fill in
+     */
+    private void compile(Result result) {
+        CompilationUnit unit = new CompilationUnit(result.path, this.ut);
+        long t = System.nanoTime();
+
+        try {
+            unit.getAST();
+            t = lap(result, PARSE, t);
+
+            unit.getWeededAST();
+            t = lap(result, WEED, t);
+
+            if (this.lastPhase < TYPE)
+                return;
+
+            unit.getTypeChecker();
+            t = lap(result, TYPE, t);
+
+            if (this.lastPhase < GEN)
+                return;
+
+            String path = result.path;
+            PrintWriter out = new PrintWriter(new FileWriter(
+                path.substring(0, path.lastIndexOf('.')) + ".golite.py"));
+            out.print(unit.getGeneratedCode(this.wrap));
+            out.close();
+            lap(result, GEN, t);
+        } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException e) {
+            result.error = e.toString();
+        } catch (IOException e) {
+            result.error = "IO ERROR: " + e.getMessage();
+        } catch (RuntimeException e) {
+            // A crash on one program mustn't take down the whole batch.
+            result.error = "ERROR: " + e;
+        }
+    }
+
+    /**
+     * Records the time spent in a phase.
+     *
+     * @return Time at the end of the phase
+     */
+    private static long lap(Result result, int phase, long start) {
+        long end = System.nanoTime();
+        result.phaseTimes[phase] = end - start;
+        return end;
+    }
+
+    /**
+     * Prints the outcome for every program, the number of valid and invalid programs, and the
+     * total time spent in each phase (summed over all programs) and overall.
+     */
+    private void report(long wallTime) {
+        int valid = 0;
+        long[] phaseTimes = new long[PHASE_NAMES.length];
+
+        for (Result result : this.results) {
+            if (result.error == null) {
+                System.out.println(Main.VALID_MESSAGE + " " + result.path);
+                valid++;
+            } else
+                System.out.println(Main.INVALID_MESSAGE + " " + result.path + ": " + result.error);
+
+            for (int i = 0; i < phaseTimes.length; i++)
+                phaseTimes[i] += result.phaseTimes[i];
+        }
+
+        System.out.println();
+        System.out.println(Main.VALID_MESSAGE + ": " + valid + "/" + this.results.size());
+        System.out.println(Main.INVALID_MESSAGE + ": " + (this.results.size() - valid) + "/"
+            + this.results.size());
+
+        for (int i = 0; i <= this.lastPhase; i++)
+            System.out.println(String.format("%-7s %8.1f ms", PHASE_NAMES[i] + ":",
+                phaseTimes[i] / 1e6));
+
+        System.out.println(String.format("%-7s %8.1f ms (%d threads)", "wall:", wallTime / 1e6,
+            Runtime.getRuntime().availableProcessors()));
+    }
+
+}
@@ -0,0 +1,383 @@
+package golite;
+
+import golite.c.CGenerator;
+import golite.exception.SymbolTableException;
+import golite.exception.TypeCheckException;
+import golite.exception.WeederException;
+import golite.generator.CodeGenerator;
+import golite.interp.Interpreter;
+import golite.java.JavaGenerator;
+import golite.java.JavaProgram;
+import golite.java.MemoryCompiler;
+import golite.jvm.BytecodeGenerator;
+import golite.symbol.SymbolTable;
+import golite.symbol.SymbolTableBuilder;
+import golite.type.TypeChecker;
+import golite.type.TypeTable;
+import golite.vm.Lowering;
+import golite.vm.Program;
+import golite.lexer.*;
+import golite.node.*;
+import golite.parser.*;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Map;
+
+
+/**
+ * Compilation unit. Runs each phase of the compiler on a GoLite program at most once, on demand,
+ * and memoizes its products (AST, weeded AST, symbol table, type table, generated Python, C and
+ * Java code, class files, Java program, interpreter and register VM program) so that any number
+ * of artifacts can be derived from a single parse. A phase that failed rethrows the same error
+ * when asked again.
+ */
+public class CompilationUnit {
+
+    /** Filepath to the program (null if the program was given as a string). */
+    private final String path;
+    /** Program source (null if the program is read from file). */
+    private final String source;
+    /** Flag indicating whether top-declarations are allowed to be unordered. */
+    private final boolean ut;
+
+    /** AST, once parsed. */
+    private Start ast;
+    /** Whether the AST passed weeding. */
+    private boolean weeded;
+    /** Type checker, once the AST passed type checking. */
+    private TypeChecker typeChecker;
+    /** Generated code, without and with wrap-arounds for integers. */
+    private String code, safeCode;
+    /** Generated C code. */
+    private String cCode;
+    /** Generated Java code, and the program compiled from it. */
+    private String javaCode;
+    private JavaProgram javaProgram;
+    /** Class files generated for the JVM. */
+    private Map<String, byte[]> classFiles;
+    /** Interpreter built for the program. */
+    private Interpreter interpreter;
+    /** Program lowered for the register VM. */
+    private Program program;
+    /** Log of the calls inlined by the code generator. */
+    private String inlineLog;
+    /** Error of the first phase that failed. */
+    private Exception error;
+
+    /**
+     * Constructor.
+     *
+     * @param path - Filepath to GoLite program
+     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
+     */
+    public CompilationUnit(String path, boolean ut) {
+        this(path, null, ut);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param path - Filepath to GoLite program (may be null)
+     * @param source - Program source
+     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
+     */
+    public CompilationUnit(String path, String source, boolean ut) {
+        this.path = path;
+        this.source = source;
+        this.ut = ut;
+    }
+
+    /**
+     * Getter.
+     */
+    public String getPath() {
+        return this.path;
+    }
+
+    /**
+     * Returns the AST of the program, as parsed.
+     *
+     * @return AST
+     * @throws IOException
+     * @throws LexerException
+     * @throws ParserException
+     */
+    public Start getAST() throws IOException, LexerException, ParserException {
+        if (this.ast == null) {
+            this.rethrow();
+
+            Reader reader = this.source == null ? new FileReader(this.path)
+                : new StringReader(this.source);
+
+            try {
+                this.ast = new Parser(new GoLiteLexer(new PushbackReader(reader, 1024))).parse();
+            } catch (LexerException|ParserException e) {
+                this.error = e;
+                throw e;
+            } finally {
+                reader.close();
+            }
+        }
+
+        return this.ast;
+    }
+
+    /**
+     * Returns the AST of the program, after checking it passes weeding.
+     *
+     * @return AST
+     * @throws IOException
+     * @throws LexerException
+     * @throws ParserException
+     * @throws WeederException
+     */
+    public Start getWeededAST() throws IOException, LexerException, ParserException {
+        Start ast = this.getAST();
+
+        if (!this.weeded) {
+            this.rethrow();
+
+            try {
+                ast.apply(new Weeder());
+            } catch (WeederException e) {
+                this.error = e;
+                throw e;
+            }
+
+            this.weeded = true;
+        }
+
+        return ast;
+    }
+
+    /**
+     * Returns the type checker that type checked the program, which holds the symbol table and type
+     * table.
+     *
+     * @return Type checker
+     * @throws IOException
+     * @throws LexerException
+     * @throws ParserException
+     * @throws WeederException
+     * @throws SymbolTableException
+     * @throws TypeCheckException
+     */
+    public TypeChecker getTypeChecker() throws IOException, LexerException, ParserException {
+        Start ast = this.getWeededAST();
+
+        if (this.typeChecker == null) {
+            this.rethrow();
+
+            try {
+                TypeChecker typeChecker = null;
+                if (this.ut) {
+                    SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder();
+                    ast.apply(symbolTableBuilder);
+
+                    typeChecker = new TypeChecker(symbolTableBuilder.getTable());
+                } else
+                    typeChecker = new TypeChecker();
+
+                ast.apply(typeChecker);
+                this.typeChecker = typeChecker;
+            } catch (SymbolTableException|TypeCheckException e) {
+                this.error = e;
+                throw e;
+            }
+        }
+
+        return this.typeChecker;
+    }
+
+    /**
+     * Returns the symbol table of the type checked program.
+     *
+     * @return Symbol table
+     * @throws IOException
+     * @throws LexerException
+     * @throws ParserException
+     */
+    public SymbolTable getSymbolTable() throws IOException, LexerException, ParserException {
+        return this.getTypeChecker().getSymbolTable();
+    }
+
+    /**
+     * Returns the type table of the type checked program.
+     *
+     * @return Type table
+     * @throws IOException
+     * @throws LexerException
+     * @throws ParserException
+     */
+    public TypeTable getTypeTable() throws IOException, LexerException, ParserException {
+        return this.getTypeChecker().getTypeTable();
+    }
+
+    /**
+     * Returns the Python code generated for the program.
+     *
+     * @param wrap - Flag indicating whether to enforce wrap-arounds for integers at the cost of
+     *  slower code
+     * @return Generated code
+     * @throws IOException
+     * @throws LexerException
+     * @throws ParserException
+     */
+    public String getGeneratedCode(boolean wrap)
+            throws IOException, LexerException, ParserException {
+        if ((wrap ? this.safeCode : this.code) == null) {
+            CodeGenerator codeGenerator = new CodeGenerator(this.getTypeTable(), wrap);
+            this.getAST().apply(codeGenerator);
+            this.inlineLog = codeGenerator.getInlineLog();
+
+            if (wrap)
+                this.safeCode = codeGenerator.getGeneratedCode();
+            else
+                this.code = codeGenerator.getGeneratedCode();
+        }
+
+        return wrap ? this.safeCode : this.code;
+    }
+
+    /**
+     * Returns the C code generated for the program.
+     *
+     * @return Generated C code
+     * @throws IOException
+     * @throws LexerException
+     * @throws ParserException
+     */
+    public String getCCode() throws IOException, LexerException, ParserException {
+        if (this.cCode == null) {
+            CGenerator cGenerator = new CGenerator(this.getTypeTable());
+            this.getAST().apply(cGenerator);
+            this.cCode = cGenerator.getGeneratedCode();
+        }
+
+        return this.cCode;
+    }
+
+    /**
+     * Returns the Java code generated for the program.
+     *
+     * @return Generated Java code
+     * @throws IOException
+     * @throws LexerException
+     * @throws ParserException
+     */
+    public String getJavaCode() throws IOException, LexerException, ParserException {
+        if (this.javaCode == null) {
+            JavaGenerator javaGenerator = new JavaGenerator(this.getTypeTable());
+            this.getAST().apply(javaGenerator);
+            this.javaCode = javaGenerator.getGeneratedCode();
+        }
+
+        return this.javaCode;
+    }
+
+    /**
+     * Returns the program compiled in memory from the generated Java code, to run it in this JVM.
+     *
+     * @return Java program
+     * @throws IOException if the Java code can't be compiled
+     * @throws LexerException
+     * @throws ParserException
+     */
+    public JavaProgram getJavaProgram() throws IOException, LexerException, ParserException {
+        if (this.javaProgram == null) {
+            this.javaProgram = new JavaProgram(MemoryCompiler.compile(JavaGenerator.CLASS_NAME,
+                this.getJavaCode()));
+        }
+
+        return this.javaProgram;
+    }
+
+    /**
+     * Returns the JVM class files generated for the program.
+     *
+     * @return Class file bytes, by internal class name
+     * @throws IOException
+     * @throws LexerException
+     * @throws ParserException
+     */
+    public Map<String, byte[]> getClassFiles()
+            throws IOException, LexerException, ParserException {
+        if (this.classFiles == null) {
+            BytecodeGenerator bytecodeGenerator = new BytecodeGenerator(this.getTypeTable());
+            this.getAST().apply(bytecodeGenerator);
+            this.classFiles = bytecodeGenerator.getClassFiles();
+        }
+
+        return this.classFiles;
+    }
+
+    /**
+     * Returns an interpreter for the program, to run it in this JVM.
+     *
+     * @return Interpreter
+     * @throws IOException
+     * @throws LexerException
+     * @throws ParserException
+     */
+    public Interpreter getInterpreter() throws IOException, LexerException, ParserException {
+        if (this.interpreter == null) {
+            Interpreter interpreter = new Interpreter(this.getTypeTable());
+            this.getAST().apply(interpreter);
+            this.interpreter = interpreter;
+        }
+
+        return this.interpreter;
+    }
+
+    /**
+     * Returns the program lowered for the register VM.
+     *
+     * @return Register VM program
+     * @throws IOException
+     * @throws LexerException
+     * @throws ParserException
+     */
+    public Program getProgram() throws IOException, LexerException, ParserException {
+        if (this.program == null) {
+            Lowering lowering = new Lowering(this.getTypeTable());
+            this.getAST().apply(lowering);
+            this.program = lowering.getProgram();
+        }
+
+        return this.program;
+    }
+
+    /**
+     * Returns the log of the calls inlined in the generated code, which are the same with or without
+     * wrap-arounds.
+     *
+     * @return Inline log
+     * @throws IOException
+     * @throws LexerException
+     * @throws ParserException
+     */
+    public String getInlineLog() throws IOException, LexerException, ParserException {
+        if (this.inlineLog == null)
+            this.getGeneratedCode(false);
+
+        return this.inlineLog;
+    }
+
+    /**
+     * Rethrows the recorded error, if any. Phases only record errors when they fail and the phases
+     * before them passed, so a phase whose product is missing rethrows its own error.
+     */
+    private void rethrow() throws LexerException, ParserException {
+        if (this.error instanceof LexerException)
+            throw (LexerException) this.error;
+        else if (this.error instanceof ParserException)
+            throw (ParserException) this.error;
+        else if (this.error instanceof RuntimeException)
+            throw (RuntimeException) this.error;
+    }
+
+}
@@ -1,22 +1,29 @@
 package golite;
 
+import golite.c.CCompiler;
+import golite.exception.InterpreterException;
 import golite.exception.SymbolTableException;
 import golite.exception.TypeCheckException;
 import golite.exception.WeederException;
-import golite.generator.CodeGenerator;
-import golite.symbol.SymbolTable;
-import golite.symbol.SymbolTableBuilder;
-import golite.type.TypeChecker;
+import golite.jvm.JarWriter;
+import golite.vm.Disassembler;
+import golite.vm.VM;
 import golite.lexer.*;
 import golite.node.*;
 import golite.parser.*;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.io.PushbackReader;
+import java.util.ArrayList;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -32,10 +39,36 @@ import org.apache.commons.cli.ParseException;
 class Main {
 
     // Valid/Invalid messages to print for phase checks on programs.
-    private final static String VALID_MESSAGE = "VALID";
-    private final static String INVALID_MESSAGE = "INVALID";
+    final static String VALID_MESSAGE = "VALID";
+    final static String INVALID_MESSAGE = "INVALID";
+
+    // Paths of the files written while handling the current request.
+    private static ArrayList<String> outputPaths = new ArrayList<String>();
 
     public static void main(String args[]) {
+        if (args.length == 1 && args[0].equals("-server")) {
+            try {
+                serve();
+            } catch (IOException e) {
+                System.err.println("IO ERROR: " + e.getMessage());
+                System.exit(-1);
+            }
+
+            return;
+        }
+
+        int status = run(args);
+        if (status != 0)
+            System.exit(status);
+    }
+
+    /**
+     * Runs the compiler on the given command-line arguments.
+     *
+     * @param args - Command-line arguments
+     * @return Exit status
+     */
+    private static int run(String args[]) {
         // Create the command-line parser.
         CommandLineParser parser = new PosixParser();
 
@@ -52,23 +85,41 @@ class Main {
         options.addOption("dumpsymtab", false, "dump the program symbol table to file");
         options.addOption("pptype", false, "typed pretty print the program to file");
         options.addOption("gen", false, "compile and generate Python code");
+        options.addOption("dumpinline", false, "dump the calls inlined by -gen to file");
+        options.addOption("jvm", false, "compile to JVM bytecode, in an executable jar");
+        options.addOption("c", false, "compile to C, and with the C compiler to an executable");
+        options.addOption("run", false, "compile and run the program in the compiler's JVM");
+        options.addOption("bytecode", false, "dump the register VM bytecode of the program to " +
+            "file");
+        options.addOption("vm", false, "compile and run the program on the register VM");
+        options.addOption("java", false, "compile to Java, and run it in the compiler's JVM once " +
+            "compiled in memory");
 
         options.addOption("safe", false,
             "enforce wrap-arounds for integers (slows down generated code)");
         options.addOption("ut", false, "allow top-level declarations to be unordered");
         options.addOption("help", false, "display help");
+        options.addOption("batch", false,
+            "compile all the programs under the given files, directories or globs concurrently " +
+            "(up to -parse, -type (default) or -gen)");
+        options.addOption("server", false,
+            "keep compiling the requests read from stdin, one command line per line");
 
         CommandLine parsed = null;
         try {
             parsed = parser.parse(options, args, false);
         } catch (ParseException e) {
             System.err.println("Parsing failed. ERROR: " + e.getMessage());
+            return -1;
         }
 
-        // Throw an error if the number of arguments passed is off.
-        if (args.length < 1 || args.length > 4) {
+        if (parsed.hasOption("batch"))
+            return batch(parsed);
+
+        // Throw an error if no arguments were passed.
+        if (args.length < 1) {
             printUsage();
-            System.exit(-1);
+            return -1;
         }
 
         // Make sure the last argument corresponds to a program that exists, otherwise throw an
@@ -77,13 +128,13 @@ class Main {
         if (!programPath.equals("-help") && !new File(programPath).exists()) {
             System.err.println("Parsing failed. ERROR: " + programPath + " does not exist ");
             printUsage();
-            System.exit(-1);
+            return -1;
         }
 
         // Make sure the passed filepath points to a file and not a directory.
         if (new File(programPath).isDirectory()) {
             System.err.println("Parsing failed. ERROR: Expecting a file, not a directory");
-            System.exit(-1);
+            return -1;
         }
 
         // Flag for whether top declarations are allowed in any order or not.
@@ -92,43 +143,128 @@ class Main {
         // of really slow code.
         boolean safe = parsed.hasOption("safe");
 
+        // All the requested phases share a single compilation unit, so the program is parsed,
+        // weeded and type checked at most once however many outputs are asked for.
+        CompilationUnit unit = new CompilationUnit(programPath, ut);
+        boolean requested = false;
+        boolean ok = true;
+
         try {
             if (parsed.hasOption("scan")) {
                 if (scan(programPath))
                     System.out.println(VALID_MESSAGE);
                 else
                     System.out.println(INVALID_MESSAGE);
-            } else if (parsed.hasOption("tokens"))
+                requested = true;
+            }
+            if (parsed.hasOption("tokens")) {
                 displayTokens(programPath);
-            else if (parsed.hasOption("parse")) {
-                if (parse(programPath))
+                requested = true;
+            }
+            if (parsed.hasOption("parse")) {
+                if (parse(unit))
                     System.out.println(VALID_MESSAGE);
                 else
                     System.out.println(INVALID_MESSAGE);
-            } else if (parsed.hasOption("pretty"))
-                prettyPrint(programPath);
-            else if (parsed.hasOption("ast"))
-                printAST(programPath);
-            else if (parsed.hasOption("type")) {
-                if (typeCheck(programPath, ut))
+                requested = true;
+            }
+            if (parsed.hasOption("pretty")) {
+                prettyPrint(unit);
+                requested = true;
+            }
+            if (parsed.hasOption("ast")) {
+                printAST(unit);
+                requested = true;
+            }
+            if (parsed.hasOption("type")) {
+                if (typeCheck(unit))
                     System.out.println(VALID_MESSAGE);
                 else
                     System.out.println(INVALID_MESSAGE);
-            } else if (parsed.hasOption("dumpsymtab"))
-                dumpSymbolTable(programPath, ut);
-            else if (parsed.hasOption("pptype"))
-                typedPrettyPrint(programPath, ut);
-            else if (parsed.hasOption("gen"))
-                generateCode(programPath, ut, safe);
-            else if (parsed.hasOption("help"))
-                new HelpFormatter().printHelp("GoLite Compiler", options);
-            else {
-                printUsage();
-                System.exit(-1);
+                requested = true;
+            }
+            if (parsed.hasOption("dumpsymtab")) {
+                ok = dumpSymbolTable(unit) && ok;
+                requested = true;
+            }
+            if (parsed.hasOption("pptype")) {
+                ok = typedPrettyPrint(unit) && ok;
+                requested = true;
+            }
+            if (parsed.hasOption("gen")) {
+                ok = generateCode(unit, safe) && ok;
+                requested = true;
+            }
+            if (parsed.hasOption("dumpinline")) {
+                ok = dumpInlineLog(unit) && ok;
+                requested = true;
+            }
+            if (parsed.hasOption("jvm")) {
+                ok = generateJar(unit) && ok;
+                requested = true;
             }
+            if (parsed.hasOption("c")) {
+                ok = generateExecutable(unit) && ok;
+                requested = true;
+            }
+            if (parsed.hasOption("run")) {
+                ok = run(unit) && ok;
+                requested = true;
+            }
+            if (parsed.hasOption("bytecode")) {
+                ok = dumpBytecode(unit) && ok;
+                requested = true;
+            }
+            if (parsed.hasOption("vm")) {
+                ok = runVM(unit) && ok;
+                requested = true;
+            }
+            if (parsed.hasOption("java")) {
+                ok = runJava(unit) && ok;
+                requested = true;
+            }
+
+            if (!requested) {
+                if (parsed.hasOption("help"))
+                    new HelpFormatter().printHelp("GoLite Compiler", options);
+                else {
+                    printUsage();
+                    return -1;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("IO ERROR: " + e.getMessage());
+            return -1;
+        }
+
+        return ok ? 0 : -1;
+    }
+
+    /**
+     * Compiles a batch of programs concurrently.
+     *
+     * @param parsed - Parsed command-line, where the remaining arguments are the files,
+     *  directories or globs to compile
+     * @return Exit status
+     */
+    private static int batch(CommandLine parsed) {
+        if (parsed.getArgs().length == 0) {
+            printUsage();
+            return -1;
+        }
+
+        int lastPhase = BatchCompiler.TYPE;
+        if (parsed.hasOption("parse"))
+            lastPhase = BatchCompiler.WEED;
+        else if (parsed.hasOption("gen"))
+            lastPhase = BatchCompiler.GEN;
+
+        try {
+            return new BatchCompiler(lastPhase, parsed.hasOption("ut"), parsed.hasOption("safe"))
+                .run(parsed.getArgs());
         } catch (IOException e) {
             System.err.println("IO ERROR: " + e.getMessage());
-            System.exit(-1);
+            return -1;
         }
     }
 
@@ -137,7 +273,105 @@ class Main {
      */
     private static void printUsage() {
         System.err.println("Usage: java golite.Main -<scan | tokens | parse | pretty | ast | " +
-            "type | dumpsymtab | pptype | gen | help> filepath");
+            "type | dumpsymtab | pptype | gen | dumpinline | jvm | c | run | bytecode | vm | " +
+            "java | help> filepath");
+        System.err.println("       java golite.Main -batch [-parse | -type | -gen] [-safe] [-ut] " +
+            "path...");
+        System.err.println("       java golite.Main -server");
+    }
+
+    /**
+     * Serves compile requests read from stdin until EOF (or a 'quit' line), so that a single warmed
+     * up JVM handles any number of programs. Each request is a command line without the 'java
+     * golite.Main' part (e.g. '-gen -safe foo.go'): options (words starting with '-') followed by a
+     * single path, taken as the rest of the line so that it may contain spaces (a -batch request
+     * gets one file, directory or glob). The response consists of the request's stdout and stderr
+     * lines prefixed by 'OUT ' and 'ERR ' respectively, a 'FILE <path>' line for every file
+     * written, and a final 'END <exit status>' line.
+     *
+     * @throws IOException
+     */
+    private static void serve() throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+
+        // Load the lexer and parser tables before the first request.
+        try {
+            new CompilationUnit(null, "package main\n", false).getAST();
+        } catch (LexerException|ParserException e) {
+            err.println("ERROR: " + e);
+        }
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty())
+                continue;
+            if (line.equals("quit"))
+                break;
+
+            ByteArrayOutputStream outBuffer = new ByteArrayOutputStream();
+            ByteArrayOutputStream errBuffer = new ByteArrayOutputStream();
+            System.setOut(new PrintStream(outBuffer, true));
+            System.setErr(new PrintStream(errBuffer, true));
+            outputPaths.clear();
+
+            int status;
+            try {
+                status = run(parseRequest(line));
+            } catch (RuntimeException e) {
+                System.err.println("ERROR: " + e);
+                status = -1;
+            } finally {
+                System.setOut(out);
+                System.setErr(err);
+            }
+
+            respond(out, "OUT ", outBuffer.toString());
+            respond(out, "ERR ", errBuffer.toString());
+            for (String path : outputPaths)
+                out.println("FILE " + path);
+            out.println("END " + status);
+            out.flush();
+        }
+    }
+
+    /**
+     * Splits a request line into arguments: the leading options, then the rest of the line as a
+     * single path.
+     *
+     * @param line - Request line, trimmed
+     * @return Command-line arguments
+     */
+    private static String[] parseRequest(String line) {
+        ArrayList<String> args = new ArrayList<String>();
+        String rest = line;
+        while (rest.startsWith("-")) {
+            String[] words = rest.split("\\s+", 2);
+            args.add(words[0]);
+            rest = words.length > 1 ? words[1] : "";
+        }
+
+        if (!rest.isEmpty())
+            args.add(rest);
+
+        return args.toArray(new String[args.size()]);
+    }
+
+    /**
+     * Writes each line of the given text to the given stream, prefixed by the given tag.
+     *
+     * @param out - Stream to write to
+     * @param tag - Line prefix
+     * @param text - Text to write
+     */
+    private static void respond(PrintStream out, String tag, String text) {
+        if (text.isEmpty())
+            return;
+
+        for (String line : text.split("\\r?\\n"))
+            out.println(tag + line);
     }
 
     /**
@@ -196,19 +430,14 @@ class Main {
     /**
      * Parses a GoLite program.
      *
-     * @param inPath - Filepath to GoLite program to parse
+     * @param unit - Compilation unit of the GoLite program to parse
      * @return True if the program passed parsing, false otherwise (If false, prints the error to
      *  stderr as well)
      * @throws IOException
      */
-    private static boolean parse(String inPath) throws IOException {
+    private static boolean parse(CompilationUnit unit) throws IOException {
         try {
-            Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
-            Parser p = new Parser(lexer);
-            Weeder weeder = new Weeder();
-
-            Start ast = p.parse();
-            ast.apply(weeder);
+            unit.getWeededAST();
         } catch (LexerException|ParserException|WeederException e) {
             System.err.println("ERROR: " + e);
             return false;
@@ -221,22 +450,15 @@ class Main {
      * Pretty print a GoLite program to file. Given an input file of the form 'foo.go', the method
      * writes these results to 'foo.pretty.go'.
      *
-     * @param inPath - Filepath to GoLite program
+     * @param unit - Compilation unit of the GoLite program
      * @throws IOException
      */
-    private static void prettyPrint(String inPath) throws IOException {
+    private static void prettyPrint(CompilationUnit unit) throws IOException {
         try {
-            Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
-            Parser parser = new Parser(lexer);
-            Weeder weeder = new Weeder();
-
-            Start tree = parser.parse();
-            tree.apply(weeder);
-
             PrettyPrinter pp = new PrettyPrinter();
-            tree.apply(pp);
+            unit.getWeededAST().apply(pp);
 
-            dump(pp.getPrettyPrint(), inPath, ".pretty.go");
+            dump(pp.getPrettyPrint(), unit.getPath(), ".pretty.go");
         } catch (Exception e) {
             System.err.println("ERROR: " + e);
         }
@@ -245,18 +467,13 @@ class Main {
     /**
      * Print the AST a GoLite program in standard treebank format.
      *
-     * @param inPath - Filepath to GoLite program
+     * @param unit - Compilation unit of the GoLite program
      * @throws IOException
      */
-    private static void printAST(String inPath) throws IOException {
+    private static void printAST(CompilationUnit unit) throws IOException {
         try {
-            Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
-            Parser parser = new Parser(lexer);
-
-            Start tree = parser.parse();
-
             ASTEncoder encoder = new ASTEncoder();
-            tree.apply(encoder);
+            unit.getAST().apply(encoder);
 
             System.out.println(encoder.getEncoding());
         } catch (Exception e) {
@@ -267,31 +484,14 @@ class Main {
     /**
      * Type check a GoLite program.
      *
-     * @param inPath - Filepath to GoLite program
-     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
+     * @param unit - Compilation unit of the GoLite program
      * @return True if the program passes type checking, false otherwise (If false, prints the error to
      *  stderr as well)
      * @throws IOException
      */
-    private static boolean typeCheck(String inPath, boolean ut) throws IOException {
+    private static boolean typeCheck(CompilationUnit unit) throws IOException {
         try {
-            Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
-            Parser parser = new Parser(lexer);
-            Weeder weeder = new Weeder();
-
-            Start ast = parser.parse();
-            ast.apply(weeder);
-
-            TypeChecker typeChecker = null;
-            if (ut) {
-                SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder();
-                ast.apply(symbolTableBuilder);
-
-                typeChecker = new TypeChecker(symbolTableBuilder.getTable());
-            } else
-                typeChecker = new TypeChecker();
-
-            ast.apply(typeChecker);
+            unit.getTypeChecker();
         } catch (LexerException|ParserException|SymbolTableException|WeederException|TypeCheckException e) {
             System.err.println("ERROR: " + e);
             return false;
@@ -304,113 +504,215 @@ class Main {
      * Dumps the symbol table for a GoLite program. Given an input file of the form 'foo.go', the
      * method writes these results to 'foo.symtab'.
      *
-     * @param inPath - Filepath to GoLite program
-     * @param ut - Flag indicating whether top-declarations are allowed to be unordered.
+     * @param unit - Compilation unit of the GoLite program
+     * @return True if the symbol table was dumped, false otherwise (If false, prints the error to
+     *  stderr as well)
      * @throws IOException
      */
-    private static void dumpSymbolTable(String inPath, boolean ut) throws IOException {
+    private static boolean dumpSymbolTable(CompilationUnit unit) throws IOException {
         try {
-            Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
-            Parser parser = new Parser(lexer);
-            Weeder weeder = new Weeder();
+            dump(unit.getSymbolTable().getLog(), unit.getPath(), ".symtab");
+        } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException e) {
+            System.err.println("ERROR: " + e);
+            return false;
+        }
 
-            Start ast = parser.parse();
-            ast.apply(weeder);
+        return true;
+    }
 
-            TypeChecker typeChecker = null;
-            if (ut) {
-                SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder();
-                ast.apply(symbolTableBuilder);
+   /**
+     * Typed pretty print a GoLite program to file. Given an input file of the form 'foo.go', the
+     * method writes these results to 'foo.pptype.go'.
+     *
+     * @param unit - Compilation unit of the GoLite program
+     * @return True if the program was pretty printed, false otherwise (If false, prints the error
+     *  to stderr as well)
+     * @throws IOException
+     */
+    public static boolean typedPrettyPrint(CompilationUnit unit) throws IOException {
+        try {
+            TypedPrettyPrinter tpp = new TypedPrettyPrinter(unit.getTypeTable());
+            unit.getAST().apply(tpp);
 
-                typeChecker = new TypeChecker(symbolTableBuilder.getTable());
-            } else
-                typeChecker = new TypeChecker();
+            dump(tpp.getPrettyPrint(), unit.getPath(), ".pptype.go");
+        } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException e) {
+            System.err.println("ERROR: " + e);
+            return false;
+        }
 
-            ast.apply(typeChecker);
+        return true;
+    }
 
-            dump(typeChecker.getSymbolTable().getLog(), inPath, ".symtab");
+    /**
+     * Compile a GoLite program and generate the corresponding Python code to file. Given an input
+     * file of the form 'foo.go', the method writes these results to 'foo.golite.py'.
+     *
+     * @param unit - Compilation unit of the GoLite program
+     * @param wrap - Flag indicating whether to enforce wrap-arounds for integers at the cost of
+     *  slower code
+     * @return True if the code was generated, false otherwise (If false, prints the error to
+     *  stderr as well)
+     * @throws IOException
+     */
+    private static boolean generateCode(CompilationUnit unit, boolean wrap) throws IOException {
+        try {
+            dump(unit.getGeneratedCode(wrap), unit.getPath(), ".golite.py");
         } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException e) {
             System.err.println("ERROR: " + e);
-            System.exit(-1);
+            return false;
         }
+
+        return true;
     }
 
-   /**
-     * Typed pretty print a GoLite program to file. Given an input file of the form 'foo.go', the
-     * method writes these results to 'foo.pptype.go'.
+    /**
+     * Dumps the calls inlined in the code generated for a GoLite program. Given an input file of the
+     * form 'foo.go', the method writes these results to 'foo.inline'.
      *
-     * @param inPath - Filepath to GoLite program
-     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
+     * @param unit - Compilation unit of the GoLite program
+     * @return True if the log was dumped, false otherwise (If false, prints the error to stderr as
+     *  well)
      * @throws IOException
      */
-    public static void typedPrettyPrint(String inPath, boolean ut) throws IOException {
+    private static boolean dumpInlineLog(CompilationUnit unit) throws IOException {
         try {
-            Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
-            Parser parser = new Parser(lexer);
-            Weeder weeder = new Weeder();
+            dump(unit.getInlineLog(), unit.getPath(), ".inline");
+        } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException e) {
+            System.err.println("ERROR: " + e);
+            return false;
+        }
 
-            Start ast = parser.parse();
-            ast.apply(weeder);
+        return true;
+    }
 
-            TypeChecker typeChecker = null;
-            if (ut) {
-                SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder();
-                ast.apply(symbolTableBuilder);
+    /**
+     * Compile a GoLite program to JVM bytecode and write it to an executable jar. Given an input
+     * file of the form 'foo.go', the method writes the jar to 'foo.jar', which runs with
+     * 'java -jar foo.jar'.
+     *
+     * @param unit - Compilation unit of the GoLite program
+     * @return True if the jar was written, false otherwise (If false, prints the error to stderr
+     *  as well)
+     * @throws IOException
+     */
+    private static boolean generateJar(CompilationUnit unit) throws IOException {
+        try {
+            String filename = new File(unit.getPath()).getName();
+            String path = filename.substring(0, filename.indexOf('.')) + ".jar";
+            JarWriter.write(unit.getClassFiles(), new FileOutputStream(path));
 
-                typeChecker = new TypeChecker(symbolTableBuilder.getTable());
-            } else
-                typeChecker = new TypeChecker();
+            outputPaths.add(new File(path).getAbsolutePath());
+        } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException e) {
+            System.err.println("ERROR: " + e);
+            return false;
+        }
 
-            ast.apply(typeChecker);
+        return true;
+    }
 
-            TypedPrettyPrinter tpp = new TypedPrettyPrinter(typeChecker.getTypeTable());
-            ast.apply(tpp);
+    /**
+     * Compile a GoLite program to C and build an executable from it with the system C compiler.
+     * Given an input file of the form 'foo.go', the method writes the C code to 'foo.c' and the
+     * executable to 'foo'.
+     *
+     * @param unit - Compilation unit of the GoLite program
+     * @return True if the executable was built, false otherwise (If false, prints the error to
+     *  stderr as well)
+     * @throws IOException if the C compiler can't be run, or fails
+     */
+    private static boolean generateExecutable(CompilationUnit unit) throws IOException {
+        try {
+            dump(unit.getCCode(), unit.getPath(), ".c");
+
+            String filename = new File(unit.getPath()).getName();
+            String name = filename.substring(0, filename.indexOf('.'));
+            CCompiler.compile(new File(name + ".c"), new File(name));
 
-            dump(tpp.getPrettyPrint(), inPath, ".pptype.go");
+            outputPaths.add(new File(name).getAbsolutePath());
         } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException e) {
             System.err.println("ERROR: " + e);
-            System.exit(-1);
+            return false;
         }
+
+        return true;
     }
 
     /**
-     * Compile a GoLite program and generate the corresponding Python code to file. Given an input
-     * file of the form 'foo.go', the method writes these results to 'foo.golite.py'.
+     * Compiles a GoLite program and runs it with the interpreter, in this JVM, printing to stdout.
      *
-     * @param inPath - Filepath to GoLite program
-     * @param ut - Flag indicating whether top-declarations are allowed to be unordered
-     * @param wrap - Flag indicating whether to enforce wrap-arounds for integers at the cost of
-     *  slower code
+     * @param unit - Compilation unit of the GoLite program
+     * @return True if the program ran to completion, false otherwise (If false, prints the error
+     *  to stderr as well)
      * @throws IOException
      */
-    private static void generateCode(String inPath, boolean ut, boolean wrap) throws IOException {
+    private static boolean run(CompilationUnit unit) throws IOException {
         try {
-            Lexer lexer = new GoLiteLexer(new PushbackReader(new FileReader(inPath), 1024));
-            Parser parser = new Parser(lexer);
-            Weeder weeder = new Weeder();
+            unit.getInterpreter().run(System.out);
+        } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException|InterpreterException e) {
+            System.err.println("ERROR: " + e);
+            return false;
+        }
 
-            Start ast = parser.parse();
-            ast.apply(weeder);
+        return true;
+    }
 
-            TypeChecker typeChecker = null;
-            if (ut) {
-                SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder();
-                ast.apply(symbolTableBuilder);
+    /**
+     * Lowers a GoLite program for the register VM and dumps the listing of its bytecode. Given an
+     * input file of the form 'foo.go', the method writes the listing to 'foo.bytecode'.
+     *
+     * @param unit - Compilation unit of the GoLite program
+     * @return True if the program was lowered, false otherwise (If false, prints the error to
+     *  stderr as well)
+     * @throws IOException
+     */
+    private static boolean dumpBytecode(CompilationUnit unit) throws IOException {
+        try {
+            dump(Disassembler.disassemble(unit.getProgram()), unit.getPath(), ".bytecode");
+        } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException e) {
+            System.err.println("ERROR: " + e);
+            return false;
+        }
 
-                typeChecker = new TypeChecker(symbolTableBuilder.getTable());
-            } else
-                typeChecker = new TypeChecker();
+        return true;
+    }
 
-            ast.apply(typeChecker);
+    /**
+     * Compiles a GoLite program and runs it on the register VM, in this JVM, printing to stdout.
+     *
+     * @param unit - Compilation unit of the GoLite program
+     * @return True if the program ran to completion, false otherwise (If false, prints the error
+     *  to stderr as well)
+     * @throws IOException
+     */
+    private static boolean runVM(CompilationUnit unit) throws IOException {
+        try {
+            new VM(unit.getProgram()).run(System.out);
+        } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException|InterpreterException e) {
+            System.err.println("ERROR: " + e);
+            return false;
+        }
 
-            CodeGenerator codeGenerator = new CodeGenerator(typeChecker.getTypeTable(), wrap);
-            ast.apply(codeGenerator);
+        return true;
+    }
 
-            dump(codeGenerator.getGeneratedCode(), inPath, ".golite.py");
-        } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException e) {
+    /**
+     * Compiles a GoLite program to Java, compiles that in memory and runs it, in this JVM, printing
+     * to stdout.
+     *
+     * @param unit - Compilation unit of the GoLite program
+     * @return True if the program ran to completion, false otherwise (If false, prints the error
+     *  to stderr as well)
+     * @throws IOException if the Java code can't be compiled
+     */
+    private static boolean runJava(CompilationUnit unit) throws IOException {
+        try {
+            unit.getJavaProgram().run(System.out);
+        } catch (LexerException|ParserException|WeederException|SymbolTableException|TypeCheckException|InterpreterException e) {
             System.err.println("ERROR: " + e);
-            System.exit(-1);
+            return false;
         }
+
+        return true;
     }
 
     /**
@@ -427,6 +729,8 @@ class Main {
         PrintWriter out = new PrintWriter(new FileWriter(name + ext));
         out.print(data);
         out.close();
+
+        outputPaths.add(new File(name + ext).getAbsolutePath());
     }
 
 }
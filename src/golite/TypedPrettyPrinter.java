@@ -1,11 +1,10 @@
 package golite;
 
 import golite.type.GoLiteType;
+import golite.type.TypeTable;
 import golite.analysis.*;
 import golite.node.*;
 
-import java.util.HashMap;
-
 
 /**
  * GoLite typed pretty printer.
@@ -13,12 +12,12 @@ import java.util.HashMap;
 public class TypedPrettyPrinter extends PrettyPrinter {
 
     /** Type table. */
-    private HashMap<Node, GoLiteType> typeTable;
+    private TypeTable typeTable;
 
     /**
      * Constructor.
      */
-    public TypedPrettyPrinter(HashMap<Node, GoLiteType> typeTable) {
+    public TypedPrettyPrinter(TypeTable typeTable) {
         this.typeTable = typeTable;
     }
 
@@ -26,7 +25,7 @@ public class TypedPrettyPrinter extends PrettyPrinter {
      * Prints the type table to stdout (for debugging).
      */
     private void printTypeTable() {
-        for (Node n : this.typeTable.keySet())
+        for (Node n : this.typeTable.getNodes())
             System.out.println(n + " -> " + this.typeTable.get(n));
     }
 
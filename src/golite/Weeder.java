@@ -78,12 +78,6 @@ public class Weeder extends DepthFirstAdapter {
         throwWeederException(node, "Missing return");
     }
 
-    // Gather line and position information.
-    @Override 
-    public void inStart(Start node) {
-        node.apply(this.lineAndPosTracker);
-    }
-
     // Throw an error if the function is non-void and the body doesn't have a return on every
     // branch of execution.
     @Override
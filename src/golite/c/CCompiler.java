@@ -0,0 +1,46 @@
+package golite.c;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Compiles generated C code to an executable with the system C compiler ('cc', or the one named by
+ * the CC environment variable).
+ */
+public final class CCompiler {
+
+    private CCompiler() {}
+
+    /**
+     * Compiles the given C file to the given executable, optimized.
+     *
+     * @param source - C file
+     * @param executable - Executable to write
+     * @throws IOException if the compiler can't be run, or fails (with its output as message)
+     */
+    public static void compile(File source, File executable) throws IOException {
+        String cc = System.getenv("CC");
+        ProcessBuilder pb = new ProcessBuilder(cc != null && !cc.isEmpty() ? cc : "cc", "-std=c99",
+            "-O2", "-o", executable.getPath(), source.getPath(), "-lm");
+        pb.redirectErrorStream(true);
+
+        Process p = pb.start();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = p.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) > 0; )
+                out.write(buffer, 0, n);
+        }
+
+        try {
+            if (p.waitFor() != 0)
+                throw new IOException("C compiler failed on " + source + ":\n" + out);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compiling " + source);
+        }
+    }
+
+}
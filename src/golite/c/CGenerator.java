@@ -0,0 +1,1285 @@
+package golite.c;
+
+import golite.analysis.*;
+import golite.generator.ConstantFolder;
+import golite.node.*;
+import golite.symbol.*;
+import golite.type.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GoLite C Generator
+ *
+ * Compiles a typed AST to a single C99 source file, as an alternative to the Python code generator.
+ * Ints and runes become int32_t's (whose arithmetic wraps around through the runtime), float64's
+ * doubles, bools bools and strings NUL-terminated char arrays. Each array type becomes a struct
+ * holding an inline C array, each slice type a {ptr, len, cap} struct whose backing array grows on
+ * append, and each struct type a C struct, so that arrays and structs are values like in Go.
+ *
+ * Top-level variables become static variables initialized by gl_init(), top-level functions static
+ * functions (f_ followed by their name), and local variables C locals, renamed to be unique within
+ * the program so that C's scoping never differs from GoLite's. Loops and switches are exited and
+ * continued through gotos. The runtime (runtime.c, next to this class on the classpath) is copied
+ * at the top of the generated code.
+ */
+public class CGenerator extends DepthFirstAdapter {
+
+    /** Path of the runtime on the classpath. */
+    private static final String RUNTIME = "/golite/c/runtime.c";
+
+    /** Binary operators. */
+    private static final int ADD = 0, SUB = 1, MUL = 2, DIV = 3, MOD = 4, AND = 5, OR = 6, XOR = 7,
+        AND_NOT = 8, SHL = 9, SHR = 10;
+    /** C operators of the binary operators, on floats or directly on ints (null where neither). */
+    private static final String[] OPERATORS = { "+", "-", "*", "/", null, "&", "|", "^", null,
+        null, null };
+    /** Runtime functions of the binary operators on ints (null where the C operator is used). */
+    private static final String[] INT_FUNCTIONS = { "gl_add", "gl_sub", "gl_mul", "gl_div",
+        "gl_mod", null, null, null, null, "gl_shl", "gl_shr" };
+
+    /** Type table from the type checker. */
+    private final TypeTable typeTable;
+    /** Values of the constant expressions. */
+    private ConstantFolder constantFolder;
+    /** Symbol table, rebuilt while generating code. */
+    private SymbolTable symbolTable;
+    /** C names of the variables. */
+    private IdentityHashMap<Symbol, String> names;
+    /** Type expressions of the top-level types, and the types resolved from them, by name. */
+    private LinkedHashMap<String, PTypeExpr> globalTypeExprs;
+    private HashMap<String, GoLiteType> globalTypes;
+    /** Top-level variables, by name. */
+    private HashMap<String, Symbol> globalVars;
+
+    /** C names of the array, slice and struct types, by underlying type. */
+    private HashMap<GoLiteType, String> typeNames;
+    /** Array and struct types whose equality function was generated. */
+    private HashMap<GoLiteType, String> equalities;
+
+    /** Type definitions, and the functions on them (equality, appending, indexing). */
+    private StringBuilder typeDefs, typeFunctions;
+    /** Top-level variables and function prototypes. */
+    private StringBuilder decls;
+    /** Code being generated (a function, or gl_init()), and its indentation. */
+    private StringBuilder buffer;
+    private int tabDepth;
+
+    /** Number of locals, temporaries and labels generated so far (numbers their names). */
+    private int varCount, labelCount;
+    /** Labels ending the enclosing loops and switches, and continuing the enclosing loops. */
+    private ArrayDeque<String> breakLabels, continueLabels;
+
+    /** Generated code. */
+    private String code;
+
+    /**
+     * Constructor.
+     *
+     * @param typeTable - Type table from the type checker
+     */
+    public CGenerator(TypeTable typeTable) {
+        this.typeTable = typeTable;
+    }
+
+    /**
+     * Getter (after the AST was applied to the generator).
+     */
+    public String getGeneratedCode() {
+        return this.code;
+    }
+
+    /**
+     * Output
+     *
+     */
+
+    /**
+     * Appends the given line to the code being generated, at the current indentation.
+     */
+    private void line(String s) {
+        for (int i = 0; i < this.tabDepth; i++)
+            this.buffer.append("    ");
+        this.buffer.append(s).append('\n');
+    }
+
+    private void open(String s) {
+        this.line(s);
+        this.tabDepth++;
+    }
+
+    private void close(String s) {
+        this.tabDepth--;
+        this.line(s);
+    }
+
+    /**
+     * Returns a new C name with the given prefix, unique within the program.
+     */
+    private String newName(String prefix) {
+        return prefix + "_" + (this.varCount++);
+    }
+
+    /**
+     * Types
+     *
+     */
+
+    /**
+     * Returns the GoLite type for the given type expression, in the current scope.
+     *
+     * @param node - Type expression
+     * @return Corresponding GoLite type
+     */
+    private GoLiteType getType(PTypeExpr node) {
+        if (node instanceof ABoolTypeExpr)
+            return TypeFactory.getBoolType();
+        else if (node instanceof AIntTypeExpr)
+            return TypeFactory.getIntType();
+        else if (node instanceof AFloatTypeExpr)
+            return TypeFactory.getFloatType();
+        else if (node instanceof ARuneTypeExpr)
+            return TypeFactory.getRuneType();
+        else if (node instanceof AStringTypeExpr)
+            return TypeFactory.getStringType();
+        else if (node instanceof AAliasTypeExpr) {
+            String name = ((AAliasTypeExpr) node).getId().getText();
+            Symbol symbol = this.symbolTable.getSymbol(name);
+            // Top-level types can be used before they're declared (with unordered declarations).
+            GoLiteType type = (symbol instanceof TypeAliasSymbol) ? symbol.getType()
+                : this.getGlobalType(name);
+            return TypeFactory.getAliasType(name, type);
+        } else if (node instanceof AArrayTypeExpr) {
+            AArrayTypeExpr array = (AArrayTypeExpr) node;
+            return TypeFactory.getArrayType(this.getType(array.getTypeExpr()),
+                getIntLit(array.getExpr()).intValue());
+        } else if (node instanceof ASliceTypeExpr)
+            return TypeFactory.getSliceType(this.getType(((ASliceTypeExpr) node).getTypeExpr()));
+        else {
+            ArrayList<StructType.Field> fields = new ArrayList<StructType.Field>();
+            for (PFieldSpec e : ((AStructTypeExpr) node).getFieldSpec()) {
+                ASpecFieldSpec spec = (ASpecFieldSpec) e;
+                GoLiteType type = this.getType(spec.getTypeExpr());
+                for (POptId o : spec.getOptId()) {
+                    if (o instanceof AIdOptId)
+                        fields.add(new StructType.Field(((AIdOptId) o).getId().getText(), type));
+                }
+            }
+
+            return TypeFactory.getStructType(fields);
+        }
+    }
+
+    /**
+     * Returns the type aliased by the top-level type with the given name, resolving it if needed.
+     */
+    private GoLiteType getGlobalType(String name) {
+        GoLiteType type = this.globalTypes.get(name);
+        if (type == null) {
+            type = this.getType(this.globalTypeExprs.get(name));
+            this.globalTypes.put(name, type);
+        }
+
+        return type;
+    }
+
+    /**
+     * Returns the type of the variable with the given position in the given specification.
+     */
+    private GoLiteType getType(ASpecVarSpec node, int i) {
+        if (node.getTypeExpr() != null)
+            return this.getType(node.getTypeExpr());
+        else
+            return this.typeTable.get(node.getExpr().get(i));
+    }
+
+    /**
+     * Returns the underlying type of the given expression.
+     */
+    private GoLiteType typeOf(PExpr node) {
+        return this.typeTable.get(node).getUnderlyingType();
+    }
+
+    /**
+     * Returns the C type of the given type, defining it the first time for array, slice and struct
+     * types (after the types it's made of).
+     *
+     * @param type - GoLite type
+     * @return C type
+     */
+    private String getCType(GoLiteType type) {
+        type = type.getUnderlyingType();
+
+        if (type instanceof IntType || type instanceof RuneType)
+            return "int32_t";
+        else if (type instanceof FloatType)
+            return "double";
+        else if (type instanceof BoolType)
+            return "bool";
+        else if (type instanceof StringType)
+            return "const char *";
+        else if (type instanceof VoidType)
+            return "void";
+
+        String name = this.typeNames.get(type);
+        if (name != null)
+            return name;
+
+        if (type instanceof ArrayType) {
+            String elem = this.getCType(((ArrayType) type).getElemType());
+            int bound = ((ArrayType) type).getBound();
+
+            name = "gl_array_" + this.typeNames.size();
+            // C arrays can't be empty.
+            this.typeDefs.append(String.format("typedef struct { %s a[%d]; } %s;\n", elem,
+                Math.max(bound, 1), name));
+        } else if (type instanceof SliceType) {
+            String elem = this.getCType(((SliceType) type).getElemType());
+
+            name = "gl_slice_" + this.typeNames.size();
+            this.typeDefs.append(String.format(
+                "typedef struct { %s *ptr; int32_t len, cap; } %s;\n", elem, name));
+
+            // Appending shares the backing array while it has room, and otherwise copies it into
+            // one twice as large, like with the other backends.
+            StringBuilder f = this.typeFunctions;
+            f.append(String.format("static %s gl_append_%s(%s s, %s x) {\n", name, name, name,
+                elem));
+            f.append("    if (s.len == s.cap) {\n");
+            f.append("        int32_t cap = s.cap == 0 ? 1 : 2 * s.cap;\n");
+            f.append(String.format("        %s *ptr = gl_alloc(cap * sizeof(%s));\n", elem, elem));
+            f.append(String.format("        if (s.len > 0)\n"));
+            f.append(String.format("            memcpy(ptr, s.ptr, s.len * sizeof(%s));\n", elem));
+            f.append("        s.ptr = ptr;\n");
+            f.append("        s.cap = cap;\n");
+            f.append("    }\n");
+            f.append("    s.ptr[s.len++] = x;\n");
+            f.append("    return s;\n");
+            f.append("}\n\n");
+            f.append(String.format("static inline %s *gl_at_%s(%s s, int32_t i) {\n", elem, name,
+                name));
+            f.append("    return &s.ptr[gl_index(i, s.len)];\n");
+            f.append("}\n\n");
+        } else {
+            StringBuilder s = new StringBuilder("typedef struct {");
+            int n = 0;
+            for (Iterator<StructType.Field> i = ((StructType) type).getFieldIterator();
+                    i.hasNext(); n++) {
+                StructType.Field field = i.next();
+                s.append(String.format(" %s m_%s;", this.getCType(field.getType()),
+                    field.getId()));
+            }
+            // C structs can't be empty.
+            if (n == 0)
+                s.append(" char unused;");
+
+            name = "gl_struct_" + this.typeNames.size();
+            this.typeDefs.append(s).append(" } ").append(name).append(";\n");
+        }
+
+        this.typeNames.put(type, name);
+        return name;
+    }
+
+    /**
+     * Returns the zero value of the given type, as a C expression.
+     */
+    private String zero(GoLiteType type) {
+        type = type.getUnderlyingType();
+
+        if (type instanceof FloatType)
+            return "0.0";
+        else if (type instanceof BoolType)
+            return "false";
+        else if (type instanceof StringType)
+            // The empty string.
+            return "NULL";
+        else if (type instanceof ArrayType || type instanceof SliceType
+                || type instanceof StructType)
+            // All-zero memory is the zero value of every type.
+            return "(" + this.getCType(type) + ") {0}";
+        else
+            return "0";
+    }
+
+    /**
+     * Returns a C expression comparing the given values of the given type for equality.
+     */
+    private String equal(GoLiteType type, String x, String y) {
+        type = type.getUnderlyingType();
+
+        if (type instanceof StringType)
+            return "(gl_strcmp(" + x + ", " + y + ") == 0)";
+        else if (type instanceof SliceType)
+            return "(" + x + ".ptr == " + y + ".ptr && " + x + ".len == " + y + ".len)";
+        else if (type instanceof ArrayType || type instanceof StructType)
+            return this.getEquality(type) + "(" + x + ", " + y + ")";
+        else
+            return "(" + x + " == " + y + ")";
+    }
+
+    /**
+     * Returns the name of the function comparing values of the given array or struct type, element
+     * by element or field by field, generating it the first time.
+     */
+    private String getEquality(GoLiteType type) {
+        String name = this.equalities.get(type);
+        if (name != null)
+            return name;
+
+        String t = this.getCType(type);
+        ArrayList<String> conditions = new ArrayList<String>();
+        if (type instanceof ArrayType) {
+            conditions.add(this.equal(((ArrayType) type).getElemType(), "x.a[i]", "y.a[i]"));
+        } else {
+            for (Iterator<StructType.Field> i = ((StructType) type).getFieldIterator();
+                    i.hasNext(); ) {
+                StructType.Field field = i.next();
+                conditions.add(this.equal(field.getType(), "x.m_" + field.getId(),
+                    "y.m_" + field.getId()));
+            }
+        }
+
+        name = "gl_equal_" + t;
+        StringBuilder f = new StringBuilder();
+        f.append(String.format("static bool %s(%s x, %s y) {\n", name, t, t));
+        if (type instanceof ArrayType) {
+            f.append(String.format("    for (int32_t i = 0; i < %d; i++) {\n",
+                ((ArrayType) type).getBound()));
+            f.append("        if (!").append(conditions.get(0)).append(")\n");
+            f.append("            return false;\n");
+            f.append("    }\n");
+        } else {
+            for (String c : conditions) {
+                f.append("    if (!").append(c).append(")\n");
+                f.append("        return false;\n");
+            }
+        }
+        f.append("    return true;\n");
+        f.append("}\n\n");
+
+        // After the functions it calls.
+        this.typeFunctions.append(f);
+        this.equalities.put(type, name);
+        return name;
+    }
+
+    /**
+     * Scopes and Variables
+     *
+     */
+
+    /**
+     * Returns a new local variable with a unique C name, without declaring it yet.
+     */
+    private Symbol newLocal(String name, GoLiteType type, Node node) {
+        Symbol symbol = new VariableSymbol(name, type, node);
+        this.names.put(symbol, this.newName("l_" + name));
+        return symbol;
+    }
+
+    /**
+     * Returns the variable with the given name in the current scope.
+     */
+    private Symbol getVariable(String name) {
+        Symbol symbol = this.symbolTable.getSymbol(name);
+        // Functions can use top-level variables declared after them (with unordered top-level
+        // declarations).
+        return symbol != null ? symbol : this.globalVars.get(name);
+    }
+
+    /**
+     * Returns the C expression of the given variable.
+     */
+    private String getName(Symbol symbol) {
+        String name = this.names.get(symbol);
+        // The universe's true and false.
+        return name != null ? name : symbol.getName();
+    }
+
+    /**
+     * Program
+     *
+     */
+
+    @Override
+    public void caseStart(Start node) {
+        this.constantFolder = new ConstantFolder(this.typeTable);
+        node.apply(this.constantFolder);
+
+        this.symbolTable = new SymbolTable();
+        this.names = new IdentityHashMap<Symbol, String>();
+        this.globalTypeExprs = new LinkedHashMap<String, PTypeExpr>();
+        this.globalTypes = new HashMap<String, GoLiteType>();
+        this.globalVars = new HashMap<String, Symbol>();
+        this.typeNames = new HashMap<GoLiteType, String>();
+        this.equalities = new HashMap<GoLiteType, String>();
+        this.typeDefs = new StringBuilder();
+        this.typeFunctions = new StringBuilder();
+        this.decls = new StringBuilder();
+        this.breakLabels = new ArrayDeque<String>();
+        this.continueLabels = new ArrayDeque<String>();
+
+        // Universe scope.
+        this.symbolTable.scope();
+        this.symbolTable.putSymbol(new VariableSymbol("true", TypeFactory.getBoolType(), node));
+        this.symbolTable.putSymbol(new VariableSymbol("false", TypeFactory.getBoolType(), node));
+
+        node.getPProg().apply(this);
+
+        this.symbolTable.unscope();
+    }
+
+    @Override
+    public void caseAProgProg(AProgProg node) {
+        this.symbolTable.scope();
+
+        // Declare every top-level type, variable and function first, since they can be used before
+        // their declarations with unordered top-level declarations.
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof ATypesTopDec) {
+                for (PTypeSpec t : ((ATypesTopDec) e).getTypeSpec()) {
+                    ASpecTypeSpec spec = (ASpecTypeSpec) t;
+                    if (spec.getOptId() instanceof AIdOptId)
+                        this.globalTypeExprs.put(((AIdOptId) spec.getOptId()).getId().getText(),
+                            spec.getTypeExpr());
+                }
+            }
+        }
+        for (Map.Entry<String, PTypeExpr> e : this.globalTypeExprs.entrySet()) {
+            this.symbolTable.putSymbol(new TypeAliasSymbol(e.getKey(),
+                this.getGlobalType(e.getKey()), e.getValue()));
+        }
+
+        // Beginnings of the prototypes of the functions, up to their parameters.
+        HashMap<String, String> heads = new HashMap<String, String>();
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof AVarsTopDec) {
+                for (PVarSpec v : ((AVarsTopDec) e).getVarSpec()) {
+                    ASpecVarSpec spec = (ASpecVarSpec) v;
+                    for (int i = 0; i < spec.getOptId().size(); i++) {
+                        POptId o = spec.getOptId().get(i);
+                        if (o instanceof AIdOptId) {
+                            String name = ((AIdOptId) o).getId().getText();
+                            GoLiteType type = this.getType(spec, i);
+                            Symbol symbol = new VariableSymbol(name, type, spec);
+                            this.names.put(symbol, "g_" + name);
+                            this.globalVars.put(name, symbol);
+                            this.decls.append(String.format("static %s g_%s;\n",
+                                this.getCType(type), name));
+                        }
+                    }
+                }
+            } else if (e instanceof AFuncTopDec) {
+                AFuncTopDec f = (AFuncTopDec) e;
+                FunctionSymbol symbol = this.declareFunction(f);
+
+                ArrayList<String> params = new ArrayList<String>();
+                for (GoLiteType t : symbol.getArgTypes())
+                    params.add(this.getCType(t));
+                String head = String.format("static %s f_%s(", f.getTypeExpr() == null ? "void"
+                    : this.getCType(symbol.getType()), f.getId().getText());
+                heads.put(f.getId().getText(), head);
+                this.decls.append(head).append(params.isEmpty() ? "void"
+                    : String.join(", ", params)).append(");\n");
+            }
+        }
+
+        // The top-level variables are initialized in order, and come into scope in order.
+        StringBuilder init = this.buffer = new StringBuilder();
+        this.open("static void gl_init(void) {");
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof AVarsTopDec) {
+                for (PVarSpec v : ((AVarsTopDec) e).getVarSpec())
+                    this.declareGlobals((ASpecVarSpec) v);
+            }
+        }
+        this.close("}");
+
+        StringBuilder functions = new StringBuilder();
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof AFuncTopDec) {
+                AFuncTopDec f = (AFuncTopDec) e;
+                this.buffer = functions;
+                this.defineFunction(f, heads.get(f.getId().getText()));
+                functions.append('\n');
+            }
+        }
+
+        StringBuilder main = this.buffer = new StringBuilder();
+        this.open("int main(void) {");
+        this.line("setvbuf(stdout, NULL, _IOFBF, 1 << 16);");
+        this.line("gl_init();");
+        if (heads.containsKey("main"))
+            this.line("f_main();");
+        this.line("fflush(stdout);");
+        this.line("return 0;");
+        this.close("}");
+
+        this.symbolTable.unscope();
+
+        StringBuilder s = new StringBuilder(readRuntime());
+        s.append(this.typeDefs).append('\n');
+        s.append(this.typeFunctions);
+        s.append(this.decls).append('\n');
+        s.append(functions);
+        s.append(init).append('\n');
+        s.append(main);
+        this.code = s.toString();
+    }
+
+    /**
+     * Returns the runtime, read from the classpath.
+     */
+    private static String readRuntime() {
+        InputStream in = CGenerator.class.getResourceAsStream(RUNTIME);
+        if (in == null)
+            throw new IllegalStateException("C runtime " + RUNTIME + " not found");
+
+        StringBuilder s = new StringBuilder();
+        try (Reader r = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[8192];
+            for (int n; (n = r.read(buffer)) > 0; )
+                s.append(buffer, 0, n);
+        } catch (IOException e) {
+            throw new IllegalStateException("C runtime " + RUNTIME + " unreadable", e);
+        }
+
+        return s.toString();
+    }
+
+    /**
+     * Declares the given function.
+     */
+    private FunctionSymbol declareFunction(AFuncTopDec node) {
+        String name = node.getId().getText();
+        FunctionSymbol symbol = (node.getTypeExpr() == null) ? new FunctionSymbol(name, node)
+            : new FunctionSymbol(name, this.getType(node.getTypeExpr()), node);
+
+        for (PArgGroup g : node.getArgGroup()) {
+            symbol.addArgType(this.getType(((AArgArgGroup) g).getTypeExpr()),
+                ((AArgArgGroup) g).getId().size());
+        }
+        this.symbolTable.putSymbol(symbol);
+
+        return symbol;
+    }
+
+    /**
+     * Generates the body of the given function.
+     *
+     * @param node - Function
+     * @param head - Beginning of its prototype, up to its parameters
+     */
+    private void defineFunction(AFuncTopDec node, String head) {
+        this.symbolTable.scope();
+
+        ArrayList<String> params = new ArrayList<String>();
+        for (PArgGroup e : node.getArgGroup()) {
+            AArgArgGroup g = (AArgArgGroup) e;
+            GoLiteType type = this.getType(g.getTypeExpr());
+            for (TId id : g.getId()) {
+                Symbol symbol = this.newLocal(id.getText(), type, g);
+                this.symbolTable.putSymbol(symbol);
+                params.add(this.getCType(type) + " " + this.getName(symbol));
+            }
+        }
+
+        this.open(head + (params.isEmpty() ? "void" : String.join(", ", params)) + ") {");
+        this.block(node.getStmt());
+        this.close("}");
+
+        this.symbolTable.unscope();
+    }
+
+    /**
+     * Generates the initialization of the top-level variables of the given specification,
+     * bringing them into scope.
+     */
+    private void declareGlobals(ASpecVarSpec node) {
+        LinkedList<POptId> ids = node.getOptId();
+        for (int i = 0; i < ids.size() && !node.getExpr().isEmpty(); i++) {
+            PExpr e = node.getExpr().get(i);
+            if (ids.get(i) instanceof AIdOptId) {
+                Symbol symbol = this.globalVars.get(((AIdOptId) ids.get(i)).getId().getText());
+                this.line(this.getName(symbol) + " = " + this.expr(e) + ";");
+            } else
+                this.line("(void) " + this.expr(e) + ";");
+        }
+
+        for (POptId o : ids) {
+            if (o instanceof AIdOptId)
+                this.symbolTable.putSymbol(this.globalVars.get(((AIdOptId) o).getId().getText()));
+        }
+    }
+
+    /**
+     * Statements
+     *
+     */
+
+    /**
+     * Generates the given statements, in the current scope.
+     */
+    private void block(List<PStmt> nodes) {
+        for (PStmt e : nodes)
+            this.stmt(e);
+    }
+
+    /**
+     * Generates the given block, in a new scope.
+     */
+    private void scopedBlock(List<PStmt> nodes) {
+        this.symbolTable.scope();
+        this.block(nodes);
+        this.symbolTable.unscope();
+    }
+
+    private void stmt(PStmt node) {
+        if (node instanceof AEmptyStmt)
+            ;
+        else if (node instanceof AVarDecStmt)
+            this.varDec((AVarDecStmt) node);
+        else if (node instanceof AShortAssignStmt)
+            this.shortAssign((AShortAssignStmt) node);
+        else if (node instanceof ATypeDecStmt) {
+            for (PTypeSpec e : ((ATypeDecStmt) node).getTypeSpec()) {
+                ASpecTypeSpec spec = (ASpecTypeSpec) e;
+                if (spec.getOptId() instanceof AIdOptId)
+                    this.symbolTable.putSymbol(new TypeAliasSymbol(
+                        ((AIdOptId) spec.getOptId()).getId().getText(),
+                        this.getType(spec.getTypeExpr()), spec));
+            }
+        } else if (node instanceof AAssignStmt)
+            this.assign((AAssignStmt) node);
+        else if (node instanceof APlusAssignStmt)
+            this.opAssign(((APlusAssignStmt) node).getLhs(), ADD,
+                ((APlusAssignStmt) node).getRhs());
+        else if (node instanceof AMinusAssignStmt)
+            this.opAssign(((AMinusAssignStmt) node).getLhs(), SUB,
+                ((AMinusAssignStmt) node).getRhs());
+        else if (node instanceof AStarAssignStmt)
+            this.opAssign(((AStarAssignStmt) node).getLhs(), MUL,
+                ((AStarAssignStmt) node).getRhs());
+        else if (node instanceof ASlashAssignStmt)
+            this.opAssign(((ASlashAssignStmt) node).getLhs(), DIV,
+                ((ASlashAssignStmt) node).getRhs());
+        else if (node instanceof APercAssignStmt)
+            this.opAssign(((APercAssignStmt) node).getLhs(), MOD,
+                ((APercAssignStmt) node).getRhs());
+        else if (node instanceof AAndAssignStmt)
+            this.opAssign(((AAndAssignStmt) node).getLhs(), AND,
+                ((AAndAssignStmt) node).getRhs());
+        else if (node instanceof APipeAssignStmt)
+            this.opAssign(((APipeAssignStmt) node).getLhs(), OR,
+                ((APipeAssignStmt) node).getRhs());
+        else if (node instanceof ACarotAssignStmt)
+            this.opAssign(((ACarotAssignStmt) node).getLhs(), XOR,
+                ((ACarotAssignStmt) node).getRhs());
+        else if (node instanceof AAmpCarotAssignStmt)
+            this.opAssign(((AAmpCarotAssignStmt) node).getLhs(), AND_NOT,
+                ((AAmpCarotAssignStmt) node).getRhs());
+        else if (node instanceof ALshiftAssignStmt)
+            this.opAssign(((ALshiftAssignStmt) node).getLhs(), SHL,
+                ((ALshiftAssignStmt) node).getRhs());
+        else if (node instanceof ARshiftAssignStmt)
+            this.opAssign(((ARshiftAssignStmt) node).getLhs(), SHR,
+                ((ARshiftAssignStmt) node).getRhs());
+        else if (node instanceof AIncrStmt)
+            this.opAssign(((AIncrStmt) node).getExpr(), ADD, null);
+        else if (node instanceof ADecrStmt)
+            this.opAssign(((ADecrStmt) node).getExpr(), SUB, null);
+        else if (node instanceof AExprStmt) {
+            PExpr e = ((AExprStmt) node).getExpr();
+            if (e instanceof AFuncCallExpr && this.typeOf(e) instanceof VoidType)
+                this.line(this.call((AFuncCallExpr) e) + ";");
+            else
+                this.line("(void) " + this.expr(e) + ";");
+        } else if (node instanceof APrintStmt)
+            this.print(((APrintStmt) node).getExpr(), false);
+        else if (node instanceof APrintlnStmt)
+            this.print(((APrintlnStmt) node).getExpr(), true);
+        else if (node instanceof AContinueStmt)
+            this.line("goto " + this.continueLabels.peek() + ";");
+        else if (node instanceof ABreakStmt)
+            this.line("goto " + this.breakLabels.peek() + ";");
+        else if (node instanceof AReturnStmt) {
+            PExpr e = ((AReturnStmt) node).getExpr();
+            this.line(e == null ? "return;" : "return " + this.expr(e) + ";");
+        } else if (node instanceof AIfElseStmt)
+            this.ifElse((AIfElseStmt) node);
+        else if (node instanceof ASwitchStmt)
+            this.switchStmt((ASwitchStmt) node);
+        else if (node instanceof ALoopStmt)
+            this.loop((ALoopStmt) node);
+        else {
+            this.open("{");
+            this.scopedBlock(((ABlockStmt) node).getStmt());
+            this.close("}");
+        }
+    }
+
+    private void varDec(AVarDecStmt node) {
+        for (PVarSpec e : node.getVarSpec()) {
+            ASpecVarSpec spec = (ASpecVarSpec) e;
+            LinkedList<POptId> ids = spec.getOptId();
+
+            // The variables come into scope after their values are computed, but their unique
+            // names keep the values from seeing them.
+            ArrayList<Symbol> symbols = new ArrayList<Symbol>();
+            for (int i = 0; i < ids.size(); i++) {
+                PExpr value = spec.getExpr().isEmpty() ? null : spec.getExpr().get(i);
+                if (ids.get(i) instanceof AIdOptId) {
+                    GoLiteType type = this.getType(spec, i);
+                    Symbol symbol = this.newLocal(((AIdOptId) ids.get(i)).getId().getText(), type,
+                        spec);
+                    symbols.add(symbol);
+                    this.line(String.format("%s %s = %s;", this.getCType(type),
+                        this.getName(symbol), value == null ? this.zero(type) : this.expr(value)));
+                } else if (value != null)
+                    this.line("(void) " + this.expr(value) + ";");
+            }
+
+            for (Symbol s : symbols)
+                this.symbolTable.putSymbol(s);
+        }
+    }
+
+    private void shortAssign(AShortAssignStmt node) {
+        LinkedList<POptId> ids = node.getOptId();
+        LinkedList<PExpr> exprs = node.getExpr();
+
+        // With several variables, some of which may be assigned, the values all go through
+        // temporaries first.
+        String[] values = new String[exprs.size()];
+        for (int i = 0; i < values.length; i++) {
+            if (values.length == 1)
+                values[i] = this.expr(exprs.get(i));
+            else {
+                values[i] = this.newName("t");
+                this.line(String.format("%s %s = %s;", this.getCType(this.typeOf(exprs.get(i))),
+                    values[i], this.expr(exprs.get(i))));
+            }
+        }
+
+        ArrayList<Symbol> declared = new ArrayList<Symbol>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (!(ids.get(i) instanceof AIdOptId)) {
+                if (values.length == 1)
+                    this.line("(void) " + values[i] + ";");
+                continue;
+            }
+
+            String name = ((AIdOptId) ids.get(i)).getId().getText();
+            if (this.symbolTable.defSymbolInCurrentScope(name))
+                this.line(this.getName(this.getVariable(name)) + " = " + values[i] + ";");
+            else {
+                GoLiteType type = this.typeTable.get(exprs.get(i));
+                Symbol symbol = this.newLocal(name, type, node);
+                declared.add(symbol);
+                this.line(String.format("%s %s = %s;", this.getCType(type), this.getName(symbol),
+                    values[i]));
+            }
+        }
+
+        for (Symbol s : declared)
+            this.symbolTable.putSymbol(s);
+    }
+
+    private void assign(AAssignStmt node) {
+        LinkedList<PExpr> lhs = node.getLhs();
+        LinkedList<PExpr> rhs = node.getRhs();
+
+        if (lhs.size() == 1) {
+            if (isBlank(lhs.getFirst()))
+                this.line("(void) " + this.expr(rhs.getFirst()) + ";");
+            else
+                this.line(this.lvalue(lhs.getFirst()) + " = " + this.expr(rhs.getFirst()) + ";");
+            return;
+        }
+
+        // All the values are computed before any is assigned.
+        String[] values = new String[rhs.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = this.newName("t");
+            this.line(String.format("%s %s = %s;", this.getCType(this.typeOf(rhs.get(i))),
+                values[i], this.expr(rhs.get(i))));
+        }
+        for (int i = 0; i < lhs.size(); i++) {
+            if (!isBlank(lhs.get(i)))
+                this.line(this.lvalue(lhs.get(i)) + " = " + values[i] + ";");
+        }
+    }
+
+    /**
+     * Checks whether the given assignable is a blank.
+     */
+    private static boolean isBlank(PExpr node) {
+        return !(node instanceof AVariableExpr || node instanceof AArrayElemExpr
+            || node instanceof AFieldExpr);
+    }
+
+    /**
+     * Returns the given assignable as a C lvalue.
+     */
+    private String lvalue(PExpr node) {
+        if (node instanceof AVariableExpr)
+            return this.getName(this.getVariable(((AVariableExpr) node).getId().getText()));
+        else
+            return this.expr(node);
+    }
+
+    /**
+     * Generates an operator assignment (or an increment or decrement, with a null operand).
+     *
+     * @param lhs - Assignable
+     * @param op - Operator
+     * @param rhs - Right operand, or null for 1
+     */
+    private void opAssign(PExpr lhs, int op, PExpr rhs) {
+        GoLiteType type = this.typeOf(lhs);
+        String right = (rhs != null) ? this.expr(rhs) : type instanceof FloatType ? "1.0" : "1";
+
+        if (lhs instanceof AVariableExpr) {
+            String v = this.lvalue(lhs);
+            this.line(v + " = " + this.binary(op, type, v, right) + ";");
+        } else {
+            // The container and index (or struct) are evaluated once, through a pointer.
+            String p = this.newName("p");
+            this.line(String.format("%s *%s = &%s;", this.getCType(type), p, this.lvalue(lhs)));
+            this.line(String.format("*%s = %s;", p, this.binary(op, type, "*" + p, right)));
+        }
+    }
+
+    /**
+     * Generates a print statement, with the values separated by spaces and followed by a newline
+     * for println.
+     */
+    private void print(List<PExpr> exprs, boolean ln) {
+        for (int i = 0; i < exprs.size(); i++) {
+            if (ln && i > 0)
+                this.line("putchar(' ');");
+
+            PExpr e = exprs.get(i);
+            GoLiteType type = this.typeOf(e);
+            String function = (type instanceof FloatType) ? "gl_print_float"
+                : (type instanceof BoolType) ? "gl_print_bool"
+                : (type instanceof StringType) ? "gl_print_string" : "gl_print_int";
+            this.line(function + "(" + this.expr(e) + ");");
+        }
+        if (ln)
+            this.line("putchar('\\n');");
+    }
+
+    private void ifElse(AIfElseStmt node) {
+        AConditionCondition condition = (AConditionCondition) node.getCondition();
+
+        // The scope of the variables of the initial statement covers both blocks.
+        this.symbolTable.scope();
+        if (condition.getStmt() != null) {
+            this.open("{");
+            this.stmt(condition.getStmt());
+        }
+
+        this.open("if (" + this.expr(condition.getExpr()) + ") {");
+        this.scopedBlock(node.getIfBlock());
+        if (!node.getElseBlock().isEmpty()) {
+            this.tabDepth--;
+            this.open("} else {");
+            this.scopedBlock(node.getElseBlock());
+        }
+        this.close("}");
+
+        if (condition.getStmt() != null)
+            this.close("}");
+        this.symbolTable.unscope();
+    }
+
+    private void switchStmt(ASwitchStmt node) {
+        String end = "brk_" + (this.labelCount++);
+
+        this.symbolTable.scope();
+        this.open("{");
+        if (node.getStmt() != null)
+            this.stmt(node.getStmt());
+
+        // The tag is evaluated once, into a temporary.
+        PExpr tag = node.getExpr();
+        GoLiteType tagType = (tag != null) ? this.typeOf(tag) : null;
+        String t = null;
+        if (tag != null) {
+            t = this.newName("tag");
+            this.line(String.format("%s %s = %s;", this.getCType(tagType), t, this.expr(tag)));
+        }
+
+        // The cases are tested in order, and the default case last.
+        this.breakLabels.push(end);
+        ABlockCaseBlock defaultBlock = null;
+        boolean first = true;
+        for (PCaseBlock e : node.getCaseBlock()) {
+            ABlockCaseBlock block = (ABlockCaseBlock) e;
+            if (block.getCaseCondition() instanceof ADefaultCaseCondition) {
+                defaultBlock = block;
+                continue;
+            }
+
+            ArrayList<String> conditions = new ArrayList<String>();
+            for (PExpr c : ((AExprsCaseCondition) block.getCaseCondition()).getExpr())
+                conditions.add(tag == null ? this.expr(c) : this.equal(tagType, t, this.expr(c)));
+
+            String condition = "if (" + String.join(" || ", conditions) + ") {";
+            if (first)
+                this.open(condition);
+            else {
+                this.tabDepth--;
+                this.open("} else " + condition);
+            }
+            first = false;
+            this.scopedBlock(block.getStmt());
+        }
+        if (defaultBlock != null) {
+            if (first)
+                this.open("{");
+            else {
+                this.tabDepth--;
+                this.open("} else {");
+            }
+            first = false;
+            this.scopedBlock(defaultBlock.getStmt());
+        }
+        if (!first)
+            this.close("}");
+        this.breakLabels.pop();
+
+        this.line(end + ": ;");
+        this.close("}");
+        this.symbolTable.unscope();
+    }
+
+    private void loop(ALoopStmt node) {
+        int n = this.labelCount++;
+        String end = "brk_" + n, next = "cont_" + n;
+
+        this.symbolTable.scope();
+        this.open("{");
+        if (node.getInit() != null)
+            this.stmt(node.getInit());
+
+        PExpr condition = node.getExpr();
+        if (condition == null || condition instanceof AEmptyExpr)
+            this.open("for (;;) {");
+        else
+            this.open("while (" + this.expr(condition) + ") {");
+
+        this.breakLabels.push(end);
+        this.continueLabels.push(next);
+        this.open("{");
+        this.scopedBlock(node.getBlock());
+        this.close("}");
+        this.continueLabels.pop();
+        this.breakLabels.pop();
+
+        this.line(next + ": ;");
+        if (node.getEnd() != null)
+            this.stmt(node.getEnd());
+        this.close("}");
+
+        this.line(end + ": ;");
+        this.close("}");
+        this.symbolTable.unscope();
+    }
+
+    /**
+     * Expressions
+     *
+     */
+
+    /**
+     * Returns the given expression as a C expression.
+     */
+    private String expr(PExpr node) {
+        Object value = this.constantFolder.getValue(node);
+        if (value instanceof Long)
+            return intLiteral((int) (long) (Long) value);
+        else if (value instanceof Double)
+            return floatLiteral((Double) value);
+        else if (value instanceof Boolean)
+            return (Boolean) value ? "true" : "false";
+
+        if (node instanceof AAddExpr)
+            return this.binary(ADD, ((AAddExpr) node).getLeft(), ((AAddExpr) node).getRight());
+        else if (node instanceof ASubtractExpr)
+            return this.binary(SUB, ((ASubtractExpr) node).getLeft(),
+                ((ASubtractExpr) node).getRight());
+        else if (node instanceof AMultExpr)
+            return this.binary(MUL, ((AMultExpr) node).getLeft(), ((AMultExpr) node).getRight());
+        else if (node instanceof ADivExpr)
+            return this.binary(DIV, ((ADivExpr) node).getLeft(), ((ADivExpr) node).getRight());
+        else if (node instanceof AModExpr)
+            return this.binary(MOD, ((AModExpr) node).getLeft(), ((AModExpr) node).getRight());
+        else if (node instanceof ABitAndExpr)
+            return this.binary(AND, ((ABitAndExpr) node).getLeft(),
+                ((ABitAndExpr) node).getRight());
+        else if (node instanceof ABitOrExpr)
+            return this.binary(OR, ((ABitOrExpr) node).getLeft(), ((ABitOrExpr) node).getRight());
+        else if (node instanceof ABitXorExpr)
+            return this.binary(XOR, ((ABitXorExpr) node).getLeft(),
+                ((ABitXorExpr) node).getRight());
+        else if (node instanceof ABitClearExpr)
+            return this.binary(AND_NOT, ((ABitClearExpr) node).getLeft(),
+                ((ABitClearExpr) node).getRight());
+        else if (node instanceof ABitLshiftExpr)
+            return this.binary(SHL, ((ABitLshiftExpr) node).getLeft(),
+                ((ABitLshiftExpr) node).getRight());
+        else if (node instanceof ABitRshiftExpr)
+            return this.binary(SHR, ((ABitRshiftExpr) node).getLeft(),
+                ((ABitRshiftExpr) node).getRight());
+        else if (node instanceof APosExpr)
+            return this.expr(((APosExpr) node).getExpr());
+        else if (node instanceof ANegExpr) {
+            String e = this.expr(((ANegExpr) node).getExpr());
+            return this.typeOf(node) instanceof FloatType ? "(-" + e + ")" : "gl_neg(" + e + ")";
+        } else if (node instanceof ABitCompExpr)
+            return "(~" + this.expr(((ABitCompExpr) node).getExpr()) + ")";
+        else if (node instanceof ANotExpr)
+            return "(!" + this.expr(((ANotExpr) node).getExpr()) + ")";
+        else if (node instanceof AEqExpr)
+            return this.equal(this.typeOf(((AEqExpr) node).getLeft()),
+                this.expr(((AEqExpr) node).getLeft()), this.expr(((AEqExpr) node).getRight()));
+        else if (node instanceof ANeqExpr)
+            return "(!" + this.equal(this.typeOf(((ANeqExpr) node).getLeft()),
+                this.expr(((ANeqExpr) node).getLeft()),
+                this.expr(((ANeqExpr) node).getRight())) + ")";
+        else if (node instanceof ALtExpr)
+            return this.compare("<", ((ALtExpr) node).getLeft(), ((ALtExpr) node).getRight());
+        else if (node instanceof ALteExpr)
+            return this.compare("<=", ((ALteExpr) node).getLeft(), ((ALteExpr) node).getRight());
+        else if (node instanceof AGtExpr)
+            return this.compare(">", ((AGtExpr) node).getLeft(), ((AGtExpr) node).getRight());
+        else if (node instanceof AGteExpr)
+            return this.compare(">=", ((AGteExpr) node).getLeft(), ((AGteExpr) node).getRight());
+        else if (node instanceof AAndExpr)
+            return "(" + this.expr(((AAndExpr) node).getLeft()) + " && "
+                + this.expr(((AAndExpr) node).getRight()) + ")";
+        else if (node instanceof AOrExpr)
+            return "(" + this.expr(((AOrExpr) node).getLeft()) + " || "
+                + this.expr(((AOrExpr) node).getRight()) + ")";
+        else if (node instanceof AFuncCallExpr)
+            return this.call((AFuncCallExpr) node);
+        else if (node instanceof AAppendExpr) {
+            AAppendExpr append = (AAppendExpr) node;
+            return String.format("gl_append_%s(%s, %s)", this.getCType(this.typeOf(node)),
+                this.getName(this.getVariable(append.getId().getText())),
+                this.expr(append.getExpr()));
+        } else if (node instanceof ATypeCastExpr) {
+            PExpr arg = ((ATypeCastExpr) node).getExpr();
+            return this.convert(this.typeOf(arg), this.typeOf(node), this.expr(arg));
+        } else if (node instanceof AArrayElemExpr) {
+            AArrayElemExpr elem = (AArrayElemExpr) node;
+            GoLiteType type = this.typeOf(elem.getArray());
+            String c = this.expr(elem.getArray()), i = this.expr(elem.getIndex());
+
+            if (type instanceof ArrayType)
+                return String.format("%s.a[gl_index(%s, %d)]", c, i,
+                    ((ArrayType) type).getBound());
+            else
+                return String.format("(*gl_at_%s(%s, %s))", this.getCType(type), c, i);
+        } else if (node instanceof AFieldExpr) {
+            AFieldExpr field = (AFieldExpr) node;
+            return this.expr(field.getExpr()) + ".m_" + field.getId().getText();
+        } else if (node instanceof AVariableExpr)
+            return this.getName(this.getVariable(((AVariableExpr) node).getId().getText()));
+        else if (node instanceof AIntLitExpr || node instanceof AOctLitExpr
+                || node instanceof AHexLitExpr)
+            return intLiteral(getIntLit(node).intValue());
+        else if (node instanceof AFloatLitExpr)
+            return floatLiteral(
+                Double.parseDouble(((AFloatLitExpr) node).getFloatLit().getText()));
+        else if (node instanceof ARuneLitExpr)
+            return intLiteral(
+                ConstantFolder.getRuneValue(((ARuneLitExpr) node).getRuneLit().getText()));
+        else if (node instanceof AInterpretedStringLitExpr)
+            return stringLiteral(getInterpretedString(
+                ((AInterpretedStringLitExpr) node).getInterpretedStringLit().getText()));
+        else {
+            String text = ((ARawStringLitExpr) node).getRawStringLit().getText();
+            return stringLiteral(text.substring(1, text.length() - 1));
+        }
+    }
+
+    private String binary(int op, PExpr left, PExpr right) {
+        return this.binary(op, this.typeOf(left), this.expr(left), this.expr(right));
+    }
+
+    /**
+     * Returns a binary operation on the given C operands, of the given type.
+     */
+    private String binary(int op, GoLiteType type, String left, String right) {
+        type = type.getUnderlyingType();
+
+        if (type instanceof StringType)
+            return "gl_concat(" + left + ", " + right + ")";
+        else if (type instanceof FloatType)
+            return "(" + left + " " + OPERATORS[op] + " " + right + ")";
+        else if (op == AND_NOT)
+            return "(" + left + " & ~" + right + ")";
+        else if (INT_FUNCTIONS[op] != null)
+            return INT_FUNCTIONS[op] + "(" + left + ", " + right + ")";
+        else
+            return "(" + left + " " + OPERATORS[op] + " " + right + ")";
+    }
+
+    /**
+     * Returns an ordering comparison with the given C operator.
+     */
+    private String compare(String op, PExpr left, PExpr right) {
+        String l = this.expr(left), r = this.expr(right);
+        if (this.typeOf(left) instanceof StringType)
+            return "(gl_strcmp(" + l + ", " + r + ") " + op + " 0)";
+        else
+            return "(" + l + " " + op + " " + r + ")";
+    }
+
+    /**
+     * Returns a conversion of the given C expression between the given types.
+     */
+    private String convert(GoLiteType from, GoLiteType to, String e) {
+        from = from.getUnderlyingType();
+        to = to.getUnderlyingType();
+
+        if (to instanceof FloatType && !(from instanceof FloatType))
+            return "((double) " + e + ")";
+        else if (to instanceof BoolType && !(from instanceof BoolType))
+            return "(" + e + " != 0)";
+        else if ((to instanceof IntType || to instanceof RuneType) && from instanceof FloatType)
+            // Out of range floats wrap around like with the Python backend.
+            return "gl_toint(" + e + ")";
+        else if ((to instanceof IntType || to instanceof RuneType) && from instanceof BoolType)
+            return "((int32_t) " + e + ")";
+        else
+            return e;
+    }
+
+    /**
+     * Returns a call to the given function (or a conversion to a type alias).
+     */
+    private String call(AFuncCallExpr node) {
+        Symbol symbol = this.symbolTable.getSymbol(node.getId().getText());
+        if (symbol instanceof TypeAliasSymbol) {
+            PExpr arg = node.getExpr().getFirst();
+            return this.convert(this.typeOf(arg), this.typeOf(node), this.expr(arg));
+        }
+
+        ArrayList<String> args = new ArrayList<String>();
+        for (PExpr e : node.getExpr())
+            args.add(this.expr(e));
+        return "f_" + node.getId().getText() + "(" + String.join(", ", args) + ")";
+    }
+
+    /**
+     * Literals
+     *
+     */
+
+    private static String intLiteral(int x) {
+        if (x == Integer.MIN_VALUE)
+            return "INT32_MIN";
+        else
+            return x < 0 ? "(" + x + ")" : Integer.toString(x);
+    }
+
+    private static String floatLiteral(double x) {
+        if (Double.isNaN(x))
+            return "NAN";
+        else if (Double.isInfinite(x))
+            return x > 0 ? "INFINITY" : "(-INFINITY)";
+        else
+            // Java prints the shortest decimal that reads back as the same double, as C does.
+            return (x < 0 || 1 / x < 0) ? "(" + x + ")" : Double.toString(x);
+    }
+
+    /**
+     * Returns the given string as a C string literal.
+     */
+    private static String stringLiteral(String value) {
+        StringBuilder s = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"': s.append("\\\""); break;
+                case '\\': s.append("\\\\"); break;
+                case '\n': s.append("\\n"); break;
+                case '\t': s.append("\\t"); break;
+                case '\r': s.append("\\r"); break;
+                case '?': s.append("\\?"); break;
+                default:
+                    if (c < ' ' || c == 0x7f)
+                        s.append(String.format("\\%03o", (int) c));
+                    else if (c > 0x7f) {
+                        // UTF-8, byte by byte.
+                        for (byte b : String.valueOf(c).getBytes(StandardCharsets.UTF_8))
+                            s.append(String.format("\\%03o", b & 0xff));
+                    } else
+                        s.append(c);
+            }
+        }
+
+        return s.append('"').toString();
+    }
+
+    /**
+     * Returns the value of the given integer literal.
+     */
+    private static BigInteger getIntLit(PExpr node) {
+        if (node instanceof AOctLitExpr) {
+            String text = ((AOctLitExpr) node).getOctLit().getText();
+            return new BigInteger(text.length() > 1 ? text.substring(1) : "0", 8);
+        } else if (node instanceof AHexLitExpr)
+            return new BigInteger(((AHexLitExpr) node).getHexLit().getText().substring(2), 16);
+        else
+            return new BigInteger(((AIntLitExpr) node).getIntLit().getText());
+    }
+
+    /**
+     * Returns the value of the given interpreted string literal (with its quotes).
+     */
+    private static String getInterpretedString(String text) {
+        StringBuilder s = new StringBuilder();
+
+        for (int i = 1; i < text.length() - 1; i++) {
+            char c = text.charAt(i);
+            if (c != '\\') {
+                s.append(c);
+                continue;
+            }
+
+            c = text.charAt(++i);
+            switch (c) {
+                case 'a': s.append('\u0007'); break;
+                case 'b': s.append('\b'); break;
+                case 'f': s.append('\f'); break;
+                case 'n': s.append('\n'); break;
+                case 'r': s.append('\r'); break;
+                case 't': s.append('\t'); break;
+                case 'v': s.append('\u000b'); break;
+                default: s.append(c);
+            }
+        }
+
+        return s.toString();
+    }
+
+}
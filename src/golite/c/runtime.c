@@ -0,0 +1,155 @@
+/*
+ * Runtime of the C code generated for GoLite programs, prepended to each of them.
+ *
+ * Ints and runes are int32_t's, whose arithmetic goes through uint32_t so that it wraps around
+ * instead of overflowing. Strings are immutable NUL-terminated char arrays, with NULL as the empty
+ * string so that zeroed memory holds the zero value of every type. Values print the way they do
+ * with the Python backend (bools as True and False, floats as Python's str() does).
+ *
+ * Memory is never freed: the programs are short-lived.
+ */
+
+#include <math.h>
+#include <stdbool.h>
+#include <stdint.h>
+#include <stdio.h>
+#include <stdlib.h>
+#include <string.h>
+
+/* Errors. */
+
+static void gl_error(const char *message) {
+    fflush(stdout);
+    fprintf(stderr, "%s\n", message);
+    exit(1);
+}
+
+static void *gl_alloc(size_t size) {
+    void *p = calloc(1, size > 0 ? size : 1);
+    if (p == NULL)
+        gl_error("out of memory");
+    return p;
+}
+
+/* Ints. */
+
+static inline int32_t gl_add(int32_t x, int32_t y) {
+    return (int32_t) ((uint32_t) x + (uint32_t) y);
+}
+
+static inline int32_t gl_sub(int32_t x, int32_t y) {
+    return (int32_t) ((uint32_t) x - (uint32_t) y);
+}
+
+static inline int32_t gl_mul(int32_t x, int32_t y) {
+    return (int32_t) ((uint32_t) x * (uint32_t) y);
+}
+
+static inline int32_t gl_neg(int32_t x) {
+    return (int32_t) (0u - (uint32_t) x);
+}
+
+static inline int32_t gl_div(int32_t x, int32_t y) {
+    if (y == 0)
+        gl_error("integer division by zero");
+    return y == -1 ? gl_neg(x) : x / y;
+}
+
+static inline int32_t gl_mod(int32_t x, int32_t y) {
+    if (y == 0)
+        gl_error("integer division by zero");
+    return y == -1 ? 0 : x % y;
+}
+
+static inline int32_t gl_shl(int32_t x, int32_t n) {
+    if (n < 0)
+        gl_error("negative shift count");
+    return n < 32 ? (int32_t) ((uint32_t) x << n) : 0;
+}
+
+static inline int32_t gl_shr(int32_t x, int32_t n) {
+    if (n < 0)
+        gl_error("negative shift count");
+    /* Arithmetic shift, without relying on the implementation-defined >> of negative ints. */
+    if (n > 31)
+        n = 31;
+    return x >= 0 ? x >> n : ~(~x >> n);
+}
+
+/* Truncates the given float to an int, wrapping it around (like the other backends). */
+static inline int32_t gl_toint(double x) {
+    if (fabs(x) < 0x1p62)
+        return (int32_t) (uint32_t) (uint64_t) (int64_t) x;
+    else if (isnan(x) || isinf(x))
+        gl_error("cannot convert nan or inf to int");
+
+    double r = fmod(trunc(x), 0x1p32);
+    if (r < 0)
+        r += 0x1p32;
+    return (int32_t) (uint32_t) r;
+}
+
+/* Indices. */
+
+static inline int32_t gl_index(int32_t i, int32_t length) {
+    if ((uint32_t) i >= (uint32_t) length)
+        gl_error("index out of range");
+    return i;
+}
+
+/* Strings. */
+
+static inline const char *gl_str(const char *s) {
+    return s != NULL ? s : "";
+}
+
+static const char *gl_concat(const char *x, const char *y) {
+    x = gl_str(x);
+    y = gl_str(y);
+
+    size_t n = strlen(x), m = strlen(y);
+    char *s = gl_alloc(n + m + 1);
+    memcpy(s, x, n);
+    memcpy(s + n, y, m + 1);
+    return s;
+}
+
+static inline int gl_strcmp(const char *x, const char *y) {
+    return strcmp(gl_str(x), gl_str(y));
+}
+
+/* Printing. */
+
+static inline void gl_print_int(int32_t x) {
+    printf("%d", (int) x);
+}
+
+static inline void gl_print_bool(bool x) {
+    fputs(x ? "True" : "False", stdout);
+}
+
+static inline void gl_print_string(const char *s) {
+    fputs(gl_str(s), stdout);
+}
+
+/*
+ * Prints the given float like Python's str(), i.e. with 12 significant digits, in exponent
+ * notation if the exponent is less than -4 or at least 12, and with a trailing '.0' if it would
+ * otherwise look like an integer.
+ */
+static void gl_print_float(double x) {
+    if (isnan(x)) {
+        fputs("nan", stdout);
+        return;
+    } else if (isinf(x)) {
+        fputs(x > 0 ? "inf" : "-inf", stdout);
+        return;
+    }
+
+    char s[32];
+    snprintf(s, sizeof s, "%.12g", x);
+    fputs(s, stdout);
+    if (strpbrk(s, ".e") == NULL)
+        fputs(".0", stdout);
+}
+
@@ -0,0 +1,14 @@
+package golite.exception;
+
+
+/**
+ * Interpreter exception, for programs failing at run time (e.g. with an index out of range).
+ */
+@SuppressWarnings("serial")
+public class InterpreterException extends RuntimeException {
+
+    public InterpreterException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,167 @@
+package golite.generator;
+
+import golite.analysis.*;
+import golite.node.*;
+import java.util.*;
+
+/**
+ * GoLite Call Graph
+ *
+ * Functions called by each top-level function, to find the names a call to a function can assign:
+ * those the function assigns (without declaring them), and those assigned by the functions it calls,
+ * transitively. Names aren't resolved, so a function assigning a local also counts as assigning any
+ * global with the same name.
+ *
+ * It also finds the functions reachable from main and the top-level variable initializers, and the
+ * variable names they reference.
+ */
+public class CallGraph extends DepthFirstAdapter {
+
+    /** Names assigned by each function itself. */
+    private HashMap<String, Set<String>> assignedNames = new HashMap<String, Set<String>>();
+    /** Names called by each function (including alias type casts). */
+    private HashMap<String, Set<String>> callees = new HashMap<String, Set<String>>();
+    /** Names assigned by each function and the functions it calls, computed on demand. */
+    private HashMap<String, Set<String>> reachableAssignedNames = new HashMap<String, Set<String>>();
+    /** Variable names referenced by each function. */
+    private HashMap<String, Set<String>> referencedNames = new HashMap<String, Set<String>>();
+    /** Names called by the top-level variable initializers. */
+    private Set<String> initCallees = new HashSet<String>();
+    /** Variable names referenced by the top-level variable initializers. */
+    private Set<String> initReferencedNames = new HashSet<String>();
+    /** Functions reachable from main and the top-level variable initializers, computed on demand. */
+    private Set<String> reachableFunctions;
+
+    @Override
+    public void caseAVarsTopDec(AVarsTopDec node) {
+        node.apply(getScanner(this.initCallees, this.initReferencedNames));
+    }
+
+    @Override
+    public void caseAFuncTopDec(AFuncTopDec node) {
+        String name = node.getId().getText();
+        this.assignedNames.put(name, Inliner.getAssignedNames(node));
+
+        Set<String> called = new HashSet<String>();
+        Set<String> referenced = new HashSet<String>();
+        DepthFirstAdapter scanner = getScanner(called, referenced);
+
+        for (PStmt e : node.getStmt())
+            e.apply(scanner);
+
+        this.callees.put(name, called);
+        this.referencedNames.put(name, referenced);
+    }
+
+    /**
+     * Returns a visitor adding the names called and the variable names referenced (read, assigned
+     * or appended to) to the given sets.
+     */
+    private static DepthFirstAdapter getScanner(final Set<String> called,
+            final Set<String> referenced) {
+        return new DepthFirstAdapter() {
+            @Override
+            public void inAFuncCallExpr(AFuncCallExpr n) {
+                called.add(n.getId().getText());
+            }
+
+            @Override
+            public void inAVariableExpr(AVariableExpr n) {
+                referenced.add(n.getId().getText());
+            }
+
+            @Override
+            public void inAAppendExpr(AAppendExpr n) {
+                referenced.add(n.getId().getText());
+            }
+        };
+    }
+
+    /**
+     * Returns the names a call to the given function can assign.
+     *
+     * @param function - Function name
+     * @return Assigned names
+     */
+    public Set<String> getAssignedNames(String function) {
+        Set<String> names = this.reachableAssignedNames.get(function);
+        if (names != null)
+            return names;
+
+        names = new HashSet<String>();
+
+        // Visit the functions reachable from the given one.
+        HashSet<String> visited = new HashSet<String>();
+        ArrayDeque<String> pending = new ArrayDeque<String>();
+        pending.add(function);
+        visited.add(function);
+
+        while (!pending.isEmpty()) {
+            String f = pending.remove();
+            if (!this.assignedNames.containsKey(f))
+                continue;
+
+            names.addAll(this.assignedNames.get(f));
+            for (String g : this.callees.get(f)) {
+                if (visited.add(g))
+                    pending.add(g);
+            }
+        }
+
+        this.reachableAssignedNames.put(function, names);
+        return names;
+    }
+
+    /**
+     * Checks whether the given function can be called, i.e. whether it's main or a function called
+     * (transitively) by main or a top-level variable initializer.
+     *
+     * @param function - Function name
+     * @return True if the function is reachable, false otherwise
+     */
+    public boolean isReachable(String function) {
+        return getReachableFunctions().contains(function);
+    }
+
+    /**
+     * Checks whether any reachable function or top-level variable initializer references a variable
+     * with the given name.
+     *
+     * @param name - Variable name
+     * @return True if the name is referenced, false otherwise
+     */
+    public boolean isReferenced(String name) {
+        if (this.initReferencedNames.contains(name))
+            return true;
+
+        for (String f : getReachableFunctions()) {
+            if (this.referencedNames.get(f).contains(name))
+                return true;
+        }
+
+        return false;
+    }
+
+    private Set<String> getReachableFunctions() {
+        if (this.reachableFunctions != null)
+            return this.reachableFunctions;
+
+        this.reachableFunctions = new HashSet<String>();
+
+        ArrayDeque<String> pending = new ArrayDeque<String>();
+        pending.add("main");
+        pending.addAll(this.initCallees);
+
+        while (!pending.isEmpty()) {
+            String f = pending.remove();
+            // Alias type casts are calls too.
+            if (!this.callees.containsKey(f) || !this.reachableFunctions.add(f))
+                continue;
+
+            pending.addAll(this.callees.get(f));
+        }
+
+        return this.reachableFunctions;
+    }
+
+}
@@ -15,6 +15,13 @@ public class CodeGenerator extends DepthFirstAdapter {
 
     /** Output name for the main function. */
     private static final String OUT_MAIN_NAME = "main_1";
+    /** Python keywords that can be GoLite identifiers. */
+    private static final HashSet<String> PYTHON_KEYWORDS = new HashSet<String>(Arrays.asList(
+        "and", "as", "assert", "class", "def", "del", "elif", "except", "exec", "finally", "from",
+        "global", "in", "is", "lambda", "not", "or", "pass", "raise", "try", "while", "with",
+        "yield", "None"));
+    /** Minimum number of constant case values for a switch to dispatch through a table. */
+    private static final int MIN_DISPATCH_CASES = 8;
 
     /** Buffer storing generated python code. */
     private StringBuffer buffer;
@@ -28,19 +35,62 @@ public class CodeGenerator extends DepthFirstAdapter {
     private boolean inStructTypeExpr;
     /** Tracks whether main function has been generated */
     private boolean generatedMain = false;
+    /** Number of switch statements generated so far (numbers their temporaries). */
+    private int switchCount;
+    /** Switch dispatch tables of the current top-level declaration, emitted after it. */
+    private StringBuffer dispatchTables = new StringBuffer();
+    /** Names of the classes generated for (underlying) struct types. */
+    private HashMap<StructType, String> structClasses = new HashMap<StructType, String>();
+    /** Attribute names of the fields of each struct type, by field Id. */
+    private HashMap<StructType, HashMap<String, String>> structAttributes =
+        new HashMap<StructType, HashMap<String, String>>();
+    /** Classes first needed by the current top-level declaration, emitted before it. */
+    private StringBuffer structClassDefs = new StringBuffer();
+    /** Functions whose calls can be inlined, by name. */
+    private HashMap<String, AFuncTopDec> inlinableFunctions = new HashMap<String, AFuncTopDec>();
+    /** 0th-scope and global names referenced by each inlinable function. */
+    private HashMap<String, HashSet<String>> inlinableGlobalRefs =
+        new HashMap<String, HashSet<String>>();
+    /** 0th-scope and global names referenced by the current function (null outside functions). */
+    private HashSet<String> globalRefs;
+    /** Name of the current function. */
+    private String currentFunction;
+    /** Variables holding the results of the inlined calls of the current statement. */
+    private HashMap<AFuncCallExpr, String> inlinedResults = new HashMap<AFuncCallExpr, String>();
+    /** Number of calls inlined so far (numbers their results). */
+    private int inlineCount;
+    /** Names each function can assign, through the functions it calls too. */
+    private CallGraph callGraph;
+    /** Renamed globals the current function assigns, declared global for it. */
+    private LinkedHashSet<String> writtenGlobals;
+    /** Module-level names the current function binds to locals on entry (null outside functions). */
+    private LinkedHashSet<String> fastLocals;
+    /** Number of loops around the current statement or expression. */
+    private int loopDepth;
+    /** Names of the variables the current function (or inlined body) never reads. */
+    private Set<String> deadNames;
+    /** Names of the variables each inlinable function never reads. */
+    private HashMap<AFuncTopDec, Set<String>> inlinableDeadNames =
+        new HashMap<AFuncTopDec, Set<String>>();
+    /** Log of the inlined calls. */
+    private StringBuilder inlineLog = new StringBuilder("(LINE:POS\tCALLEE\tCALLER)\n\n");
 
     /** Symbol table. */
     private SymbolTable symbolTable;
     /** Contain information about expressions. */
-    private HashMap<Node, GoLiteType> typeTable;
+    private TypeTable typeTable;
 
     /** Flag to apply normalization to int and rune. */
-    private static boolean norm;
+    private boolean norm;
+    /** Value ranges of int and rune expressions (only used when normalizing). */
+    private RangeAnalyzer rangeAnalyzer;
+    /** Values of constant expressions. */
+    private ConstantFolder constantFolder;
 
     /**
      * Constructor
      */
-    public CodeGenerator(HashMap<Node, GoLiteType> typeTable, boolean norm) {
+    public CodeGenerator(TypeTable typeTable, boolean norm) {
         this.buffer = new StringBuffer();
         this.tabDepth = 0;
         this.typeTable = typeTable;
@@ -50,7 +100,7 @@ public class CodeGenerator extends DepthFirstAdapter {
     /**
      * Constructor (No normalization of integers and runes)
      */
-    public CodeGenerator(HashMap<Node, GoLiteType> typeTable) {
+    public CodeGenerator(TypeTable typeTable) {
         this.buffer = new StringBuffer();
         this.tabDepth = 0;
         this.typeTable = typeTable;
@@ -62,43 +112,47 @@ public class CodeGenerator extends DepthFirstAdapter {
      */
     public void normalizeExpr(Node n)
     {
-        if (!this.norm) {
+        if (!this.norm || !RangeAnalyzer.isInteger(typeTable.get(n)) || rangeAnalyzer.fitsInt32(n)
+                || constantFolder.getValue(n) != null) {
             n.apply(this);
             return;
         }
-        boolean normalize = false;
-        if (typeTable.get(n) instanceof IntType)
-        {
-            if (n instanceof AIntLitExpr)
-            {
-                int value = Integer.parseInt(((AIntLitExpr) n).getIntLit().getText());
-                if (value >= 2147483647)
-                {
-                    buffer.append("normalize(");
-                    normalize = true;
-                }
-            }
-            else
-            {
-                buffer.append("normalize(");
-                normalize = true;
-            }
-        }
-        else if (typeTable.get(n) instanceof RuneType)
-        {
-            if (!(n instanceof ARuneLitExpr))
-            {
-                buffer.append("normalize(");
-                normalize = true;
-            }
-        }
+
+        buffer.append(this.fast("normalize") + "(");
+        n.apply(this);
+        buffer.append(")");
+    }
+
+    /**
+     * Returns the function truncating the given integer division or modulo towards zero like Go
+     * ("quo" or "rem"), or null if Python's operator gives the same result. That's the case unless
+     * normalizing, or if both operands are known to be non-negative.
+     */
+    private String truncatingFunction(PExpr left, String operator, PExpr right) {
+        if (!this.norm || !RangeAnalyzer.isInteger(typeTable.get(left))
+                || (rangeAnalyzer.isNonNegative(left) && rangeAnalyzer.isNonNegative(right)))
+            return null;
+
+        return operator.equals(" / ") ? "quo" : operator.equals(" % ") ? "rem" : null;
+    }
+
+    /**
+     * Emit a call to the given function on the given operands, both normalized.
+     */
+    private void truncatingCall(String function, PExpr left, PExpr right) {
+        buffer.append(this.fast(function) + "(");
+        normalizeExpr(left);
+        buffer.append(", ");
+        normalizeExpr(right);
+        buffer.append(")");
+    }
+
+    /**
+     * Emit an operand of an operator whose result only depends on its operands modulo 2^32, so
+     * normalizing it can be deferred to wherever the result is used.
+     */
+    private void modularOperand(Node n) {
         n.apply(this);
-        if (typeTable.get(n) instanceof IntType || typeTable.get(n) instanceof RuneType)
-        {
-            if (normalize) {
-                buffer.append(")");
-            }
-        }
     }
 
     /**
@@ -109,6 +163,14 @@ public class CodeGenerator extends DepthFirstAdapter {
         return this.buffer.toString();
     }
 
+    /**
+     * Return the log of the inlined calls, one per line
+     *
+     */
+    public String getInlineLog() {
+        return this.inlineLog.toString();
+    }
+
     /**
      * Rename the symbol with the given name.
      *
@@ -171,19 +233,20 @@ public class CodeGenerator extends DepthFirstAdapter {
             return null;
 
         if (node instanceof ABoolTypeExpr)
-            return new BoolType();
+            return TypeFactory.getBoolType();
         else if (node instanceof AIntTypeExpr)
-            return new IntType();
+            return TypeFactory.getIntType();
         else if (node instanceof AFloatTypeExpr)
-            return new FloatType();
+            return TypeFactory.getFloatType();
         else if (node instanceof ARuneTypeExpr)
-            return new RuneType();
+            return TypeFactory.getRuneType();
         else if (node instanceof AStringTypeExpr)
-            return new StringType();
+            return TypeFactory.getStringType();
         else if (node instanceof AAliasTypeExpr) {
             TId id = ((AAliasTypeExpr) node).getId();
+            this.addGlobalRef(id.getText());
             GoLiteType type = this.symbolTable.getSymbolType(id.getText());
-            return new AliasType(id.getText(), type);
+            return TypeFactory.getAliasType(id.getText(), type);
         } else if (node instanceof AArrayTypeExpr) {
             PExpr pExpr = ((AArrayTypeExpr) node).getExpr();
 
@@ -199,11 +262,11 @@ public class CodeGenerator extends DepthFirstAdapter {
 
             }
 
-            return new ArrayType(getType(((AArrayTypeExpr) node).getTypeExpr()), bound);
+            return TypeFactory.getArrayType(getType(((AArrayTypeExpr) node).getTypeExpr()), bound);
         } else if (node instanceof ASliceTypeExpr)
-            return new SliceType(getType(((ASliceTypeExpr) node).getTypeExpr()));
+            return TypeFactory.getSliceType(getType(((ASliceTypeExpr) node).getTypeExpr()));
         else if (node instanceof AStructTypeExpr) {
-            StructType structType = new StructType();
+            ArrayList<StructType.Field> fields = new ArrayList<StructType.Field>();
 
             // Keep track of the field Id's to ensure there are no duplicates.
             HashSet<String> fieldIds = new HashSet<String>();
@@ -218,26 +281,27 @@ public class CodeGenerator extends DepthFirstAdapter {
                     // Do not consider blank Id's.
                     if (pOptId instanceof AIdOptId) {
                         TId id = ((AIdOptId) pOptId).getId();
-                        structType.addField(id.getText(),
-                            getType(((ASpecFieldSpec) pFieldSpec).getTypeExpr()));
+                        fields.add(new StructType.Field(id.getText(),
+                            getType(((ASpecFieldSpec) pFieldSpec).getTypeExpr())));
                         fieldIds.add(id.getText());
                     }
                 }
             }
 
-            return structType;
+            return TypeFactory.getStructType(fields);
         }
 
         return null;
     }
 
     /**
-     * Returns the default value for the given type.
+     * Returns the default value for the given type. The size of the generated code doesn't depend on
+     * array bounds.
      *
      * @param type - Type
      * @return Default value as a string
      */
-    private static String getDefaultValue(GoLiteType type) {
+    private String getDefaultValue(GoLiteType type) {
         if (type instanceof BoolType)
             return "False";
         else if (type instanceof IntType || type instanceof RuneType)
@@ -249,30 +313,27 @@ public class CodeGenerator extends DepthFirstAdapter {
         else if (type instanceof AliasType)
             return getDefaultValue(type.getUnderlyingType());
         else if (type instanceof ArrayType) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("[");
-
-            String elemDefaultValue = getDefaultValue(((ArrayType) type).getElemType());
-            boolean first = true;
-            for (int i = 0; i < ((ArrayType) type).getBound(); i++) {
-                if (first)
-                    first = false;
-                else
-                    sb.append(", ");
-
-                sb.append(elemDefaultValue);
-            }
-
-            sb.append("]");
-            return sb.toString();
+            GoLiteType elemType = ((ArrayType) type).getElemType();
+            String elemDefaultValue = getDefaultValue(elemType);
+            int bound = ((ArrayType) type).getBound();
+
+            // Elements that are arrays or structs are mutable, so each needs its own value.
+            GoLiteType underlyingElemType = elemType.getUnderlyingType();
+            if (underlyingElemType instanceof ArrayType || underlyingElemType instanceof StructType)
+                return "[" + elemDefaultValue + " for _ in " + this.fast("xrange") + "(" + bound
+                    + ")]";
+            else
+                return "[" + elemDefaultValue + "] * " + bound;
         } else if (type instanceof SliceType)
-            return "[]";
+            return this.fast("Slice") + "()";
         else if (type instanceof StructType) {
+            StructType structType = (StructType) type.getUnderlyingType();
+
             StringBuilder sb = new StringBuilder();
-            sb.append("{");
+            sb.append(this.fast(getStructClass(structType)));
+            sb.append("(");
 
-            Iterator<StructType.Field> it = ((StructType) type).getFieldIterator();
-            StructType.Field field;
+            Iterator<StructType.Field> it = structType.getFieldIterator();
             boolean first = true;
             while(it.hasNext()) {
                 if (first)
@@ -280,16 +341,105 @@ public class CodeGenerator extends DepthFirstAdapter {
                 else
                     sb.append(", ");
 
-                field = it.next();
-                sb.append("'" + field.getId() + "': " + getDefaultValue(field.getType()));
+                sb.append(getDefaultValue(it.next().getType()));
             }
 
-            sb.append("}");
+            sb.append(")");
             return sb.toString();
         } else
             throw new IllegalArgumentException("Cannot get default value for type " + type);
     }
 
+    /**
+     * Returns the name of the class representing values of the given (underlying) struct type,
+     * generating the class if it's the first time the struct type is needed. Each class has a slot
+     * per field, a positional constructor and field-wise equality.
+     *
+     * @param type - Underlying struct type
+     * @return Class name
+     */
+    private String getStructClass(StructType type) {
+        String name = structClasses.get(type);
+        if (name != null)
+            return name;
+
+        name = "Struct" + structClasses.size();
+        structClasses.put(type, name);
+
+        ArrayList<String> attributes = new ArrayList<String>();
+        Iterator<StructType.Field> it = type.getFieldIterator();
+        while (it.hasNext())
+            attributes.add(getFieldAttribute(type, it.next().getId()));
+
+        StringBuffer def = structClassDefs;
+        def.append("class " + name + "(object):\n");
+        def.append("\t__slots__ = (");
+        for (String a : attributes)
+            def.append("'" + a + "', ");
+        def.append(")\n\n");
+
+        def.append("\tdef __init__(self");
+        for (String a : attributes)
+            def.append(", " + a);
+        def.append("):\n");
+        for (String a : attributes)
+            def.append("\t\tself." + a + " = " + a + "\n");
+        if (attributes.isEmpty())
+            def.append("\t\tpass\n");
+        def.append("\n");
+
+        def.append("\tdef __eq__(self, other):\n");
+        def.append("\t\treturn True");
+        for (String a : attributes)
+            def.append(" and self." + a + " == other." + a);
+        def.append("\n\n");
+
+        def.append("\tdef __ne__(self, other):\n");
+        def.append("\t\treturn not self == other\n\n");
+
+        return name;
+    }
+
+    /**
+     * Returns the attribute name of the field with the given Id in the given (underlying) struct
+     * type. Fields keep their Id, unless it's a Python keyword or starts with two underscores (which
+     * Python would mangle), in which case it's prefixed with its position.
+     *
+     * @param type - Underlying struct type
+     * @param id - Field Id
+     * @return Attribute name
+     */
+    private String getFieldAttribute(StructType type, String id) {
+        HashMap<String, String> attributes = structAttributes.get(type);
+        if (attributes == null) {
+            attributes = new HashMap<String, String>();
+
+            HashSet<String> ids = new HashSet<String>();
+            Iterator<StructType.Field> it = type.getFieldIterator();
+            while (it.hasNext())
+                ids.add(it.next().getId());
+
+            int i = 0;
+            it = type.getFieldIterator();
+            while (it.hasNext()) {
+                String fieldId = it.next().getId();
+                String attribute = fieldId;
+                if (PYTHON_KEYWORDS.contains(fieldId) || fieldId.startsWith("__")) {
+                    attribute = "f" + i + "_" + fieldId;
+                    while (ids.contains(attribute))
+                        attribute = attribute + "_";
+                }
+
+                attributes.put(fieldId, attribute);
+                i++;
+            }
+
+            structAttributes.put(type, attributes);
+        }
+
+        return attributes.get(id);
+    }
+
     /**
      * Overhead for Generated Python Code
      *
@@ -320,12 +470,31 @@ public class CodeGenerator extends DepthFirstAdapter {
         addLines(1);
 
         buffer.append("from __future__ import print_function\n");
+        buffer.append("import sys\n");
+        addLines(1);
+
+        // Output goes through the buffer of stdout, flushed when full and at exit.
+        buffer.append("write = sys.stdout.write\n");
         addLines(1);
 
         buffer.append("twoExp31, twoExp32 = 2 ** 31, 2 ** 32\n");
         buffer.append("normalize = lambda x : (x + twoExp31) % twoExp32 - twoExp31\n");
         addLines(1);
 
+        // Go's integer division and modulo truncate towards zero, where Python's round down.
+        if (this.norm) {
+            buffer.append("def quo(x, y):\n");
+            buffer.append("\tq = x // y\n");
+            buffer.append("\treturn q + 1 if q < 0 and q * y != x else q\n");
+            addLines(1);
+            buffer.append("def rem(x, y):\n");
+            buffer.append("\tr = x % y\n");
+            buffer.append("\treturn r - y if r and (r < 0) != (x < 0) else r\n");
+            addLines(1);
+        }
+
+        generateSliceRuntime();
+
         buffer.append("true_0, false_0 = True, False\n");
         addLines(1);
 
@@ -335,6 +504,53 @@ public class CodeGenerator extends DepthFirstAdapter {
         addLines(1);
     }
 
+    /**
+     * Slice runtime. A slice is a header (backing array, length, capacity) that is never mutated,
+     * so copying a slice copies its header like in Go. Appending writes into the shared backing
+     * array while there's capacity left and otherwise copies into a new one with double the
+     * capacity, which keeps every append amortized O(1). Indexing checks the index against the
+     * length of the slice, since the backing array may be longer, and fails like the executables
+     * of the other backends do. Most indexing checks inline (see generateCheckedSliceElem); the
+     * header only indexes itself when its expression or the index isn't pure.
+     */
+    private void generateSliceRuntime() {
+        buffer.append("class Slice(object):\n");
+        buffer.append("\t__slots__ = ('arr', 'len', 'cap')\n");
+        addLines(1);
+        buffer.append("\tdef __init__(self, arr = None, length = 0, cap = 0):\n");
+        buffer.append("\t\tself.arr = [] if arr is None else arr\n");
+        buffer.append("\t\tself.len = length\n");
+        buffer.append("\t\tself.cap = cap\n");
+        addLines(1);
+        buffer.append("\tdef __getitem__(self, i):\n");
+        buffer.append("\t\tif not 0 <= i < self.len:\n");
+        buffer.append("\t\t\tindexOutOfRange()\n");
+        buffer.append("\t\treturn self.arr[i]\n");
+        addLines(1);
+        buffer.append("\tdef __setitem__(self, i, x):\n");
+        buffer.append("\t\tif not 0 <= i < self.len:\n");
+        buffer.append("\t\t\tindexOutOfRange()\n");
+        buffer.append("\t\tself.arr[i] = x\n");
+        addLines(1);
+        buffer.append("def indexOutOfRange():\n");
+        buffer.append("\tsys.stdout.flush()\n");
+        buffer.append("\tsys.stderr.write('index out of range\\n')\n");
+        buffer.append("\tsys.exit(1)\n");
+        addLines(1);
+        buffer.append("def append(s, x):\n");
+        buffer.append("\tarr, n = s.arr, s.len\n");
+        buffer.append("\tif n == s.cap:\n");
+        buffer.append("\t\tarr = arr[:n]\n");
+        buffer.append("\t\tarr.append(x)\n");
+        buffer.append("\t\treturn Slice(arr, n + 1, 2 * n if n else 1)\n");
+        buffer.append("\tif n == len(arr):\n");
+        buffer.append("\t\tarr.append(x)\n");
+        buffer.append("\telse:\n");
+        buffer.append("\t\tarr[n] = x\n");
+        buffer.append("\treturn Slice(arr, n + 1, s.cap)\n");
+        addLines(1);
+    }
+
     private void generateOverheadOut() {
         buffer.append("#######################################################\n");
         buffer.append("###### The miracle from GoLite to Python2.7 ends ######\n");
@@ -351,13 +567,28 @@ public class CodeGenerator extends DepthFirstAdapter {
 
     @Override
     public void inStart(Start node) {
+        // Find the names each function can assign.
+        this.callGraph = new CallGraph();
+        node.apply(this.callGraph);
+
+        // Find the expressions that are constant (wrapping integers around only if the generated
+        // code does).
+        this.constantFolder = new ConstantFolder(this.typeTable, this.norm);
+        node.apply(this.constantFolder);
+
+        // Find the expressions that never need normalizing.
+        if (this.norm) {
+            this.rangeAnalyzer = new RangeAnalyzer(this.typeTable, this.constantFolder);
+            node.apply(this.rangeAnalyzer);
+        }
+
         // Enter the 0th scope.
         this.symbolTable = new SymbolTable();
         this.symbolTable.scope();
 
         // Initialize boolean literals.
-        this.symbolTable.putSymbol(new VariableSymbol("true", new BoolType(), node));
-        this.symbolTable.putSymbol(new VariableSymbol("false", new BoolType(), node));
+        this.symbolTable.putSymbol(new VariableSymbol("true", TypeFactory.getBoolType(), node));
+        this.symbolTable.putSymbol(new VariableSymbol("false", TypeFactory.getBoolType(), node));
     }
 
     @Override
@@ -374,8 +605,27 @@ public class CodeGenerator extends DepthFirstAdapter {
             List<PTopDec> copy = new ArrayList<PTopDec>(node.getTopDec());
 
             for (PTopDec e : copy) {
+                // Functions that can't be called are left out.
+                if (e instanceof AFuncTopDec
+                        && !this.callGraph.isReachable(((AFuncTopDec) e).getId().getText()))
+                    continue;
+
+                int start = buffer.length();
                 e.apply(this);
                 addLines(1);
+
+                // Classes must be defined before the declaration runs.
+                if (structClassDefs.length() > 0) {
+                    buffer.insert(start, structClassDefs);
+                    structClassDefs.setLength(0);
+                }
+
+                // Tables must be defined before the function using them is called.
+                if (dispatchTables.length() > 0) {
+                    buffer.append(dispatchTables);
+                    addLines(1);
+                    dispatchTables.setLength(0);
+                }
             }
         }
 
@@ -392,6 +642,13 @@ public class CodeGenerator extends DepthFirstAdapter {
 
         // Loop over the variable specifications and recurse.
         for(PVarSpec pVarSpec : node.getVarSpec()) {
+            // Variables nothing reachable references are only declared, unless their initializers
+            // have effects.
+            if (isUnreferenced((ASpecVarSpec) pVarSpec)) {
+                generateDiscarded(pVarSpec);
+                continue;
+            }
+
             pVarSpec.apply(this);
             addLines(1);
         }
@@ -399,6 +656,24 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.outAVarsTopDec(node);
     }
 
+    /**
+     * Checks whether no reachable function or top-level variable initializer references the
+     * variables of the given top-level specification, and its initializers are pure.
+     */
+    private boolean isUnreferenced(ASpecVarSpec node) {
+        for (TId id : this.getIds(node)) {
+            if (this.callGraph.isReferenced(id.getText()))
+                return false;
+        }
+
+        for (PExpr e : node.getExpr()) {
+            if (!DeadCode.isPure(e, this.constantFolder))
+                return false;
+        }
+
+        return true;
+    }
+
     @Override
     public void inASpecVarSpec(ASpecVarSpec node) {
         // Loop over each Id, tracking the position in the specfication.
@@ -542,18 +817,11 @@ public class CodeGenerator extends DepthFirstAdapter {
 
         buffer.append(this.rename(name));
 
-        // All renamed 0th-scope and gloval variables to declare global for the function.
-        ArrayList<String> globals = new ArrayList<String>();
-
-        for (Symbol s : this.symbolTable.getSymbolsFromScope(0)) {
-            if (s instanceof VariableSymbol)
-                globals.add(this.rename((s.getName())));
-        }
-
-        for (Symbol s : this.symbolTable.getSymbolsFromScope(1)) {
-            if (s instanceof VariableSymbol)
-                 globals.add(this.rename((s.getName())));
-        }
+        this.currentFunction = name;
+        this.deadNames = DeadCode.getDeadNames(node, this.constantFolder);
+        this.globalRefs = new HashSet<String>();
+        this.writtenGlobals = new LinkedHashSet<String>();
+        this.fastLocals = new LinkedHashSet<String>();
 
         // Enter the function body.
         this.symbolTable.scope();
@@ -580,34 +848,44 @@ public class CodeGenerator extends DepthFirstAdapter {
         {
             enterCodeBlock();
 
-            // Allow access to all 0th-scope and global variables.
-            if (!globals.isEmpty()) {
-                addTabs();
-                buffer.append("global ");
-
-                for (int i = 0; i < globals.size(); i++) {
-                    if (i > 0) {
-                        addComma();
-                        addSpace();
-                    }
+            int start = buffer.length();
 
-                    buffer.append(globals.get(i));
-                }
+            generateStatements(node.getStmt());
 
-                addLines(1);
+            // Now that the body is known, declare the globals it assigns, and bind the module-level
+            // names its loops read to locals.
+            StringBuilder header = new StringBuilder();
+            if (!this.writtenGlobals.isEmpty()) {
+                header.append("\tglobal " + String.join(", ", this.writtenGlobals) + "\n");
             }
 
-            List<PStmt> copy = new ArrayList<PStmt>(node.getStmt());
-            for (PStmt e : copy) {
-                generateStatement(e);
+            for (String n : this.fastLocals) {
+                header.append("\t" + n + "_l = " + n + "\n");
             }
 
-            exitCodeBlock(isBlockEmpty(copy));
+            buffer.insert(start, header);
+
+            // Type declarations generate blank lines.
+            exitCodeBlock(buffer.substring(start).trim().isEmpty());
         }
 
         // Exit the fucntion body.
         this.symbolTable.unscope();
 
+        // Later calls can inline the function if it doesn't assign globals.
+        if (Inliner.isInlinable(node)
+                && Collections.disjoint(Inliner.getAssignedNames(node), this.globalRefs)) {
+            this.inlinableFunctions.put(name, node);
+            this.inlinableGlobalRefs.put(name, this.globalRefs);
+            this.inlinableDeadNames.put(node, this.deadNames);
+        }
+
+        this.currentFunction = null;
+        this.deadNames = null;
+        this.globalRefs = null;
+        this.writtenGlobals = null;
+        this.fastLocals = null;
+
         this.outAFuncTopDec(node);
     }
 
@@ -782,29 +1060,6 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAAssignStmt(AAssignStmt node) {
         this.inAAssignStmt(node);
 
-        {
-            List<PExpr> lhsExprs = new ArrayList<PExpr>(node.getLhs());
-            List<PExpr> rhsExprs = new ArrayList<PExpr>(node.getRhs());
-
-            if (lhsExprs.size() == 1 && rhsExprs.size() == 1 &&
-                lhsExprs.get(0) instanceof AVariableExpr && rhsExprs.get(0) instanceof AAppendExpr) {
-                AVariableExpr lhs = (AVariableExpr) lhsExprs.get(0);
-                AAppendExpr rhs = (AAppendExpr) rhsExprs.get(0);
-
-                if (lhs.getId().getText().equals(rhs.getId().getText())) {
-                    buffer.append(this.rename(lhs.getId().getText()));
-                    addDot();
-
-                    buffer.append("append");
-                    addLeftParen();
-                    rhs.getExpr().apply(this);
-                    addRightParen();
-
-                    return;
-                }
-            }
-        }
-
         {
             List<PExpr> copy = new ArrayList<PExpr>(node.getLhs());
 
@@ -844,7 +1099,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAPlusAssignStmt(node);
 
         if (typeTable.get(node.getLhs()) instanceof IntType || typeTable.get(node.getLhs()) instanceof RuneType) {
-            normalizeOpAssign(node.getLhs(), " + ", node.getRhs());
+            normalizeOpAssign(node, node.getLhs(), " + ", node.getRhs());
             return;
         }
 
@@ -866,7 +1121,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAMinusAssignStmt(node);
 
         if (typeTable.get(node.getLhs()) instanceof IntType || typeTable.get(node.getRhs()) instanceof RuneType) {
-            normalizeOpAssign(node.getLhs(), " - ", node.getRhs());
+            normalizeOpAssign(node, node.getLhs(), " - ", node.getRhs());
             return;
         }
 
@@ -888,7 +1143,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAStarAssignStmt(node);
 
         if (typeTable.get(node.getLhs()) instanceof IntType || typeTable.get(node.getRhs()) instanceof RuneType) {
-            normalizeOpAssign(node.getLhs(), " * ", node.getRhs());
+            normalizeOpAssign(node, node.getLhs(), " * ", node.getRhs());
             return;
         }
 
@@ -910,7 +1165,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inASlashAssignStmt(node);
 
         if (typeTable.get(node.getLhs()) instanceof IntType || typeTable.get(node.getLhs()) instanceof RuneType) {
-            normalizeOpAssign(node.getLhs(), " / ", node.getRhs());
+            normalizeOpAssign(node, node.getLhs(), " / ", node.getRhs());
             return;
         }
 
@@ -932,7 +1187,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAPercAssignStmt(node);
 
         if (node.getLhs() != null && node.getRhs() != null) {
-            normalizeOpAssign(node.getLhs(), " % ", node.getRhs());
+            normalizeOpAssign(node, node.getLhs(), " % ", node.getRhs());
         }
 
         this.outAPercAssignStmt(node);
@@ -948,7 +1203,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAAndAssignStmt(node);
 
         if (node.getLhs() != null && node.getRhs() != null) {
-            normalizeOpAssign(node.getLhs(), " & ", node.getRhs());
+            normalizeOpAssign(node, node.getLhs(), " & ", node.getRhs());
         }
 
         this.outAAndAssignStmt(node);
@@ -959,7 +1214,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAPipeAssignStmt(node);
 
         if (node.getLhs() != null && node.getRhs() != null) {
-            normalizeOpAssign(node.getLhs(), " | ", node.getRhs());
+            normalizeOpAssign(node, node.getLhs(), " | ", node.getRhs());
         }
 
         this.outAPipeAssignStmt(node);
@@ -970,7 +1225,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inACarotAssignStmt(node);
 
         if (node.getLhs() != null && node.getRhs() != null) {
-            normalizeOpAssign(node.getLhs(), " ^ ", node.getRhs());
+            normalizeOpAssign(node, node.getLhs(), " ^ ", node.getRhs());
         }
 
         this.outACarotAssignStmt(node);
@@ -981,7 +1236,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAAmpCarotAssignStmt(node);
 
         if (node.getLhs() != null && node.getRhs() != null) {
-            normalizeOpAssign(node.getLhs(), " &~ ", node.getRhs());
+            normalizeOpAssign(node, node.getLhs(), " &~ ", node.getRhs());
         }
 
         this.outAAmpCarotAssignStmt(node);
@@ -992,7 +1247,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inALshiftAssignStmt(node);
 
         if (node.getLhs() != null && node.getRhs() != null) {
-            normalizeOpAssign(node.getLhs(), " << ", node.getRhs());
+            normalizeOpAssign(node, node.getLhs(), " << ", node.getRhs());
         }
 
         this.outALshiftAssignStmt(node);
@@ -1003,7 +1258,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inARshiftAssignStmt(node);
 
         if (node.getLhs() != null && node.getRhs() != null) {
-            normalizeOpAssign(node.getLhs(), " >> ", node.getRhs());
+            normalizeOpAssign(node, node.getLhs(), " >> ", node.getRhs());
         }
 
         this.outARshiftAssignStmt(node);
@@ -1018,7 +1273,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inAIncrStmt(node);
 
         if (node.getExpr() != null) {
-            normalizeOpAssign(node.getExpr(), " + ", null);
+            normalizeOpAssign(node, node.getExpr(), " + ", null);
         }
 
         this.outAIncrStmt(node);
@@ -1029,31 +1284,47 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inADecrStmt(node);
 
         if (node.getExpr() != null) {
-            normalizeOpAssign(node.getExpr(), " - ", null);
+            normalizeOpAssign(node, node.getExpr(), " - ", null);
         }
 
         this.outADecrStmt(node);
     }
 
-    private void normalizeOpAssign(PExpr lhs, String operator, PExpr rhs) {
+    private void normalizeOpAssign(PStmt node, PExpr lhs, String operator, PExpr rhs) {
         lhs.apply(this);
         buffer.append(" = ");
 
-        if (this.norm) {
-            buffer.append("normalize");
+        boolean normalize = this.norm && RangeAnalyzer.isInteger(typeTable.get(lhs))
+            && !rangeAnalyzer.fitsInt32(node);
+        if (normalize) {
+            buffer.append(this.fast("normalize"));
             addLeftParen();
         }
 
-        lhs.apply(this);
-        buffer.append(operator);
-
-        if (rhs != null) {
+        String function = rhs == null ? null : this.truncatingFunction(lhs, operator, rhs);
+        if (function != null) {
+            // The variable already holds a normalized value.
+            buffer.append(this.fast(function) + "(");
+            lhs.apply(this);
+            buffer.append(", ");
             normalizeExpr(rhs);
+            buffer.append(")");
         } else {
-            buffer.append('1');
+            lhs.apply(this);
+            buffer.append(operator);
+
+            // Shift counts and divisors are observed as is, the other operands only modulo 2^32.
+            if (rhs == null) {
+                buffer.append('1');
+            } else if (operator.equals(" / ") || operator.equals(" % ")
+                    || operator.equals(" << ") || operator.equals(" >> ")) {
+                normalizeExpr(rhs);
+            } else {
+                modularOperand(rhs);
+            }
         }
 
-        if (this.norm) {
+        if (normalize) {
             addRightParen();
         }
     }
@@ -1077,60 +1348,100 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAPrintStmt(APrintStmt node) {
         this.inAPrintStmt(node);
 
-        buffer.append("print");
-        addLeftParen();
-
-        {
-            List<PExpr> copy = new ArrayList<PExpr>(node.getExpr());
+        generateWrite(node.getExpr(), false);
 
-            for (int i = 0; i < copy.size(); i++) {
-                if (i > 0) {
-                    buffer.append(" + ");
-                }
+        this.outAPrintStmt(node);
+    }
 
-                buffer.append("str");
-                addLeftParen();
+    @Override
+    public void caseAPrintlnStmt(APrintlnStmt node) {
+        this.inAPrintlnStmt(node);
 
-                normalizeExpr(copy.get(i));
+        generateWrite(node.getExpr(), true);
 
-                addRightParen();
-            }
+        this.outAPrintlnStmt(node);
+    }
 
-            if (!copy.isEmpty()) {
-                addComma();
-                addSpace();
+    /**
+     * Emits a single write of the given expressions to the output, formatted by their static types:
+     * literal strings and integer and boolean constants go in the format string, integers are
+     * formatted with '%d' and other values with '%s' (i.e. str()). Lines also get spaces between
+     * the values and a newline.
+     */
+    private void generateWrite(List<PExpr> exprs, boolean line) {
+        StringBuilder format = new StringBuilder();
+        ArrayList<String> args = new ArrayList<String>();
+        boolean string = false;
+
+        for (int i = 0; i < exprs.size(); i++) {
+            if (line && i > 0)
+                format.append(' ');
+
+            PExpr e = exprs.get(i);
+            String text = getLiteralText(e);
+            Object value = this.constantFolder.getValue(e);
+
+            if (text != null)
+                format.append(text);
+            else if (value instanceof Long)
+                format.append(value);
+            else if (value instanceof Boolean)
+                format.append((Boolean) value ? "True" : "False");
+            else {
+                GoLiteType type = this.typeTable.get(e);
+                format.append(RangeAnalyzer.isInteger(type) ? "%d" : "%s");
+                args.add(generateExpr(e));
+                string = type != null && type.getUnderlyingType() instanceof StringType;
             }
         }
 
-        buffer.append("end = ''");
-        addRightParen();
-
-        this.outAPrintStmt(node);
-    }
+        if (line)
+            format.append("\\n");
 
-    @Override
-    public void caseAPrintlnStmt(APrintlnStmt node) {
-        this.inAPrintlnStmt(node);
+        if (format.length() == 0) {
+            buffer.append("pass");
+            return;
+        }
 
-        buffer.append("print");
+        buffer.append(this.fast("write"));
         addLeftParen();
 
-        {
-            List<PExpr> copy = new ArrayList<PExpr>(node.getExpr());
-
-            for (int i = 0; i < copy.size(); i++) {
-                if (i > 0) {
-                    addComma();
-                    addSpace();
-                }
-
-                normalizeExpr(copy.get(i));
-            }
+        if (args.isEmpty())
+            buffer.append("\"" + format + "\"");
+        // A single string is written as is.
+        else if (string && format.toString().equals("%s"))
+            buffer.append(args.get(0));
+        else {
+            // The format only has conversions, strings with '%' characters being arguments.
+            buffer.append("\"" + format + "\" % (" + String.join(", ", args));
+            if (args.size() == 1)
+                addComma();
+            addRightParen();
         }
 
         addRightParen();
+    }
 
-        this.outAPrintlnStmt(node);
+    /**
+     * Returns the text of the given string literal if it can go in a format string as is, i.e. it
+     * has no escape sequences, quotes or '%' characters, or null otherwise.
+     */
+    private String getLiteralText(PExpr node) {
+        String text;
+        if (node instanceof AInterpretedStringLitExpr)
+            text = ((AInterpretedStringLitExpr) node).getInterpretedStringLit().getText();
+        else if (node instanceof ARawStringLitExpr)
+            text = ((ARawStringLitExpr) node).getRawStringLit().getText();
+        else
+            return null;
+
+        text = text.substring(1, text.length() - 1);
+        for (char c : text.toCharArray()) {
+            if (c == '\\' || c == '"' || c == '%' || c == '\n' || c == '\r')
+                return null;
+        }
+
+        return text;
     }
 
     /**
@@ -1141,7 +1452,7 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAContinueStmt(AContinueStmt node) {
         this.inAContinueStmt(node);
 
-        if (forEndStmts.peek() != null) {
+        if (forEndStmts.peek() != null && !isDeadStore(forEndStmts.peek())) {
             forEndStmts.peek().apply(this);
             addLines(1);
             addTabs();
@@ -1185,6 +1496,20 @@ public class CodeGenerator extends DepthFirstAdapter {
         // Create a new scope for the if-else initializer and blocks.
         this.symbolTable.scope();
 
+        // Only generate the block a constant condition selects.
+        AConditionCondition condition = (AConditionCondition) node.getCondition();
+        Object value = condition.getStmt() == null
+            ? this.constantFolder.getValue(condition.getExpr()) : null;
+        if (value != null) {
+            this.symbolTable.scope();
+            generateSelectedBlock((Boolean) value ? node.getIfBlock() : node.getElseBlock());
+            this.symbolTable.unscope();
+
+            this.symbolTable.unscope();
+            this.outAIfElseStmt(node);
+            return;
+        }
+
         if (node.getCondition() != null) {
             node.getCondition().apply(this);
         }
@@ -1195,16 +1520,12 @@ public class CodeGenerator extends DepthFirstAdapter {
             // Create a new scope for the if-block.
             this.symbolTable.scope();
 
-            List<PStmt> copy = new ArrayList<PStmt>(node.getIfBlock());
-
-            for (PStmt e : copy) {
-                generateStatement(e);
-            }
+            boolean empty = generateStatements(node.getIfBlock());
 
             // Exit the scope for the if-block.
             this.symbolTable.unscope();
 
-            exitCodeBlock(isBlockEmpty(copy));
+            exitCodeBlock(empty);
         }
 
         if (!isBlockEmpty(node.getElseBlock())) {
@@ -1221,15 +1542,12 @@ public class CodeGenerator extends DepthFirstAdapter {
             // Create a new scope for the else-block.
             this.symbolTable.scope();
 
-            List<PStmt> copy = new ArrayList<PStmt>(node.getElseBlock());
-            for (PStmt e : copy) {
-                generateStatement(e);
-            }
+            boolean empty = generateStatements(node.getElseBlock());
 
             // Exit the scope for the else-block.
             this.symbolTable.unscope();
 
-            exitCodeBlock(false);
+            exitCodeBlock(empty && !isBlockEmpty(node.getElseBlock()));
         }
 
         // Exit the scope for the if-else initializer and blocks.
@@ -1263,6 +1581,11 @@ public class CodeGenerator extends DepthFirstAdapter {
     /**
      * Switch Statements
      *
+     * The tag is evaluated exactly once: it is bound to a temporary unless it's a variable or a
+     * literal. A tagged switch whose cases are all distinct literals (and numerous enough) looks
+     * up the index of the matching case in a table built once at module level, and then finds its
+     * block by binary search on the index, instead of comparing the tag with every case in turn.
+     *
      */
     @Override
     public void caseASwitchStmt(ASwitchStmt node) {
@@ -1279,66 +1602,104 @@ public class CodeGenerator extends DepthFirstAdapter {
 
         PExpr switchExpr = node.getExpr();
 
-        List<PCaseBlock> caseBlocks = new ArrayList<PCaseBlock>(node.getCaseBlock());
+        // Only generate the block that constant cases select.
+        PCaseBlock selectedBlock = node.getStmt() == null ? getSelectedCaseBlock(node) : null;
+        if (selectedBlock != null) {
+            this.inABlockCaseBlock((ABlockCaseBlock) selectedBlock);
+            generateSelectedBlock(((ABlockCaseBlock) selectedBlock).getStmt());
+            this.outABlockCaseBlock((ABlockCaseBlock) selectedBlock);
+
+            this.symbolTable.unscope();
+            this.outASwitchStmt(node);
+            return;
+        }
+
+        int id = switchCount++;
 
+        List<PCaseBlock> caseBlocks = new ArrayList<PCaseBlock>();
         PCaseBlock defaultBlock = null;
-        for (PCaseBlock block : caseBlocks) {
+        for (PCaseBlock block : node.getCaseBlock()) {
             PCaseCondition condition = ((ABlockCaseBlock) block).getCaseCondition();
-            if (condition instanceof ADefaultCaseCondition) {
+            if (condition instanceof ADefaultCaseCondition)
                 defaultBlock = block;
-                break;
-            }
+            else
+                caseBlocks.add(block);
         }
 
-        for (int i = 0; i < caseBlocks.size(); i++) {
-            PCaseCondition condition = ((ABlockCaseBlock) caseBlocks.get(i)).getCaseCondition();
-            if (condition instanceof ADefaultCaseCondition) {
-                continue;
-            }
+        String table = (switchExpr != null) ? getDispatchTable(caseBlocks) : null;
+        if (table != null) {
+            dispatchTables.append("switch_table" + id + " = " + table + "\n");
 
-            if (i == 0) {
-                buffer.append("if");
-            } else {
+            String index = "switch_case" + id;
+            buffer.append(index + " = " + this.fast("switch_table" + id) + ".get(");
+            normalizeExpr(switchExpr);
+            buffer.append(", " + caseBlocks.size() + ")");
+            addLines(1);
+            addTabs();
+
+            // The default block (if any) comes last.
+            caseBlocks.add(defaultBlock);
+            generateSwitchDispatch(index, caseBlocks, 0, caseBlocks.size());
+        } else {
+            String tag = null;
+            if (switchExpr instanceof AVariableExpr || getCaseConstant(switchExpr) != null)
+                tag = generateExpr(switchExpr);
+            else if (switchExpr != null) {
+                tag = "switch_tag" + id;
+                buffer.append(tag + " = ");
+                normalizeExpr(switchExpr);
+                addLines(1);
                 addTabs();
-                buffer.append("elif");
             }
-            addSpace();
 
-            List<PExpr> caseExprs = new ArrayList<PExpr>(((AExprsCaseCondition) condition).getExpr());
-            for (int j = 0; j < caseExprs.size(); j++) {
-                if (j > 0) {
-                    buffer.append(" or ");
-                }
+            boolean first = true;
+            for (PCaseBlock block : caseBlocks) {
+                if (!first)
+                    addTabs();
+                buffer.append(first ? "if" : "elif");
+                addSpace();
+                first = false;
 
-                if (switchExpr != null) {
-                    addLeftParen();
-                    switchExpr.apply(this);
-                    buffer.append(" == ");
-                    caseExprs.get(j).apply(this);
-                    addRightParen();
-                } else {
-                    caseExprs.get(j).apply(this);
-                }
-            }
+                PCaseCondition condition = ((ABlockCaseBlock) block).getCaseCondition();
+                List<PExpr> caseExprs = new ArrayList<PExpr>(((AExprsCaseCondition) condition).getExpr());
+                for (int j = 0; j < caseExprs.size(); j++) {
+                    if (j > 0) {
+                        buffer.append(" or ");
+                    }
 
-            addColon();
+                    if (tag != null) {
+                        addLeftParen();
+                        buffer.append(tag);
+                        buffer.append(" == ");
+                        normalizeExpr(caseExprs.get(j));
+                        addRightParen();
+                    } else {
+                        caseExprs.get(j).apply(this);
+                    }
+                }
 
-            caseBlocks.get(i).apply(this);
-        }
+                addColon();
 
-        if (defaultBlock != null) {
-            if (caseBlocks.size() == 1) {
-                buffer.append("if");
-                addSpace();
-                buffer.append("True");
-            } else {
-                addTabs();
-                buffer.append("else");
+                block.apply(this);
             }
 
-            addColon();
+            if (defaultBlock != null) {
+                if (first) {
+                    buffer.append("if");
+                    addSpace();
+                    buffer.append("True");
+                } else {
+                    addTabs();
+                    buffer.append("else");
+                }
+
+                addColon();
 
-            defaultBlock.apply(this);
+                defaultBlock.apply(this);
+            } else if (first) {
+                buffer.append("pass");
+                addLines(1);
+            }
         }
 
         // Exit the scope for the switch initializer and blocks.
@@ -1347,14 +1708,211 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.outASwitchStmt(node);
     }
 
-    // Create a new scope for the case block.
-    @Override
-    public void inABlockCaseBlock(ABlockCaseBlock node) {
-        this.symbolTable.scope();
-    }
+    /**
+     * Returns the case block selected by a switch whose tag and case expressions are all constant,
+     * an empty block if no case matches and there's no default, or null if the switch isn't
+     * constant or the selected block breaks out of it.
+     */
+    private PCaseBlock getSelectedCaseBlock(ASwitchStmt node) {
+        Object tag = node.getExpr() == null ? Boolean.TRUE
+            : this.constantFolder.getValue(node.getExpr());
+        if (tag == null)
+            return null;
 
-    @Override
-    public void caseABlockCaseBlock(ABlockCaseBlock node) {
+        PCaseBlock selected = null, defaultBlock = null;
+        for (PCaseBlock block : node.getCaseBlock()) {
+            PCaseCondition condition = ((ABlockCaseBlock) block).getCaseCondition();
+            if (condition instanceof ADefaultCaseCondition) {
+                defaultBlock = block;
+                continue;
+            }
+
+            for (PExpr e : ((AExprsCaseCondition) condition).getExpr()) {
+                Object value = this.constantFolder.getValue(e);
+                if (value == null)
+                    return null;
+                if (selected == null && (value instanceof Double
+                        ? ((Double) value).doubleValue() == ((Double) tag).doubleValue()
+                        : value.equals(tag)))
+                    selected = block;
+            }
+        }
+
+        if (selected == null)
+            selected = defaultBlock != null ? defaultBlock
+                : new ABlockCaseBlock(new ADefaultCaseCondition(), new ArrayList<PStmt>());
+
+        final boolean[] breaks = { false };
+        selected.apply(new DepthFirstAdapter() {
+            @Override
+            public void inABreakStmt(ABreakStmt node) {
+                breaks[0] = true;
+            }
+        });
+
+        return breaks[0] ? null : selected;
+    }
+
+    /**
+     * Generates the statements of the block selected by a constant condition in place of the
+     * statement choosing it, or 'pass' if there are none.
+     */
+    private void generateSelectedBlock(List<PStmt> block) {
+        // The statement choosing the block was already indented.
+        buffer.setLength(buffer.length() - tabDepth);
+
+        if (generateStatements(block)) {
+            addTabs();
+            buffer.append("pass");
+            addLines(1);
+        }
+    }
+
+    /**
+     * Emits the blocks of a dispatched switch in the given range of case indices, choosing between
+     * them by binary search on the case index (a null block does nothing).
+     */
+    private void generateSwitchDispatch(String index, List<PCaseBlock> blocks, int lo, int hi) {
+        int mid = (lo + hi) >>> 1;
+
+        buffer.append("if " + index + " < " + mid);
+        addColon();
+        generateSwitchDispatchBlock(index, blocks, lo, mid);
+
+        addTabs();
+        buffer.append("else");
+        addColon();
+        generateSwitchDispatchBlock(index, blocks, mid, hi);
+    }
+
+    private void generateSwitchDispatchBlock(String index, List<PCaseBlock> blocks, int lo,
+            int hi) {
+        if (hi - lo > 1) {
+            enterCodeBlock();
+            addTabs();
+            generateSwitchDispatch(index, blocks, lo, hi);
+            exitCodeBlock(false);
+        } else if (blocks.get(lo) != null)
+            blocks.get(lo).apply(this);
+        else {
+            enterCodeBlock();
+            exitCodeBlock(true);
+        }
+    }
+
+    /**
+     * Returns the Python dict mapping each case value to the index of its case block, or null if
+     * the switch should compare the tag with each case instead (the cases aren't all distinct
+     * literals, or there are too few of them).
+     */
+    private String getDispatchTable(List<PCaseBlock> caseBlocks) {
+        HashSet<Object> values = new HashSet<Object>();
+        StringBuffer table = new StringBuffer("{");
+
+        for (int i = 0; i < caseBlocks.size(); i++) {
+            PCaseCondition condition = ((ABlockCaseBlock) caseBlocks.get(i)).getCaseCondition();
+            for (PExpr e : ((AExprsCaseCondition) condition).getExpr()) {
+                Object value = getCaseConstant(e);
+                if (value == null || !values.add(value))
+                    return null;
+
+                if (values.size() > 1)
+                    table.append(", ");
+                table.append(generateExpr(e) + ": " + i);
+            }
+        }
+
+        return values.size() >= MIN_DISPATCH_CASES ? table.append("}").toString() : null;
+    }
+
+    /**
+     * Returns the value of the given expression if it's a literal (possibly negated), as a Long
+     * for integers and runes or a String for strings, or null otherwise.
+     */
+    private Object getCaseConstant(PExpr node) {
+        try {
+            if (node instanceof AIntLitExpr)
+                return Long.parseLong(((AIntLitExpr) node).getIntLit().getText());
+            else if (node instanceof AOctLitExpr)
+                return Long.parseLong(((AOctLitExpr) node).getOctLit().getText(), 8);
+            else if (node instanceof AHexLitExpr)
+                return Long.parseLong(((AHexLitExpr) node).getHexLit().getText().substring(2), 16);
+            else if (node instanceof ARuneLitExpr)
+                return Long.parseLong(generateExpr(node));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        if (node instanceof ANegExpr) {
+            Object value = getCaseConstant(((ANegExpr) node).getExpr());
+            return (value instanceof Long) ? -((Long) value) : null;
+        }
+
+        // Only strings without escapes (or quotes), whose value is their text.
+        String s = null;
+        if (node instanceof AInterpretedStringLitExpr)
+            s = ((AInterpretedStringLitExpr) node).getInterpretedStringLit().getText();
+        else if (node instanceof ARawStringLitExpr)
+            s = ((ARawStringLitExpr) node).getRawStringLit().getText();
+
+        if (s == null)
+            return null;
+
+        s = s.substring(1, s.length() - 1);
+        return (s.indexOf('\\') >= 0 || s.indexOf('"') >= 0) ? null : s;
+    }
+
+    /**
+     * Emits the value of the given expression instead of its code if it's constant.
+     *
+     * @return True if the expression is constant, false otherwise
+     */
+    private boolean generateConstant(PExpr node) {
+        Object value = this.constantFolder.getValue(node);
+        String code = null;
+
+        if (value instanceof Boolean)
+            code = (Boolean) value ? "True" : "False";
+        else if (value instanceof Long)
+            code = value.toString();
+        else if (value instanceof Double) {
+            // Only emit floats whose literal reads back as the same value.
+            code = value.toString();
+            if (Double.compare(Double.parseDouble(code), (Double) value) != 0)
+                code = null;
+        }
+
+        if (code == null)
+            return false;
+
+        if (code.startsWith("-"))
+            code = "(" + code + ")";
+
+        buffer.append(code);
+        return true;
+    }
+
+    /**
+     * Returns the code generated for the given expression, without emitting it.
+     */
+    private String generateExpr(PExpr node) {
+        StringBuffer saved = buffer;
+        buffer = new StringBuffer();
+        normalizeExpr(node);
+
+        String code = buffer.toString();
+        buffer = saved;
+        return code;
+    }
+
+    // Create a new scope for the case block.
+    @Override
+    public void inABlockCaseBlock(ABlockCaseBlock node) {
+        this.symbolTable.scope();
+    }
+
+    @Override
+    public void caseABlockCaseBlock(ABlockCaseBlock node) {
         this.inABlockCaseBlock(node);
 
         if (node.getCaseCondition() != null) {
@@ -1364,12 +1922,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         {
             enterCodeBlock();
 
-            List<PStmt> copy = new ArrayList<PStmt>(node.getStmt());
-            for (PStmt e : copy) {
-                generateStatement(e);
-            }
-
-            exitCodeBlock(isBlockEmpty(copy));
+            exitCodeBlock(generateStatements(node.getStmt()));
         }
 
         this.outABlockCaseBlock(node);
@@ -1403,47 +1956,60 @@ public class CodeGenerator extends DepthFirstAdapter {
         // Create a new scope for the loop initializer and body.
         this.symbolTable.scope();
 
-        /**
-         * Only used when generating for Loops
-         */
-        if (node.getInit() != null) {
-            node.getInit().apply(this);
-            addLines(1);
-            addTabs();
-        }
+        CountedLoop countedLoop = CountedLoop.match(node, this.typeTable);
+        if (countedLoop != null && !this.isRangeLoop(node, countedLoop))
+            countedLoop = null;
 
-        buffer.append("while");
-        addSpace();
+        List<PStmt> copy = new ArrayList<PStmt>(node.getBlock());
 
-        if (node.getExpr() != null) {
-            node.getExpr().apply(this);
+        if (countedLoop != null) {
+            generateRangeLoop((AShortAssignStmt) node.getInit(), countedLoop);
+            this.loopDepth++;
+
+            // The counter is stepped by the range, not the post statement.
+            forEndStmts.push(null);
         } else {
-            buffer.append("True");
-        }
+            /**
+             * Only used when generating for Loops
+             */
+            if (node.getInit() != null) {
+                node.getInit().apply(this);
+                addLines(1);
+                addTabs();
+            }
 
-        addColon();
+            // The condition is evaluated on every iteration.
+            this.loopDepth++;
 
-        enterCodeBlock();
+            buffer.append("while");
+            addSpace();
 
-        List<PStmt> copy = new ArrayList<PStmt>(node.getBlock());
-        /**
-         * Only used when generating for Loops
-         */
-        forEndStmts.push(node.getEnd());
-        if (node.getEnd() != null) {
-            copy.add(node.getEnd());
+            if (node.getExpr() != null) {
+                node.getExpr().apply(this);
+            } else {
+                buffer.append("True");
+            }
+
+            addColon();
+
+            enterCodeBlock();
+
+            /**
+             * Only used when generating for Loops
+             */
+            forEndStmts.push(node.getEnd());
+            if (node.getEnd() != null) {
+                copy.add(node.getEnd());
+            }
         }
 
         // Create a new scope for the loop body.
         this.symbolTable.scope();
 
-        for (PStmt e : copy) {
-            generateStatement(e);
-        }
-
-        exitCodeBlock(isBlockEmpty(copy));
+        exitCodeBlock(generateStatements(copy));
 
         forEndStmts.pop();
+        this.loopDepth--;
 
         // Exit the scope for the loop body.
         this.symbolTable.unscope();
@@ -1453,6 +2019,54 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.outALoopStmt(node);
     }
 
+    /**
+     * Checks whether the given counted loop can iterate over a range. In safe mode, the counter
+     * mustn't wrap around when stepped, and globals in the bound mustn't be assigned by functions
+     * called in the body.
+     */
+    private boolean isRangeLoop(ALoopStmt node, CountedLoop loop) {
+        if (this.norm && !rangeAnalyzer.fitsInt32(node.getEnd()))
+            return false;
+
+        if (loop.callsFunctions()) {
+            for (String v : loop.getBoundVariables()) {
+                if (this.symbolTable.getScopeDepth(v) <= 1)
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Generates the header of a counted loop, 'for i in xrange(e0, e1, step):', declaring the
+     * counter as the initializer would.
+     */
+    private void generateRangeLoop(AShortAssignStmt init, CountedLoop loop) {
+        this.inAShortAssignStmt(init);
+        String start = generateExpr(loop.getStart());
+        this.outAShortAssignStmt(init);
+
+        String bound = generateExpr(loop.getBound());
+        if (loop.isInclusive()) {
+            PExpr b = loop.getBound();
+            if (!(b instanceof AVariableExpr || b instanceof AIntLitExpr))
+                bound = "(" + bound + ")";
+
+            bound += loop.getStep() > 0 ? " + 1" : " - 1";
+        }
+
+        buffer.append("for " + this.rename(loop.getCounter()) + " in " + this.fast("xrange") + "("
+            + start + ", " + bound);
+        if (loop.getStep() != 1)
+            buffer.append(", " + loop.getStep());
+        buffer.append(")");
+
+        addColon();
+
+        enterCodeBlock();
+    }
+
     // Create a new scope.
     @Override
     public void inABlockStmt(ABlockStmt node) {
@@ -1467,12 +2081,7 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseABlockStmt(ABlockStmt node) {
         this.inABlockStmt(node);
 
-        {
-            List<PStmt> copy = new ArrayList<PStmt>(node.getStmt());
-            for (PStmt e : copy) {
-                generateStatement(e);
-            }
-        }
+        generateStatements(node.getStmt());
 
         this.outABlockStmt(node);
     }
@@ -1495,6 +2104,14 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inStructTypeExpr = false;
     }
 
+    // The bound is part of the type, so it isn't generated.
+    @Override
+    public void caseAArrayTypeExpr(AArrayTypeExpr node) {
+        this.inAArrayTypeExpr(node);
+        node.getTypeExpr().apply(this);
+        this.outAArrayTypeExpr(node);
+    }
+
     /**
      * Empty Expressions
      *  (do we need this?)
@@ -1514,16 +2131,20 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAAddExpr(AAddExpr node) {
         this.inAAddExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
-            normalizeExpr(node.getLeft());
+            modularOperand(node.getLeft());
         }
 
         buffer.append(" + ");
 
         if (node.getRight() != null) {
-            normalizeExpr(node.getRight());
+            modularOperand(node.getRight());
         }
 
         addRightParen();
@@ -1535,16 +2156,20 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseASubtractExpr(ASubtractExpr node) {
         this.inASubtractExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
-            normalizeExpr(node.getLeft());
+            modularOperand(node.getLeft());
         }
 
         buffer.append(" - ");
 
         if (node.getRight() != null) {
-            normalizeExpr(node.getRight());
+            modularOperand(node.getRight());
         }
 
         addRightParen();
@@ -1556,16 +2181,20 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAMultExpr(AMultExpr node) {
         this.inAMultExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
-            normalizeExpr(node.getLeft());
+            modularOperand(node.getLeft());
         }
 
         buffer.append(" * ");
 
         if (node.getRight() != null) {
-            normalizeExpr(node.getRight());
+            modularOperand(node.getRight());
         }
 
         addRightParen();
@@ -1577,6 +2206,17 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseADivExpr(ADivExpr node) {
         this.inADivExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
+        String function = this.truncatingFunction(node.getLeft(), " / ", node.getRight());
+        if (function != null) {
+            this.truncatingCall(function, node.getLeft(), node.getRight());
+            this.outADivExpr(node);
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
@@ -1598,6 +2238,17 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAModExpr(AModExpr node) {
         this.inAModExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
+        String function = this.truncatingFunction(node.getLeft(), " % ", node.getRight());
+        if (function != null) {
+            this.truncatingCall(function, node.getLeft(), node.getRight());
+            this.outAModExpr(node);
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
@@ -1624,16 +2275,20 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseABitAndExpr(ABitAndExpr node) {
         this.inABitAndExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
-            normalizeExpr(node.getLeft());
+            modularOperand(node.getLeft());
         }
 
         buffer.append(" & ");
 
         if (node.getRight() != null) {
-            normalizeExpr(node.getRight());
+            modularOperand(node.getRight());
         }
 
         addRightParen();
@@ -1645,16 +2300,20 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseABitOrExpr(ABitOrExpr node) {
         this.inABitOrExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
-            normalizeExpr(node.getLeft());
+            modularOperand(node.getLeft());
         }
 
         buffer.append(" | ");
 
         if (node.getRight() != null) {
-            normalizeExpr(node.getRight());
+            modularOperand(node.getRight());
         }
 
         addRightParen();
@@ -1666,16 +2325,20 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseABitXorExpr(ABitXorExpr node) {
         this.inABitXorExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
-            normalizeExpr(node.getLeft());
+            modularOperand(node.getLeft());
         }
 
         buffer.append(" ^ ");
 
         if (node.getRight() != null) {
-            normalizeExpr(node.getRight());
+            modularOperand(node.getRight());
         }
 
         addRightParen();
@@ -1687,16 +2350,20 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseABitClearExpr(ABitClearExpr node) {
         this.inABitClearExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
-            normalizeExpr(node.getLeft());
+            modularOperand(node.getLeft());
         }
 
         buffer.append(" &~ ");
 
         if (node.getRight() != null) {
-            normalizeExpr(node.getRight());
+            modularOperand(node.getRight());
         }
 
         addRightParen();
@@ -1708,10 +2375,14 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseABitLshiftExpr(ABitLshiftExpr node) {
         this.inABitLshiftExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
-            normalizeExpr(node.getLeft());
+            modularOperand(node.getLeft());
         }
 
         buffer.append(" << ");
@@ -1729,10 +2400,14 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseABitRshiftExpr(ABitRshiftExpr node) {
         this.inABitRshiftExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
-            node.getLeft().apply(this);
+            normalizeExpr(node.getLeft());
         }
 
         buffer.append(" >> ");
@@ -1755,13 +2430,17 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAPosExpr(APosExpr node) {
         this.inAPosExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         buffer.append('+');
         addSpace();
 
         if (node.getExpr() != null) {
-            normalizeExpr(node.getExpr());
+            modularOperand(node.getExpr());
         }
 
         addRightParen();
@@ -1773,13 +2452,17 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseANegExpr(ANegExpr node) {
         this.inANegExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         buffer.append('-');
         addSpace();
 
         if (node.getExpr() != null) {
-            normalizeExpr(node.getExpr());
+            modularOperand(node.getExpr());
         }
 
         addRightParen();
@@ -1791,13 +2474,17 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseABitCompExpr(ABitCompExpr node) {
         this.inABitCompExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         buffer.append('~');
         addSpace();
 
         if (node.getExpr() != null) {
-            normalizeExpr(node.getExpr());
+            modularOperand(node.getExpr());
         }
 
         addRightParen();
@@ -1809,6 +2496,10 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseANotExpr(ANotExpr node) {
         this.inANotExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         buffer.append("not");
@@ -1832,6 +2523,10 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAEqExpr(AEqExpr node) {
         this.inAEqExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
@@ -1853,6 +2548,10 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseANeqExpr(ANeqExpr node) {
         this.inANeqExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
@@ -1874,6 +2573,10 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseALtExpr(ALtExpr node) {
         this.inALtExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
@@ -1895,6 +2598,10 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseALteExpr(ALteExpr node) {
         this.inALteExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
@@ -1916,6 +2623,10 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAGtExpr(AGtExpr node) {
         this.inAGtExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
@@ -1937,6 +2648,10 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAGteExpr(AGteExpr node) {
         this.inAGteExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
@@ -1962,6 +2677,10 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAAndExpr(AAndExpr node) {
         this.inAAndExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
@@ -1983,6 +2702,10 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAOrExpr(AOrExpr node) {
         this.inAOrExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         addLeftParen();
 
         if (node.getLeft() != null) {
@@ -2014,22 +2737,28 @@ public class CodeGenerator extends DepthFirstAdapter {
         // Corresponding symbol.
         Symbol symbol = this.symbolTable.getSymbol(name);
 
+        // Inlined function call.
+        if (this.inlinedResults.containsKey(node)) {
+            buffer.append(this.inlinedResults.get(node));
+            return;
+        }
+
         // Function call.
         if (symbol instanceof FunctionSymbol)
-            buffer.append(this.rename(id.getText()));
+            buffer.append(this.fast(this.rename(id.getText())));
         // Type cast with an alias.
         else if (symbol instanceof TypeAliasSymbol) {
             TypeAliasSymbol typeAliasSymbol = ((TypeAliasSymbol) symbol);
             GoLiteType underlyingType = typeAliasSymbol.getUnderlyingType();
 
             if (underlyingType instanceof IntType)
-                buffer.append("int");
+                buffer.append(this.fast("int"));
             else if (underlyingType instanceof FloatType)
-                buffer.append("float");
+                buffer.append(this.fast("float"));
             else if (underlyingType instanceof BoolType)
-                buffer.append("bool");
+                buffer.append(this.fast("bool"));
             else if (underlyingType instanceof RuneType)
-                buffer.append("int");
+                buffer.append(this.fast("int"));
         }
 
         addLeftParen();
@@ -2042,7 +2771,7 @@ public class CodeGenerator extends DepthFirstAdapter {
                 addSpace();
             }
 
-            copy.get(i).apply(this);
+            normalizeExpr(copy.get(i));
         }
 
         addRightParen();
@@ -2054,22 +2783,21 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAAppendExpr(AAppendExpr node) {
         this.inAAppendExpr(node);
 
+        // Goes through the slice runtime, which returns a new slice header.
+        buffer.append(this.fast("append"));
         addLeftParen();
 
         if (node.getId() != null) {
-            buffer.append(this.rename(node.getId().getText()));
+            buffer.append(this.renameRead(node.getId().getText()));
         }
 
-        buffer.append(" + ");
-
-        addLeftBracket();
+        addComma();
+        addSpace();
 
         if (node.getExpr() != null) {
-            node.getExpr().apply(this);
+            normalizeExpr(node.getExpr());
         }
 
-        addRightBracket();
-
         addRightParen();
 
         this.outAAppendExpr(node);
@@ -2077,6 +2805,10 @@ public class CodeGenerator extends DepthFirstAdapter {
 
     @Override
     public void caseATypeCastExpr(ATypeCastExpr node) {
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         String type = "";
         PTypeExpr expr = node.getTypeExpr();
         if (expr instanceof AFloatTypeExpr)
@@ -2089,12 +2821,11 @@ public class CodeGenerator extends DepthFirstAdapter {
         }
         else if (expr instanceof ABoolTypeExpr || expr instanceof AIntTypeExpr)
         {
-            buffer.append(expr.toString());
-            buffer.setLength(buffer.length() - 1);
+            type = expr.toString().trim();
         }
-        buffer.append(type);
+        buffer.append(type.isEmpty() ? type : this.fast(type));
         buffer.append("(");
-        node.getExpr().apply(this);
+        normalizeExpr(node.getExpr());
         buffer.append(")");
     }
 
@@ -2106,14 +2837,24 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAArrayElemExpr(AArrayElemExpr node) {
         this.inAArrayElemExpr(node);
 
+        GoLiteType arrayType = this.typeTable.get(node.getArray());
+        if (arrayType != null && arrayType.getUnderlyingType() instanceof SliceType
+                && DeadCode.isPure(node.getArray(), this.constantFolder)
+                && DeadCode.isPure(node.getIndex(), this.constantFolder)) {
+            generateCheckedSliceElem(node);
+            this.outAArrayElemExpr(node);
+            return;
+        }
+
         if (node.getArray() != null) {
+            // Other slice headers check their indices themselves.
             node.getArray().apply(this);
         }
 
         addLeftBracket();
 
         if (node.getIndex() != null) {
-            node.getIndex().apply(this);
+            normalizeExpr(node.getIndex());
         }
 
         addRightBracket();
@@ -2121,6 +2862,32 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.outAArrayElemExpr(node);
     }
 
+    /**
+     * Emit an element of a slice whose header and index are pure as s.arr[i if 0 <= i < s.len else
+     * indexOutOfRange()], checking the index at the access site rather than through a method call.
+     * Both are evaluated twice, which is why they have to be pure. The lower bound is left out if
+     * the index is known to be non-negative.
+     */
+    private void generateCheckedSliceElem(AArrayElemExpr node) {
+        node.getArray().apply(this);
+        buffer.append(".arr");
+        addLeftBracket();
+        normalizeExpr(node.getIndex());
+
+        Object value = this.constantFolder.getValue(node.getIndex());
+        if ((value instanceof Number && ((Number) value).longValue() >= 0)
+                || (this.norm && this.rangeAnalyzer.isNonNegative(node.getIndex())))
+            buffer.append(" if ");
+        else
+            buffer.append(" if 0 <= ");
+
+        normalizeExpr(node.getIndex());
+        buffer.append(" < ");
+        node.getArray().apply(this);
+        buffer.append(".len else indexOutOfRange()");
+        addRightBracket();
+    }
+
     @Override
     public void caseAFieldExpr(AFieldExpr node) {
         this.inAFieldExpr(node);
@@ -2128,7 +2895,8 @@ public class CodeGenerator extends DepthFirstAdapter {
         if (node.getExpr() != null)
             node.getExpr().apply(this);
 
-        buffer.append("['" + node.getId().getText() + "']");
+        StructType structType = (StructType) typeTable.get(node.getExpr()).getUnderlyingType();
+        buffer.append("." + getFieldAttribute(structType, node.getId().getText()));
 
         this.outAFieldExpr(node);
     }
@@ -2150,8 +2918,22 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAVariableExpr(AVariableExpr node) {
         this.inAVariableExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         if (node.getId() != null) {
-            buffer.append(this.rename(node.getId().getText()));
+            String name = node.getId().getText();
+            this.addGlobalRef(name);
+
+            // Globals the function assigns must be declared global for it.
+            if (this.fastLocals != null && this.symbolTable.getScopeDepth(name) <= 1
+                    && node.parent() instanceof PStmt
+                    && Inliner.getTargets((PStmt) node.parent()).contains(node)) {
+                this.writtenGlobals.add(this.rename(name));
+                buffer.append(this.rename(name));
+            } else
+                buffer.append(this.renameRead(name));
         }
 
         this.outAVariableExpr(node);
@@ -2165,6 +2947,10 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAIntLitExpr(AIntLitExpr node) {
         this.inAIntLitExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         if (node.getIntLit() != null) {
             buffer.append(node.getIntLit().getText());
         }
@@ -2176,6 +2962,10 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAOctLitExpr(AOctLitExpr node) {
         this.inAOctLitExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         if (node.getOctLit() != null) {
             buffer.append(node.getOctLit().getText());
         }
@@ -2187,6 +2977,10 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAHexLitExpr(AHexLitExpr node) {
         this.inAHexLitExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         if (node.getHexLit() != null) {
             buffer.append(node.getHexLit().getText());
         }
@@ -2198,6 +2992,10 @@ public class CodeGenerator extends DepthFirstAdapter {
     public void caseAFloatLitExpr(AFloatLitExpr node) {
         this.inAFloatLitExpr(node);
 
+        if (this.generateConstant(node)) {
+            return;
+        }
+
         if (node.getFloatLit() != null) {
             buffer.append(node.getFloatLit().getText());
         }
@@ -2210,47 +3008,7 @@ public class CodeGenerator extends DepthFirstAdapter {
         this.inARuneLitExpr(node);
 
         if (node.getRuneLit() != null) {
-            String s = node.getRuneLit().getText();
-            if (s.equals("'\\t'"))
-            {
-                buffer.append(9);
-            }
-            else if (s.equals("'\\b'"))
-            {
-                buffer.append(8);
-            }
-            else if (s.equals("'\\f'"))
-            {
-                buffer.append(12);
-            }
-            else if (s.equals("'\\a'"))
-            {
-                buffer.append(7);
-            }
-            else if (s.equals("'\\n'"))
-            {
-                buffer.append(10);
-            }
-            else if (s.equals("'\\r'"))
-            {
-                buffer.append(13);
-            }
-            else if (s.equals("'\\v'"))
-            {
-                buffer.append(11);
-            }
-            else if (s.equals("'\\\\'"))
-            {
-                buffer.append(92);
-            }
-            else if (s.equals("'\\''"))
-            {
-                buffer.append(39);
-            }
-            else
-            {
-                buffer.append((int) s.substring(1, s.length() - 1).charAt(0));
-            }
+            buffer.append(ConstantFolder.getRuneValue(node.getRuneLit().getText()));
         }
 
         this.outARuneLitExpr(node);
@@ -2334,11 +3092,54 @@ public class CodeGenerator extends DepthFirstAdapter {
         buffer.deleteCharAt(buffer.length() - 1);
     }
 
+    /**
+     * Generates the given statements up to the first one that unconditionally leaves the block, as
+     * the statements after it can't run.
+     *
+     * @return True if no code was generated
+     */
+    private boolean generateStatements(List<PStmt> block) {
+        int start = buffer.length();
+
+        for (PStmt e : new ArrayList<PStmt>(block)) {
+            generateStatement(e);
+
+            if (DeadCode.isJump(e))
+                break;
+        }
+
+        for (int i = start; i < buffer.length(); i++) {
+            if (!Character.isWhitespace(buffer.charAt(i)))
+                return false;
+        }
+
+        return true;
+    }
+
     private void generateStatement(PStmt e) {
         if (e instanceof AEmptyStmt) {
             return;
         }
 
+        if (isDeadStore(e)) {
+            generateDiscarded(e);
+            return;
+        }
+
+        int start = buffer.length();
+        List<AFuncCallExpr> calls = generateInlinedCalls(e);
+
+        // A call statement is done once its call is inlined.
+        if (calls != null && e instanceof AExprStmt) {
+            if (buffer.length() == start) {
+                addTabs();
+                buffer.append("pass");
+                addLines(1);
+            }
+
+            return;
+        }
+
         if (!(e instanceof ABlockStmt)) {
             addTabs();
         }
@@ -2348,6 +3149,196 @@ public class CodeGenerator extends DepthFirstAdapter {
         if (!(e instanceof AIfElseStmt) && !(e instanceof ASwitchStmt) && !(e instanceof ALoopStmt) && !(e instanceof ABlockStmt)) {
             addLines(1);
         }
+
+        if (calls != null) {
+            for (AFuncCallExpr call : calls)
+                this.inlinedResults.remove(call);
+        }
+    }
+
+    /**
+     * Emits the bodies of the functions called by the given statement in front of it, if all its
+     * calls can be inlined. The results of the calls are assigned to variables the statement then
+     * uses instead.
+     *
+     * @return Inlined calls, or null if the statement's calls aren't inlined
+     */
+    private List<AFuncCallExpr> generateInlinedCalls(PStmt node) {
+        List<AFuncCallExpr> calls = Inliner.getCalls(node);
+        if (calls == null || calls.isEmpty())
+            return null;
+
+        for (AFuncCallExpr call : calls) {
+            if (!isInlinable(call))
+                return null;
+        }
+
+        for (AFuncCallExpr call : calls) {
+            String name = call.getId().getText();
+            AFuncTopDec callee = this.inlinableFunctions.get(name);
+
+            // Arguments are evaluated in the scope of the call.
+            ArrayList<String> args = new ArrayList<String>();
+            for (PExpr e : call.getExpr())
+                args.add(generateExpr(e));
+
+            // The body gets a scope of its own, below the current one, so its variables are renamed
+            // apart from the caller's live ones.
+            this.symbolTable.scope();
+
+            ArrayList<String> params = new ArrayList<String>();
+            for (PArgGroup p : callee.getArgGroup()) {
+                AArgArgGroup g = (AArgArgGroup) p;
+                GoLiteType type = this.getType(g.getTypeExpr());
+
+                for (TId id : g.getId()) {
+                    this.symbolTable.putSymbol(new VariableSymbol(id.getText(), type, g));
+                    params.add(this.rename(id.getText()));
+                }
+            }
+
+            if (!params.isEmpty()) {
+                addTabs();
+                buffer.append(String.join(", ", params) + " = " + String.join(", ", args));
+                addLines(1);
+            }
+
+            List<PStmt> body = new ArrayList<PStmt>(callee.getStmt());
+            PExpr result = null;
+            if (!body.isEmpty() && body.get(body.size() - 1) instanceof AReturnStmt)
+                result = ((AReturnStmt) body.remove(body.size() - 1)).getExpr();
+
+            Set<String> deadNames = this.deadNames;
+            this.deadNames = this.inlinableDeadNames.get(callee);
+
+            for (PStmt e : body)
+                generateStatement(e);
+
+            this.deadNames = deadNames;
+
+            if (result != null) {
+                String var = "inline_result" + this.inlineCount++;
+                addTabs();
+                buffer.append(var + " = ");
+                normalizeExpr(result);
+                addLines(1);
+
+                this.inlinedResults.put(call, var);
+            }
+
+            this.symbolTable.unscope();
+
+            this.inlineLog.append(call.getId().getLine() + ":" + call.getId().getPos() + "\t" + name
+                + "\t" + this.currentFunction + "\n");
+        }
+
+        return calls;
+    }
+
+    /**
+     * Checks whether the given statement is a pure store to local variables the current function
+     * never reads, which can be left out.
+     */
+    private boolean isDeadStore(PStmt node) {
+        if (this.deadNames == null || !DeadCode.isPureStore(node, this.constantFolder))
+            return false;
+
+        List<String> names = new ArrayList<String>();
+        if (node instanceof AVarDecStmt) {
+            for (PVarSpec e : ((AVarDecStmt) node).getVarSpec()) {
+                for (TId id : this.getIds((ASpecVarSpec) e))
+                    names.add(id.getText());
+            }
+        } else if (node instanceof AShortAssignStmt) {
+            for (POptId e : ((AShortAssignStmt) node).getOptId()) {
+                if (e instanceof AIdOptId)
+                    names.add(((AIdOptId) e).getId().getText());
+            }
+        } else {
+            for (PExpr e : Inliner.getTargets(node)) {
+                if (e instanceof AVariableExpr) {
+                    String name = ((AVariableExpr) e).getId().getText();
+                    // Globals are read elsewhere.
+                    if (this.symbolTable.getScopeDepth(name) < 2)
+                        return false;
+
+                    names.add(name);
+                } else if (!(e instanceof ABlankExpr))
+                    return false;
+            }
+        }
+
+        return this.deadNames.containsAll(names);
+    }
+
+    /**
+     * Generates the given node without keeping its code, so that the variables it declares are
+     * still entered into the symbol table.
+     */
+    private void generateDiscarded(Node node) {
+        StringBuffer buffer = this.buffer;
+        LinkedHashSet<String> fastLocals = this.fastLocals;
+        this.buffer = new StringBuffer();
+        this.fastLocals = fastLocals == null ? null : new LinkedHashSet<String>(fastLocals);
+
+        node.apply(this);
+
+        this.buffer = buffer;
+        this.fastLocals = fastLocals;
+    }
+
+    /**
+     * Checks whether the given call can be inlined: it calls an inlinable function, and none of the
+     * 0th-scope or global names the function references is shadowed where the call is.
+     */
+    private boolean isInlinable(AFuncCallExpr node) {
+        String name = node.getId().getText();
+        if (!this.inlinableFunctions.containsKey(name) || this.symbolTable.getScopeDepth(name) != 1)
+            return false;
+
+        for (String ref : this.inlinableGlobalRefs.get(name)) {
+            if (this.symbolTable.getScopeDepth(ref) > 1)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Renames the variable with the given name where it's read, which for a global no call to the
+     * current function can assign may be a faster local.
+     */
+    private String renameRead(String name) {
+        String renamed = this.rename(name);
+        if (this.fastLocals != null && this.symbolTable.getScopeDepth(name) <= 1
+                && !this.callGraph.getAssignedNames(this.currentFunction).contains(name))
+            return this.fast(renamed);
+
+        return renamed;
+    }
+
+    /**
+     * Returns the name to use for the given module-level name, which the current function can't
+     * assign: in loops, that of a local bound to it on entry to the function, which is faster to
+     * read.
+     */
+    private String fast(String name) {
+        if (this.fastLocals == null || this.loopDepth == 0)
+            return name;
+
+        this.fastLocals.add(name);
+        return name + "_l";
+    }
+
+    /**
+     * Records the given name as referenced by the current function if it's a 0th-scope or global
+     * name.
+     */
+    private void addGlobalRef(String name) {
+        // Local types aren't entered into the symbol table.
+        if (this.globalRefs != null && this.symbolTable.getSymbol(name) != null
+                && this.symbolTable.getScopeDepth(name) <= 1)
+            this.globalRefs.add(name);
     }
 
     private void enterCodeBlock() {
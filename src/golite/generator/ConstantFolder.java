@@ -0,0 +1,633 @@
+package golite.generator;
+
+import golite.analysis.*;
+import golite.node.*;
+import golite.type.*;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * GoLite Constant Folder
+ *
+ * Computes the value of every int, rune, float64 and bool expression of a typed AST that's known at
+ * compile time, with Go's 32-bit integer semantics (ints and runes wrap around, division truncates
+ * towards zero). Values are Long's for integers, Double's for floats and Boolean's for bools.
+ *
+ * Without wrap-arounds, integers are instead folded like the unbounded ints of Python code generated
+ * without normalization compute them, so that folding doesn't change the output; results that don't
+ * fit in a long are left unfolded.
+ *
+ * Besides literals, constants are the top-level variables (and the predeclared true and false) that
+ * are never assigned and whose names aren't declared anywhere else in the program, once they're
+ * initialized with a constant. Expressions whose evaluation fails at run time (division by zero,
+ * negative shift counts, ...) aren't folded, so that they still fail.
+ */
+public class ConstantFolder extends DepthFirstAdapter {
+
+    /** Values of constant expressions. */
+    private HashMap<Node, Object> valueTable;
+    /** Types of expressions. */
+    private TypeTable typeTable;
+    /** Values of the constant variables, by name. */
+    private HashMap<String, Object> constants;
+    /** Names that can't be constant variables (declared more than once, or assigned). */
+    private Set<String> variables;
+    /** Flag indicating whether integers wrap around to 32 bits. */
+    private final boolean wrap;
+
+    /**
+     * Constructor (integers wrap around to 32 bits).
+     *
+     * @param typeTable - Type table from the type checker
+     */
+    public ConstantFolder(TypeTable typeTable) {
+        this(typeTable, true);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param typeTable - Type table from the type checker
+     * @param wrap - Flag indicating whether integers wrap around to 32 bits
+     */
+    public ConstantFolder(TypeTable typeTable, boolean wrap) {
+        this.valueTable = new HashMap<Node, Object>();
+        this.typeTable = typeTable;
+        this.constants = new HashMap<String, Object>();
+        this.wrap = wrap;
+    }
+
+    /**
+     * Returns the value of the given expression.
+     *
+     * @param node - Expression
+     * @return Value, or null if the expression isn't constant
+     */
+    public Object getValue(Node node) {
+        return this.valueTable.get(node);
+    }
+
+    /**
+     * Returns the value of the given rune literal.
+     *
+     * @param lit - Rune literal, with its quotes
+     * @return Character code
+     */
+    public static int getRuneValue(String lit) {
+        if (lit.equals("'\\t'"))
+            return 9;
+        else if (lit.equals("'\\b'"))
+            return 8;
+        else if (lit.equals("'\\f'"))
+            return 12;
+        else if (lit.equals("'\\a'"))
+            return 7;
+        else if (lit.equals("'\\n'"))
+            return 10;
+        else if (lit.equals("'\\r'"))
+            return 13;
+        else if (lit.equals("'\\v'"))
+            return 11;
+        else if (lit.equals("'\\\\'"))
+            return 92;
+        else if (lit.equals("'\\''"))
+            return 39;
+        else
+            return lit.charAt(1);
+    }
+
+    @Override
+    public void inStart(Start node) {
+        DeclarationScanner scanner = new DeclarationScanner();
+        node.apply(scanner);
+        this.variables = scanner.variables;
+
+        for (String b : new String[] { "true", "false" }) {
+            if (!scanner.declared.contains(b) && !this.variables.contains(b))
+                this.constants.put(b, b.equals("true"));
+        }
+    }
+
+    /**
+     * Kind of value of the given expression: Long, Double or Boolean, or null if it's none of them.
+     */
+    private Class<?> getKind(Node node) {
+        GoLiteType type = this.typeTable.get(node);
+        if (type == null)
+            return null;
+
+        type = type.getUnderlyingType();
+        if (type instanceof IntType || type instanceof RuneType)
+            return Long.class;
+        else if (type instanceof FloatType)
+            return Double.class;
+        else if (type instanceof BoolType)
+            return Boolean.class;
+        else
+            return null;
+    }
+
+    /**
+     * Records the value of the given expression, wrapping integers around to 32 bits if needed.
+     * Values of the wrong kind, and floats that aren't finite, are dropped.
+     */
+    private void setValue(Node node, Object value) {
+        if (value == null || getKind(node) != value.getClass())
+            return;
+
+        if (value instanceof Long && this.wrap)
+            value = (long) (int) (long) (Long) value;
+        else if (value instanceof Double && (((Double) value).isNaN()
+                || ((Double) value).isInfinite()))
+            return;
+
+        this.valueTable.put(node, value);
+    }
+
+    /**
+     * Top-Level Variable Declarations
+     *
+     */
+    @Override
+    public void outASpecVarSpec(ASpecVarSpec node) {
+        if (!(node.parent() instanceof AVarsTopDec))
+            return;
+
+        List<POptId> ids = node.getOptId();
+        List<PExpr> exprs = node.getExpr();
+        for (int i = 0; i < ids.size(); i++) {
+            if (!(ids.get(i) instanceof AIdOptId))
+                continue;
+
+            String name = ((AIdOptId) ids.get(i)).getId().getText();
+            if (this.variables.contains(name))
+                continue;
+
+            Object value = null;
+            if (exprs.isEmpty())
+                value = getZeroValue(node.getTypeExpr());
+            else if (exprs.size() == ids.size())
+                value = this.valueTable.get(exprs.get(i));
+
+            if (value != null)
+                this.constants.put(name, value);
+        }
+    }
+
+    /**
+     * Returns the zero value of the given type if it's a basic type, or null otherwise.
+     */
+    private static Object getZeroValue(PTypeExpr node) {
+        if (node instanceof AIntTypeExpr || node instanceof ARuneTypeExpr)
+            return 0L;
+        else if (node instanceof AFloatTypeExpr)
+            return 0.0;
+        else if (node instanceof ABoolTypeExpr)
+            return false;
+        else
+            return null;
+    }
+
+    /**
+     * Literals & Identifiers
+     *
+     */
+    @Override
+    public void outAIntLitExpr(AIntLitExpr node) {
+        this.setIntValue(node, new BigInteger(node.getIntLit().getText()));
+    }
+
+    @Override
+    public void outAOctLitExpr(AOctLitExpr node) {
+        this.setIntValue(node, new BigInteger(node.getOctLit().getText(), 8));
+    }
+
+    @Override
+    public void outAHexLitExpr(AHexLitExpr node) {
+        this.setIntValue(node, new BigInteger(node.getHexLit().getText().substring(2), 16));
+    }
+
+    /**
+     * Records the value of the given integer literal, unless it doesn't fit in a long without
+     * wrap-arounds.
+     */
+    private void setIntValue(Node node, BigInteger value) {
+        if (this.wrap || value.bitLength() < 64)
+            this.setValue(node, value.longValue());
+    }
+
+    @Override
+    public void outAFloatLitExpr(AFloatLitExpr node) {
+        this.setValue(node, Double.parseDouble(node.getFloatLit().getText()));
+    }
+
+    @Override
+    public void outARuneLitExpr(ARuneLitExpr node) {
+        this.setValue(node, (long) getRuneValue(node.getRuneLit().getText()));
+    }
+
+    @Override
+    public void outAVariableExpr(AVariableExpr node) {
+        this.setValue(node, this.constants.get(node.getId().getText()));
+    }
+
+    /**
+     * Arithmetic & Bit Operators
+     *
+     */
+    @Override
+    public void outAAddExpr(AAddExpr node) {
+        this.setArithmeticValue(node, node.getLeft(), node.getRight(), '+');
+    }
+
+    @Override
+    public void outASubtractExpr(ASubtractExpr node) {
+        this.setArithmeticValue(node, node.getLeft(), node.getRight(), '-');
+    }
+
+    @Override
+    public void outAMultExpr(AMultExpr node) {
+        this.setArithmeticValue(node, node.getLeft(), node.getRight(), '*');
+    }
+
+    @Override
+    public void outADivExpr(ADivExpr node) {
+        this.setArithmeticValue(node, node.getLeft(), node.getRight(), '/');
+    }
+
+    @Override
+    public void outAModExpr(AModExpr node) {
+        this.setArithmeticValue(node, node.getLeft(), node.getRight(), '%');
+    }
+
+    @Override
+    public void outABitAndExpr(ABitAndExpr node) {
+        this.setArithmeticValue(node, node.getLeft(), node.getRight(), '&');
+    }
+
+    @Override
+    public void outABitOrExpr(ABitOrExpr node) {
+        this.setArithmeticValue(node, node.getLeft(), node.getRight(), '|');
+    }
+
+    @Override
+    public void outABitXorExpr(ABitXorExpr node) {
+        this.setArithmeticValue(node, node.getLeft(), node.getRight(), '^');
+    }
+
+    @Override
+    public void outABitClearExpr(ABitClearExpr node) {
+        this.setArithmeticValue(node, node.getLeft(), node.getRight(), '~');
+    }
+
+    @Override
+    public void outABitLshiftExpr(ABitLshiftExpr node) {
+        this.setArithmeticValue(node, node.getLeft(), node.getRight(), '<');
+    }
+
+    @Override
+    public void outABitRshiftExpr(ABitRshiftExpr node) {
+        this.setArithmeticValue(node, node.getLeft(), node.getRight(), '>');
+    }
+
+    /**
+     * Records the value of a binary arithmetic or bit operation (with '~' for '&^', '<' for '<<'
+     * and '>' for '>>') on constant operands.
+     */
+    private void setArithmeticValue(Node node, PExpr left, PExpr right, char operator) {
+        Object a = this.valueTable.get(left), b = this.valueTable.get(right);
+        if (a == null || b == null)
+            return;
+
+        if (a instanceof Long && b instanceof Long && !this.wrap)
+            this.setValue(node, unboundedArithmetic((Long) a, (Long) b, operator));
+        else if (a instanceof Long && b instanceof Long) {
+            int x = (int) (long) (Long) a, y = (int) (long) (Long) b;
+            Integer r = null;
+            switch (operator) {
+            case '+': r = x + y; break;
+            case '-': r = x - y; break;
+            case '*': r = x * y; break;
+            case '/': r = y == 0 ? null : x / y; break;
+            case '%': r = y == 0 ? null : x % y; break;
+            case '&': r = x & y; break;
+            case '|': r = x | y; break;
+            case '^': r = x ^ y; break;
+            case '~': r = x & ~y; break;
+            case '<': r = y < 0 ? null : y >= 32 ? 0 : x << y; break;
+            case '>': r = y < 0 ? null : x >> Math.min(y, 31); break;
+            }
+
+            if (r != null)
+                this.setValue(node, (long) r);
+        } else if (a instanceof Double && b instanceof Double) {
+            double x = (Double) a, y = (Double) b;
+            Double r = null;
+            switch (operator) {
+            case '+': r = x + y; break;
+            case '-': r = x - y; break;
+            case '*': r = x * y; break;
+            case '/': r = y == 0 ? null : x / y; break;
+            }
+
+            this.setValue(node, r);
+        }
+    }
+
+    /**
+     * Returns the value of a binary integer operation without wrap-arounds, as generated Python code
+     * computes it, or null if it fails at run time or doesn't fit in a long.
+     */
+    private static Long unboundedArithmetic(long x, long y, char operator) {
+        try {
+            switch (operator) {
+            case '+': return Math.addExact(x, y);
+            case '-': return Math.subtractExact(x, y);
+            case '*': return Math.multiplyExact(x, y);
+            // Python's integer division and modulo round towards negative infinity.
+            case '/':
+                if (y == 0 || (x == Long.MIN_VALUE && y == -1))
+                    return null;
+                return Math.floorDiv(x, y);
+            case '%': return y == 0 ? null : Math.floorMod(x, y);
+            case '&': return x & y;
+            case '|': return x | y;
+            case '^': return x ^ y;
+            case '~': return x & ~y;
+            case '<':
+                if (y < 0 || y > 62 || (x << y) >> y != x)
+                    return null;
+                return x << y;
+            case '>': return y < 0 ? null : x >> Math.min(y, 63);
+            default: return null;
+            }
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Unary Operators
+     *
+     */
+    @Override
+    public void outAPosExpr(APosExpr node) {
+        this.setValue(node, this.valueTable.get(node.getExpr()));
+    }
+
+    @Override
+    public void outANegExpr(ANegExpr node) {
+        Object a = this.valueTable.get(node.getExpr());
+        if (a instanceof Long && ((Long) a != Long.MIN_VALUE || this.wrap))
+            this.setValue(node, -(Long) a);
+        else if (a instanceof Double)
+            this.setValue(node, -(Double) a);
+    }
+
+    @Override
+    public void outABitCompExpr(ABitCompExpr node) {
+        Object a = this.valueTable.get(node.getExpr());
+        if (a instanceof Long)
+            this.setValue(node, ~(Long) a);
+    }
+
+    @Override
+    public void outANotExpr(ANotExpr node) {
+        Object a = this.valueTable.get(node.getExpr());
+        if (a instanceof Boolean)
+            this.setValue(node, !(Boolean) a);
+    }
+
+    /**
+     * Relational Operators
+     *
+     */
+    @Override
+    public void outAEqExpr(AEqExpr node) {
+        Integer c = this.compare(node.getLeft(), node.getRight());
+        this.setValue(node, c == null ? null : c == 0);
+    }
+
+    @Override
+    public void outANeqExpr(ANeqExpr node) {
+        Integer c = this.compare(node.getLeft(), node.getRight());
+        this.setValue(node, c == null ? null : c != 0);
+    }
+
+    @Override
+    public void outALtExpr(ALtExpr node) {
+        Integer c = this.compare(node.getLeft(), node.getRight());
+        this.setValue(node, c == null ? null : c < 0);
+    }
+
+    @Override
+    public void outALteExpr(ALteExpr node) {
+        Integer c = this.compare(node.getLeft(), node.getRight());
+        this.setValue(node, c == null ? null : c <= 0);
+    }
+
+    @Override
+    public void outAGtExpr(AGtExpr node) {
+        Integer c = this.compare(node.getLeft(), node.getRight());
+        this.setValue(node, c == null ? null : c > 0);
+    }
+
+    @Override
+    public void outAGteExpr(AGteExpr node) {
+        Integer c = this.compare(node.getLeft(), node.getRight());
+        this.setValue(node, c == null ? null : c >= 0);
+    }
+
+    /**
+     * Compares constant operands (bools only for equality, where the sign is meaningless).
+     *
+     * @return Negative, zero or positive if the left operand is less than, equal to or greater than
+     *  the right one, or null if they aren't both constant
+     */
+    private Integer compare(PExpr left, PExpr right) {
+        Object a = this.valueTable.get(left), b = this.valueTable.get(right);
+        if (a == null || b == null)
+            return null;
+
+        if (a instanceof Long && b instanceof Long)
+            return Long.compare((Long) a, (Long) b);
+        else if (a instanceof Double && b instanceof Double) {
+            double x = (Double) a, y = (Double) b;
+            return x < y ? -1 : x > y ? 1 : 0;
+        } else if (a instanceof Boolean && b instanceof Boolean)
+            return a.equals(b) ? 0 : 1;
+        else
+            return null;
+    }
+
+    /**
+     * Logical Operators
+     *
+     * The right operand isn't evaluated if the left one decides the result, so it needn't be
+     * constant.
+     */
+    @Override
+    public void outAAndExpr(AAndExpr node) {
+        Object a = this.valueTable.get(node.getLeft()), b = this.valueTable.get(node.getRight());
+        if (Boolean.FALSE.equals(a))
+            this.setValue(node, false);
+        else if (a != null)
+            this.setValue(node, b);
+    }
+
+    @Override
+    public void outAOrExpr(AOrExpr node) {
+        Object a = this.valueTable.get(node.getLeft()), b = this.valueTable.get(node.getRight());
+        if (Boolean.TRUE.equals(a))
+            this.setValue(node, true);
+        else if (a != null)
+            this.setValue(node, b);
+    }
+
+    /**
+     * Type Casts
+     *
+     */
+    @Override
+    public void outATypeCastExpr(ATypeCastExpr node) {
+        Object a = this.valueTable.get(node.getExpr());
+        Class<?> kind = this.getKind(node);
+        if (a instanceof Double && kind == Long.class) {
+            // Floats out of range of an int have no well-defined conversion.
+            double x = (Double) a;
+            if (x > Integer.MIN_VALUE - 1.0 && x < Integer.MAX_VALUE + 1.0)
+                this.setValue(node, (long) x);
+        } else if (a instanceof Long && kind == Double.class)
+            this.setValue(node, (double) (Long) a);
+        else
+            this.setValue(node, a);
+    }
+
+    /**
+     * Finds the names declared anywhere in a program, and those that can't be constant variables:
+     * the names declared more than once, and those that are assigned.
+     */
+    private static class DeclarationScanner extends DepthFirstAdapter {
+
+        /** Declared names. */
+        private Set<String> declared = new HashSet<String>();
+        /** Names that can't be constant variables. */
+        private Set<String> variables = new HashSet<String>();
+
+        private void declare(TId id) {
+            if (!this.declared.add(id.getText()))
+                this.variables.add(id.getText());
+        }
+
+        private void declare(List<POptId> optIds) {
+            for (POptId o : optIds) {
+                if (o instanceof AIdOptId)
+                    this.declare(((AIdOptId) o).getId());
+            }
+        }
+
+        private void write(PExpr lhs) {
+            if (lhs instanceof AVariableExpr)
+                this.variables.add(((AVariableExpr) lhs).getId().getText());
+        }
+
+        @Override
+        public void inASpecVarSpec(ASpecVarSpec node) {
+            this.declare(node.getOptId());
+        }
+
+        @Override
+        public void inAShortAssignStmt(AShortAssignStmt node) {
+            this.declare(node.getOptId());
+        }
+
+        @Override
+        public void inASpecTypeSpec(ASpecTypeSpec node) {
+            this.declare(Collections.singletonList(node.getOptId()));
+        }
+
+        @Override
+        public void inAFuncTopDec(AFuncTopDec node) {
+            this.declare(node.getId());
+        }
+
+        @Override
+        public void inAArgArgGroup(AArgArgGroup node) {
+            for (TId id : node.getId())
+                this.declare(id);
+        }
+
+        @Override
+        public void inAAssignStmt(AAssignStmt node) {
+            for (PExpr e : node.getLhs())
+                this.write(e);
+        }
+
+        @Override
+        public void inAPlusAssignStmt(APlusAssignStmt node) {
+            this.write(node.getLhs());
+        }
+
+        @Override
+        public void inAMinusAssignStmt(AMinusAssignStmt node) {
+            this.write(node.getLhs());
+        }
+
+        @Override
+        public void inAStarAssignStmt(AStarAssignStmt node) {
+            this.write(node.getLhs());
+        }
+
+        @Override
+        public void inASlashAssignStmt(ASlashAssignStmt node) {
+            this.write(node.getLhs());
+        }
+
+        @Override
+        public void inAPercAssignStmt(APercAssignStmt node) {
+            this.write(node.getLhs());
+        }
+
+        @Override
+        public void inAAndAssignStmt(AAndAssignStmt node) {
+            this.write(node.getLhs());
+        }
+
+        @Override
+        public void inAPipeAssignStmt(APipeAssignStmt node) {
+            this.write(node.getLhs());
+        }
+
+        @Override
+        public void inACarotAssignStmt(ACarotAssignStmt node) {
+            this.write(node.getLhs());
+        }
+
+        @Override
+        public void inAAmpCarotAssignStmt(AAmpCarotAssignStmt node) {
+            this.write(node.getLhs());
+        }
+
+        @Override
+        public void inALshiftAssignStmt(ALshiftAssignStmt node) {
+            this.write(node.getLhs());
+        }
+
+        @Override
+        public void inARshiftAssignStmt(ARshiftAssignStmt node) {
+            this.write(node.getLhs());
+        }
+
+        @Override
+        public void inAIncrStmt(AIncrStmt node) {
+            this.write(node.getExpr());
+        }
+
+        @Override
+        public void inADecrStmt(ADecrStmt node) {
+            this.write(node.getExpr());
+        }
+
+    }
+
+}
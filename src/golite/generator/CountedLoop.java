@@ -0,0 +1,228 @@
+package golite.generator;
+
+import golite.analysis.*;
+import golite.node.*;
+import golite.type.*;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * GoLite Counted Loop
+ *
+ * Shape of a loop 'for i := e0; i < e1; i++ { ... }' that visits the arithmetic progression from
+ * e0 to e1, so that it can be generated as a Python 'for' over xrange(). That's the case when
+ *  - the initializer declares a single int (or rune) counter,
+ *  - the condition compares the counter to a bound with '<', '<=', '>' or '>=',
+ *  - the post statement steps the counter by a positive constant, towards the bound,
+ *  - the body never assigns or redeclares the counter, and
+ *  - the bound is invariant: it's made of literals, operators and variables the body never
+ *    assigns or redeclares.
+ *
+ * Globals in the bound can still be assigned by functions called in the body, which the code
+ * generator checks with its symbol table.
+ */
+public class CountedLoop {
+
+    /** Name of the counter. */
+    private String counter;
+    /** Initial value of the counter. */
+    private PExpr start;
+    /** Bound of the counter. */
+    private PExpr bound;
+    /** Whether the bound is included, i.e. the comparison isn't strict. */
+    private boolean inclusive;
+    /** Step of the counter, negative for decreasing loops. */
+    private long step;
+    /** Names of the variables in the bound. */
+    private Set<String> boundVariables;
+    /** Whether the body calls any function. */
+    private boolean callsFunctions;
+
+    private CountedLoop() {}
+
+    /**
+     * Matches the given loop against the shape of a counted loop.
+     *
+     * @param node - Loop statement
+     * @param typeTable - Type table from the type checker
+     * @return Counted loop, or null if the loop doesn't have the shape of one
+     */
+    public static CountedLoop match(ALoopStmt node, TypeTable typeTable) {
+        if (!(node.getInit() instanceof AShortAssignStmt) || node.getExpr() == null)
+            return null;
+
+        AShortAssignStmt init = (AShortAssignStmt) node.getInit();
+        if (init.getOptId().size() != 1 || !(init.getOptId().getFirst() instanceof AIdOptId))
+            return null;
+        if (!RangeAnalyzer.isInteger(typeTable.get(init.getExpr().getFirst())))
+            return null;
+
+        CountedLoop loop = new CountedLoop();
+        loop.counter = ((AIdOptId) init.getOptId().getFirst()).getId().getText();
+        loop.start = init.getExpr().getFirst();
+
+        // The body must leave the counter alone.
+        if (new RangeAnalyzer.CounterScanner(loop.counter, false).scan(node.getBlock()))
+            return null;
+
+        // Normalize the condition to 'i < bound', 'i <= bound', 'i > bound' or 'i >= bound'.
+        PExpr cond = node.getExpr(), left, right;
+        if (cond instanceof ALtExpr) {
+            left = ((ALtExpr) cond).getLeft();
+            right = ((ALtExpr) cond).getRight();
+        } else if (cond instanceof ALteExpr) {
+            left = ((ALteExpr) cond).getLeft();
+            right = ((ALteExpr) cond).getRight();
+        } else if (cond instanceof AGtExpr) {
+            left = ((AGtExpr) cond).getLeft();
+            right = ((AGtExpr) cond).getRight();
+        } else if (cond instanceof AGteExpr) {
+            left = ((AGteExpr) cond).getLeft();
+            right = ((AGteExpr) cond).getRight();
+        } else
+            return null;
+
+        boolean less = cond instanceof ALtExpr || cond instanceof ALteExpr, increasing;
+        if (RangeAnalyzer.isCounter(left, loop.counter)) {
+            loop.bound = right;
+            increasing = less;
+        } else if (RangeAnalyzer.isCounter(right, loop.counter)) {
+            loop.bound = left;
+            increasing = !less;
+        } else
+            return null;
+
+        loop.inclusive = cond instanceof ALteExpr || cond instanceof AGteExpr;
+
+        // Step of the post statement, which must head towards the bound.
+        PStmt end = node.getEnd();
+        if (end instanceof AIncrStmt && RangeAnalyzer.isCounter(((AIncrStmt) end).getExpr(),
+                loop.counter))
+            loop.step = 1;
+        else if (end instanceof ADecrStmt && RangeAnalyzer.isCounter(((ADecrStmt) end).getExpr(),
+                loop.counter))
+            loop.step = -1;
+        else if (end instanceof APlusAssignStmt
+                && RangeAnalyzer.isCounter(((APlusAssignStmt) end).getLhs(), loop.counter))
+            loop.step = getConstant(((APlusAssignStmt) end).getRhs());
+        else if (end instanceof AMinusAssignStmt
+                && RangeAnalyzer.isCounter(((AMinusAssignStmt) end).getLhs(), loop.counter))
+            loop.step = -getConstant(((AMinusAssignStmt) end).getRhs());
+
+        if (loop.step == 0 || (loop.step > 0) != increasing)
+            return null;
+
+        // The bound must be invariant.
+        BoundScanner boundScanner = new BoundScanner();
+        loop.bound.apply(boundScanner);
+        if (!boundScanner.invariant || boundScanner.variables.contains(loop.counter))
+            return null;
+
+        for (String v : boundScanner.variables) {
+            if (new RangeAnalyzer.CounterScanner(v, false).scan(node.getBlock()))
+                return null;
+        }
+
+        loop.boundVariables = boundScanner.variables;
+
+        CallScanner callScanner = new CallScanner();
+        for (PStmt e : node.getBlock())
+            e.apply(callScanner);
+        loop.callsFunctions = callScanner.found;
+
+        return loop;
+    }
+
+    /**
+     * Returns the value of a positive integer literal, or 0 if the expression isn't one.
+     */
+    private static long getConstant(PExpr node) {
+        BigInteger value;
+        if (node instanceof AIntLitExpr)
+            value = new BigInteger(((AIntLitExpr) node).getIntLit().getText());
+        else if (node instanceof AOctLitExpr)
+            value = new BigInteger(((AOctLitExpr) node).getOctLit().getText(), 8);
+        else if (node instanceof AHexLitExpr)
+            value = new BigInteger(((AHexLitExpr) node).getHexLit().getText().substring(2), 16);
+        else
+            return 0;
+
+        return value.bitLength() < 32 ? value.longValue() : 0;
+    }
+
+    public String getCounter() {
+        return this.counter;
+    }
+
+    public PExpr getStart() {
+        return this.start;
+    }
+
+    public PExpr getBound() {
+        return this.bound;
+    }
+
+    public boolean isInclusive() {
+        return this.inclusive;
+    }
+
+    public long getStep() {
+        return this.step;
+    }
+
+    public Set<String> getBoundVariables() {
+        return this.boundVariables;
+    }
+
+    public boolean callsFunctions() {
+        return this.callsFunctions;
+    }
+
+    /**
+     * Checks that an expression is only made of literals, variables and operators, collecting the
+     * variables.
+     */
+    private static class BoundScanner extends DepthFirstAdapter {
+
+        /** Whether every node seen so far is allowed. */
+        private boolean invariant = true;
+        /** Names of the variables. */
+        private Set<String> variables = new HashSet<String>();
+
+        @Override
+        public void defaultIn(Node node) {
+            if (!(node instanceof AIntLitExpr || node instanceof AOctLitExpr
+                    || node instanceof AHexLitExpr || node instanceof ARuneLitExpr
+                    || node instanceof AAddExpr || node instanceof ASubtractExpr
+                    || node instanceof AMultExpr || node instanceof ADivExpr
+                    || node instanceof AModExpr || node instanceof ABitAndExpr
+                    || node instanceof ABitOrExpr || node instanceof ABitXorExpr
+                    || node instanceof ABitClearExpr || node instanceof ABitLshiftExpr
+                    || node instanceof ABitRshiftExpr || node instanceof APosExpr
+                    || node instanceof ANegExpr || node instanceof ABitCompExpr))
+                this.invariant = false;
+        }
+
+        @Override
+        public void inAVariableExpr(AVariableExpr node) {
+            this.variables.add(node.getId().getText());
+        }
+
+    }
+
+    /**
+     * Looks for function calls.
+     */
+    private static class CallScanner extends DepthFirstAdapter {
+
+        /** Whether a function call was found. */
+        private boolean found;
+
+        @Override
+        public void inAFuncCallExpr(AFuncCallExpr node) {
+            this.found = true;
+        }
+
+    }
+
+}
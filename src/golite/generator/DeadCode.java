@@ -0,0 +1,195 @@
+package golite.generator;
+
+import golite.analysis.*;
+import golite.node.*;
+import java.util.*;
+
+/**
+ * GoLite Dead Code
+ *
+ * Finds the code the generator can leave out within a function: statements following a return,
+ * break or continue in the same block, and stores to local variables whose values are never read.
+ * A store is dead if its target is such a variable and its value is pure, i.e. evaluating it can't
+ * call a function, append to a slice or fail at runtime.
+ */
+public class DeadCode {
+
+    private DeadCode() {}
+
+    /**
+     * Checks whether the given statement unconditionally leaves its block, so that the statements
+     * after it are unreachable.
+     *
+     * @param node - Statement
+     * @return True if the statement is a return, break or continue, or a block containing one,
+     *     false otherwise
+     */
+    public static boolean isJump(PStmt node) {
+        if (node instanceof ABlockStmt) {
+            for (PStmt e : ((ABlockStmt) node).getStmt()) {
+                if (isJump(e))
+                    return true;
+            }
+
+            return false;
+        }
+
+        return node instanceof AReturnStmt || node instanceof ABreakStmt
+            || node instanceof AContinueStmt;
+    }
+
+    /**
+     * Checks whether evaluating the given expression has no effect other than its value.
+     *
+     * @param node - Expression
+     * @param constantFolder - Values of the constant expressions
+     * @return True if the expression is pure, false otherwise
+     */
+    public static boolean isPure(PExpr node, final ConstantFolder constantFolder) {
+        final boolean[] pure = { true };
+
+        node.apply(new DepthFirstAdapter() {
+            @Override
+            public void defaultIn(Node n) {
+                // Indexing can go out of bounds, and casts from floats can overflow.
+                if (n instanceof AFuncCallExpr || n instanceof AAppendExpr
+                        || n instanceof AArrayElemExpr || n instanceof ATypeCastExpr)
+                    pure[0] = false;
+                // Divisions by zero and negative shift counts fail.
+                else if (n instanceof ADivExpr)
+                    pure[0] &= isSafeOperand(((ADivExpr) n).getRight(), false, constantFolder);
+                else if (n instanceof AModExpr)
+                    pure[0] &= isSafeOperand(((AModExpr) n).getRight(), false, constantFolder);
+                else if (n instanceof ABitLshiftExpr)
+                    pure[0] &= isSafeOperand(((ABitLshiftExpr) n).getRight(), true, constantFolder);
+                else if (n instanceof ABitRshiftExpr)
+                    pure[0] &= isSafeOperand(((ABitRshiftExpr) n).getRight(), true, constantFolder);
+            }
+        });
+
+        return pure[0];
+    }
+
+    /**
+     * Returns the names of the variables the given function declares and never reads. Pure stores
+     * to them are dead, and a variable with an operator assignment that isn't pure isn't included,
+     * since the assignment reads it. Names aren't resolved, so a variable counts as
+     * read if any variable with the same name is.
+     *
+     * @param node - Function declaration
+     * @param constantFolder - Values of the constant expressions
+     * @return Variable names
+     */
+    public static Set<String> getDeadNames(AFuncTopDec node, final ConstantFolder constantFolder) {
+        final Set<String> declared = new HashSet<String>();
+        final Set<String> live = new HashSet<String>();
+
+        DepthFirstAdapter scanner = new DepthFirstAdapter() {
+            @Override
+            public void inAArgArgGroup(AArgArgGroup n) {
+                for (TId id : n.getId())
+                    declared.add(id.getText());
+            }
+
+            @Override
+            public void inAIdOptId(AIdOptId n) {
+                declared.add(n.getId().getText());
+            }
+
+            @Override
+            public void inAAppendExpr(AAppendExpr n) {
+                live.add(n.getId().getText());
+            }
+
+            @Override
+            public void inAVariableExpr(AVariableExpr n) {
+                String name = n.getId().getText();
+                Node parent = n.parent();
+
+                if (!(parent instanceof PStmt) || !Inliner.getTargets((PStmt) parent).contains(n))
+                    live.add(name);
+                // Operator assignments and increments read their target, so they can only be
+                // left out along with the target's declaration if they're pure.
+                else if (!(parent instanceof AAssignStmt)
+                        && !isPureStore((PStmt) parent, constantFolder))
+                    live.add(name);
+            }
+        };
+
+        for (PArgGroup e : node.getArgGroup())
+            e.apply(scanner);
+        for (PStmt e : node.getStmt())
+            e.apply(scanner);
+
+        declared.removeAll(live);
+        return declared;
+    }
+
+    /**
+     * Checks whether the given statement is a store (a declaration, an assignment, an operator
+     * assignment or an increment) with no effect other than storing its values, leaving aside
+     * the evaluation of its targets.
+     *
+     * @param node - Statement
+     * @param constantFolder - Values of the constant expressions
+     * @return True if the statement is a pure store, false otherwise
+     */
+    public static boolean isPureStore(PStmt node, ConstantFolder constantFolder) {
+        List<PExpr> values = new ArrayList<PExpr>();
+
+        if (node instanceof AVarDecStmt) {
+            for (PVarSpec e : ((AVarDecStmt) node).getVarSpec())
+                values.addAll(((ASpecVarSpec) e).getExpr());
+        } else if (node instanceof AShortAssignStmt)
+            values.addAll(((AShortAssignStmt) node).getExpr());
+        else if (node instanceof AAssignStmt)
+            values.addAll(((AAssignStmt) node).getRhs());
+        else if (node instanceof AIncrStmt || node instanceof ADecrStmt)
+            return true;
+        else if (node instanceof APlusAssignStmt)
+            values.add(((APlusAssignStmt) node).getRhs());
+        else if (node instanceof AMinusAssignStmt)
+            values.add(((AMinusAssignStmt) node).getRhs());
+        else if (node instanceof AStarAssignStmt)
+            values.add(((AStarAssignStmt) node).getRhs());
+        else if (node instanceof AAndAssignStmt)
+            values.add(((AAndAssignStmt) node).getRhs());
+        else if (node instanceof APipeAssignStmt)
+            values.add(((APipeAssignStmt) node).getRhs());
+        else if (node instanceof ACarotAssignStmt)
+            values.add(((ACarotAssignStmt) node).getRhs());
+        else if (node instanceof AAmpCarotAssignStmt)
+            values.add(((AAmpCarotAssignStmt) node).getRhs());
+        // The operation itself can fail.
+        else if (node instanceof ASlashAssignStmt)
+            return isSafeOperand(((ASlashAssignStmt) node).getRhs(), false, constantFolder);
+        else if (node instanceof APercAssignStmt)
+            return isSafeOperand(((APercAssignStmt) node).getRhs(), false, constantFolder);
+        else if (node instanceof ALshiftAssignStmt)
+            return isSafeOperand(((ALshiftAssignStmt) node).getRhs(), true, constantFolder);
+        else if (node instanceof ARshiftAssignStmt)
+            return isSafeOperand(((ARshiftAssignStmt) node).getRhs(), true, constantFolder);
+        else
+            return false;
+
+        for (PExpr e : values) {
+            if (!isPure(e, constantFolder))
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks whether the given right operand of a division or modulo (or shift) is a constant that
+     * can't make it fail, i.e. one that isn't zero (or negative).
+     */
+    private static boolean isSafeOperand(PExpr node, boolean shift, ConstantFolder constantFolder) {
+        Object value = constantFolder.getValue(node);
+        if (!(value instanceof Number))
+            return false;
+
+        return shift ? ((Number) value).longValue() >= 0 : ((Number) value).doubleValue() != 0;
+    }
+
+}
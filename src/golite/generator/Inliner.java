@@ -0,0 +1,198 @@
+package golite.generator;
+
+import golite.analysis.*;
+import golite.node.*;
+import java.util.*;
+
+/**
+ * GoLite Inliner
+ *
+ * Decides which functions are inlined and which calls to them can be. A function is inlined if it's
+ * a leaf of the call graph (it calls no function, so it can't be recursive), its body is within the
+ * size budget, its only return statement, if any, ends its body, and its only side effects are on
+ * its own variables: it doesn't print, append, or assign array elements, struct fields or globals.
+ * The code generator checks the last one, since it knows which variables are global.
+ *
+ * A call is inlined by generating the body of the function in front of the statement making it, so
+ * the statement must be a simple one (not a condition, or a loop) and hoisting its calls mustn't
+ * change what's evaluated: it can't append, its calls can't be nested or conditionally evaluated (on
+ * the right of '&&' or '||'), and all of them must be inlined.
+ */
+public class Inliner {
+
+    /** Maximum size of the body of an inlined function, in AST nodes. */
+    public static final int BUDGET = 48;
+
+    private Inliner() {}
+
+    /**
+     * Checks whether the given function can be inlined, as far as its syntax goes.
+     *
+     * @param node - Function declaration
+     * @return True if the function can be inlined, false otherwise
+     */
+    public static boolean isInlinable(AFuncTopDec node) {
+        final int[] size = { 0 };
+        final boolean[] inlinable = { true };
+        final List<AReturnStmt> returns = new ArrayList<AReturnStmt>();
+
+        DepthFirstAdapter scanner = new DepthFirstAdapter() {
+            @Override
+            public void defaultIn(Node n) {
+                size[0]++;
+
+                if (n instanceof AFuncCallExpr || n instanceof AAppendExpr
+                        || n instanceof APrintStmt || n instanceof APrintlnStmt)
+                    inlinable[0] = false;
+                else if (n instanceof AReturnStmt)
+                    returns.add((AReturnStmt) n);
+                else if (n instanceof PStmt) {
+                    for (PExpr e : getTargets((PStmt) n)) {
+                        if (!(e instanceof AVariableExpr || e instanceof ABlankExpr))
+                            inlinable[0] = false;
+                    }
+                }
+            }
+        };
+
+        for (PStmt e : node.getStmt())
+            e.apply(scanner);
+
+        if (!inlinable[0] || size[0] > BUDGET)
+            return false;
+
+        LinkedList<PStmt> body = node.getStmt();
+        AReturnStmt last = body.isEmpty() || !(body.getLast() instanceof AReturnStmt) ? null
+            : (AReturnStmt) body.getLast();
+
+        if (node.getTypeExpr() != null)
+            return returns.size() == 1 && last != null && last.getExpr() != null;
+        else
+            return returns.isEmpty() || (returns.size() == 1 && last != null);
+    }
+
+    /**
+     * Returns the names of the variables the given function assigns (without declaring them).
+     *
+     * @param node - Function declaration
+     * @return Variable names
+     */
+    public static Set<String> getAssignedNames(AFuncTopDec node) {
+        final Set<String> names = new HashSet<String>();
+
+        DepthFirstAdapter scanner = new DepthFirstAdapter() {
+            @Override
+            public void defaultIn(Node n) {
+                if (n instanceof PStmt) {
+                    for (PExpr e : getTargets((PStmt) n)) {
+                        if (e instanceof AVariableExpr)
+                            names.add(((AVariableExpr) e).getId().getText());
+                    }
+                }
+            }
+        };
+
+        for (PStmt e : node.getStmt())
+            e.apply(scanner);
+
+        return names;
+    }
+
+    /**
+     * Returns the expressions assigned by the given statement, other than declared variables.
+     */
+    static List<PExpr> getTargets(PStmt node) {
+        if (node instanceof AAssignStmt)
+            return ((AAssignStmt) node).getLhs();
+        else if (node instanceof APlusAssignStmt)
+            return Collections.singletonList(((APlusAssignStmt) node).getLhs());
+        else if (node instanceof AMinusAssignStmt)
+            return Collections.singletonList(((AMinusAssignStmt) node).getLhs());
+        else if (node instanceof AStarAssignStmt)
+            return Collections.singletonList(((AStarAssignStmt) node).getLhs());
+        else if (node instanceof ASlashAssignStmt)
+            return Collections.singletonList(((ASlashAssignStmt) node).getLhs());
+        else if (node instanceof APercAssignStmt)
+            return Collections.singletonList(((APercAssignStmt) node).getLhs());
+        else if (node instanceof AAndAssignStmt)
+            return Collections.singletonList(((AAndAssignStmt) node).getLhs());
+        else if (node instanceof APipeAssignStmt)
+            return Collections.singletonList(((APipeAssignStmt) node).getLhs());
+        else if (node instanceof ACarotAssignStmt)
+            return Collections.singletonList(((ACarotAssignStmt) node).getLhs());
+        else if (node instanceof AAmpCarotAssignStmt)
+            return Collections.singletonList(((AAmpCarotAssignStmt) node).getLhs());
+        else if (node instanceof ALshiftAssignStmt)
+            return Collections.singletonList(((ALshiftAssignStmt) node).getLhs());
+        else if (node instanceof ARshiftAssignStmt)
+            return Collections.singletonList(((ARshiftAssignStmt) node).getLhs());
+        else if (node instanceof AIncrStmt)
+            return Collections.singletonList(((AIncrStmt) node).getExpr());
+        else if (node instanceof ADecrStmt)
+            return Collections.singletonList(((ADecrStmt) node).getExpr());
+
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the function calls of the given statement, in evaluation order, if all of them can be
+     * hoisted in front of it.
+     *
+     * @param node - Statement
+     * @return Function calls, or null if the statement's calls can't be hoisted
+     */
+    public static List<AFuncCallExpr> getCalls(final PStmt node) {
+        if (!(node instanceof AExprStmt || node instanceof AAssignStmt
+                || node instanceof AShortAssignStmt || node instanceof AVarDecStmt
+                || node instanceof APrintStmt || node instanceof APrintlnStmt
+                || node instanceof AReturnStmt || node instanceof APlusAssignStmt
+                || node instanceof AMinusAssignStmt || node instanceof AStarAssignStmt
+                || node instanceof ASlashAssignStmt || node instanceof APercAssignStmt
+                || node instanceof AAndAssignStmt || node instanceof APipeAssignStmt
+                || node instanceof ACarotAssignStmt || node instanceof AAmpCarotAssignStmt
+                || node instanceof ALshiftAssignStmt || node instanceof ARshiftAssignStmt))
+            return null;
+
+        final List<AFuncCallExpr> calls = new ArrayList<AFuncCallExpr>();
+        final boolean[] hoistable = { true };
+
+        node.apply(new DepthFirstAdapter() {
+            @Override
+            public void inAFuncCallExpr(AFuncCallExpr n) {
+                for (Node p = n.parent(); p != node && hoistable[0]; p = p.parent()) {
+                    if (p instanceof AFuncCallExpr)
+                        hoistable[0] = false;
+                }
+
+                calls.add(n);
+            }
+
+            @Override
+            public void inAAppendExpr(AAppendExpr n) {
+                hoistable[0] = false;
+            }
+
+            @Override
+            public void caseAAndExpr(AAndExpr n) {
+                n.getLeft().apply(this);
+                checkUnconditional(n.getRight());
+            }
+
+            @Override
+            public void caseAOrExpr(AOrExpr n) {
+                n.getLeft().apply(this);
+                checkUnconditional(n.getRight());
+            }
+
+            private void checkUnconditional(PExpr e) {
+                int n = calls.size();
+                e.apply(this);
+                if (calls.size() > n)
+                    hoistable[0] = false;
+            }
+        });
+
+        return hoistable[0] ? calls : null;
+    }
+
+}
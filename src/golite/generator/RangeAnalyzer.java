@@ -0,0 +1,810 @@
+package golite.generator;
+
+import golite.analysis.*;
+import golite.node.*;
+import golite.type.*;
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * GoLite Value-Range Analyzer
+ *
+ * Computes, for every int and rune expression of a typed AST, an interval containing every value
+ * the generated Python expression can evaluate to. The code generator uses it in safe mode to drop
+ * calls to normalize() that can't change the value.
+ *
+ * The intervals follow the code generator's emission rules. Operands of '+', '-', '*', '&', '|',
+ * '^', '&^', the left operand of '<<' and operands of the unary operators are emitted as is, since
+ * the result modulo 2^32 only depends on the operands modulo 2^32. All other int operands (and
+ * anything that's stored, printed, passed, returned or compared) are normalized, unless their
+ * interval already fits in 32 bits.
+ */
+public class RangeAnalyzer extends DepthFirstAdapter {
+
+    /** Bounds of the 32-bit integer range. */
+    private static final long MIN_INT32 = Integer.MIN_VALUE, MAX_INT32 = Integer.MAX_VALUE;
+
+    /** 32-bit integer range. */
+    private static final Range INT32 = new Range(MIN_INT32, MAX_INT32);
+
+    /** Interval [lo, hi]. A null interval stands for an unbounded one. */
+    private static class Range {
+
+        /** Bounds. */
+        private final long lo, hi;
+
+        /**
+         * Constructor.
+         */
+        public Range(long lo, long hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        /**
+         * Checks whether the interval is contained in the 32-bit integer range.
+         */
+        public boolean fitsInt32() {
+            return MIN_INT32 <= this.lo && this.hi <= MAX_INT32;
+        }
+
+    }
+
+    /** Intervals of int and rune expressions, and of the results of op-assign statements. */
+    private HashMap<Node, Range> rangeTable;
+    /** Types of expressions. */
+    private TypeTable typeTable;
+    /** Values of constant expressions, which are generated as literals. */
+    private ConstantFolder constantFolder;
+    /** Intervals of the loop counters in the loops currently being traversed. */
+    private HashMap<String, Range> loopCounters;
+
+    /**
+     * Constructor.
+     *
+     * @param typeTable - Type table from the type checker
+     * @param constantFolder - Constant folder, already applied to the AST
+     */
+    public RangeAnalyzer(TypeTable typeTable, ConstantFolder constantFolder) {
+        this.rangeTable = new HashMap<Node, Range>();
+        this.typeTable = typeTable;
+        this.constantFolder = constantFolder;
+        this.loopCounters = new HashMap<String, Range>();
+    }
+
+    /**
+     * Checks whether the generated code for the given node always evaluates to a 32-bit integer,
+     * i.e. normalizing it is a no-op.
+     *
+     * @param node - Int or rune expression, or op-assign statement
+     * @return True if the value is known to fit in 32 bits, false otherwise
+     */
+    public boolean fitsInt32(Node node) {
+        Range r = this.rangeTable.get(node);
+        return r != null && r.fitsInt32();
+    }
+
+    /**
+     * Checks whether the generated code for the given node always evaluates to a non-negative
+     * integer, on which Python's floored division and modulo agree with Go's truncated ones.
+     *
+     * @param node - Int or rune expression
+     * @return True if the value is known to be non-negative, false otherwise
+     */
+    public boolean isNonNegative(Node node) {
+        Range r = this.rangeTable.get(node);
+        return r != null && r.lo >= 0;
+    }
+
+    /**
+     * Checks whether the given type is an integer type (int, rune or an alias to one of them).
+     */
+    public static boolean isInteger(GoLiteType type) {
+        if (type == null)
+            return false;
+
+        GoLiteType t = type.getUnderlyingType();
+        return t instanceof IntType || t instanceof RuneType;
+    }
+
+    /**
+     * Checks whether the given node is an integer expression.
+     */
+    private boolean isInteger(Node node) {
+        return isInteger(this.typeTable.get(node));
+    }
+
+    /**
+     * Interval of an operand that's emitted as is.
+     */
+    private Range raw(Node node) {
+        return this.rangeTable.get(node);
+    }
+
+    /**
+     * Interval of an operand that's normalized unless it already fits in 32 bits.
+     */
+    private Range normalized(Node node) {
+        Range r = this.rangeTable.get(node);
+        return r != null && r.fitsInt32() ? r : INT32;
+    }
+
+    /**
+     * Records the interval of the given node if it's an integer expression (just its value, if it's
+     * constant).
+     */
+    private void setRange(Node node, Range r) {
+        Object value = this.constantFolder.getValue(node);
+        if (value instanceof Long)
+            r = new Range((Long) value, (Long) value);
+
+        if (this.isInteger(node) && r != null)
+            this.rangeTable.put(node, r);
+    }
+
+    /**
+     * Builds an interval, returning null (unbounded) if a bound is out of range of a long.
+     */
+    private static Range range(BigInteger lo, BigInteger hi) {
+        if (lo.bitLength() > 63 || hi.bitLength() > 63)
+            return null;
+
+        return new Range(lo.longValue(), hi.longValue());
+    }
+
+    private static Range add(Range a, Range b) {
+        if (a == null || b == null)
+            return null;
+
+        try {
+            return new Range(Math.addExact(a.lo, b.lo), Math.addExact(a.hi, b.hi));
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private static Range negate(Range a) {
+        if (a == null || a.lo == Long.MIN_VALUE)
+            return null;
+
+        return new Range(-a.hi, -a.lo);
+    }
+
+    private static Range multiply(Range a, Range b) {
+        if (a == null || b == null)
+            return null;
+
+        try {
+            long p1 = Math.multiplyExact(a.lo, b.lo), p2 = Math.multiplyExact(a.lo, b.hi);
+            long p3 = Math.multiplyExact(a.hi, b.lo), p4 = Math.multiplyExact(a.hi, b.hi);
+            return new Range(Math.min(Math.min(p1, p2), Math.min(p3, p4)),
+                Math.max(Math.max(p1, p2), Math.max(p3, p4)));
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    // Division truncated towards zero, both operands normalized.
+    private static Range divide(Range a, Range b) {
+        if (b.lo > 0)
+            return new Range(Math.min(a.lo, 0), Math.max(a.hi, 0));
+
+        long m = Math.max(Math.abs(a.lo), Math.abs(a.hi));
+        return new Range(-m, m);
+    }
+
+    // Remainder of the division truncated towards zero, which takes the sign of the dividend, both
+    // operands normalized.
+    private static Range modulo(Range a, Range b) {
+        long m = Math.max(Math.abs(b.lo), Math.abs(b.hi)) - 1;
+        return new Range(Math.max(Math.min(a.lo, 0), -m), Math.min(Math.max(a.hi, 0), m));
+    }
+
+    // Interval of a bitwise operation on operands emitted as is.
+    private static Range bitwise(Range a, Range b) {
+        if (a == null || b == null || !a.fitsInt32() || !b.fitsInt32())
+            return null;
+
+        // Non-negative operands set no bit above the highest one of the larger operand.
+        if (a.lo >= 0 && b.lo >= 0)
+            return new Range(0, (Long.highestOneBit(Math.max(a.hi, b.hi)) << 1) - 1);
+
+        return INT32;
+    }
+
+    private static Range bitAnd(Range a, Range b) {
+        // Masking with a non-negative value bounds the result, whatever the other operand is.
+        Range r = null;
+        if (a != null && a.lo >= 0)
+            r = new Range(0, a.hi);
+        if (b != null && b.lo >= 0 && (r == null || b.hi < r.hi))
+            r = new Range(0, b.hi);
+
+        if (r == null && a != null && b != null && a.fitsInt32() && b.fitsInt32())
+            r = INT32;
+
+        return r;
+    }
+
+    private static Range bitClear(Range a, Range b) {
+        if (a != null && a.lo >= 0)
+            return new Range(0, a.hi);
+
+        return bitwise(a, b) == null ? null : INT32;
+    }
+
+    // Shift count normalized.
+    private static Range leftShift(Range a, Range b) {
+        if (a == null || b.lo < 0 || b.hi > 62)
+            return null;
+
+        return multiply(a, new Range(1L << b.lo, 1L << b.hi));
+    }
+
+    // Both operands normalized.
+    private static Range rightShift(Range a, Range b) {
+        return new Range(Math.min(a.lo, 0), Math.max(a.hi, 0));
+    }
+
+    /**
+     * Interval of a compound assignment 'lhs op= rhs', following the same operand rules as the
+     * corresponding binary operator. The left-hand side is always a stored (normalized) value.
+     */
+    private void setOpAssignRange(Node node, PExpr lhs, String operator, PExpr rhs) {
+        if (!this.isInteger(lhs))
+            return;
+
+        Range a = this.normalized(lhs);
+        Range r = null;
+
+        if (operator.equals("+"))
+            r = add(a, this.raw(rhs));
+        else if (operator.equals("-"))
+            r = add(a, negate(this.raw(rhs)));
+        else if (operator.equals("*"))
+            r = multiply(a, this.raw(rhs));
+        else if (operator.equals("/"))
+            r = divide(a, this.normalized(rhs));
+        else if (operator.equals("%"))
+            r = modulo(a, this.normalized(rhs));
+        else if (operator.equals("&"))
+            r = bitAnd(a, this.raw(rhs));
+        else if (operator.equals("|") || operator.equals("^"))
+            r = bitwise(a, this.raw(rhs));
+        else if (operator.equals("&^"))
+            r = bitClear(a, this.raw(rhs));
+        else if (operator.equals("<<"))
+            r = leftShift(a, this.normalized(rhs));
+        else if (operator.equals(">>"))
+            r = rightShift(a, this.normalized(rhs));
+
+        if (r != null)
+            this.rangeTable.put(node, r);
+    }
+
+    /**
+     * Literals
+     *
+     */
+    @Override
+    public void outAIntLitExpr(AIntLitExpr node) {
+        BigInteger value = new BigInteger(node.getIntLit().getText());
+        this.setRange(node, range(value, value));
+    }
+
+    @Override
+    public void outAOctLitExpr(AOctLitExpr node) {
+        BigInteger value = new BigInteger(node.getOctLit().getText(), 8);
+        this.setRange(node, range(value, value));
+    }
+
+    @Override
+    public void outAHexLitExpr(AHexLitExpr node) {
+        BigInteger value = new BigInteger(node.getHexLit().getText().substring(2), 16);
+        this.setRange(node, range(value, value));
+    }
+
+    // Rune literals are emitted as the code of a single Java character.
+    @Override
+    public void outARuneLitExpr(ARuneLitExpr node) {
+        this.setRange(node, new Range(0, Character.MAX_VALUE));
+    }
+
+    /**
+     * Identifiers, elements, fields & function calls
+     *
+     * Stored values are always normalized, as are return values.
+     */
+    @Override
+    public void outAVariableExpr(AVariableExpr node) {
+        Range r = this.loopCounters.get(node.getId().getText());
+        this.setRange(node, r == null ? INT32 : r);
+    }
+
+    @Override
+    public void outAArrayElemExpr(AArrayElemExpr node) {
+        this.setRange(node, INT32);
+    }
+
+    @Override
+    public void outAFieldExpr(AFieldExpr node) {
+        this.setRange(node, INT32);
+    }
+
+    @Override
+    public void outAFuncCallExpr(AFuncCallExpr node) {
+        // A cast of a float through an alias can produce anything.
+        for (PExpr e : node.getExpr()) {
+            GoLiteType t = this.typeTable.get(e);
+            if (t != null && t.getUnderlyingType() instanceof FloatType)
+                return;
+        }
+
+        this.setRange(node, INT32);
+    }
+
+    @Override
+    public void outATypeCastExpr(ATypeCastExpr node) {
+        GoLiteType t = this.typeTable.get(node.getExpr());
+
+        if (isInteger(t))
+            this.setRange(node, this.normalized(node.getExpr()));
+        else if (t != null && t.getUnderlyingType() instanceof BoolType)
+            this.setRange(node, new Range(0, 1));
+    }
+
+    /**
+     * Arithmetic Operators:
+     *  '+', '-', '*', '/', '%'
+     *
+     */
+    @Override
+    public void outAAddExpr(AAddExpr node) {
+        this.setRange(node, add(this.raw(node.getLeft()), this.raw(node.getRight())));
+    }
+
+    @Override
+    public void outASubtractExpr(ASubtractExpr node) {
+        this.setRange(node, add(this.raw(node.getLeft()), negate(this.raw(node.getRight()))));
+    }
+
+    @Override
+    public void outAMultExpr(AMultExpr node) {
+        this.setRange(node, multiply(this.raw(node.getLeft()), this.raw(node.getRight())));
+    }
+
+    @Override
+    public void outADivExpr(ADivExpr node) {
+        if (this.isInteger(node))
+            this.setRange(node, divide(this.normalized(node.getLeft()),
+                this.normalized(node.getRight())));
+    }
+
+    @Override
+    public void outAModExpr(AModExpr node) {
+        if (this.isInteger(node))
+            this.setRange(node, modulo(this.normalized(node.getLeft()),
+                this.normalized(node.getRight())));
+    }
+
+    /**
+     * Bit Operators:
+     *  '&', '|', '^', '&^', '<<', '>>'
+     *
+     */
+    @Override
+    public void outABitAndExpr(ABitAndExpr node) {
+        this.setRange(node, bitAnd(this.raw(node.getLeft()), this.raw(node.getRight())));
+    }
+
+    @Override
+    public void outABitOrExpr(ABitOrExpr node) {
+        this.setRange(node, bitwise(this.raw(node.getLeft()), this.raw(node.getRight())));
+    }
+
+    @Override
+    public void outABitXorExpr(ABitXorExpr node) {
+        this.setRange(node, bitwise(this.raw(node.getLeft()), this.raw(node.getRight())));
+    }
+
+    @Override
+    public void outABitClearExpr(ABitClearExpr node) {
+        this.setRange(node, bitClear(this.raw(node.getLeft()), this.raw(node.getRight())));
+    }
+
+    @Override
+    public void outABitLshiftExpr(ABitLshiftExpr node) {
+        if (this.isInteger(node))
+            this.setRange(node, leftShift(this.raw(node.getLeft()),
+                this.normalized(node.getRight())));
+    }
+
+    @Override
+    public void outABitRshiftExpr(ABitRshiftExpr node) {
+        if (this.isInteger(node))
+            this.setRange(node, rightShift(this.normalized(node.getLeft()),
+                this.normalized(node.getRight())));
+    }
+
+    /**
+     * Unary Operators:
+     *  '+', '-', '^'
+     *
+     */
+    @Override
+    public void outAPosExpr(APosExpr node) {
+        this.setRange(node, this.raw(node.getExpr()));
+    }
+
+    @Override
+    public void outANegExpr(ANegExpr node) {
+        this.setRange(node, negate(this.raw(node.getExpr())));
+    }
+
+    // ^x is -x - 1.
+    @Override
+    public void outABitCompExpr(ABitCompExpr node) {
+        this.setRange(node, add(negate(this.raw(node.getExpr())), new Range(-1, -1)));
+    }
+
+    /**
+     * Op-Assign, Increment & Decrement Statements
+     *
+     */
+    @Override
+    public void outAPlusAssignStmt(APlusAssignStmt node) {
+        this.setOpAssignRange(node, node.getLhs(), "+", node.getRhs());
+    }
+
+    @Override
+    public void outAMinusAssignStmt(AMinusAssignStmt node) {
+        this.setOpAssignRange(node, node.getLhs(), "-", node.getRhs());
+    }
+
+    @Override
+    public void outAStarAssignStmt(AStarAssignStmt node) {
+        this.setOpAssignRange(node, node.getLhs(), "*", node.getRhs());
+    }
+
+    @Override
+    public void outASlashAssignStmt(ASlashAssignStmt node) {
+        this.setOpAssignRange(node, node.getLhs(), "/", node.getRhs());
+    }
+
+    @Override
+    public void outAPercAssignStmt(APercAssignStmt node) {
+        this.setOpAssignRange(node, node.getLhs(), "%", node.getRhs());
+    }
+
+    @Override
+    public void outAAndAssignStmt(AAndAssignStmt node) {
+        this.setOpAssignRange(node, node.getLhs(), "&", node.getRhs());
+    }
+
+    @Override
+    public void outAPipeAssignStmt(APipeAssignStmt node) {
+        this.setOpAssignRange(node, node.getLhs(), "|", node.getRhs());
+    }
+
+    @Override
+    public void outACarotAssignStmt(ACarotAssignStmt node) {
+        this.setOpAssignRange(node, node.getLhs(), "^", node.getRhs());
+    }
+
+    @Override
+    public void outAAmpCarotAssignStmt(AAmpCarotAssignStmt node) {
+        this.setOpAssignRange(node, node.getLhs(), "&^", node.getRhs());
+    }
+
+    @Override
+    public void outALshiftAssignStmt(ALshiftAssignStmt node) {
+        this.setOpAssignRange(node, node.getLhs(), "<<", node.getRhs());
+    }
+
+    @Override
+    public void outARshiftAssignStmt(ARshiftAssignStmt node) {
+        this.setOpAssignRange(node, node.getLhs(), ">>", node.getRhs());
+    }
+
+    @Override
+    public void outAIncrStmt(AIncrStmt node) {
+        if (this.isInteger(node.getExpr()))
+            this.rangeTable.put(node, add(this.normalized(node.getExpr()), new Range(1, 1)));
+    }
+
+    @Override
+    public void outADecrStmt(ADecrStmt node) {
+        if (this.isInteger(node.getExpr()))
+            this.rangeTable.put(node, add(this.normalized(node.getExpr()), new Range(-1, -1)));
+    }
+
+    /**
+     * For Loops
+     *
+     * In a counted loop 'for i := e0; i < e1; i++ { ... }' whose body never assigns or redeclares
+     * i, the counter stays within [lo(e0), hi(e1) - 1] in the body and post statement, so neither
+     * the increment nor arithmetic on the counter needs normalizing. Decreasing loops are handled
+     * symmetrically.
+     */
+    @Override
+    public void caseALoopStmt(ALoopStmt node) {
+        this.inALoopStmt(node);
+
+        if (node.getInit() != null)
+            node.getInit().apply(this);
+        if (node.getExpr() != null)
+            node.getExpr().apply(this);
+
+        String counter = this.getCounter(node);
+        Range r = counter == null ? null : this.getCounterRange(node, counter);
+
+        Range shadowed = null;
+        if (r != null)
+            shadowed = this.loopCounters.put(counter, r);
+
+        for (PStmt e : new ArrayList<PStmt>(node.getBlock()))
+            e.apply(this);
+        if (node.getEnd() != null)
+            node.getEnd().apply(this);
+
+        if (r != null) {
+            if (shadowed == null)
+                this.loopCounters.remove(counter);
+            else
+                this.loopCounters.put(counter, shadowed);
+        }
+
+        this.outALoopStmt(node);
+    }
+
+    /**
+     * Returns the name of the counter declared by the loop initializer 'i := e0', or null if the
+     * loop isn't a candidate counted loop.
+     */
+    private String getCounter(ALoopStmt node) {
+        if (!(node.getInit() instanceof AShortAssignStmt) || node.getExpr() == null)
+            return null;
+
+        AShortAssignStmt init = (AShortAssignStmt) node.getInit();
+        if (init.getOptId().size() != 1 || !(init.getOptId().getFirst() instanceof AIdOptId))
+            return null;
+        if (!this.isInteger(init.getExpr().getFirst()))
+            return null;
+
+        String counter = ((AIdOptId) init.getOptId().getFirst()).getId().getText();
+
+        // The body must leave the counter alone.
+        if (new CounterScanner(counter, false).scan(node.getBlock()))
+            return null;
+
+        return counter;
+    }
+
+    /**
+     * Returns the interval of the counter in the body and post statement of the loop, or null if
+     * it can't be bounded.
+     */
+    private Range getCounterRange(ALoopStmt node, String counter) {
+        Range init = this.normalized(((AShortAssignStmt) node.getInit()).getExpr().getFirst());
+
+        // Normalize the condition to 'i < bound', 'i <= bound', 'i > bound' or 'i >= bound'.
+        PExpr cond = node.getExpr(), bound = null;
+        boolean increasing = false, strict = false;
+
+        if (cond instanceof ALtExpr || cond instanceof AGtExpr) {
+            strict = true;
+        } else if (!(cond instanceof ALteExpr || cond instanceof AGteExpr))
+            return null;
+
+        PExpr left = null, right = null;
+        if (cond instanceof ALtExpr) {
+            left = ((ALtExpr) cond).getLeft();
+            right = ((ALtExpr) cond).getRight();
+        } else if (cond instanceof ALteExpr) {
+            left = ((ALteExpr) cond).getLeft();
+            right = ((ALteExpr) cond).getRight();
+        } else if (cond instanceof AGtExpr) {
+            left = ((AGtExpr) cond).getLeft();
+            right = ((AGtExpr) cond).getRight();
+        } else {
+            left = ((AGteExpr) cond).getLeft();
+            right = ((AGteExpr) cond).getRight();
+        }
+
+        boolean less = cond instanceof ALtExpr || cond instanceof ALteExpr;
+        if (isCounter(left, counter)) {
+            bound = right;
+            increasing = less;
+        } else if (isCounter(right, counter)) {
+            bound = left;
+            increasing = !less;
+        } else
+            return null;
+
+        if (new CounterScanner(counter, true).scan(Collections.singletonList(bound)))
+            return null;
+
+        // Step of the post statement, signed in the direction of the loop.
+        long step = 0;
+        PStmt end = node.getEnd();
+        if (end instanceof AIncrStmt && isCounter(((AIncrStmt) end).getExpr(), counter))
+            step = 1;
+        else if (end instanceof ADecrStmt && isCounter(((ADecrStmt) end).getExpr(), counter))
+            step = -1;
+        else if (end instanceof APlusAssignStmt
+                && isCounter(((APlusAssignStmt) end).getLhs(), counter))
+            step = this.getConstant(((APlusAssignStmt) end).getRhs());
+        else if (end instanceof AMinusAssignStmt
+                && isCounter(((AMinusAssignStmt) end).getLhs(), counter))
+            step = -this.getConstant(((AMinusAssignStmt) end).getRhs());
+
+        Range b = this.normalized(bound);
+        Range r = null;
+
+        if (increasing && step > 0) {
+            r = new Range(init.lo, strict ? b.hi - 1 : b.hi);
+            // The post statement mustn't wrap around, or the counter wouldn't be monotonic.
+            if (r.hi + step > MAX_INT32)
+                return null;
+        } else if (!increasing && step < 0) {
+            r = new Range(strict ? b.lo + 1 : b.lo, init.hi);
+            if (r.lo + step < MIN_INT32)
+                return null;
+        }
+
+        return r != null && r.lo <= r.hi ? r : null;
+    }
+
+    /**
+     * Returns the value of a small positive constant, or 0 if the expression isn't one.
+     */
+    private long getConstant(PExpr node) {
+        // The post statement is only traversed after the body.
+        node.apply(this);
+
+        Range r = this.rangeTable.get(node);
+        if (r == null || r.lo != r.hi || r.lo <= 0 || r.lo > MAX_INT32)
+            return 0;
+
+        return r.lo;
+    }
+
+    static boolean isCounter(Node node, String counter) {
+        return node instanceof AVariableExpr
+            && ((AVariableExpr) node).getId().getText().equals(counter);
+    }
+
+    /**
+     * Scans statements or expressions for writes to (or declarations of) a loop counter, or any
+     * use of it at all.
+     */
+    static class CounterScanner extends DepthFirstAdapter {
+
+        /** Name of the loop counter. */
+        private String counter;
+        /** Whether any use of the counter counts. */
+        private boolean anyUse;
+        /** Whether the counter was found. */
+        private boolean found;
+
+        /**
+         * Constructor.
+         */
+        public CounterScanner(String counter, boolean anyUse) {
+            this.counter = counter;
+            this.anyUse = anyUse;
+        }
+
+        /**
+         * Returns true if the counter is found in any of the given nodes.
+         */
+        public boolean scan(List<? extends Node> nodes) {
+            for (Node n : nodes)
+                n.apply(this);
+
+            return this.found;
+        }
+
+        private void checkWrite(Node lhs) {
+            if (isCounter(lhs, this.counter))
+                this.found = true;
+        }
+
+        private void checkDeclaration(List<POptId> optIds) {
+            for (POptId o : optIds) {
+                if (o instanceof AIdOptId
+                        && ((AIdOptId) o).getId().getText().equals(this.counter))
+                    this.found = true;
+            }
+        }
+
+        @Override
+        public void inAVariableExpr(AVariableExpr node) {
+            if (this.anyUse)
+                this.checkWrite(node);
+        }
+
+        @Override
+        public void inASpecVarSpec(ASpecVarSpec node) {
+            this.checkDeclaration(node.getOptId());
+        }
+
+        @Override
+        public void inAShortAssignStmt(AShortAssignStmt node) {
+            this.checkDeclaration(node.getOptId());
+        }
+
+        @Override
+        public void inAAssignStmt(AAssignStmt node) {
+            for (PExpr e : node.getLhs())
+                this.checkWrite(e);
+        }
+
+        @Override
+        public void inAPlusAssignStmt(APlusAssignStmt node) {
+            this.checkWrite(node.getLhs());
+        }
+
+        @Override
+        public void inAMinusAssignStmt(AMinusAssignStmt node) {
+            this.checkWrite(node.getLhs());
+        }
+
+        @Override
+        public void inAStarAssignStmt(AStarAssignStmt node) {
+            this.checkWrite(node.getLhs());
+        }
+
+        @Override
+        public void inASlashAssignStmt(ASlashAssignStmt node) {
+            this.checkWrite(node.getLhs());
+        }
+
+        @Override
+        public void inAPercAssignStmt(APercAssignStmt node) {
+            this.checkWrite(node.getLhs());
+        }
+
+        @Override
+        public void inAAndAssignStmt(AAndAssignStmt node) {
+            this.checkWrite(node.getLhs());
+        }
+
+        @Override
+        public void inAPipeAssignStmt(APipeAssignStmt node) {
+            this.checkWrite(node.getLhs());
+        }
+
+        @Override
+        public void inACarotAssignStmt(ACarotAssignStmt node) {
+            this.checkWrite(node.getLhs());
+        }
+
+        @Override
+        public void inAAmpCarotAssignStmt(AAmpCarotAssignStmt node) {
+            this.checkWrite(node.getLhs());
+        }
+
+        @Override
+        public void inALshiftAssignStmt(ALshiftAssignStmt node) {
+            this.checkWrite(node.getLhs());
+        }
+
+        @Override
+        public void inARshiftAssignStmt(ARshiftAssignStmt node) {
+            this.checkWrite(node.getLhs());
+        }
+
+        @Override
+        public void inAIncrStmt(AIncrStmt node) {
+            this.checkWrite(node.getExpr());
+        }
+
+        @Override
+        public void inADecrStmt(ADecrStmt node) {
+            this.checkWrite(node.getExpr());
+        }
+
+    }
+
+}
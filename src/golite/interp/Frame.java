@@ -0,0 +1,35 @@
+package golite.interp;
+
+/**
+ * Activation record of a function (or the global variables), with the variables of each kind
+ * stored in their own array at slots resolved ahead of time, so that values are never boxed. Ints,
+ * runes and bools (as 0 or 1) are stored in the ints.
+ */
+final class Frame {
+
+    /** Int, rune and bool variables. */
+    final int[] ints;
+    /** Float variables. */
+    final double[] doubles;
+    /** String, array, slice and struct variables. */
+    final Object[] objects;
+
+    /** Result of the function, set by return statements. */
+    int intResult;
+    double doubleResult;
+    Object objectResult;
+
+    /**
+     * Constructor.
+     *
+     * @param ints - Number of int slots
+     * @param doubles - Number of double slots
+     * @param objects - Number of object slots
+     */
+    Frame(int ints, int doubles, int objects) {
+        this.ints = new int[ints];
+        this.doubles = new double[doubles];
+        this.objects = new Object[objects];
+    }
+
+}
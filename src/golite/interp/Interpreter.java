@@ -0,0 +1,1789 @@
+package golite.interp;
+
+import golite.analysis.*;
+import golite.exception.InterpreterException;
+import golite.generator.ConstantFolder;
+import golite.jvm.Builtins;
+import golite.jvm.Slice;
+import golite.node.*;
+import golite.symbol.*;
+import golite.type.*;
+
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GoLite Interpreter
+ *
+ * Runs a type checked program inside the compiler's JVM. The AST is first turned into a tree of
+ * closures, one per node, specialized for the types involved: int (and rune) expressions evaluate
+ * to ints, float64 expressions to doubles, bool expressions to booleans and the others to objects,
+ * so that values are never boxed. Variables are resolved ahead of time, from the scope depth of
+ * their symbol, to a slot in the frame of the function (or the global frame) for their kind, so no
+ * name is looked up at run time.
+ *
+ * Values are represented like with the bytecode generator (arrays as primitive arrays, slices with
+ * golite.jvm.Slice, structs as Records) and print like with the Python backend.
+ */
+public class Interpreter extends DepthFirstAdapter {
+
+    /** Kinds of values. Bools are stored as ints, but evaluated as booleans. */
+    private static final int INT = 0, DOUBLE = 1, OBJECT = 2, BOOL = 3;
+
+    /** Statuses of executed statements. */
+    private static final int NORMAL = 0, BREAK = 1, CONTINUE = 2, RETURN = 3;
+
+    /** Binary operators. */
+    private static final int ADD = 0, SUB = 1, MUL = 2, DIV = 3, MOD = 4, AND = 5, OR = 6, XOR = 7,
+        AND_NOT = 8, SHL = 9, SHR = 10;
+    /** Comparisons. */
+    private static final int EQ = 0, NEQ = 1, LT = 2, LTE = 3, GT = 4, GTE = 5;
+
+    /** Locations of variables. */
+    private static final int UNIVERSE = 0, GLOBAL = 1, LOCAL = 2;
+
+    /** Size of the stack of the thread running the program, for deep recursions. */
+    private static final long STACK_SIZE = 1L << 29;
+    /** Output buffer size. */
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    /** Nodes of the tree, by the kind of their value. */
+    private interface IntExpr { int eval(Frame f); }
+    private interface DoubleExpr { double eval(Frame f); }
+    private interface BoolExpr { boolean eval(Frame f); }
+    private interface ObjectExpr { Object eval(Frame f); }
+    /** Statement node, returning its status. */
+    private interface Stmt { int exec(Frame f); }
+    /** Function call node, returning the frame of the callee after the call. */
+    private interface Invoke { Frame call(Frame f); }
+    /** Argument passing node, from the frame of the caller to that of the callee. */
+    private interface Arg { void pass(Frame caller, Frame callee); }
+
+    /**
+     * Compiled function.
+     */
+    private static class Function {
+
+        /** Kinds and slots of the parameters. */
+        private final int[] paramKinds, paramSlots;
+        /** Number of slots of each kind in the frame. */
+        private int ints, doubles, objects;
+        /** Body. */
+        private Stmt body;
+
+        private Function(int[] paramKinds, int[] paramSlots) {
+            this.paramKinds = paramKinds;
+            this.paramSlots = paramSlots;
+        }
+
+        private Frame newFrame() {
+            return new Frame(this.ints, this.doubles, this.objects);
+        }
+
+    }
+
+    /**
+     * Layout of the records of a struct type: the kind and slot of each field.
+     */
+    private static class Layout {
+
+        private final HashMap<String, Integer> kinds = new HashMap<String, Integer>();
+        private final HashMap<String, Integer> slots = new HashMap<String, Integer>();
+        /** Zero value. */
+        private Record zero;
+
+    }
+
+    /** Type table from the type checker. */
+    private final TypeTable typeTable;
+    /** Values of the constant expressions. */
+    private ConstantFolder constantFolder;
+    /** Symbol table, rebuilt while building the tree. */
+    private SymbolTable symbolTable;
+    /** Slots of the variables. */
+    private IdentityHashMap<Symbol, Integer> slots;
+    /** Type expressions of the top-level types, and the types resolved from them, by name. */
+    private LinkedHashMap<String, PTypeExpr> globalTypeExprs;
+    private HashMap<String, GoLiteType> globalTypes;
+    /** Top-level variables, by name. */
+    private HashMap<String, Symbol> globalVars;
+    /** Functions, by name. */
+    private HashMap<String, Function> functions;
+    /** Layouts of the struct types, by underlying type. */
+    private HashMap<GoLiteType, Layout> layouts;
+
+    /** Frame of the global variables. */
+    private Frame globals;
+    /** Next free slot of each kind in the current frame, and the number of slots it needs. */
+    private int[] nextSlots, frameSizes;
+    /** Next free slots when each enclosing scope was entered. */
+    private ArrayDeque<int[]> scopeSlots;
+
+    /** Initialization of the global variables. */
+    private Stmt init;
+
+    /** Output stream and buffer. */
+    private PrintStream out;
+    private final StringBuilder buffer = new StringBuilder();
+
+    /**
+     * Constructor.
+     *
+     * @param typeTable - Type table from the type checker
+     */
+    public Interpreter(TypeTable typeTable) {
+        this.typeTable = typeTable;
+    }
+
+    /**
+     * Runs the program (after the AST was applied to the interpreter): initializes the global
+     * variables and calls main().
+     *
+     * @param out - Stream to print to
+     * @throws InterpreterException if the program fails
+     */
+    public void run(PrintStream out) {
+        this.out = out;
+
+        final RuntimeException[] error = new RuntimeException[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                this.execute();
+            } catch (ArithmeticException e) {
+                error[0] = new InterpreterException(e.getMessage());
+            } catch (IndexOutOfBoundsException|NegativeArraySizeException e) {
+                error[0] = new InterpreterException("index out of range");
+            } catch (StackOverflowError e) {
+                error[0] = new InterpreterException("stack overflow");
+            } catch (RuntimeException e) {
+                error[0] = e;
+            }
+        }, "golite", STACK_SIZE);
+
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            thread.interrupt();
+            Thread.currentThread().interrupt();
+        }
+
+        if (error[0] != null)
+            throw error[0];
+    }
+
+    private void execute() {
+        try {
+            this.init.exec(this.globals);
+
+            Function main = this.functions.get("main");
+            if (main != null)
+                main.body.exec(main.newFrame());
+        } finally {
+            this.flush();
+        }
+    }
+
+    private void flush() {
+        this.out.print(this.buffer);
+        this.out.flush();
+        this.buffer.setLength(0);
+    }
+
+    /**
+     * Types
+     *
+     */
+
+    /**
+     * Returns the GoLite type for the given type expression, in the current scope.
+     *
+     * @param node - Type expression
+     * @return Corresponding GoLite type
+     */
+    private GoLiteType getType(PTypeExpr node) {
+        if (node instanceof ABoolTypeExpr)
+            return TypeFactory.getBoolType();
+        else if (node instanceof AIntTypeExpr)
+            return TypeFactory.getIntType();
+        else if (node instanceof AFloatTypeExpr)
+            return TypeFactory.getFloatType();
+        else if (node instanceof ARuneTypeExpr)
+            return TypeFactory.getRuneType();
+        else if (node instanceof AStringTypeExpr)
+            return TypeFactory.getStringType();
+        else if (node instanceof AAliasTypeExpr) {
+            String name = ((AAliasTypeExpr) node).getId().getText();
+            Symbol symbol = this.symbolTable.getSymbol(name);
+            // Top-level types can be used before they're declared (with unordered declarations).
+            GoLiteType type = (symbol instanceof TypeAliasSymbol) ? symbol.getType()
+                : this.getGlobalType(name);
+            return TypeFactory.getAliasType(name, type);
+        } else if (node instanceof AArrayTypeExpr) {
+            AArrayTypeExpr array = (AArrayTypeExpr) node;
+            return TypeFactory.getArrayType(this.getType(array.getTypeExpr()),
+                getIntLit(array.getExpr()).intValue());
+        } else if (node instanceof ASliceTypeExpr)
+            return TypeFactory.getSliceType(this.getType(((ASliceTypeExpr) node).getTypeExpr()));
+        else {
+            ArrayList<StructType.Field> fields = new ArrayList<StructType.Field>();
+            for (PFieldSpec e : ((AStructTypeExpr) node).getFieldSpec()) {
+                ASpecFieldSpec spec = (ASpecFieldSpec) e;
+                GoLiteType type = this.getType(spec.getTypeExpr());
+                for (POptId o : spec.getOptId()) {
+                    if (o instanceof AIdOptId)
+                        fields.add(new StructType.Field(((AIdOptId) o).getId().getText(), type));
+                }
+            }
+
+            return TypeFactory.getStructType(fields);
+        }
+    }
+
+    /**
+     * Returns the type aliased by the top-level type with the given name, resolving it if needed.
+     */
+    private GoLiteType getGlobalType(String name) {
+        GoLiteType type = this.globalTypes.get(name);
+        if (type == null) {
+            type = this.getType(this.globalTypeExprs.get(name));
+            this.globalTypes.put(name, type);
+        }
+
+        return type;
+    }
+
+    /**
+     * Returns the type of the variable with the given position in the given specification.
+     */
+    private GoLiteType getType(ASpecVarSpec node, int i) {
+        if (node.getTypeExpr() != null)
+            return this.getType(node.getTypeExpr());
+        else
+            return this.typeTable.get(node.getExpr().get(i));
+    }
+
+    /**
+     * Returns the underlying type of the given expression.
+     */
+    private GoLiteType typeOf(PExpr node) {
+        return this.typeTable.get(node).getUnderlyingType();
+    }
+
+    /**
+     * Returns the kind of the values of the given type.
+     */
+    private static int kindOf(GoLiteType type) {
+        type = type.getUnderlyingType();
+
+        if (type instanceof IntType || type instanceof RuneType)
+            return INT;
+        else if (type instanceof FloatType)
+            return DOUBLE;
+        else if (type instanceof BoolType)
+            return BOOL;
+        else
+            return OBJECT;
+    }
+
+    /**
+     * Returns the kind of frame slot holding values of the given kind.
+     */
+    private static int slotKind(int kind) {
+        return kind == BOOL ? INT : kind;
+    }
+
+    /**
+     * Returns the layout of the records of the given struct type.
+     */
+    private Layout getLayout(GoLiteType type) {
+        type = type.getUnderlyingType();
+
+        Layout layout = this.layouts.get(type);
+        if (layout == null) {
+            layout = new Layout();
+
+            int[] counts = new int[3];
+            ArrayList<Object> zeros = new ArrayList<Object>();
+            for (Iterator<StructType.Field> i = ((StructType) type).getFieldIterator();
+                    i.hasNext(); ) {
+                StructType.Field field = i.next();
+                int kind = kindOf(field.getType());
+
+                layout.kinds.put(field.getId(), kind);
+                layout.slots.put(field.getId(), counts[slotKind(kind)]++);
+                if (kind == OBJECT)
+                    zeros.add(this.getZero(field.getType()));
+            }
+
+            layout.zero = new Record(new int[counts[INT]], new double[counts[DOUBLE]],
+                zeros.toArray());
+            this.layouts.put(type, layout);
+        }
+
+        return layout;
+    }
+
+    /**
+     * Returns a (new) zero value of the given type, of object kind.
+     */
+    private Object getZero(GoLiteType type) {
+        type = type.getUnderlyingType();
+
+        if (type instanceof StringType)
+            return "";
+        else if (type instanceof StructType)
+            return this.getLayout(type).zero.copy();
+        else if (type instanceof ArrayType) {
+            GoLiteType elemType = ((ArrayType) type).getElemType();
+            int bound = ((ArrayType) type).getBound();
+
+            switch (kindOf(elemType)) {
+                case INT: return new int[bound];
+                case DOUBLE: return new double[bound];
+                case BOOL: return new boolean[bound];
+                default:
+                    Object[] a = new Object[bound];
+                    for (int i = 0; i < bound; i++)
+                        a[i] = this.getZero(elemType);
+                    return a;
+            }
+        } else
+            // Slice.
+            return null;
+    }
+
+    /**
+     * Returns an expression evaluating to a new zero value of the given type.
+     */
+    private Object zeroExpr(GoLiteType type) {
+        switch (kindOf(type)) {
+            case INT: return (IntExpr) f -> 0;
+            case DOUBLE: return (DoubleExpr) f -> 0.0;
+            case BOOL: return (BoolExpr) f -> false;
+            default:
+                Object zero = this.getZero(type);
+                return (ObjectExpr) f -> Builtins.copy(zero);
+        }
+    }
+
+    /**
+     * Scopes and Variables
+     *
+     */
+
+    private void enterScope() {
+        this.symbolTable.scope();
+        this.scopeSlots.push(this.nextSlots.clone());
+    }
+
+    private void exitScope() {
+        this.symbolTable.unscope();
+        this.nextSlots = this.scopeSlots.pop();
+    }
+
+    /**
+     * Allocates a slot for a value of the given kind in the current frame.
+     */
+    private int newSlot(int kind) {
+        int k = slotKind(kind);
+        int slot = this.nextSlots[k]++;
+        this.frameSizes[k] = Math.max(this.frameSizes[k], this.nextSlots[k]);
+        return slot;
+    }
+
+    /**
+     * Declares a local variable in the current scope.
+     *
+     * @return Symbol of the variable
+     */
+    private Symbol declareLocal(String name, GoLiteType type, Node node) {
+        Symbol symbol = new VariableSymbol(name, type, node);
+        this.symbolTable.putSymbol(symbol);
+        this.slots.put(symbol, this.newSlot(kindOf(type)));
+        return symbol;
+    }
+
+    /**
+     * Returns the variable with the given name in the current scope.
+     */
+    private Symbol getVariable(String name) {
+        Symbol symbol = this.symbolTable.getSymbol(name);
+        // Functions can use top-level variables declared after them (with unordered top-level
+        // declarations).
+        return symbol != null ? symbol : this.globalVars.get(name);
+    }
+
+    /**
+     * Returns the location of the given variable, from the depth of its scope.
+     */
+    private int getLocation(Symbol symbol) {
+        String name = symbol.getName();
+        if (this.symbolTable.getSymbol(name) != symbol)
+            return GLOBAL;
+
+        int depth = this.symbolTable.getScopeDepth(name);
+        return depth == 0 ? UNIVERSE : depth == 1 ? GLOBAL : LOCAL;
+    }
+
+    /**
+     * Returns an expression loading the given variable.
+     */
+    private Object load(Symbol symbol) {
+        int kind = kindOf(symbol.getType());
+        int location = this.getLocation(symbol);
+
+        if (location == UNIVERSE) {
+            boolean value = symbol.getName().equals("true");
+            return (BoolExpr) f -> value;
+        }
+
+        int s = this.slots.get(symbol);
+        if (location == LOCAL) {
+            switch (kind) {
+                case INT: return (IntExpr) f -> f.ints[s];
+                case DOUBLE: return (DoubleExpr) f -> f.doubles[s];
+                case BOOL: return (BoolExpr) f -> f.ints[s] != 0;
+                default: return (ObjectExpr) f -> f.objects[s];
+            }
+        } else {
+            Frame g = this.globals;
+            switch (kind) {
+                case INT: return (IntExpr) f -> g.ints[s];
+                case DOUBLE: return (DoubleExpr) f -> g.doubles[s];
+                case BOOL: return (BoolExpr) f -> g.ints[s] != 0;
+                default: return (ObjectExpr) f -> g.objects[s];
+            }
+        }
+    }
+
+    /**
+     * Returns a statement storing the given value to the given variable.
+     */
+    private Stmt store(Symbol symbol, Object value) {
+        int kind = kindOf(symbol.getType());
+        int s = this.slots.get(symbol);
+        boolean local = this.getLocation(symbol) == LOCAL;
+        Frame g = this.globals;
+
+        switch (kind) {
+            case INT: {
+                IntExpr v = (IntExpr) value;
+                if (local)
+                    return f -> { f.ints[s] = v.eval(f); return NORMAL; };
+                else
+                    return f -> { g.ints[s] = v.eval(f); return NORMAL; };
+            }
+            case DOUBLE: {
+                DoubleExpr v = (DoubleExpr) value;
+                if (local)
+                    return f -> { f.doubles[s] = v.eval(f); return NORMAL; };
+                else
+                    return f -> { g.doubles[s] = v.eval(f); return NORMAL; };
+            }
+            case BOOL: {
+                BoolExpr v = (BoolExpr) value;
+                if (local)
+                    return f -> { f.ints[s] = v.eval(f) ? 1 : 0; return NORMAL; };
+                else
+                    return f -> { g.ints[s] = v.eval(f) ? 1 : 0; return NORMAL; };
+            }
+            default: {
+                ObjectExpr v = (ObjectExpr) value;
+                if (local)
+                    return f -> { f.objects[s] = v.eval(f); return NORMAL; };
+                else
+                    return f -> { g.objects[s] = v.eval(f); return NORMAL; };
+            }
+        }
+    }
+
+    /**
+     * Returns a statement evaluating the given expression and discarding its value.
+     */
+    private static Stmt discard(Object value) {
+        if (value instanceof IntExpr)
+            return f -> { ((IntExpr) value).eval(f); return NORMAL; };
+        else if (value instanceof DoubleExpr)
+            return f -> { ((DoubleExpr) value).eval(f); return NORMAL; };
+        else if (value instanceof BoolExpr)
+            return f -> { ((BoolExpr) value).eval(f); return NORMAL; };
+        else
+            return f -> { ((ObjectExpr) value).eval(f); return NORMAL; };
+    }
+
+    /**
+     * Returns a temporary variable of the given type, in the current scope.
+     */
+    private Symbol newTemp(GoLiteType type) {
+        Symbol symbol = new VariableSymbol("", type, null);
+        this.slots.put(symbol, this.newSlot(kindOf(type)));
+        return symbol;
+    }
+
+    /**
+     * Temporaries are local, but aren't in the symbol table.
+     */
+    private Object loadTemp(Symbol temp) {
+        int s = this.slots.get(temp);
+        switch (kindOf(temp.getType())) {
+            case INT: return (IntExpr) f -> f.ints[s];
+            case DOUBLE: return (DoubleExpr) f -> f.doubles[s];
+            case BOOL: return (BoolExpr) f -> f.ints[s] != 0;
+            default: return (ObjectExpr) f -> f.objects[s];
+        }
+    }
+
+    private Stmt storeTemp(Symbol temp, Object value) {
+        int s = this.slots.get(temp);
+        switch (kindOf(temp.getType())) {
+            case INT: {
+                IntExpr v = (IntExpr) value;
+                return f -> { f.ints[s] = v.eval(f); return NORMAL; };
+            }
+            case DOUBLE: {
+                DoubleExpr v = (DoubleExpr) value;
+                return f -> { f.doubles[s] = v.eval(f); return NORMAL; };
+            }
+            case BOOL: {
+                BoolExpr v = (BoolExpr) value;
+                return f -> { f.ints[s] = v.eval(f) ? 1 : 0; return NORMAL; };
+            }
+            default: {
+                ObjectExpr v = (ObjectExpr) value;
+                return f -> { f.objects[s] = v.eval(f); return NORMAL; };
+            }
+        }
+    }
+
+    /**
+     * Program
+     *
+     */
+
+    @Override
+    public void caseStart(Start node) {
+        this.constantFolder = new ConstantFolder(this.typeTable);
+        node.apply(this.constantFolder);
+
+        this.symbolTable = new SymbolTable();
+        this.slots = new IdentityHashMap<Symbol, Integer>();
+        this.globalTypeExprs = new LinkedHashMap<String, PTypeExpr>();
+        this.globalTypes = new HashMap<String, GoLiteType>();
+        this.globalVars = new HashMap<String, Symbol>();
+        this.functions = new HashMap<String, Function>();
+        this.layouts = new HashMap<GoLiteType, Layout>();
+        this.scopeSlots = new ArrayDeque<int[]>();
+
+        // Universe scope.
+        this.symbolTable.scope();
+        this.symbolTable.putSymbol(new VariableSymbol("true", TypeFactory.getBoolType(), node));
+        this.symbolTable.putSymbol(new VariableSymbol("false", TypeFactory.getBoolType(), node));
+
+        node.getPProg().apply(this);
+
+        this.symbolTable.unscope();
+    }
+
+    @Override
+    public void caseAProgProg(AProgProg node) {
+        this.symbolTable.scope();
+
+        // Declare every top-level type and function, and allocate the slots of the top-level
+        // variables, first, since they can be used before their declarations with unordered
+        // top-level declarations.
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof ATypesTopDec) {
+                for (PTypeSpec t : ((ATypesTopDec) e).getTypeSpec()) {
+                    ASpecTypeSpec spec = (ASpecTypeSpec) t;
+                    if (spec.getOptId() instanceof AIdOptId)
+                        this.globalTypeExprs.put(((AIdOptId) spec.getOptId()).getId().getText(),
+                            spec.getTypeExpr());
+                }
+            }
+        }
+        for (Map.Entry<String, PTypeExpr> e : this.globalTypeExprs.entrySet()) {
+            this.symbolTable.putSymbol(new TypeAliasSymbol(e.getKey(),
+                this.getGlobalType(e.getKey()), e.getValue()));
+        }
+
+        this.nextSlots = new int[3];
+        this.frameSizes = new int[3];
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof AVarsTopDec) {
+                for (PVarSpec v : ((AVarsTopDec) e).getVarSpec()) {
+                    ASpecVarSpec spec = (ASpecVarSpec) v;
+                    for (int i = 0; i < spec.getOptId().size(); i++) {
+                        POptId o = spec.getOptId().get(i);
+                        if (!(o instanceof AIdOptId))
+                            continue;
+
+                        String name = ((AIdOptId) o).getId().getText();
+                        GoLiteType type = this.getType(spec, i);
+                        Symbol symbol = new VariableSymbol(name, type, spec);
+                        this.globalVars.put(name, symbol);
+                        this.slots.put(symbol, this.newSlot(kindOf(type)));
+                    }
+                }
+            } else if (e instanceof AFuncTopDec)
+                this.declareFunction((AFuncTopDec) e);
+        }
+        this.globals = new Frame(this.frameSizes[INT], this.frameSizes[DOUBLE],
+            this.frameSizes[OBJECT]);
+
+        // The top-level variables come into scope in order, as they're initialized.
+        ArrayList<Stmt> init = new ArrayList<Stmt>();
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof AVarsTopDec) {
+                for (PVarSpec v : ((AVarsTopDec) e).getVarSpec())
+                    init.add(this.declareGlobals((ASpecVarSpec) v));
+            } else if (e instanceof AFuncTopDec)
+                this.defineFunction((AFuncTopDec) e);
+        }
+        this.init = sequence(init);
+
+        this.symbolTable.unscope();
+    }
+
+    /**
+     * Declares the given function, allocating the slots of its parameters.
+     */
+    private void declareFunction(AFuncTopDec node) {
+        String name = node.getId().getText();
+        FunctionSymbol symbol = (node.getTypeExpr() == null) ? new FunctionSymbol(name, node)
+            : new FunctionSymbol(name, this.getType(node.getTypeExpr()), node);
+
+        for (PArgGroup g : node.getArgGroup()) {
+            symbol.addArgType(this.getType(((AArgArgGroup) g).getTypeExpr()),
+                ((AArgArgGroup) g).getId().size());
+        }
+        this.symbolTable.putSymbol(symbol);
+
+        // The parameters take the first slots of each kind, in order.
+        List<GoLiteType> argTypes = symbol.getArgTypes();
+        int[] kinds = new int[argTypes.size()], slots = new int[argTypes.size()];
+        int[] counts = new int[3];
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = kindOf(argTypes.get(i));
+            slots[i] = counts[slotKind(kinds[i])]++;
+        }
+
+        this.functions.put(name, new Function(kinds, slots));
+    }
+
+    /**
+     * Builds the body of the given function.
+     */
+    private void defineFunction(AFuncTopDec node) {
+        Function function = this.functions.get(node.getId().getText());
+
+        this.nextSlots = new int[3];
+        this.frameSizes = new int[3];
+        this.enterScope();
+
+        for (PArgGroup e : node.getArgGroup()) {
+            AArgArgGroup g = (AArgArgGroup) e;
+            GoLiteType type = this.getType(g.getTypeExpr());
+            for (TId id : g.getId())
+                this.declareLocal(id.getText(), type, g);
+        }
+
+        function.body = this.block(node.getStmt());
+
+        this.exitScope();
+        function.ints = this.frameSizes[INT];
+        function.doubles = this.frameSizes[DOUBLE];
+        function.objects = this.frameSizes[OBJECT];
+    }
+
+    /**
+     * Returns the initialization of the top-level variables of the given specification, bringing
+     * them into scope.
+     */
+    private Stmt declareGlobals(ASpecVarSpec node) {
+        // Initializers run in the global frame, so their temporaries are global too.
+        this.nextSlots = new int[3];
+        this.frameSizes = new int[3];
+
+        LinkedList<POptId> ids = node.getOptId();
+        ArrayList<Stmt> stmts = new ArrayList<Stmt>();
+        for (int i = 0; i < ids.size(); i++) {
+            Object value = this.getInitialValue(node, i);
+            if (ids.get(i) instanceof AIdOptId) {
+                Symbol symbol = this.globalVars.get(((AIdOptId) ids.get(i)).getId().getText());
+                stmts.add(this.store(symbol, value));
+            } else if (value != null)
+                stmts.add(discard(value));
+        }
+
+        for (POptId o : ids) {
+            if (o instanceof AIdOptId)
+                this.symbolTable.putSymbol(this.globalVars.get(((AIdOptId) o).getId().getText()));
+        }
+
+        return sequence(stmts);
+    }
+
+    /**
+     * Returns the initial value of the variable with the given position in the given specification
+     * (null for blanks without a value).
+     */
+    private Object getInitialValue(ASpecVarSpec node, int i) {
+        if (!node.getExpr().isEmpty())
+            return this.value(node.getExpr().get(i));
+        else if (node.getOptId().get(i) instanceof AIdOptId)
+            return this.zeroExpr(this.getType(node, i));
+        else
+            return null;
+    }
+
+    /**
+     * Statements
+     *
+     */
+
+    /**
+     * Returns a statement executing the given statements in order, until one doesn't complete
+     * normally.
+     */
+    private static Stmt sequence(List<Stmt> stmts) {
+        if (stmts.isEmpty())
+            return f -> NORMAL;
+        else if (stmts.size() == 1)
+            return stmts.get(0);
+
+        Stmt[] array = stmts.toArray(new Stmt[stmts.size()]);
+        return f -> {
+            for (Stmt s : array) {
+                int status = s.exec(f);
+                if (status != NORMAL)
+                    return status;
+            }
+            return NORMAL;
+        };
+    }
+
+    /**
+     * Returns the given statements as a statement, in the current scope.
+     */
+    private Stmt block(List<PStmt> nodes) {
+        ArrayList<Stmt> stmts = new ArrayList<Stmt>();
+        for (PStmt e : nodes) {
+            Stmt s = this.stmt(e);
+            if (s != null)
+                stmts.add(s);
+        }
+
+        return sequence(stmts);
+    }
+
+    /**
+     * Returns the given block as a statement, in a new scope.
+     */
+    private Stmt scopedBlock(List<PStmt> nodes) {
+        this.enterScope();
+        Stmt s = this.block(nodes);
+        this.exitScope();
+        return s;
+    }
+
+    /**
+     * Returns the given statement as a node of the tree (null if it does nothing).
+     */
+    private Stmt stmt(PStmt node) {
+        if (node instanceof AEmptyStmt)
+            return null;
+        else if (node instanceof AVarDecStmt)
+            return this.varDec((AVarDecStmt) node);
+        else if (node instanceof AShortAssignStmt)
+            return this.shortAssign((AShortAssignStmt) node);
+        else if (node instanceof ATypeDecStmt) {
+            for (PTypeSpec e : ((ATypeDecStmt) node).getTypeSpec()) {
+                ASpecTypeSpec spec = (ASpecTypeSpec) e;
+                if (spec.getOptId() instanceof AIdOptId)
+                    this.symbolTable.putSymbol(new TypeAliasSymbol(
+                        ((AIdOptId) spec.getOptId()).getId().getText(),
+                        this.getType(spec.getTypeExpr()), spec));
+            }
+            return null;
+        } else if (node instanceof AAssignStmt)
+            return this.assign((AAssignStmt) node);
+        else if (node instanceof APlusAssignStmt)
+            return this.opAssign(((APlusAssignStmt) node).getLhs(), ADD,
+                ((APlusAssignStmt) node).getRhs());
+        else if (node instanceof AMinusAssignStmt)
+            return this.opAssign(((AMinusAssignStmt) node).getLhs(), SUB,
+                ((AMinusAssignStmt) node).getRhs());
+        else if (node instanceof AStarAssignStmt)
+            return this.opAssign(((AStarAssignStmt) node).getLhs(), MUL,
+                ((AStarAssignStmt) node).getRhs());
+        else if (node instanceof ASlashAssignStmt)
+            return this.opAssign(((ASlashAssignStmt) node).getLhs(), DIV,
+                ((ASlashAssignStmt) node).getRhs());
+        else if (node instanceof APercAssignStmt)
+            return this.opAssign(((APercAssignStmt) node).getLhs(), MOD,
+                ((APercAssignStmt) node).getRhs());
+        else if (node instanceof AAndAssignStmt)
+            return this.opAssign(((AAndAssignStmt) node).getLhs(), AND,
+                ((AAndAssignStmt) node).getRhs());
+        else if (node instanceof APipeAssignStmt)
+            return this.opAssign(((APipeAssignStmt) node).getLhs(), OR,
+                ((APipeAssignStmt) node).getRhs());
+        else if (node instanceof ACarotAssignStmt)
+            return this.opAssign(((ACarotAssignStmt) node).getLhs(), XOR,
+                ((ACarotAssignStmt) node).getRhs());
+        else if (node instanceof AAmpCarotAssignStmt)
+            return this.opAssign(((AAmpCarotAssignStmt) node).getLhs(), AND_NOT,
+                ((AAmpCarotAssignStmt) node).getRhs());
+        else if (node instanceof ALshiftAssignStmt)
+            return this.opAssign(((ALshiftAssignStmt) node).getLhs(), SHL,
+                ((ALshiftAssignStmt) node).getRhs());
+        else if (node instanceof ARshiftAssignStmt)
+            return this.opAssign(((ARshiftAssignStmt) node).getLhs(), SHR,
+                ((ARshiftAssignStmt) node).getRhs());
+        else if (node instanceof AIncrStmt)
+            return this.opAssign(((AIncrStmt) node).getExpr(), ADD, null);
+        else if (node instanceof ADecrStmt)
+            return this.opAssign(((ADecrStmt) node).getExpr(), SUB, null);
+        else if (node instanceof AExprStmt) {
+            PExpr e = ((AExprStmt) node).getExpr();
+            if (e instanceof AFuncCallExpr && this.typeOf(e) instanceof VoidType) {
+                Invoke call = this.invoke((AFuncCallExpr) e);
+                return f -> { call.call(f); return NORMAL; };
+            }
+            return discard(this.expr(e));
+        } else if (node instanceof APrintStmt)
+            return this.print(((APrintStmt) node).getExpr(), false);
+        else if (node instanceof APrintlnStmt)
+            return this.print(((APrintlnStmt) node).getExpr(), true);
+        else if (node instanceof AContinueStmt)
+            return f -> CONTINUE;
+        else if (node instanceof ABreakStmt)
+            return f -> BREAK;
+        else if (node instanceof AReturnStmt)
+            return this.returnStmt((AReturnStmt) node);
+        else if (node instanceof AIfElseStmt)
+            return this.ifElse((AIfElseStmt) node);
+        else if (node instanceof ASwitchStmt)
+            return this.switchStmt((ASwitchStmt) node);
+        else if (node instanceof ALoopStmt)
+            return this.loop((ALoopStmt) node);
+        else
+            return this.scopedBlock(((ABlockStmt) node).getStmt());
+    }
+
+    private Stmt varDec(AVarDecStmt node) {
+        ArrayList<Stmt> stmts = new ArrayList<Stmt>();
+
+        for (PVarSpec e : node.getVarSpec()) {
+            ASpecVarSpec spec = (ASpecVarSpec) e;
+            LinkedList<POptId> ids = spec.getOptId();
+
+            // The variables come into scope after their values are computed, so that each value
+            // can be stored as soon as it's computed.
+            Object[] values = new Object[ids.size()];
+            for (int i = 0; i < ids.size(); i++)
+                values[i] = this.getInitialValue(spec, i);
+
+            for (int i = 0; i < ids.size(); i++) {
+                if (ids.get(i) instanceof AIdOptId) {
+                    Symbol symbol = this.declareLocal(((AIdOptId) ids.get(i)).getId().getText(),
+                        this.getType(spec, i), spec);
+                    stmts.add(this.store(symbol, values[i]));
+                } else if (values[i] != null)
+                    stmts.add(discard(values[i]));
+            }
+        }
+
+        return sequence(stmts);
+    }
+
+    private Stmt shortAssign(AShortAssignStmt node) {
+        LinkedList<POptId> ids = node.getOptId();
+        LinkedList<PExpr> exprs = node.getExpr();
+
+        Object[] values = new Object[exprs.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = this.value(exprs.get(i));
+
+        // With several variables, some of which may be assigned, the values all go through
+        // temporaries first.
+        ArrayList<Stmt> stmts = new ArrayList<Stmt>();
+        if (ids.size() > 1) {
+            for (int i = 0; i < values.length; i++) {
+                Symbol temp = this.newTemp(this.typeOf(exprs.get(i)));
+                stmts.add(this.storeTemp(temp, values[i]));
+                values[i] = this.loadTemp(temp);
+            }
+        }
+
+        for (int i = 0; i < ids.size(); i++) {
+            if (!(ids.get(i) instanceof AIdOptId)) {
+                stmts.add(discard(values[i]));
+                continue;
+            }
+
+            String name = ((AIdOptId) ids.get(i)).getId().getText();
+            Symbol symbol = this.symbolTable.defSymbolInCurrentScope(name) ? this.getVariable(name)
+                : this.declareLocal(name, this.typeTable.get(exprs.get(i)), node);
+            stmts.add(this.store(symbol, values[i]));
+        }
+
+        return sequence(stmts);
+    }
+
+    private Stmt assign(AAssignStmt node) {
+        LinkedList<PExpr> lhs = node.getLhs();
+        LinkedList<PExpr> rhs = node.getRhs();
+
+        if (lhs.size() == 1)
+            return this.assign(lhs.getFirst(), this.value(rhs.getFirst()));
+
+        // All the values are computed before any is assigned.
+        ArrayList<Stmt> stmts = new ArrayList<Stmt>();
+        Object[] temps = new Object[rhs.size()];
+        for (int i = 0; i < rhs.size(); i++) {
+            Symbol temp = this.newTemp(this.typeOf(rhs.get(i)));
+            stmts.add(this.storeTemp(temp, this.value(rhs.get(i))));
+            temps[i] = this.loadTemp(temp);
+        }
+        for (int i = 0; i < lhs.size(); i++)
+            stmts.add(this.assign(lhs.get(i), temps[i]));
+
+        return sequence(stmts);
+    }
+
+    /**
+     * Returns a statement assigning the given value to the given assignable.
+     */
+    private Stmt assign(PExpr node, Object value) {
+        if (node instanceof AVariableExpr)
+            return this.store(this.getVariable(((AVariableExpr) node).getId().getText()), value);
+        else if (node instanceof AArrayElemExpr) {
+            AArrayElemExpr elem = (AArrayElemExpr) node;
+            return this.storeElement(this.typeOf(elem.getArray()),
+                (ObjectExpr) this.expr(elem.getArray()), (IntExpr) this.expr(elem.getIndex()),
+                value);
+        } else if (node instanceof AFieldExpr) {
+            AFieldExpr field = (AFieldExpr) node;
+            return this.storeField(this.typeOf(field.getExpr()),
+                (ObjectExpr) this.expr(field.getExpr()), field.getId().getText(), value);
+        } else
+            // Blank.
+            return discard(value);
+    }
+
+    /**
+     * Returns a statement storing the given value to an element of an array or slice.
+     *
+     * @param type - Type of the array or slice
+     * @param container - Array or slice
+     * @param index - Index
+     * @param value - Value
+     */
+    private Stmt storeElement(GoLiteType type, ObjectExpr container, IntExpr index,
+            Object value) {
+        int kind = kindOf(type instanceof ArrayType ? ((ArrayType) type).getElemType()
+            : ((SliceType) type).getElemType());
+
+        if (type instanceof ArrayType) {
+            switch (kind) {
+                case INT: {
+                    IntExpr v = (IntExpr) value;
+                    return f -> {
+                        int[] a = (int[]) container.eval(f);
+                        a[index.eval(f)] = v.eval(f);
+                        return NORMAL;
+                    };
+                }
+                case DOUBLE: {
+                    DoubleExpr v = (DoubleExpr) value;
+                    return f -> {
+                        double[] a = (double[]) container.eval(f);
+                        a[index.eval(f)] = v.eval(f);
+                        return NORMAL;
+                    };
+                }
+                case BOOL: {
+                    BoolExpr v = (BoolExpr) value;
+                    return f -> {
+                        boolean[] a = (boolean[]) container.eval(f);
+                        a[index.eval(f)] = v.eval(f);
+                        return NORMAL;
+                    };
+                }
+                default: {
+                    ObjectExpr v = (ObjectExpr) value;
+                    return f -> {
+                        Object[] a = (Object[]) container.eval(f);
+                        a[index.eval(f)] = v.eval(f);
+                        return NORMAL;
+                    };
+                }
+            }
+        } else {
+            switch (kind) {
+                case INT: {
+                    IntExpr v = (IntExpr) value;
+                    return f -> {
+                        Slice.setInt((Slice) container.eval(f), index.eval(f), v.eval(f));
+                        return NORMAL;
+                    };
+                }
+                case DOUBLE: {
+                    DoubleExpr v = (DoubleExpr) value;
+                    return f -> {
+                        Slice.setDouble((Slice) container.eval(f), index.eval(f), v.eval(f));
+                        return NORMAL;
+                    };
+                }
+                case BOOL: {
+                    BoolExpr v = (BoolExpr) value;
+                    return f -> {
+                        Slice.setBoolean((Slice) container.eval(f), index.eval(f), v.eval(f));
+                        return NORMAL;
+                    };
+                }
+                default: {
+                    ObjectExpr v = (ObjectExpr) value;
+                    return f -> {
+                        Slice.setObject((Slice) container.eval(f), index.eval(f), v.eval(f));
+                        return NORMAL;
+                    };
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a statement storing the given value to a field of a struct.
+     *
+     * @param type - Type of the struct
+     * @param record - Struct
+     * @param name - Field name
+     * @param value - Value
+     */
+    private Stmt storeField(GoLiteType type, ObjectExpr record, String name, Object value) {
+        Layout layout = this.getLayout(type);
+        int s = layout.slots.get(name);
+
+        switch (layout.kinds.get(name)) {
+            case INT: {
+                IntExpr v = (IntExpr) value;
+                return f -> { ((Record) record.eval(f)).ints[s] = v.eval(f); return NORMAL; };
+            }
+            case DOUBLE: {
+                DoubleExpr v = (DoubleExpr) value;
+                return f -> { ((Record) record.eval(f)).doubles[s] = v.eval(f); return NORMAL; };
+            }
+            case BOOL: {
+                BoolExpr v = (BoolExpr) value;
+                return f -> {
+                    ((Record) record.eval(f)).ints[s] = v.eval(f) ? 1 : 0;
+                    return NORMAL;
+                };
+            }
+            default: {
+                ObjectExpr v = (ObjectExpr) value;
+                return f -> { ((Record) record.eval(f)).objects[s] = v.eval(f); return NORMAL; };
+            }
+        }
+    }
+
+    /**
+     * Returns an operator assignment (or an increment or decrement, with a null operand).
+     *
+     * @param lhs - Assignable
+     * @param op - Operator
+     * @param rhs - Right operand, or null for 1
+     */
+    private Stmt opAssign(PExpr lhs, int op, PExpr rhs) {
+        int kind = kindOf(this.typeOf(lhs));
+        Object right = (rhs != null) ? this.expr(rhs)
+            : (kind == DOUBLE) ? (DoubleExpr) f -> 1.0 : (IntExpr) f -> 1;
+        Object count = (rhs != null) ? this.constantFolder.getValue(rhs) : (Long) 1L;
+
+        if (lhs instanceof AVariableExpr) {
+            Symbol symbol = this.getVariable(((AVariableExpr) lhs).getId().getText());
+
+            // Increment int locals in place.
+            if (kind == INT && (op == ADD || op == SUB) && this.getLocation(symbol) == LOCAL) {
+                int s = this.slots.get(symbol);
+                IntExpr r = (IntExpr) right;
+                if (op == ADD)
+                    return f -> { f.ints[s] += r.eval(f); return NORMAL; };
+                else
+                    return f -> { f.ints[s] -= r.eval(f); return NORMAL; };
+            }
+
+            return this.store(symbol, binary(op, kind, this.load(symbol), right, count));
+        } else if (lhs instanceof AArrayElemExpr) {
+            // The array and index are evaluated once, into temporaries.
+            AArrayElemExpr elem = (AArrayElemExpr) lhs;
+            GoLiteType type = this.typeOf(elem.getArray());
+            Symbol container = this.newTemp(type);
+            Symbol index = this.newTemp(TypeFactory.getIntType());
+
+            ObjectExpr c = (ObjectExpr) this.loadTemp(container);
+            IntExpr i = (IntExpr) this.loadTemp(index);
+            ArrayList<Stmt> stmts = new ArrayList<Stmt>();
+            stmts.add(this.storeTemp(container, this.expr(elem.getArray())));
+            stmts.add(this.storeTemp(index, this.expr(elem.getIndex())));
+            stmts.add(this.storeElement(type, c, i,
+                binary(op, kind, this.loadElement(type, c, i), right, count)));
+            return sequence(stmts);
+        } else {
+            AFieldExpr field = (AFieldExpr) lhs;
+            GoLiteType type = this.typeOf(field.getExpr());
+            Symbol record = this.newTemp(type);
+            String name = field.getId().getText();
+
+            ObjectExpr r = (ObjectExpr) this.loadTemp(record);
+            ArrayList<Stmt> stmts = new ArrayList<Stmt>();
+            stmts.add(this.storeTemp(record, this.expr(field.getExpr())));
+            stmts.add(this.storeField(type, r, name,
+                binary(op, kind, this.loadField(type, r, name), right, count)));
+            return sequence(stmts);
+        }
+    }
+
+    /**
+     * Returns a print statement, with the values separated by spaces and followed by a newline for
+     * println.
+     */
+    private Stmt print(List<PExpr> exprs, boolean ln) {
+        ArrayList<Stmt> stmts = new ArrayList<Stmt>();
+        StringBuilder b = this.buffer;
+
+        for (int i = 0; i < exprs.size(); i++) {
+            if (ln && i > 0)
+                stmts.add(f -> { b.append(' '); return NORMAL; });
+
+            Object e = this.expr(exprs.get(i));
+            if (e instanceof IntExpr)
+                stmts.add(f -> { b.append(((IntExpr) e).eval(f)); return NORMAL; });
+            else if (e instanceof DoubleExpr)
+                stmts.add(f -> {
+                    b.append(Builtins.formatFloat(((DoubleExpr) e).eval(f)));
+                    return NORMAL;
+                });
+            else if (e instanceof BoolExpr)
+                stmts.add(f -> {
+                    b.append(((BoolExpr) e).eval(f) ? "True" : "False");
+                    return NORMAL;
+                });
+            else
+                stmts.add(f -> { b.append((String) ((ObjectExpr) e).eval(f)); return NORMAL; });
+        }
+        if (ln)
+            stmts.add(f -> { b.append('\n'); return NORMAL; });
+
+        stmts.add(f -> {
+            if (b.length() > BUFFER_SIZE)
+                this.flush();
+            return NORMAL;
+        });
+
+        return sequence(stmts);
+    }
+
+    private Stmt returnStmt(AReturnStmt node) {
+        if (node.getExpr() == null)
+            return f -> RETURN;
+
+        Object e = this.value(node.getExpr());
+        if (e instanceof IntExpr)
+            return f -> { f.intResult = ((IntExpr) e).eval(f); return RETURN; };
+        else if (e instanceof DoubleExpr)
+            return f -> { f.doubleResult = ((DoubleExpr) e).eval(f); return RETURN; };
+        else if (e instanceof BoolExpr)
+            return f -> { f.intResult = ((BoolExpr) e).eval(f) ? 1 : 0; return RETURN; };
+        else
+            return f -> { f.objectResult = ((ObjectExpr) e).eval(f); return RETURN; };
+    }
+
+    private Stmt ifElse(AIfElseStmt node) {
+        AConditionCondition condition = (AConditionCondition) node.getCondition();
+
+        // The scope of the variables of the initial statement covers both blocks.
+        this.enterScope();
+        Stmt init = (condition.getStmt() != null) ? this.stmt(condition.getStmt()) : null;
+        BoolExpr c = (BoolExpr) this.expr(condition.getExpr());
+        Stmt ifBlock = this.scopedBlock(node.getIfBlock());
+        Stmt elseBlock = this.scopedBlock(node.getElseBlock());
+        this.exitScope();
+
+        if (init == null)
+            return f -> c.eval(f) ? ifBlock.exec(f) : elseBlock.exec(f);
+        else
+            return f -> {
+                init.exec(f);
+                return c.eval(f) ? ifBlock.exec(f) : elseBlock.exec(f);
+            };
+    }
+
+    private Stmt switchStmt(ASwitchStmt node) {
+        this.enterScope();
+        Stmt init = (node.getStmt() != null) ? this.stmt(node.getStmt()) : null;
+
+        // The tag is evaluated once, into a temporary.
+        PExpr tag = node.getExpr();
+        Stmt storeTag = null;
+        Object loadTag = null;
+        int tagKind = 0;
+        if (tag != null) {
+            Symbol temp = this.newTemp(this.typeOf(tag));
+            tagKind = kindOf(this.typeOf(tag));
+            storeTag = this.storeTemp(temp, this.expr(tag));
+            loadTag = this.loadTemp(temp);
+        }
+
+        LinkedList<PCaseBlock> blocks = node.getCaseBlock();
+        BoolExpr[][] conditions = new BoolExpr[blocks.size()][];
+        Stmt[] bodies = new Stmt[blocks.size()];
+        int defaultCase = -1;
+        for (int i = 0; i < blocks.size(); i++) {
+            ABlockCaseBlock block = (ABlockCaseBlock) blocks.get(i);
+
+            if (block.getCaseCondition() instanceof ADefaultCaseCondition) {
+                defaultCase = i;
+                conditions[i] = new BoolExpr[0];
+            } else {
+                LinkedList<PExpr> exprs = ((AExprsCaseCondition) block.getCaseCondition())
+                    .getExpr();
+                conditions[i] = new BoolExpr[exprs.size()];
+                for (int j = 0; j < exprs.size(); j++) {
+                    conditions[i][j] = (tag == null) ? (BoolExpr) this.expr(exprs.get(j))
+                        : this.compare(EQ, tagKind, loadTag, this.expr(exprs.get(j)));
+                }
+            }
+
+            bodies[i] = this.scopedBlock(block.getStmt());
+        }
+        this.exitScope();
+
+        Stmt before = sequence(init == null ? new ArrayList<Stmt>()
+            : new ArrayList<Stmt>(java.util.Arrays.asList(init)));
+        Stmt evalTag = (storeTag == null) ? f -> NORMAL : storeTag;
+        int otherwise = defaultCase;
+        return f -> {
+            before.exec(f);
+            evalTag.exec(f);
+
+            int match = otherwise;
+            search:
+            for (int i = 0; i < conditions.length; i++) {
+                for (BoolExpr c : conditions[i]) {
+                    if (c.eval(f)) {
+                        match = i;
+                        break search;
+                    }
+                }
+            }
+            if (match < 0)
+                return NORMAL;
+
+            int status = bodies[match].exec(f);
+            return status == BREAK ? NORMAL : status;
+        };
+    }
+
+    private Stmt loop(ALoopStmt node) {
+        this.enterScope();
+        Stmt init = (node.getInit() != null) ? this.stmt(node.getInit()) : null;
+        BoolExpr c = (node.getExpr() == null || node.getExpr() instanceof AEmptyExpr) ? null
+            : (BoolExpr) this.expr(node.getExpr());
+        Stmt body = this.scopedBlock(node.getBlock());
+        Stmt end = (node.getEnd() != null) ? this.stmt(node.getEnd()) : null;
+        this.exitScope();
+
+        Stmt post = (end == null) ? f -> NORMAL : end;
+        Stmt before = (init == null) ? f -> NORMAL : init;
+        BoolExpr test = (c == null) ? f -> true : c;
+        return f -> {
+            before.exec(f);
+            while (test.eval(f)) {
+                int status = body.exec(f);
+                if (status == BREAK)
+                    break;
+                else if (status == RETURN)
+                    return RETURN;
+                post.exec(f);
+            }
+            return NORMAL;
+        };
+    }
+
+    /**
+     * Expressions
+     *
+     */
+
+    /**
+     * Returns the given expression as a node of the tree: an IntExpr, DoubleExpr, BoolExpr or
+     * ObjectExpr depending on its type.
+     *
+     * @param node - Expression
+     * @return Node
+     */
+    private Object expr(PExpr node) {
+        Object value = this.constantFolder.getValue(node);
+        if (value instanceof Long) {
+            int x = (int) (long) (Long) value;
+            return (IntExpr) f -> x;
+        } else if (value instanceof Double) {
+            double x = (Double) value;
+            return (DoubleExpr) f -> x;
+        } else if (value instanceof Boolean) {
+            boolean x = (Boolean) value;
+            return (BoolExpr) f -> x;
+        }
+
+        int kind = kindOf(this.typeOf(node));
+
+        if (node instanceof AAddExpr)
+            return this.binary(node, ((AAddExpr) node).getLeft(), ((AAddExpr) node).getRight(),
+                ADD);
+        else if (node instanceof ASubtractExpr)
+            return this.binary(node, ((ASubtractExpr) node).getLeft(),
+                ((ASubtractExpr) node).getRight(), SUB);
+        else if (node instanceof AMultExpr)
+            return this.binary(node, ((AMultExpr) node).getLeft(), ((AMultExpr) node).getRight(),
+                MUL);
+        else if (node instanceof ADivExpr)
+            return this.binary(node, ((ADivExpr) node).getLeft(), ((ADivExpr) node).getRight(),
+                DIV);
+        else if (node instanceof AModExpr)
+            return this.binary(node, ((AModExpr) node).getLeft(), ((AModExpr) node).getRight(),
+                MOD);
+        else if (node instanceof ABitAndExpr)
+            return this.binary(node, ((ABitAndExpr) node).getLeft(),
+                ((ABitAndExpr) node).getRight(), AND);
+        else if (node instanceof ABitOrExpr)
+            return this.binary(node, ((ABitOrExpr) node).getLeft(),
+                ((ABitOrExpr) node).getRight(), OR);
+        else if (node instanceof ABitXorExpr)
+            return this.binary(node, ((ABitXorExpr) node).getLeft(),
+                ((ABitXorExpr) node).getRight(), XOR);
+        else if (node instanceof ABitClearExpr)
+            return this.binary(node, ((ABitClearExpr) node).getLeft(),
+                ((ABitClearExpr) node).getRight(), AND_NOT);
+        else if (node instanceof ABitLshiftExpr)
+            return this.binary(node, ((ABitLshiftExpr) node).getLeft(),
+                ((ABitLshiftExpr) node).getRight(), SHL);
+        else if (node instanceof ABitRshiftExpr)
+            return this.binary(node, ((ABitRshiftExpr) node).getLeft(),
+                ((ABitRshiftExpr) node).getRight(), SHR);
+        else if (node instanceof APosExpr)
+            return this.expr(((APosExpr) node).getExpr());
+        else if (node instanceof ANegExpr) {
+            Object e = this.expr(((ANegExpr) node).getExpr());
+            if (kind == DOUBLE)
+                return (DoubleExpr) f -> -((DoubleExpr) e).eval(f);
+            else
+                return (IntExpr) f -> -((IntExpr) e).eval(f);
+        } else if (node instanceof ABitCompExpr) {
+            IntExpr e = (IntExpr) this.expr(((ABitCompExpr) node).getExpr());
+            return (IntExpr) f -> ~e.eval(f);
+        } else if (node instanceof ANotExpr) {
+            BoolExpr e = (BoolExpr) this.expr(((ANotExpr) node).getExpr());
+            return (BoolExpr) f -> !e.eval(f);
+        } else if (node instanceof AEqExpr)
+            return this.compare(EQ, ((AEqExpr) node).getLeft(), ((AEqExpr) node).getRight());
+        else if (node instanceof ANeqExpr)
+            return this.compare(NEQ, ((ANeqExpr) node).getLeft(), ((ANeqExpr) node).getRight());
+        else if (node instanceof ALtExpr)
+            return this.compare(LT, ((ALtExpr) node).getLeft(), ((ALtExpr) node).getRight());
+        else if (node instanceof ALteExpr)
+            return this.compare(LTE, ((ALteExpr) node).getLeft(), ((ALteExpr) node).getRight());
+        else if (node instanceof AGtExpr)
+            return this.compare(GT, ((AGtExpr) node).getLeft(), ((AGtExpr) node).getRight());
+        else if (node instanceof AGteExpr)
+            return this.compare(GTE, ((AGteExpr) node).getLeft(), ((AGteExpr) node).getRight());
+        else if (node instanceof AAndExpr) {
+            BoolExpr l = (BoolExpr) this.expr(((AAndExpr) node).getLeft());
+            BoolExpr r = (BoolExpr) this.expr(((AAndExpr) node).getRight());
+            return (BoolExpr) f -> l.eval(f) && r.eval(f);
+        } else if (node instanceof AOrExpr) {
+            BoolExpr l = (BoolExpr) this.expr(((AOrExpr) node).getLeft());
+            BoolExpr r = (BoolExpr) this.expr(((AOrExpr) node).getRight());
+            return (BoolExpr) f -> l.eval(f) || r.eval(f);
+        } else if (node instanceof AFuncCallExpr)
+            return this.call((AFuncCallExpr) node, kind);
+        else if (node instanceof AAppendExpr)
+            return this.append((AAppendExpr) node);
+        else if (node instanceof ATypeCastExpr) {
+            PExpr arg = ((ATypeCastExpr) node).getExpr();
+            return convert(this.expr(arg), kind);
+        } else if (node instanceof AArrayElemExpr) {
+            AArrayElemExpr elem = (AArrayElemExpr) node;
+            return this.loadElement(this.typeOf(elem.getArray()),
+                (ObjectExpr) this.expr(elem.getArray()), (IntExpr) this.expr(elem.getIndex()));
+        } else if (node instanceof AFieldExpr) {
+            AFieldExpr field = (AFieldExpr) node;
+            return this.loadField(this.typeOf(field.getExpr()),
+                (ObjectExpr) this.expr(field.getExpr()), field.getId().getText());
+        } else if (node instanceof AVariableExpr)
+            return this.load(this.getVariable(((AVariableExpr) node).getId().getText()));
+        else if (node instanceof AIntLitExpr || node instanceof AOctLitExpr
+                || node instanceof AHexLitExpr) {
+            int x = getIntLit(node).intValue();
+            return (IntExpr) f -> x;
+        } else if (node instanceof AFloatLitExpr) {
+            double x = Double.parseDouble(((AFloatLitExpr) node).getFloatLit().getText());
+            return (DoubleExpr) f -> x;
+        } else if (node instanceof ARuneLitExpr) {
+            int x = ConstantFolder.getRuneValue(((ARuneLitExpr) node).getRuneLit().getText());
+            return (IntExpr) f -> x;
+        } else if (node instanceof AInterpretedStringLitExpr) {
+            String s = getInterpretedString(
+                ((AInterpretedStringLitExpr) node).getInterpretedStringLit().getText());
+            return (ObjectExpr) f -> s;
+        } else {
+            String text = ((ARawStringLitExpr) node).getRawStringLit().getText();
+            String s = text.substring(1, text.length() - 1);
+            return (ObjectExpr) f -> s;
+        }
+    }
+
+    /**
+     * Returns the given expression as a value to assign, pass or return, i.e. copying it if it's
+     * an array or struct held by a variable, field or element.
+     */
+    private Object value(PExpr node) {
+        Object e = this.expr(node);
+
+        GoLiteType type = this.typeOf(node);
+        if ((type instanceof ArrayType || type instanceof StructType)
+                && (node instanceof AVariableExpr || node instanceof AFieldExpr
+                    || node instanceof AArrayElemExpr))
+            return (ObjectExpr) f -> Builtins.copy(((ObjectExpr) e).eval(f));
+
+        return e;
+    }
+
+    private Object binary(PExpr node, PExpr left, PExpr right, int op) {
+        return binary(op, kindOf(this.typeOf(node)), this.expr(left), this.expr(right),
+            this.constantFolder.getValue(right));
+    }
+
+    /**
+     * Returns a binary operation on the given operands.
+     *
+     * @param op - Operator
+     * @param kind - Kind of the operands
+     * @param left - Left operand
+     * @param right - Right operand
+     * @param rightValue - Value of the right operand if it's constant, null otherwise
+     * @return Operation
+     */
+    private static Object binary(int op, int kind, Object left, Object right, Object rightValue) {
+        if (kind == DOUBLE) {
+            DoubleExpr l = (DoubleExpr) left, r = (DoubleExpr) right;
+            switch (op) {
+                case ADD: return (DoubleExpr) f -> l.eval(f) + r.eval(f);
+                case SUB: return (DoubleExpr) f -> l.eval(f) - r.eval(f);
+                case MUL: return (DoubleExpr) f -> l.eval(f) * r.eval(f);
+                default: return (DoubleExpr) f -> l.eval(f) / r.eval(f);
+            }
+        } else if (kind == OBJECT) {
+            // String concatenation.
+            ObjectExpr l = (ObjectExpr) left, r = (ObjectExpr) right;
+            return (ObjectExpr) f -> ((String) l.eval(f)).concat((String) r.eval(f));
+        }
+
+        IntExpr l = (IntExpr) left, r = (IntExpr) right;
+        switch (op) {
+            case ADD: return (IntExpr) f -> l.eval(f) + r.eval(f);
+            case SUB: return (IntExpr) f -> l.eval(f) - r.eval(f);
+            case MUL: return (IntExpr) f -> l.eval(f) * r.eval(f);
+            case DIV: return (IntExpr) f -> l.eval(f) / r.eval(f);
+            case MOD: return (IntExpr) f -> l.eval(f) % r.eval(f);
+            case AND: return (IntExpr) f -> l.eval(f) & r.eval(f);
+            case OR: return (IntExpr) f -> l.eval(f) | r.eval(f);
+            case XOR: return (IntExpr) f -> l.eval(f) ^ r.eval(f);
+            case AND_NOT: return (IntExpr) f -> l.eval(f) & ~r.eval(f);
+            default:
+                // Shifts by constants below 32 are the same in Go and Java.
+                if (rightValue instanceof Long && (Long) rightValue >= 0
+                        && (Long) rightValue < 32) {
+                    int n = (int) (long) (Long) rightValue;
+                    if (op == SHL)
+                        return (IntExpr) f -> l.eval(f) << n;
+                    else
+                        return (IntExpr) f -> l.eval(f) >> n;
+                }
+
+                if (op == SHL)
+                    return (IntExpr) f -> Builtins.shl(l.eval(f), r.eval(f));
+                else
+                    return (IntExpr) f -> Builtins.shr(l.eval(f), r.eval(f));
+        }
+    }
+
+    private BoolExpr compare(int cond, PExpr left, PExpr right) {
+        return this.compare(cond, kindOf(this.typeOf(left)), this.expr(left), this.expr(right));
+    }
+
+    /**
+     * Returns a comparison of the given operands.
+     *
+     * @param cond - Comparison
+     * @param kind - Kind of the operands
+     * @param left - Left operand
+     * @param right - Right operand
+     * @return Comparison
+     */
+    private BoolExpr compare(int cond, int kind, Object left, Object right) {
+        if (kind == INT) {
+            IntExpr l = (IntExpr) left, r = (IntExpr) right;
+            switch (cond) {
+                case EQ: return f -> l.eval(f) == r.eval(f);
+                case NEQ: return f -> l.eval(f) != r.eval(f);
+                case LT: return f -> l.eval(f) < r.eval(f);
+                case LTE: return f -> l.eval(f) <= r.eval(f);
+                case GT: return f -> l.eval(f) > r.eval(f);
+                default: return f -> l.eval(f) >= r.eval(f);
+            }
+        } else if (kind == DOUBLE) {
+            DoubleExpr l = (DoubleExpr) left, r = (DoubleExpr) right;
+            switch (cond) {
+                case EQ: return f -> l.eval(f) == r.eval(f);
+                case NEQ: return f -> l.eval(f) != r.eval(f);
+                case LT: return f -> l.eval(f) < r.eval(f);
+                case LTE: return f -> l.eval(f) <= r.eval(f);
+                case GT: return f -> l.eval(f) > r.eval(f);
+                default: return f -> l.eval(f) >= r.eval(f);
+            }
+        } else if (kind == BOOL) {
+            BoolExpr l = (BoolExpr) left, r = (BoolExpr) right;
+            if (cond == EQ)
+                return f -> l.eval(f) == r.eval(f);
+            else
+                return f -> l.eval(f) != r.eval(f);
+        }
+
+        ObjectExpr l = (ObjectExpr) left, r = (ObjectExpr) right;
+        switch (cond) {
+            case EQ: return f -> Builtins.equal(l.eval(f), r.eval(f));
+            case NEQ: return f -> !Builtins.equal(l.eval(f), r.eval(f));
+            // Only strings are ordered.
+            case LT: return f -> ((String) l.eval(f)).compareTo((String) r.eval(f)) < 0;
+            case LTE: return f -> ((String) l.eval(f)).compareTo((String) r.eval(f)) <= 0;
+            case GT: return f -> ((String) l.eval(f)).compareTo((String) r.eval(f)) > 0;
+            default: return f -> ((String) l.eval(f)).compareTo((String) r.eval(f)) >= 0;
+        }
+    }
+
+    /**
+     * Returns a conversion of the given operand to the given (primitive) kind.
+     */
+    private static Object convert(Object e, int kind) {
+        if (kind == INT) {
+            if (e instanceof DoubleExpr)
+                // Out of range floats wrap around like with the Python backend.
+                return (IntExpr) f -> Builtins.toInt(((DoubleExpr) e).eval(f));
+            else if (e instanceof BoolExpr)
+                return (IntExpr) f -> ((BoolExpr) e).eval(f) ? 1 : 0;
+        } else if (kind == DOUBLE) {
+            if (e instanceof IntExpr)
+                return (DoubleExpr) f -> ((IntExpr) e).eval(f);
+            else if (e instanceof BoolExpr)
+                return (DoubleExpr) f -> ((BoolExpr) e).eval(f) ? 1.0 : 0.0;
+        } else if (kind == BOOL) {
+            if (e instanceof IntExpr)
+                return (BoolExpr) f -> ((IntExpr) e).eval(f) != 0;
+            else if (e instanceof DoubleExpr)
+                return (BoolExpr) f -> ((DoubleExpr) e).eval(f) != 0;
+        }
+
+        return e;
+    }
+
+    /**
+     * Returns a call to the given function (or a conversion to a type alias).
+     */
+    private Object call(AFuncCallExpr node, int kind) {
+        Symbol symbol = this.symbolTable.getSymbol(node.getId().getText());
+        if (symbol instanceof TypeAliasSymbol)
+            return convert(this.expr(node.getExpr().getFirst()), kind);
+
+        Invoke call = this.invoke(node);
+        switch (kind) {
+            case INT: return (IntExpr) f -> call.call(f).intResult;
+            case DOUBLE: return (DoubleExpr) f -> call.call(f).doubleResult;
+            case BOOL: return (BoolExpr) f -> call.call(f).intResult != 0;
+            default: return (ObjectExpr) f -> call.call(f).objectResult;
+        }
+    }
+
+    /**
+     * Returns a call to the given function, whose arguments are evaluated into a new frame.
+     */
+    private Invoke invoke(AFuncCallExpr node) {
+        Function function = this.functions.get(node.getId().getText());
+        LinkedList<PExpr> exprs = node.getExpr();
+
+        Arg[] args = new Arg[exprs.size()];
+        for (int i = 0; i < args.length; i++) {
+            Object e = this.value(exprs.get(i));
+            int s = function.paramSlots[i];
+
+            switch (function.paramKinds[i]) {
+                case INT:
+                    args[i] = (caller, callee) -> callee.ints[s] = ((IntExpr) e).eval(caller);
+                    break;
+                case DOUBLE:
+                    args[i] = (caller, callee) ->
+                        callee.doubles[s] = ((DoubleExpr) e).eval(caller);
+                    break;
+                case BOOL:
+                    args[i] = (caller, callee) ->
+                        callee.ints[s] = ((BoolExpr) e).eval(caller) ? 1 : 0;
+                    break;
+                default:
+                    args[i] = (caller, callee) ->
+                        callee.objects[s] = ((ObjectExpr) e).eval(caller);
+            }
+        }
+
+        return f -> {
+            Frame callee = function.newFrame();
+            for (Arg a : args)
+                a.pass(f, callee);
+            function.body.exec(callee);
+            return callee;
+        };
+    }
+
+    private Object append(AAppendExpr node) {
+        ObjectExpr s = (ObjectExpr) this.load(this.getVariable(node.getId().getText()));
+        Object e = this.value(node.getExpr());
+
+        if (e instanceof IntExpr)
+            return (ObjectExpr) f -> Slice.appendInt((Slice) s.eval(f), ((IntExpr) e).eval(f));
+        else if (e instanceof DoubleExpr)
+            return (ObjectExpr) f ->
+                Slice.appendDouble((Slice) s.eval(f), ((DoubleExpr) e).eval(f));
+        else if (e instanceof BoolExpr)
+            return (ObjectExpr) f ->
+                Slice.appendBoolean((Slice) s.eval(f), ((BoolExpr) e).eval(f));
+        else
+            return (ObjectExpr) f ->
+                Slice.appendObject((Slice) s.eval(f), ((ObjectExpr) e).eval(f));
+    }
+
+    /**
+     * Returns a load of an element of an array or slice.
+     *
+     * @param type - Type of the array or slice
+     * @param container - Array or slice
+     * @param index - Index
+     */
+    private Object loadElement(GoLiteType type, ObjectExpr container, IntExpr index) {
+        int kind = kindOf(type instanceof ArrayType ? ((ArrayType) type).getElemType()
+            : ((SliceType) type).getElemType());
+
+        if (type instanceof ArrayType) {
+            switch (kind) {
+                case INT: return (IntExpr) f -> ((int[]) container.eval(f))[index.eval(f)];
+                case DOUBLE:
+                    return (DoubleExpr) f -> ((double[]) container.eval(f))[index.eval(f)];
+                case BOOL:
+                    return (BoolExpr) f -> ((boolean[]) container.eval(f))[index.eval(f)];
+                default:
+                    return (ObjectExpr) f -> ((Object[]) container.eval(f))[index.eval(f)];
+            }
+        } else {
+            switch (kind) {
+                case INT:
+                    return (IntExpr) f -> Slice.getInt((Slice) container.eval(f), index.eval(f));
+                case DOUBLE:
+                    return (DoubleExpr) f ->
+                        Slice.getDouble((Slice) container.eval(f), index.eval(f));
+                case BOOL:
+                    return (BoolExpr) f ->
+                        Slice.getBoolean((Slice) container.eval(f), index.eval(f));
+                default:
+                    return (ObjectExpr) f ->
+                        Slice.getObject((Slice) container.eval(f), index.eval(f));
+            }
+        }
+    }
+
+    /**
+     * Returns a load of a field of a struct.
+     *
+     * @param type - Type of the struct
+     * @param record - Struct
+     * @param name - Field name
+     */
+    private Object loadField(GoLiteType type, ObjectExpr record, String name) {
+        Layout layout = this.getLayout(type);
+        int s = layout.slots.get(name);
+
+        switch (layout.kinds.get(name)) {
+            case INT: return (IntExpr) f -> ((Record) record.eval(f)).ints[s];
+            case DOUBLE: return (DoubleExpr) f -> ((Record) record.eval(f)).doubles[s];
+            case BOOL: return (BoolExpr) f -> ((Record) record.eval(f)).ints[s] != 0;
+            default: return (ObjectExpr) f -> ((Record) record.eval(f)).objects[s];
+        }
+    }
+
+    /**
+     * Literals
+     *
+     */
+
+    /**
+     * Returns the value of the given integer literal.
+     */
+    private static BigInteger getIntLit(PExpr node) {
+        if (node instanceof AOctLitExpr) {
+            String text = ((AOctLitExpr) node).getOctLit().getText();
+            return new BigInteger(text.length() > 1 ? text.substring(1) : "0", 8);
+        } else if (node instanceof AHexLitExpr)
+            return new BigInteger(((AHexLitExpr) node).getHexLit().getText().substring(2), 16);
+        else
+            return new BigInteger(((AIntLitExpr) node).getIntLit().getText());
+    }
+
+    /**
+     * Returns the value of the given interpreted string literal (with its quotes).
+     */
+    private static String getInterpretedString(String text) {
+        StringBuilder s = new StringBuilder();
+
+        for (int i = 1; i < text.length() - 1; i++) {
+            char c = text.charAt(i);
+            if (c != '\\') {
+                s.append(c);
+                continue;
+            }
+
+            c = text.charAt(++i);
+            switch (c) {
+                case 'a': s.append('\u0007'); break;
+                case 'b': s.append('\b'); break;
+                case 'f': s.append('\f'); break;
+                case 'n': s.append('\n'); break;
+                case 'r': s.append('\r'); break;
+                case 't': s.append('\t'); break;
+                case 'v': s.append('\u000b'); break;
+                default: s.append(c);
+            }
+        }
+
+        return s.toString();
+    }
+
+}
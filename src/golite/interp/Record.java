@@ -0,0 +1,67 @@
+package golite.interp;
+
+import golite.jvm.Builtins;
+import golite.jvm.Struct;
+
+import java.util.Arrays;
+
+/**
+ * Struct value, with the fields of each kind stored in their own array like the variables of a
+ * frame. The slots of the fields are resolved ahead of time from the struct type. The register VM
+ * represents structs the same way.
+ */
+public final class Record implements Struct {
+
+    /** Int, rune and bool fields. */
+    public final int[] ints;
+    /** Float fields. */
+    public final double[] doubles;
+    /** String, array, slice and struct fields. */
+    public final Object[] objects;
+
+    /**
+     * Constructor.
+     *
+     * @param ints - Int fields
+     * @param doubles - Double fields
+     * @param objects - Object fields
+     */
+    public Record(int[] ints, double[] doubles, Object[] objects) {
+        this.ints = ints;
+        this.doubles = doubles;
+        this.objects = objects;
+    }
+
+    @Override
+    public Struct copy() {
+        Object[] objects = this.objects.clone();
+        for (int i = 0; i < objects.length; i++)
+            objects[i] = Builtins.copy(objects[i]);
+
+        return new Record(this.ints.clone(), this.doubles.clone(), objects);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        Record other = (Record) o;
+
+        if (!Arrays.equals(this.ints, other.ints))
+            return false;
+        for (int i = 0; i < this.doubles.length; i++) {
+            if (this.doubles[i] != other.doubles[i])
+                return false;
+        }
+        for (int i = 0; i < this.objects.length; i++) {
+            if (!Builtins.equal(this.objects[i], other.objects[i]))
+                return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.ints);
+    }
+
+}
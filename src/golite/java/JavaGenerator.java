@@ -0,0 +1,1363 @@
+package golite.java;
+
+import golite.analysis.*;
+import golite.generator.ConstantFolder;
+import golite.node.*;
+import golite.symbol.*;
+import golite.type.*;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GoLite Java Generator
+ *
+ * Compiles a typed AST to the source of a single Java class, as an alternative to writing JVM
+ * bytecode directly, which MemoryCompiler compiles with javac in memory and JavaProgram runs in
+ * this JVM. Values are represented like with the bytecode generator: ints and runes become Java
+ * ints (which wrap around for free), float64's doubles, bools booleans, strings Strings, arrays
+ * Java arrays, slices golite.jvm.Slice's, and each struct type a nested class. The generated code uses
+ * the same runtime (golite.jvm.Builtins), so that it prints the same output.
+ *
+ * Top-level variables become static fields (g_ followed by their name) set by init(), top-level
+ * functions static methods (f_ followed by their name), and local variables Java locals, renamed to
+ * be unique within the program since Java locals can't shadow each other. Loops and switches are
+ * exited and continued by breaking out of labeled statements. javac rejects unreachable code, so
+ * the statements that follow a return, break or continue are left out.
+ */
+public class JavaGenerator extends DepthFirstAdapter {
+
+    /** Name of the generated class. */
+    public static final String CLASS_NAME = "GoLiteProgram";
+
+    /** Binary operators. */
+    private static final int ADD = 0, SUB = 1, MUL = 2, DIV = 3, MOD = 4, AND = 5, OR = 6, XOR = 7,
+        AND_NOT = 8, SHL = 9, SHR = 10;
+    /** Java operators of the binary operators (null where a runtime function is used). */
+    private static final String[] OPERATORS = { "+", "-", "*", "/", "%", "&", "|", "^", null, null,
+        null };
+
+    /** Type table from the type checker. */
+    private final TypeTable typeTable;
+    /** Values of the constant expressions. */
+    private ConstantFolder constantFolder;
+    /** Symbol table, rebuilt while generating code. */
+    private SymbolTable symbolTable;
+    /** Java names of the variables. */
+    private IdentityHashMap<Symbol, String> names;
+    /** Type expressions of the top-level types, and the types resolved from them, by name. */
+    private LinkedHashMap<String, PTypeExpr> globalTypeExprs;
+    private HashMap<String, GoLiteType> globalTypes;
+    /** Top-level variables, by name (in order). */
+    private LinkedHashMap<String, Symbol> globalVars;
+
+    /** Names of the classes of the struct types, by underlying type. */
+    private HashMap<GoLiteType, String> structClasses;
+
+    /** Classes of the struct types. */
+    private StringBuilder classes;
+    /** Static fields of the top-level variables. */
+    private StringBuilder fields;
+    /** Code being generated (a method), and its indentation. */
+    private StringBuilder buffer;
+    private int tabDepth;
+
+    /** Number of locals, temporaries and labels generated so far (numbers their names). */
+    private int varCount, labelCount;
+    /** Labels ending the enclosing loops and switches, and continuing the enclosing loops. */
+    private ArrayDeque<String> breakLabels, continueLabels;
+    /** Labels that a generated break statement exits. */
+    private HashSet<String> exitedLabels;
+    /** Whether the code being generated is reachable (as javac sees it). */
+    private boolean reachable;
+
+    /** Generated code. */
+    private String code;
+
+    /**
+     * Constructor.
+     *
+     * @param typeTable - Type table from the type checker
+     */
+    public JavaGenerator(TypeTable typeTable) {
+        this.typeTable = typeTable;
+    }
+
+    /**
+     * Getter (after the AST was applied to the generator).
+     */
+    public String getGeneratedCode() {
+        return this.code;
+    }
+
+    /**
+     * Output
+     *
+     */
+
+    /**
+     * Appends the given line to the code being generated, at the current indentation.
+     */
+    private void line(String s) {
+        for (int i = 0; i < this.tabDepth; i++)
+            this.buffer.append("    ");
+        this.buffer.append(s).append('\n');
+    }
+
+    private void open(String s) {
+        this.line(s);
+        this.tabDepth++;
+    }
+
+    private void close(String s) {
+        this.tabDepth--;
+        this.line(s);
+    }
+
+    /**
+     * Returns a new Java name with the given prefix, unique within the program.
+     */
+    private String newName(String prefix) {
+        return prefix + "_" + (this.varCount++);
+    }
+
+    /**
+     * Types
+     *
+     */
+
+    /**
+     * Returns the GoLite type for the given type expression, in the current scope.
+     *
+     * @param node - Type expression
+     * @return Corresponding GoLite type
+     */
+    private GoLiteType getType(PTypeExpr node) {
+        if (node instanceof ABoolTypeExpr)
+            return TypeFactory.getBoolType();
+        else if (node instanceof AIntTypeExpr)
+            return TypeFactory.getIntType();
+        else if (node instanceof AFloatTypeExpr)
+            return TypeFactory.getFloatType();
+        else if (node instanceof ARuneTypeExpr)
+            return TypeFactory.getRuneType();
+        else if (node instanceof AStringTypeExpr)
+            return TypeFactory.getStringType();
+        else if (node instanceof AAliasTypeExpr) {
+            String name = ((AAliasTypeExpr) node).getId().getText();
+            Symbol symbol = this.symbolTable.getSymbol(name);
+            // Top-level types can be used before they're declared (with unordered declarations).
+            GoLiteType type = (symbol instanceof TypeAliasSymbol) ? symbol.getType()
+                : this.getGlobalType(name);
+            return TypeFactory.getAliasType(name, type);
+        } else if (node instanceof AArrayTypeExpr) {
+            AArrayTypeExpr array = (AArrayTypeExpr) node;
+            return TypeFactory.getArrayType(this.getType(array.getTypeExpr()),
+                getIntLit(array.getExpr()).intValue());
+        } else if (node instanceof ASliceTypeExpr)
+            return TypeFactory.getSliceType(this.getType(((ASliceTypeExpr) node).getTypeExpr()));
+        else {
+            ArrayList<StructType.Field> fields = new ArrayList<StructType.Field>();
+            for (PFieldSpec e : ((AStructTypeExpr) node).getFieldSpec()) {
+                ASpecFieldSpec spec = (ASpecFieldSpec) e;
+                GoLiteType type = this.getType(spec.getTypeExpr());
+                for (POptId o : spec.getOptId()) {
+                    if (o instanceof AIdOptId)
+                        fields.add(new StructType.Field(((AIdOptId) o).getId().getText(), type));
+                }
+            }
+
+            return TypeFactory.getStructType(fields);
+        }
+    }
+
+    /**
+     * Returns the type aliased by the top-level type with the given name, resolving it if needed.
+     */
+    private GoLiteType getGlobalType(String name) {
+        GoLiteType type = this.globalTypes.get(name);
+        if (type == null) {
+            type = this.getType(this.globalTypeExprs.get(name));
+            this.globalTypes.put(name, type);
+        }
+
+        return type;
+    }
+
+    /**
+     * Returns the type of the variable with the given position in the given specification.
+     */
+    private GoLiteType getType(ASpecVarSpec node, int i) {
+        if (node.getTypeExpr() != null)
+            return this.getType(node.getTypeExpr());
+        else
+            return this.typeTable.get(node.getExpr().get(i));
+    }
+
+    /**
+     * Returns the underlying type of the given expression.
+     */
+    private GoLiteType typeOf(PExpr node) {
+        return this.typeTable.get(node).getUnderlyingType();
+    }
+
+    /**
+     * Returns the Java type of the given type, generating the class of struct types the first time.
+     *
+     * @param type - GoLite type
+     * @return Java type
+     */
+    private String getJavaType(GoLiteType type) {
+        type = type.getUnderlyingType();
+
+        if (type instanceof IntType || type instanceof RuneType)
+            return "int";
+        else if (type instanceof FloatType)
+            return "double";
+        else if (type instanceof BoolType)
+            return "boolean";
+        else if (type instanceof StringType)
+            return "String";
+        else if (type instanceof SliceType)
+            return "Slice";
+        else if (type instanceof ArrayType)
+            return this.getJavaType(((ArrayType) type).getElemType()) + "[]";
+        else if (type instanceof StructType)
+            return this.getStructClass((StructType) type);
+        else
+            return "void";
+    }
+
+    /**
+     * Returns the name of the class of the given struct type, generating the class the first time:
+     * its fields (initialized to their zero values), copy() and equals().
+     */
+    private String getStructClass(StructType type) {
+        String name = this.structClasses.get(type);
+        if (name != null)
+            return name;
+
+        name = "Struct" + this.structClasses.size();
+        this.structClasses.put(type, name);
+
+        ArrayList<StructType.Field> fields = new ArrayList<StructType.Field>();
+        for (Iterator<StructType.Field> i = type.getFieldIterator(); i.hasNext(); )
+            fields.add(i.next());
+
+        StringBuilder c = new StringBuilder();
+        c.append(String.format("    static final class %s implements Struct, Cloneable {\n\n",
+            name));
+        for (StructType.Field f : fields) {
+            c.append(String.format("        %s m_%s = %s;\n", this.getJavaType(f.getType()),
+                f.getId(), this.zero(f.getType())));
+        }
+
+        // Shallow copy, then copy the array and struct fields.
+        c.append("\n        public Struct copy() {\n");
+        c.append("            try {\n");
+        c.append(String.format("                %s c = (%s) super.clone();\n", name, name));
+        for (StructType.Field f : fields) {
+            GoLiteType fieldType = f.getType().getUnderlyingType();
+            if (fieldType instanceof ArrayType || fieldType instanceof StructType)
+                c.append(String.format("                c.m_%s = %s;\n", f.getId(),
+                    this.copy(fieldType, "c.m_" + f.getId())));
+        }
+        c.append("                return c;\n");
+        c.append("            } catch (CloneNotSupportedException e) {\n");
+        c.append("                throw new AssertionError(e);\n");
+        c.append("            }\n");
+        c.append("        }\n");
+
+        ArrayList<String> conditions = new ArrayList<String>();
+        for (StructType.Field f : fields)
+            conditions.add(this.equal(f.getType(), "m_" + f.getId(), "y.m_" + f.getId()));
+        c.append("\n        public boolean equals(Object o) {\n");
+        c.append(String.format("            %s y = (%s) o;\n", name, name));
+        c.append(String.format("            return %s;\n",
+            conditions.isEmpty() ? "true" : String.join(" && ", conditions)));
+        c.append("        }\n");
+        c.append("\n    }\n\n");
+
+        // After the classes of its fields, if they're new.
+        this.classes.append(c);
+        return name;
+    }
+
+    /**
+     * Returns the zero value of the given type, as a Java expression.
+     */
+    private String zero(GoLiteType type) {
+        type = type.getUnderlyingType();
+
+        if (type instanceof FloatType)
+            return "0.0";
+        else if (type instanceof BoolType)
+            return "false";
+        else if (type instanceof StringType)
+            return "\"\"";
+        else if (type instanceof SliceType)
+            return "null";
+        else if (type instanceof StructType)
+            return "new " + this.getStructClass((StructType) type) + "()";
+        else if (type instanceof ArrayType) {
+            GoLiteType elemType = ((ArrayType) type).getElemType().getUnderlyingType();
+            String array = newArray(this.getJavaType(elemType), ((ArrayType) type).getBound());
+
+            // New arrays already hold the zero values of primitives and slices (null).
+            if (elemType instanceof StringType || elemType instanceof ArrayType
+                    || elemType instanceof StructType)
+                return String.format("((%s) Builtins.fill(%s, %s))", this.getJavaType(type), array,
+                    this.zero(elemType));
+            else
+                return array;
+        } else
+            return "0";
+    }
+
+    /**
+     * Returns the creation of an array of the given length, with elements of the given Java type.
+     */
+    private static String newArray(String elemType, int length) {
+        int i = elemType.indexOf('[');
+        if (i < 0)
+            return "new " + elemType + "[" + length + "]";
+        else
+            return "new " + elemType.substring(0, i) + "[" + length + "]" + elemType.substring(i);
+    }
+
+    /**
+     * Returns a copy of the given Java expression of the given array or struct type.
+     */
+    private String copy(GoLiteType type, String e) {
+        return "((" + this.getJavaType(type) + ") Builtins.copy(" + e + "))";
+    }
+
+    /**
+     * Returns a Java expression comparing the given values of the given type for equality.
+     */
+    private String equal(GoLiteType type, String x, String y) {
+        type = type.getUnderlyingType();
+
+        if (type instanceof StringType)
+            return x + ".equals(" + y + ")";
+        else if (type instanceof ArrayType || type instanceof StructType)
+            return "Builtins.equal(" + x + ", " + y + ")";
+        else
+            return "(" + x + " == " + y + ")";
+    }
+
+    /**
+     * Scopes and Variables
+     *
+     */
+
+    /**
+     * Returns a new local variable with a unique Java name, without declaring it yet.
+     */
+    private Symbol newLocal(String name, GoLiteType type, Node node) {
+        Symbol symbol = new VariableSymbol(name, type, node);
+        this.names.put(symbol, this.newName("l_" + name));
+        return symbol;
+    }
+
+    /**
+     * Returns the variable with the given name in the current scope.
+     */
+    private Symbol getVariable(String name) {
+        Symbol symbol = this.symbolTable.getSymbol(name);
+        // Functions can use top-level variables declared after them (with unordered top-level
+        // declarations).
+        return symbol != null ? symbol : this.globalVars.get(name);
+    }
+
+    /**
+     * Returns the Java expression of the given variable.
+     */
+    private String getName(Symbol symbol) {
+        String name = this.names.get(symbol);
+        // The universe's true and false.
+        return name != null ? name : symbol.getName();
+    }
+
+    /**
+     * Program
+     *
+     */
+
+    @Override
+    public void caseStart(Start node) {
+        this.constantFolder = new ConstantFolder(this.typeTable);
+        node.apply(this.constantFolder);
+
+        this.symbolTable = new SymbolTable();
+        this.names = new IdentityHashMap<Symbol, String>();
+        this.globalTypeExprs = new LinkedHashMap<String, PTypeExpr>();
+        this.globalTypes = new HashMap<String, GoLiteType>();
+        this.globalVars = new LinkedHashMap<String, Symbol>();
+        this.structClasses = new HashMap<GoLiteType, String>();
+        this.classes = new StringBuilder();
+        this.fields = new StringBuilder();
+        this.breakLabels = new ArrayDeque<String>();
+        this.continueLabels = new ArrayDeque<String>();
+        this.exitedLabels = new HashSet<String>();
+
+        // Universe scope.
+        this.symbolTable.scope();
+        this.symbolTable.putSymbol(new VariableSymbol("true", TypeFactory.getBoolType(), node));
+        this.symbolTable.putSymbol(new VariableSymbol("false", TypeFactory.getBoolType(), node));
+
+        node.getPProg().apply(this);
+
+        this.symbolTable.unscope();
+    }
+
+    @Override
+    public void caseAProgProg(AProgProg node) {
+        this.symbolTable.scope();
+
+        // Declare every top-level type, variable and function first, since they can be used before
+        // their declarations with unordered top-level declarations.
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof ATypesTopDec) {
+                for (PTypeSpec t : ((ATypesTopDec) e).getTypeSpec()) {
+                    ASpecTypeSpec spec = (ASpecTypeSpec) t;
+                    if (spec.getOptId() instanceof AIdOptId)
+                        this.globalTypeExprs.put(((AIdOptId) spec.getOptId()).getId().getText(),
+                            spec.getTypeExpr());
+                }
+            }
+        }
+        for (Map.Entry<String, PTypeExpr> e : this.globalTypeExprs.entrySet()) {
+            this.symbolTable.putSymbol(new TypeAliasSymbol(e.getKey(),
+                this.getGlobalType(e.getKey()), e.getValue()));
+        }
+
+        boolean hasMain = false;
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof AVarsTopDec) {
+                for (PVarSpec v : ((AVarsTopDec) e).getVarSpec()) {
+                    ASpecVarSpec spec = (ASpecVarSpec) v;
+                    for (int i = 0; i < spec.getOptId().size(); i++) {
+                        POptId o = spec.getOptId().get(i);
+                        if (o instanceof AIdOptId) {
+                            String name = ((AIdOptId) o).getId().getText();
+                            GoLiteType type = this.getType(spec, i);
+                            Symbol symbol = new VariableSymbol(name, type, spec);
+                            this.names.put(symbol, "g_" + name);
+                            this.globalVars.put(name, symbol);
+                            this.fields.append(String.format("    private static %s g_%s;\n",
+                                this.getJavaType(type), name));
+                        }
+                    }
+                }
+            } else if (e instanceof AFuncTopDec) {
+                this.declareFunction((AFuncTopDec) e);
+                hasMain |= ((AFuncTopDec) e).getId().getText().equals("main");
+            }
+        }
+
+        // The top-level variables are initialized in order, and come into scope in order. They're
+        // all reset to their zero values first, so that the program can run more than once.
+        StringBuilder init = this.buffer = new StringBuilder();
+        this.tabDepth = 1;
+        this.reachable = true;
+        this.open("private static void init() {");
+        for (Symbol s : this.globalVars.values())
+            this.line(this.getName(s) + " = " + this.zero(s.getType()) + ";");
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof AVarsTopDec) {
+                for (PVarSpec v : ((AVarsTopDec) e).getVarSpec())
+                    this.declareGlobals((ASpecVarSpec) v);
+            }
+        }
+        this.close("}");
+
+        StringBuilder functions = new StringBuilder();
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof AFuncTopDec) {
+                this.buffer = functions;
+                functions.append('\n');
+                this.defineFunction((AFuncTopDec) e);
+            }
+        }
+
+        this.symbolTable.unscope();
+
+        StringBuilder s = new StringBuilder();
+        s.append("import golite.jvm.Builtins;\n");
+        s.append("import golite.jvm.Slice;\n");
+        s.append("import golite.jvm.Struct;\n\n");
+        s.append("import java.io.PrintStream;\n\n");
+        s.append("public final class ").append(CLASS_NAME).append(" {\n\n");
+        s.append(this.classes);
+
+        // Output is buffered, and written out to the stream once the buffer is full.
+        s.append("    private static PrintStream out;\n");
+        s.append("    private static final StringBuilder buffer = new StringBuilder();\n\n");
+        s.append(this.fields).append('\n');
+        s.append("    public static void run(PrintStream out) {\n");
+        s.append("        ").append(CLASS_NAME).append(".out = out;\n");
+        s.append("        buffer.setLength(0);\n");
+        s.append("        try {\n");
+        s.append("            init();\n");
+        if (hasMain)
+            s.append("            f_main();\n");
+        s.append("        } finally {\n");
+        s.append("            out.print(buffer);\n");
+        s.append("            out.flush();\n");
+        s.append("            buffer.setLength(0);\n");
+        s.append("        }\n");
+        s.append("    }\n\n");
+        s.append("    private static void spill() {\n");
+        s.append("        if (buffer.length() > (1 << 16)) {\n");
+        s.append("            out.print(buffer);\n");
+        s.append("            buffer.setLength(0);\n");
+        s.append("        }\n");
+        s.append("    }\n\n");
+        s.append(init);
+        s.append(functions);
+        s.append("\n}\n");
+        this.code = s.toString();
+    }
+
+    /**
+     * Declares the given function.
+     */
+    private void declareFunction(AFuncTopDec node) {
+        String name = node.getId().getText();
+        FunctionSymbol symbol = (node.getTypeExpr() == null) ? new FunctionSymbol(name, node)
+            : new FunctionSymbol(name, this.getType(node.getTypeExpr()), node);
+
+        for (PArgGroup g : node.getArgGroup()) {
+            symbol.addArgType(this.getType(((AArgArgGroup) g).getTypeExpr()),
+                ((AArgArgGroup) g).getId().size());
+        }
+        this.symbolTable.putSymbol(symbol);
+    }
+
+    /**
+     * Generates the method of the given function.
+     */
+    private void defineFunction(AFuncTopDec node) {
+        GoLiteType returnType = (node.getTypeExpr() == null) ? TypeFactory.getVoidType()
+            : this.getType(node.getTypeExpr());
+
+        this.symbolTable.scope();
+
+        ArrayList<String> params = new ArrayList<String>();
+        for (PArgGroup e : node.getArgGroup()) {
+            AArgArgGroup g = (AArgArgGroup) e;
+            GoLiteType type = this.getType(g.getTypeExpr());
+            for (TId id : g.getId()) {
+                Symbol symbol = this.newLocal(id.getText(), type, g);
+                this.symbolTable.putSymbol(symbol);
+                params.add(this.getJavaType(type) + " " + this.getName(symbol));
+            }
+        }
+
+        this.open(String.format("static %s f_%s(%s) {", this.getJavaType(returnType),
+            node.getId().getText(), String.join(", ", params)));
+        this.reachable = true;
+        this.block(node.getStmt());
+        // Functions with a result end in a terminating statement, but javac doesn't always see it
+        // (e.g. after a switch whose cases all return).
+        if (this.reachable && !(returnType instanceof VoidType))
+            this.line("return " + this.zero(returnType) + ";");
+        this.close("}");
+
+        this.symbolTable.unscope();
+    }
+
+    /**
+     * Generates the initialization of the top-level variables of the given specification,
+     * bringing them into scope.
+     */
+    private void declareGlobals(ASpecVarSpec node) {
+        LinkedList<POptId> ids = node.getOptId();
+        for (int i = 0; i < ids.size() && !node.getExpr().isEmpty(); i++) {
+            PExpr e = node.getExpr().get(i);
+            if (ids.get(i) instanceof AIdOptId) {
+                Symbol symbol = this.globalVars.get(((AIdOptId) ids.get(i)).getId().getText());
+                this.line(this.getName(symbol) + " = " + this.value(e) + ";");
+            } else
+                this.discard(e);
+        }
+
+        for (POptId o : ids) {
+            if (o instanceof AIdOptId)
+                this.symbolTable.putSymbol(this.globalVars.get(((AIdOptId) o).getId().getText()));
+        }
+    }
+
+    /**
+     * Statements
+     *
+     */
+
+    /**
+     * Generates the given statements, in the current scope, up to the first unreachable one.
+     */
+    private void block(List<PStmt> nodes) {
+        for (PStmt e : nodes) {
+            if (!this.reachable)
+                break;
+            this.stmt(e);
+        }
+    }
+
+    /**
+     * Generates the given block, in a new scope.
+     */
+    private void scopedBlock(List<PStmt> nodes) {
+        this.symbolTable.scope();
+        this.block(nodes);
+        this.symbolTable.unscope();
+    }
+
+    /**
+     * Generates the evaluation of the given expression, for its side effects only.
+     */
+    private void discard(PExpr node) {
+        if (node instanceof AFuncCallExpr && this.symbolTable.getSymbol(
+                ((AFuncCallExpr) node).getId().getText()) instanceof FunctionSymbol)
+            this.line(this.expr(node) + ";");
+        else
+            // Other expressions aren't Java statements.
+            this.line(String.format("%s %s = %s;", this.getJavaType(this.typeOf(node)),
+                this.newName("t"), this.expr(node)));
+    }
+
+    /**
+     * Generates a break out of the labeled statement with the given label.
+     */
+    private void exit(String label) {
+        this.line("break " + label + ";");
+        this.exitedLabels.add(label);
+        this.reachable = false;
+    }
+
+    private void stmt(PStmt node) {
+        if (node instanceof AEmptyStmt)
+            ;
+        else if (node instanceof AVarDecStmt)
+            this.varDec((AVarDecStmt) node);
+        else if (node instanceof AShortAssignStmt)
+            this.shortAssign((AShortAssignStmt) node);
+        else if (node instanceof ATypeDecStmt) {
+            for (PTypeSpec e : ((ATypeDecStmt) node).getTypeSpec()) {
+                ASpecTypeSpec spec = (ASpecTypeSpec) e;
+                if (spec.getOptId() instanceof AIdOptId)
+                    this.symbolTable.putSymbol(new TypeAliasSymbol(
+                        ((AIdOptId) spec.getOptId()).getId().getText(),
+                        this.getType(spec.getTypeExpr()), spec));
+            }
+        } else if (node instanceof AAssignStmt)
+            this.assign((AAssignStmt) node);
+        else if (node instanceof APlusAssignStmt)
+            this.opAssign(((APlusAssignStmt) node).getLhs(), ADD,
+                ((APlusAssignStmt) node).getRhs());
+        else if (node instanceof AMinusAssignStmt)
+            this.opAssign(((AMinusAssignStmt) node).getLhs(), SUB,
+                ((AMinusAssignStmt) node).getRhs());
+        else if (node instanceof AStarAssignStmt)
+            this.opAssign(((AStarAssignStmt) node).getLhs(), MUL,
+                ((AStarAssignStmt) node).getRhs());
+        else if (node instanceof ASlashAssignStmt)
+            this.opAssign(((ASlashAssignStmt) node).getLhs(), DIV,
+                ((ASlashAssignStmt) node).getRhs());
+        else if (node instanceof APercAssignStmt)
+            this.opAssign(((APercAssignStmt) node).getLhs(), MOD,
+                ((APercAssignStmt) node).getRhs());
+        else if (node instanceof AAndAssignStmt)
+            this.opAssign(((AAndAssignStmt) node).getLhs(), AND,
+                ((AAndAssignStmt) node).getRhs());
+        else if (node instanceof APipeAssignStmt)
+            this.opAssign(((APipeAssignStmt) node).getLhs(), OR,
+                ((APipeAssignStmt) node).getRhs());
+        else if (node instanceof ACarotAssignStmt)
+            this.opAssign(((ACarotAssignStmt) node).getLhs(), XOR,
+                ((ACarotAssignStmt) node).getRhs());
+        else if (node instanceof AAmpCarotAssignStmt)
+            this.opAssign(((AAmpCarotAssignStmt) node).getLhs(), AND_NOT,
+                ((AAmpCarotAssignStmt) node).getRhs());
+        else if (node instanceof ALshiftAssignStmt)
+            this.opAssign(((ALshiftAssignStmt) node).getLhs(), SHL,
+                ((ALshiftAssignStmt) node).getRhs());
+        else if (node instanceof ARshiftAssignStmt)
+            this.opAssign(((ARshiftAssignStmt) node).getLhs(), SHR,
+                ((ARshiftAssignStmt) node).getRhs());
+        else if (node instanceof AIncrStmt)
+            this.opAssign(((AIncrStmt) node).getExpr(), ADD, null);
+        else if (node instanceof ADecrStmt)
+            this.opAssign(((ADecrStmt) node).getExpr(), SUB, null);
+        else if (node instanceof AExprStmt)
+            this.discard(((AExprStmt) node).getExpr());
+        else if (node instanceof APrintStmt)
+            this.print(((APrintStmt) node).getExpr(), false);
+        else if (node instanceof APrintlnStmt)
+            this.print(((APrintlnStmt) node).getExpr(), true);
+        else if (node instanceof AContinueStmt)
+            this.exit(this.continueLabels.peek());
+        else if (node instanceof ABreakStmt)
+            this.exit(this.breakLabels.peek());
+        else if (node instanceof AReturnStmt) {
+            PExpr e = ((AReturnStmt) node).getExpr();
+            this.line(e == null ? "return;" : "return " + this.value(e) + ";");
+            this.reachable = false;
+        } else if (node instanceof AIfElseStmt)
+            this.ifElse((AIfElseStmt) node);
+        else if (node instanceof ASwitchStmt)
+            this.switchStmt((ASwitchStmt) node);
+        else if (node instanceof ALoopStmt)
+            this.loop((ALoopStmt) node);
+        else {
+            this.open("{");
+            this.scopedBlock(((ABlockStmt) node).getStmt());
+            this.close("}");
+        }
+    }
+
+    private void varDec(AVarDecStmt node) {
+        for (PVarSpec e : node.getVarSpec()) {
+            ASpecVarSpec spec = (ASpecVarSpec) e;
+            LinkedList<POptId> ids = spec.getOptId();
+
+            // The variables come into scope after their values are computed, but their unique
+            // names keep the values from seeing them.
+            ArrayList<Symbol> symbols = new ArrayList<Symbol>();
+            for (int i = 0; i < ids.size(); i++) {
+                PExpr value = spec.getExpr().isEmpty() ? null : spec.getExpr().get(i);
+                if (ids.get(i) instanceof AIdOptId) {
+                    GoLiteType type = this.getType(spec, i);
+                    Symbol symbol = this.newLocal(((AIdOptId) ids.get(i)).getId().getText(), type,
+                        spec);
+                    symbols.add(symbol);
+                    this.line(String.format("%s %s = %s;", this.getJavaType(type),
+                        this.getName(symbol), value == null ? this.zero(type) : this.value(value)));
+                } else if (value != null)
+                    this.discard(value);
+            }
+
+            for (Symbol s : symbols)
+                this.symbolTable.putSymbol(s);
+        }
+    }
+
+    private void shortAssign(AShortAssignStmt node) {
+        LinkedList<POptId> ids = node.getOptId();
+        LinkedList<PExpr> exprs = node.getExpr();
+
+        // With several variables, some of which may be assigned, the values all go through
+        // temporaries first.
+        String[] values = new String[exprs.size()];
+        for (int i = 0; i < values.length; i++) {
+            if (values.length == 1)
+                values[i] = this.value(exprs.get(i));
+            else {
+                values[i] = this.newName("t");
+                this.line(String.format("%s %s = %s;", this.getJavaType(this.typeOf(exprs.get(i))),
+                    values[i], this.value(exprs.get(i))));
+            }
+        }
+
+        ArrayList<Symbol> declared = new ArrayList<Symbol>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (!(ids.get(i) instanceof AIdOptId)) {
+                if (values.length == 1)
+                    this.discard(exprs.get(i));
+                continue;
+            }
+
+            String name = ((AIdOptId) ids.get(i)).getId().getText();
+            if (this.symbolTable.defSymbolInCurrentScope(name))
+                this.line(this.getName(this.getVariable(name)) + " = " + values[i] + ";");
+            else {
+                GoLiteType type = this.typeTable.get(exprs.get(i));
+                Symbol symbol = this.newLocal(name, type, node);
+                declared.add(symbol);
+                this.line(String.format("%s %s = %s;", this.getJavaType(type),
+                    this.getName(symbol), values[i]));
+            }
+        }
+
+        for (Symbol s : declared)
+            this.symbolTable.putSymbol(s);
+    }
+
+    private void assign(AAssignStmt node) {
+        LinkedList<PExpr> lhs = node.getLhs();
+        LinkedList<PExpr> rhs = node.getRhs();
+
+        if (lhs.size() == 1) {
+            if (isBlank(lhs.getFirst()))
+                this.discard(rhs.getFirst());
+            else
+                this.store(lhs.getFirst(), this.value(rhs.getFirst()));
+            return;
+        }
+
+        // All the values are computed before any is assigned.
+        String[] values = new String[rhs.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = this.newName("t");
+            this.line(String.format("%s %s = %s;", this.getJavaType(this.typeOf(rhs.get(i))),
+                values[i], this.value(rhs.get(i))));
+        }
+        for (int i = 0; i < lhs.size(); i++) {
+            if (!isBlank(lhs.get(i)))
+                this.store(lhs.get(i), values[i]);
+        }
+    }
+
+    /**
+     * Checks whether the given assignable is a blank.
+     */
+    private static boolean isBlank(PExpr node) {
+        return !(node instanceof AVariableExpr || node instanceof AArrayElemExpr
+            || node instanceof AFieldExpr);
+    }
+
+    /**
+     * Generates the store of the given Java expression to the given assignable.
+     */
+    private void store(PExpr node, String value) {
+        if (node instanceof AArrayElemExpr
+                && this.typeOf(((AArrayElemExpr) node).getArray()) instanceof SliceType) {
+            AArrayElemExpr elem = (AArrayElemExpr) node;
+            this.line(String.format("Slice.set%s(%s, %s, %s);", getSliceSuffix(this.typeOf(node)),
+                this.expr(elem.getArray()), this.expr(elem.getIndex()), value));
+        } else
+            this.line(this.expr(node) + " = " + value + ";");
+    }
+
+    /**
+     * Generates an operator assignment (or an increment or decrement, with a null operand).
+     *
+     * @param lhs - Assignable
+     * @param op - Operator
+     * @param rhs - Right operand, or null for 1
+     */
+    private void opAssign(PExpr lhs, int op, PExpr rhs) {
+        GoLiteType type = this.typeOf(lhs);
+
+        if (rhs == null && lhs instanceof AVariableExpr && !(type instanceof FloatType)) {
+            this.line(this.expr(lhs) + (op == ADD ? "++;" : "--;"));
+            return;
+        }
+
+        String right = (rhs != null) ? this.expr(rhs) : type instanceof FloatType ? "1.0" : "1";
+        if (lhs instanceof AVariableExpr) {
+            String v = this.expr(lhs);
+            this.line(v + " = " + this.binary(op, type, v, right) + ";");
+        } else if (lhs instanceof AFieldExpr) {
+            // The struct is evaluated once, through a temporary.
+            AFieldExpr field = (AFieldExpr) lhs;
+            String s = this.newName("t"), f = s + ".m_" + field.getId().getText();
+            this.line(String.format("%s %s = %s;", this.getJavaType(this.typeOf(field.getExpr())),
+                s, this.expr(field.getExpr())));
+            this.line(f + " = " + this.binary(op, type, f, right) + ";");
+        } else {
+            // The array (or slice) and index are evaluated once, through temporaries.
+            AArrayElemExpr elem = (AArrayElemExpr) lhs;
+            GoLiteType arrayType = this.typeOf(elem.getArray());
+            String a = this.newName("t"), i = this.newName("t");
+            this.line(String.format("%s %s = %s;", this.getJavaType(arrayType), a,
+                this.expr(elem.getArray())));
+            this.line(String.format("int %s = %s;", i, this.expr(elem.getIndex())));
+
+            if (arrayType instanceof ArrayType) {
+                String e = a + "[" + i + "]";
+                this.line(e + " = " + this.binary(op, type, e, right) + ";");
+            } else {
+                String suffix = getSliceSuffix(type);
+                this.line(String.format("Slice.set%s(%s, %s, %s);", suffix, a, i, this.binary(op,
+                    type, String.format("Slice.get%s(%s, %s)", suffix, a, i), right)));
+            }
+        }
+    }
+
+    /**
+     * Generates a print statement, with the values separated by spaces and followed by a newline
+     * for println.
+     */
+    private void print(List<PExpr> exprs, boolean ln) {
+        if (exprs.isEmpty() && !ln)
+            return;
+
+        StringBuilder s = new StringBuilder("buffer");
+        for (int i = 0; i < exprs.size(); i++) {
+            if (ln && i > 0)
+                s.append(".append(' ')");
+
+            PExpr e = exprs.get(i);
+            GoLiteType type = this.typeOf(e);
+            String value = this.expr(e);
+            if (type instanceof FloatType)
+                value = "Builtins.formatFloat(" + value + ")";
+            else if (type instanceof BoolType)
+                value = "(" + value + " ? \"True\" : \"False\")";
+            s.append(".append(").append(value).append(')');
+        }
+        if (ln)
+            s.append(".append('\\n')");
+
+        this.line(s + ";");
+        this.line("spill();");
+    }
+
+    private void ifElse(AIfElseStmt node) {
+        AConditionCondition condition = (AConditionCondition) node.getCondition();
+
+        // The scope of the variables of the initial statement covers both blocks.
+        this.symbolTable.scope();
+        if (condition.getStmt() != null) {
+            this.open("{");
+            this.stmt(condition.getStmt());
+        }
+
+        this.open("if (" + this.expr(condition.getExpr()) + ") {");
+        this.scopedBlock(node.getIfBlock());
+        boolean reachable = this.reachable || node.getElseBlock().isEmpty();
+        if (!node.getElseBlock().isEmpty()) {
+            this.tabDepth--;
+            this.open("} else {");
+            this.reachable = true;
+            this.scopedBlock(node.getElseBlock());
+            reachable |= this.reachable;
+        }
+        this.close("}");
+
+        if (condition.getStmt() != null)
+            this.close("}");
+        this.symbolTable.unscope();
+        this.reachable = reachable;
+    }
+
+    private void switchStmt(ASwitchStmt node) {
+        String end = "brk_" + (this.labelCount++);
+
+        this.symbolTable.scope();
+        this.open(end + ": {");
+        if (node.getStmt() != null)
+            this.stmt(node.getStmt());
+
+        // The tag is evaluated once, into a temporary.
+        PExpr tag = node.getExpr();
+        GoLiteType tagType = (tag != null) ? this.typeOf(tag) : null;
+        String t = null;
+        if (tag != null) {
+            t = this.newName("tag");
+            this.line(String.format("%s %s = %s;", this.getJavaType(tagType), t, this.value(tag)));
+        }
+
+        // The cases are tested in order, and the default case last. Without a default case, no
+        // case may match.
+        this.breakLabels.push(end);
+        ABlockCaseBlock defaultBlock = null;
+        boolean first = true, reachable = true;
+        for (PCaseBlock e : node.getCaseBlock()) {
+            ABlockCaseBlock block = (ABlockCaseBlock) e;
+            if (block.getCaseCondition() instanceof ADefaultCaseCondition) {
+                defaultBlock = block;
+                continue;
+            }
+
+            ArrayList<String> conditions = new ArrayList<String>();
+            for (PExpr c : ((AExprsCaseCondition) block.getCaseCondition()).getExpr())
+                conditions.add(tag == null ? this.expr(c) : this.equal(tagType, t, this.expr(c)));
+
+            String condition = "if (" + String.join(" || ", conditions) + ") {";
+            if (first)
+                this.open(condition);
+            else {
+                this.tabDepth--;
+                this.open("} else " + condition);
+            }
+            first = false;
+            this.reachable = true;
+            this.scopedBlock(block.getStmt());
+            reachable |= this.reachable;
+        }
+        if (defaultBlock != null) {
+            reachable = false;
+            if (first)
+                this.open("{");
+            else {
+                this.tabDepth--;
+                this.open("} else {");
+            }
+            first = false;
+            this.reachable = true;
+            this.scopedBlock(defaultBlock.getStmt());
+            reachable |= this.reachable;
+        }
+        if (!first)
+            this.close("}");
+        this.breakLabels.pop();
+
+        this.close("}");
+        this.symbolTable.unscope();
+        this.reachable = reachable || this.exitedLabels.contains(end);
+    }
+
+    private void loop(ALoopStmt node) {
+        int n = this.labelCount++;
+        String end = "brk_" + n, next = "cont_" + n;
+
+        PExpr condition = node.getExpr();
+        if (condition instanceof AEmptyExpr)
+            condition = null;
+        Object value = (condition == null) ? Boolean.TRUE : this.constantFolder.getValue(condition);
+
+        this.symbolTable.scope();
+        this.open("{");
+        if (node.getInit() != null)
+            this.stmt(node.getInit());
+
+        // javac rejects the body of a loop that never runs, as unreachable.
+        if (!Boolean.FALSE.equals(value)) {
+            this.open(String.format("%s: while (%s) {", end,
+                (condition == null) ? "true" : this.expr(condition)));
+
+            this.breakLabels.push(end);
+            this.continueLabels.push(next);
+            this.open(next + ": {");
+            this.scopedBlock(node.getBlock());
+            this.close("}");
+            this.continueLabels.pop();
+            this.breakLabels.pop();
+
+            if ((this.reachable || this.exitedLabels.contains(next)) && node.getEnd() != null) {
+                this.reachable = true;
+                this.stmt(node.getEnd());
+            }
+            this.close("}");
+
+            // A loop without a condition only ends with a break.
+            this.reachable = !Boolean.TRUE.equals(value) || this.exitedLabels.contains(end);
+        }
+
+        this.close("}");
+        this.symbolTable.unscope();
+    }
+
+    /**
+     * Expressions
+     *
+     */
+
+    /**
+     * Returns the given expression as a Java expression.
+     */
+    private String expr(PExpr node) {
+        Object value = this.constantFolder.getValue(node);
+        if (value instanceof Long)
+            return intLiteral((int) (long) (Long) value);
+        else if (value instanceof Double)
+            return floatLiteral((Double) value);
+        else if (value instanceof Boolean)
+            return (Boolean) value ? "true" : "false";
+
+        if (node instanceof AAddExpr)
+            return this.binary(ADD, ((AAddExpr) node).getLeft(), ((AAddExpr) node).getRight());
+        else if (node instanceof ASubtractExpr)
+            return this.binary(SUB, ((ASubtractExpr) node).getLeft(),
+                ((ASubtractExpr) node).getRight());
+        else if (node instanceof AMultExpr)
+            return this.binary(MUL, ((AMultExpr) node).getLeft(), ((AMultExpr) node).getRight());
+        else if (node instanceof ADivExpr)
+            return this.binary(DIV, ((ADivExpr) node).getLeft(), ((ADivExpr) node).getRight());
+        else if (node instanceof AModExpr)
+            return this.binary(MOD, ((AModExpr) node).getLeft(), ((AModExpr) node).getRight());
+        else if (node instanceof ABitAndExpr)
+            return this.binary(AND, ((ABitAndExpr) node).getLeft(),
+                ((ABitAndExpr) node).getRight());
+        else if (node instanceof ABitOrExpr)
+            return this.binary(OR, ((ABitOrExpr) node).getLeft(), ((ABitOrExpr) node).getRight());
+        else if (node instanceof ABitXorExpr)
+            return this.binary(XOR, ((ABitXorExpr) node).getLeft(),
+                ((ABitXorExpr) node).getRight());
+        else if (node instanceof ABitClearExpr)
+            return this.binary(AND_NOT, ((ABitClearExpr) node).getLeft(),
+                ((ABitClearExpr) node).getRight());
+        else if (node instanceof ABitLshiftExpr)
+            return this.binary(SHL, ((ABitLshiftExpr) node).getLeft(),
+                ((ABitLshiftExpr) node).getRight());
+        else if (node instanceof ABitRshiftExpr)
+            return this.binary(SHR, ((ABitRshiftExpr) node).getLeft(),
+                ((ABitRshiftExpr) node).getRight());
+        else if (node instanceof APosExpr)
+            return this.expr(((APosExpr) node).getExpr());
+        else if (node instanceof ANegExpr)
+            return "(-" + this.expr(((ANegExpr) node).getExpr()) + ")";
+        else if (node instanceof ABitCompExpr)
+            return "(~" + this.expr(((ABitCompExpr) node).getExpr()) + ")";
+        else if (node instanceof ANotExpr)
+            return "(!" + this.expr(((ANotExpr) node).getExpr()) + ")";
+        else if (node instanceof AEqExpr)
+            return this.equal(this.typeOf(((AEqExpr) node).getLeft()),
+                this.expr(((AEqExpr) node).getLeft()), this.expr(((AEqExpr) node).getRight()));
+        else if (node instanceof ANeqExpr)
+            return "(!" + this.equal(this.typeOf(((ANeqExpr) node).getLeft()),
+                this.expr(((ANeqExpr) node).getLeft()),
+                this.expr(((ANeqExpr) node).getRight())) + ")";
+        else if (node instanceof ALtExpr)
+            return this.compare("<", ((ALtExpr) node).getLeft(), ((ALtExpr) node).getRight());
+        else if (node instanceof ALteExpr)
+            return this.compare("<=", ((ALteExpr) node).getLeft(), ((ALteExpr) node).getRight());
+        else if (node instanceof AGtExpr)
+            return this.compare(">", ((AGtExpr) node).getLeft(), ((AGtExpr) node).getRight());
+        else if (node instanceof AGteExpr)
+            return this.compare(">=", ((AGteExpr) node).getLeft(), ((AGteExpr) node).getRight());
+        else if (node instanceof AAndExpr)
+            return "(" + this.expr(((AAndExpr) node).getLeft()) + " && "
+                + this.expr(((AAndExpr) node).getRight()) + ")";
+        else if (node instanceof AOrExpr)
+            return "(" + this.expr(((AOrExpr) node).getLeft()) + " || "
+                + this.expr(((AOrExpr) node).getRight()) + ")";
+        else if (node instanceof AFuncCallExpr)
+            return this.call((AFuncCallExpr) node);
+        else if (node instanceof AAppendExpr) {
+            AAppendExpr append = (AAppendExpr) node;
+            return String.format("Slice.append%s(%s, %s)",
+                getSliceSuffix(this.typeOf(append.getExpr())),
+                this.getName(this.getVariable(append.getId().getText())),
+                this.value(append.getExpr()));
+        } else if (node instanceof ATypeCastExpr) {
+            PExpr arg = ((ATypeCastExpr) node).getExpr();
+            return this.convert(this.typeOf(arg), this.typeOf(node), this.expr(arg));
+        } else if (node instanceof AArrayElemExpr) {
+            AArrayElemExpr elem = (AArrayElemExpr) node;
+            String a = this.expr(elem.getArray()), i = this.expr(elem.getIndex());
+            if (this.typeOf(elem.getArray()) instanceof ArrayType)
+                return a + "[" + i + "]";
+
+            GoLiteType type = this.typeOf(node);
+            String get = String.format("Slice.get%s(%s, %s)", getSliceSuffix(type), a, i);
+            return isPrimitive(type) ? get : "((" + this.getJavaType(type) + ") " + get + ")";
+        } else if (node instanceof AFieldExpr) {
+            AFieldExpr field = (AFieldExpr) node;
+            return this.expr(field.getExpr()) + ".m_" + field.getId().getText();
+        } else if (node instanceof AVariableExpr)
+            return this.getName(this.getVariable(((AVariableExpr) node).getId().getText()));
+        else if (node instanceof AIntLitExpr || node instanceof AOctLitExpr
+                || node instanceof AHexLitExpr)
+            return intLiteral(getIntLit(node).intValue());
+        else if (node instanceof AFloatLitExpr)
+            return floatLiteral(
+                Double.parseDouble(((AFloatLitExpr) node).getFloatLit().getText()));
+        else if (node instanceof ARuneLitExpr)
+            return intLiteral(
+                ConstantFolder.getRuneValue(((ARuneLitExpr) node).getRuneLit().getText()));
+        else if (node instanceof AInterpretedStringLitExpr)
+            return stringLiteral(getInterpretedString(
+                ((AInterpretedStringLitExpr) node).getInterpretedStringLit().getText()));
+        else {
+            String text = ((ARawStringLitExpr) node).getRawStringLit().getText();
+            return stringLiteral(text.substring(1, text.length() - 1));
+        }
+    }
+
+    /**
+     * Returns the given expression as a value to assign, pass or return, i.e. copying it if it's
+     * an array or struct held by a variable, field or element.
+     */
+    private String value(PExpr node) {
+        GoLiteType type = this.typeOf(node);
+        if ((type instanceof ArrayType || type instanceof StructType)
+                && (node instanceof AVariableExpr || node instanceof AFieldExpr
+                    || node instanceof AArrayElemExpr))
+            return this.copy(type, this.expr(node));
+        else
+            return this.expr(node);
+    }
+
+    private static boolean isPrimitive(GoLiteType type) {
+        return type instanceof IntType || type instanceof RuneType || type instanceof FloatType
+            || type instanceof BoolType;
+    }
+
+    /**
+     * Returns the suffix of the names of the Slice methods for elements of the given type.
+     */
+    private static String getSliceSuffix(GoLiteType type) {
+        type = type.getUnderlyingType();
+
+        if (type instanceof IntType || type instanceof RuneType)
+            return "Int";
+        else if (type instanceof FloatType)
+            return "Double";
+        else if (type instanceof BoolType)
+            return "Boolean";
+        else
+            return "Object";
+    }
+
+    private String binary(int op, PExpr left, PExpr right) {
+        String l = this.expr(left);
+
+        // Shifts by constants below 32 are the same in Go and Java.
+        if (op == SHL || op == SHR) {
+            Object count = this.constantFolder.getValue(right);
+            if (count instanceof Long && (Long) count >= 0 && (Long) count < 32)
+                return "(" + l + (op == SHL ? " << " : " >> ") + count + ")";
+        }
+
+        return this.binary(op, this.typeOf(left), l, this.expr(right));
+    }
+
+    /**
+     * Returns a binary operation on the given Java operands, of the given type.
+     */
+    private String binary(int op, GoLiteType type, String left, String right) {
+        if (op == AND_NOT)
+            return "(" + left + " & ~" + right + ")";
+        else if (op == SHL)
+            return "Builtins.shl(" + left + ", " + right + ")";
+        else if (op == SHR)
+            return "Builtins.shr(" + left + ", " + right + ")";
+        else
+            return "(" + left + " " + OPERATORS[op] + " " + right + ")";
+    }
+
+    /**
+     * Returns an ordering comparison with the given Java operator.
+     */
+    private String compare(String op, PExpr left, PExpr right) {
+        String l = this.expr(left), r = this.expr(right);
+        if (this.typeOf(left) instanceof StringType)
+            return "(" + l + ".compareTo(" + r + ") " + op + " 0)";
+        else
+            return "(" + l + " " + op + " " + r + ")";
+    }
+
+    /**
+     * Returns a conversion of the given Java expression between the given types.
+     */
+    private String convert(GoLiteType from, GoLiteType to, String e) {
+        from = from.getUnderlyingType();
+        to = to.getUnderlyingType();
+
+        if (to instanceof FloatType && !(from instanceof FloatType))
+            return "((double) " + e + ")";
+        else if (to instanceof BoolType && !(from instanceof BoolType))
+            return "(" + e + " != 0)";
+        else if ((to instanceof IntType || to instanceof RuneType) && from instanceof FloatType)
+            // Out of range floats wrap around (rather than saturate) like with the Python backend.
+            return "Builtins.toInt(" + e + ")";
+        else if ((to instanceof IntType || to instanceof RuneType) && from instanceof BoolType)
+            return "(" + e + " ? 1 : 0)";
+        else
+            return e;
+    }
+
+    /**
+     * Returns a call to the given function (or a conversion to a type alias).
+     */
+    private String call(AFuncCallExpr node) {
+        Symbol symbol = this.symbolTable.getSymbol(node.getId().getText());
+        if (symbol instanceof TypeAliasSymbol) {
+            PExpr arg = node.getExpr().getFirst();
+            return this.convert(this.typeOf(arg), this.typeOf(node), this.expr(arg));
+        }
+
+        ArrayList<String> args = new ArrayList<String>();
+        for (PExpr e : node.getExpr())
+            args.add(this.value(e));
+        return "f_" + node.getId().getText() + "(" + String.join(", ", args) + ")";
+    }
+
+    /**
+     * Literals
+     *
+     */
+
+    private static String intLiteral(int x) {
+        return x < 0 ? "(" + x + ")" : Integer.toString(x);
+    }
+
+    private static String floatLiteral(double x) {
+        if (Double.isNaN(x))
+            return "Double.NaN";
+        else if (Double.isInfinite(x))
+            return x > 0 ? "Double.POSITIVE_INFINITY" : "Double.NEGATIVE_INFINITY";
+        else
+            return (x < 0 || 1 / x < 0) ? "(" + x + ")" : Double.toString(x);
+    }
+
+    /**
+     * Returns the given string as a Java string literal.
+     */
+    private static String stringLiteral(String value) {
+        StringBuilder s = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"': s.append("\\\""); break;
+                case '\\': s.append("\\\\"); break;
+                case '\n': s.append("\\n"); break;
+                case '\t': s.append("\\t"); break;
+                case '\r': s.append("\\r"); break;
+                default:
+                    // Octal escapes, since javac reads unicode escapes before string literals.
+                    if (c < ' ' || c == 0x7f)
+                        s.append(String.format("\\%03o", (int) c));
+                    else
+                        s.append(c);
+            }
+        }
+
+        return s.append('"').toString();
+    }
+
+    /**
+     * Returns the value of the given integer literal.
+     */
+    private static BigInteger getIntLit(PExpr node) {
+        if (node instanceof AOctLitExpr) {
+            String text = ((AOctLitExpr) node).getOctLit().getText();
+            return new BigInteger(text.length() > 1 ? text.substring(1) : "0", 8);
+        } else if (node instanceof AHexLitExpr)
+            return new BigInteger(((AHexLitExpr) node).getHexLit().getText().substring(2), 16);
+        else
+            return new BigInteger(((AIntLitExpr) node).getIntLit().getText());
+    }
+
+    /**
+     * Returns the value of the given interpreted string literal (with its quotes).
+     */
+    private static String getInterpretedString(String text) {
+        StringBuilder s = new StringBuilder();
+
+        for (int i = 1; i < text.length() - 1; i++) {
+            char c = text.charAt(i);
+            if (c != '\\') {
+                s.append(c);
+                continue;
+            }
+
+            c = text.charAt(++i);
+            switch (c) {
+                case 'a': s.append('\u0007'); break;
+                case 'b': s.append('\b'); break;
+                case 'f': s.append('\f'); break;
+                case 'n': s.append('\n'); break;
+                case 'r': s.append('\r'); break;
+                case 't': s.append('\t'); break;
+                case 'v': s.append('\u000b'); break;
+                default: s.append(c);
+            }
+        }
+
+        return s.toString();
+    }
+
+}
@@ -0,0 +1,81 @@
+package golite.java;
+
+import golite.exception.InterpreterException;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Program compiled from generated Java code, run in this JVM (where HotSpot compiles it further).
+ */
+public final class JavaProgram {
+
+    /** Stack size of the thread running the program, for deep recursions. */
+    private static final long STACK_SIZE = 1L << 29;
+
+    /** Entry point of the program: public static void run(PrintStream). */
+    private final Method entry;
+
+    /**
+     * Constructor.
+     *
+     * @param programClass - Class compiled from the code of a JavaGenerator
+     * @throws IOException if the class has no entry point
+     */
+    public JavaProgram(Class<?> programClass) throws IOException {
+        try {
+            this.entry = programClass.getMethod("run", PrintStream.class);
+        } catch (NoSuchMethodException e) {
+            throw new IOException("No entry point in " + programClass.getName());
+        }
+    }
+
+    /**
+     * Runs the program: initializes the global variables and calls main().
+     *
+     * @param out - Stream to print to
+     * @throws InterpreterException if the program fails
+     */
+    public void run(PrintStream out) {
+        final RuntimeException[] error = new RuntimeException[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                this.entry.invoke(null, out);
+            } catch (InvocationTargetException e) {
+                error[0] = toException(e.getCause());
+            } catch (IllegalAccessException e) {
+                error[0] = new IllegalStateException(e);
+            }
+        }, "golite", STACK_SIZE);
+
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            thread.interrupt();
+            Thread.currentThread().interrupt();
+        }
+
+        if (error[0] != null)
+            throw error[0];
+    }
+
+    /**
+     * Returns the exception to report for the given failure of the program.
+     */
+    private static RuntimeException toException(Throwable e) {
+        if (e instanceof ArithmeticException)
+            return new InterpreterException(e.getMessage());
+        else if (e instanceof IndexOutOfBoundsException || e instanceof NegativeArraySizeException)
+            return new InterpreterException("index out of range");
+        else if (e instanceof StackOverflowError)
+            return new InterpreterException("stack overflow");
+        else if (e instanceof RuntimeException)
+            return (RuntimeException) e;
+        else
+            return new IllegalStateException(e);
+    }
+
+}
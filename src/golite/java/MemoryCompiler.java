@@ -0,0 +1,152 @@
+package golite.java;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Compiles generated Java code in memory with the system Java compiler (javax.tools), and loads the
+ * resulting classes with a class loader of their own, without writing any file.
+ */
+public final class MemoryCompiler {
+
+    private MemoryCompiler() {}
+
+    /**
+     * Java source held in a string.
+     */
+    private static final class SourceFile extends SimpleJavaFileObject {
+
+        private final String source;
+
+        SourceFile(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension),
+                Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return this.source;
+        }
+
+    }
+
+    /**
+     * Class file held in memory.
+     */
+    private static final class ClassFile extends SimpleJavaFileObject {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ClassFile(String className) {
+            super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension),
+                Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return this.bytes;
+        }
+
+    }
+
+    /**
+     * File manager keeping the class files it's given to write in memory.
+     */
+    private static final class ClassFileManager
+            extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        private final Map<String, ClassFile> classFiles = new HashMap<String, ClassFile>();
+
+        ClassFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className,
+                JavaFileObject.Kind kind, FileObject sibling) {
+            ClassFile file = new ClassFile(className);
+            this.classFiles.put(className, file);
+            return file;
+        }
+
+    }
+
+    /**
+     * Class loader defining the compiled classes, and delegating the others (e.g. the runtime) to
+     * the loader of the compiler.
+     */
+    private static final class ClassFileLoader extends ClassLoader {
+
+        private final Map<String, ClassFile> classFiles;
+
+        ClassFileLoader(Map<String, ClassFile> classFiles) {
+            super(MemoryCompiler.class.getClassLoader());
+            this.classFiles = classFiles;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            ClassFile file = this.classFiles.get(name);
+            if (file == null)
+                throw new ClassNotFoundException(name);
+
+            byte[] bytes = file.bytes.toByteArray();
+            return this.defineClass(name, bytes, 0, bytes.length);
+        }
+
+    }
+
+    /**
+     * Compiles the given source of the given class, and loads it (with its nested classes).
+     *
+     * @param className - Name of the class
+     * @param source - Java source of the class
+     * @return Loaded class
+     * @throws IOException if no Java compiler is available (e.g. with only a JRE), or the
+     *         compilation fails (with the diagnostics as message)
+     */
+    public static Class<?> compile(String className, String source) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null)
+            throw new IOException("No Java compiler available (a JDK is needed)");
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        ClassFileManager fileManager = new ClassFileManager(
+            compiler.getStandardFileManager(diagnostics, null, null));
+
+        // The generated code uses the runtime, from the class path of the compiler.
+        Iterable<String> options = Arrays.asList("-classpath",
+            System.getProperty("java.class.path"), "-proc:none");
+        boolean success = compiler.getTask(null, fileManager, diagnostics, options, null,
+            Arrays.asList(new SourceFile(className, source))).call();
+        fileManager.close();
+
+        if (!success) {
+            StringBuilder s = new StringBuilder();
+            diagnostics.getDiagnostics().forEach(d -> s.append(d).append('\n'));
+            throw new IOException("Java compiler failed on " + className + ":\n" + s);
+        }
+
+        try {
+            return new ClassFileLoader(fileManager.classFiles).loadClass(className);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Java compiler produced no class " + className);
+        }
+    }
+
+}
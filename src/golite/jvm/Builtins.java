@@ -0,0 +1,231 @@
+package golite.jvm;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Runtime support of the classes generated by the bytecode generator: printing, conversions, shifts,
+ * and copying and comparing arrays and structs.
+ *
+ * Values print the way they do with the Python backend, so that programs produce the same output
+ * whichever backend compiled them: bools print as True and False, and floats as Python's str()
+ * does.
+ */
+public final class Builtins {
+
+    /** Buffered standard output (flushed when the program ends). */
+    private static final PrintStream out = new PrintStream(
+        new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), false,
+        StandardCharsets.UTF_8);
+
+    /** Precision of floats in Python's str(). */
+    private static final MathContext FLOAT_PRECISION = new MathContext(12, RoundingMode.HALF_EVEN);
+
+    private Builtins() {}
+
+    /* Printing. */
+
+    public static void print(String s) {
+        out.print(s);
+    }
+
+    public static void print(int x) {
+        out.print(x);
+    }
+
+    public static void print(double x) {
+        out.print(formatFloat(x));
+    }
+
+    public static void print(boolean x) {
+        out.print(x ? "True" : "False");
+    }
+
+    public static void flush() {
+        out.flush();
+    }
+
+    /**
+     * Reports the given failure of the program like the C runtime does: flushes the output, prints
+     * the error on stderr and exits with status 1. Failures that aren't GoLite runtime errors are
+     * left to the caller.
+     *
+     * @param e - Failure
+     */
+    public static void fail(Throwable e) {
+        String message;
+        if (e instanceof ArithmeticException)
+            message = e.getMessage();
+        else if (e instanceof IndexOutOfBoundsException || e instanceof NegativeArraySizeException)
+            message = "index out of range";
+        else if (e instanceof StackOverflowError)
+            message = "stack overflow";
+        else
+            return;
+
+        out.flush();
+        System.err.println(message);
+        System.exit(1);
+    }
+
+    /**
+     * Formats the given float like Python's str(), i.e. with 12 significant digits, in exponent
+     * notation if the exponent is less than -4 or at least 12, and with a trailing '.0' if it would
+     * otherwise look like an integer.
+     *
+     * @param x - Float
+     * @return Formatted float
+     */
+    public static String formatFloat(double x) {
+        if (Double.isNaN(x))
+            return "nan";
+        else if (Double.isInfinite(x))
+            return x > 0 ? "inf" : "-inf";
+        else if (x == 0)
+            return 1 / x < 0 ? "-0.0" : "0.0";
+
+        BigDecimal d = new BigDecimal(Math.abs(x)).round(FLOAT_PRECISION).stripTrailingZeros();
+        String digits = d.unscaledValue().toString();
+        int n = digits.length();
+        int exp = n - 1 - d.scale();
+
+        StringBuilder s = new StringBuilder();
+        if (x < 0)
+            s.append('-');
+
+        if (exp < -4 || exp >= 12) {
+            s.append(digits.charAt(0));
+            if (n > 1)
+                s.append('.').append(digits, 1, n);
+            s.append(exp < 0 ? "e-" : "e+");
+            if (Math.abs(exp) < 10)
+                s.append('0');
+            s.append(Math.abs(exp));
+        } else if (exp < 0) {
+            s.append("0.");
+            for (int i = -1; i > exp; i--)
+                s.append('0');
+            s.append(digits);
+        } else if (n <= exp + 1) {
+            s.append(digits);
+            for (int i = n; i <= exp; i++)
+                s.append('0');
+            s.append(".0");
+        } else
+            s.append(digits, 0, exp + 1).append('.').append(digits, exp + 1, n);
+
+        return s.toString();
+    }
+
+    /* Conversions. */
+
+    /**
+     * Converts the given float to an int, truncating it and wrapping it around (rather than
+     * saturating it, like a JVM conversion does).
+     *
+     * @param x - Float
+     * @return Int
+     */
+    public static int toInt(double x) {
+        if (Math.abs(x) < 0x1p62)
+            return (int) (long) x;
+        else if (Double.isNaN(x) || Double.isInfinite(x))
+            throw new ArithmeticException("cannot convert " + formatFloat(x) + " to int");
+        else
+            return new BigDecimal(x).toBigInteger().intValue();
+    }
+
+    /* Shifts (Java only uses the low 5 bits of the count). */
+
+    public static int shl(int x, int n) {
+        if (n < 0)
+            throw new ArithmeticException("negative shift count");
+        return n < 32 ? x << n : 0;
+    }
+
+    public static int shr(int x, int n) {
+        if (n < 0)
+            throw new ArithmeticException("negative shift count");
+        return x >> Math.min(n, 31);
+    }
+
+    /* Arrays and structs. */
+
+    /**
+     * Copies the given value deeply if it's an array or struct.
+     *
+     * @param x - Value
+     * @return Copy, or the value itself if it's neither an array nor a struct
+     */
+    public static Object copy(Object x) {
+        if (x instanceof int[])
+            return ((int[]) x).clone();
+        else if (x instanceof double[])
+            return ((double[]) x).clone();
+        else if (x instanceof boolean[])
+            return ((boolean[]) x).clone();
+        else if (x instanceof Object[]) {
+            Object[] c = ((Object[]) x).clone();
+            for (int i = 0; i < c.length; i++)
+                c[i] = copy(c[i]);
+            return c;
+        } else if (x instanceof Struct)
+            return ((Struct) x).copy();
+        else
+            return x;
+    }
+
+    /**
+     * Fills the given array with copies of the given zero value.
+     *
+     * @param a - Array
+     * @param zero - Zero value of the elements
+     * @return Array
+     */
+    public static Object[] fill(Object[] a, Object zero) {
+        for (int i = 0; i < a.length; i++)
+            a[i] = i == 0 ? zero : copy(zero);
+        return a;
+    }
+
+    /**
+     * Checks whether the given values are equal, comparing arrays and structs element by element
+     * and field by field.
+     *
+     * @param x - Value
+     * @param y - Value of the same type
+     * @return True if they're equal, false otherwise
+     */
+    public static boolean equal(Object x, Object y) {
+        if (x instanceof int[])
+            return Arrays.equals((int[]) x, (int[]) y);
+        else if (x instanceof boolean[])
+            return Arrays.equals((boolean[]) x, (boolean[]) y);
+        else if (x instanceof double[]) {
+            double[] a = (double[]) x, b = (double[]) y;
+            for (int i = 0; i < a.length; i++) {
+                if (a[i] != b[i])
+                    return false;
+            }
+            return true;
+        } else if (x instanceof Object[]) {
+            Object[] a = (Object[]) x, b = (Object[]) y;
+            for (int i = 0; i < a.length; i++) {
+                if (!equal(a[i], b[i]))
+                    return false;
+            }
+            return true;
+        } else if (x == null || x instanceof Slice)
+            return x == y;
+        else
+            return x.equals(y);
+    }
+
+}
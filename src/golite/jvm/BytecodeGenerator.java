@@ -0,0 +1,1725 @@
+package golite.jvm;
+
+import golite.analysis.*;
+import golite.generator.ConstantFolder;
+import golite.jvm.MethodWriter.Label;
+import golite.node.*;
+import golite.symbol.*;
+import golite.type.*;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static golite.jvm.Opcodes.*;
+
+/**
+ * GoLite Bytecode Generator
+ *
+ * Compiles a typed AST to JVM class files, as an alternative to the Python code generator. Ints and
+ * runes become JVM ints (which wrap around for free), float64's doubles, bools booleans, strings
+ * Strings, arrays primitive (or object) arrays, slices golite.jvm.Slice's, and each struct type a
+ * final class. Top-level variables become static fields of the class Main, top-level functions its
+ * static methods, and local variables JVM locals.
+ *
+ * Arrays and structs are values in Go, so they're copied when they're assigned, passed or returned
+ * from a variable, field or element. Printing follows the Python backend (see Builtins), so that the
+ * output of a program doesn't depend on the backend.
+ */
+public class BytecodeGenerator extends DepthFirstAdapter {
+
+    /** Internal name of the main class. */
+    public static final String MAIN_CLASS = "Main";
+    /** Internal names of the runtime classes used by the generated classes. */
+    public static final String[] RUNTIME_CLASSES = {
+        "golite/jvm/Builtins", "golite/jvm/Slice", "golite/jvm/Struct" };
+
+    private static final String BUILTINS = "golite/jvm/Builtins";
+    private static final String SLICE = "golite/jvm/Slice";
+    private static final String STRUCT = "golite/jvm/Struct";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String STRING = "java/lang/String";
+    private static final String STRING_DESC = "Ljava/lang/String;";
+
+    /** Names of the methods of Object, which the methods of GoLite functions can't take. */
+    private static final Set<String> OBJECT_METHODS = new HashSet<String>(Arrays.asList("clone",
+        "equals", "finalize", "getClass", "hashCode", "notify", "notifyAll", "toString", "wait"));
+
+    /** Binary operators. */
+    private static final int ADD = 0, SUB = 1, MUL = 2, DIV = 3, MOD = 4, AND = 5, OR = 6, XOR = 7,
+        AND_NOT = 8, SHL = 9, SHR = 10;
+
+    /** Type table from the type checker. */
+    private final TypeTable typeTable;
+    /** Values of the constant expressions. */
+    private ConstantFolder constantFolder;
+    /** Symbol table, rebuilt while generating code. */
+    private SymbolTable symbolTable;
+    /** Slots of the local variables. */
+    private IdentityHashMap<Symbol, Integer> slots;
+    /** Type expressions of the top-level types, and the types resolved from them, by name. */
+    private LinkedHashMap<String, PTypeExpr> globalTypeExprs;
+    private HashMap<String, GoLiteType> globalTypes;
+    /** Top-level variables, by name. */
+    private HashMap<String, Symbol> globalVars;
+
+    /** Main class. */
+    private ClassWriter mainClass;
+    /** Classes of the struct types, by underlying type. */
+    private LinkedHashMap<GoLiteType, ClassWriter> structClasses;
+    /** Method initializing the top-level variables. */
+    private MethodWriter initMethod;
+    /** Method being generated. */
+    private MethodWriter method;
+    /** Descriptor of the return type of the function being generated. */
+    private String returnDesc;
+    /** Number of local variable slots in use when each enclosing scope was entered. */
+    private ArrayDeque<Integer> scopeLocals;
+    /** Targets of break and continue statements in the enclosing loops and switches. */
+    private ArrayDeque<Label> breakLabels, continueLabels;
+
+    /** Generated class files, by internal class name. */
+    private LinkedHashMap<String, byte[]> classFiles;
+
+    /**
+     * Constructor.
+     *
+     * @param typeTable - Type table from the type checker
+     */
+    public BytecodeGenerator(TypeTable typeTable) {
+        this.typeTable = typeTable;
+    }
+
+    /**
+     * Returns the generated class files.
+     *
+     * @return Class file bytes, by internal class name (the main class first)
+     */
+    public Map<String, byte[]> getClassFiles() {
+        return this.classFiles;
+    }
+
+    /**
+     * Types
+     *
+     */
+
+    /**
+     * Returns the GoLite type for the given type expression, in the current scope.
+     *
+     * @param node - Type expression
+     * @return Corresponding GoLite type
+     */
+    private GoLiteType getType(PTypeExpr node) {
+        if (node instanceof ABoolTypeExpr)
+            return TypeFactory.getBoolType();
+        else if (node instanceof AIntTypeExpr)
+            return TypeFactory.getIntType();
+        else if (node instanceof AFloatTypeExpr)
+            return TypeFactory.getFloatType();
+        else if (node instanceof ARuneTypeExpr)
+            return TypeFactory.getRuneType();
+        else if (node instanceof AStringTypeExpr)
+            return TypeFactory.getStringType();
+        else if (node instanceof AAliasTypeExpr) {
+            String name = ((AAliasTypeExpr) node).getId().getText();
+            Symbol symbol = this.symbolTable.getSymbol(name);
+            // Top-level types can be used before they're declared (with unordered declarations).
+            GoLiteType type = (symbol instanceof TypeAliasSymbol) ? symbol.getType()
+                : this.getGlobalType(name);
+            return TypeFactory.getAliasType(name, type);
+        } else if (node instanceof AArrayTypeExpr) {
+            AArrayTypeExpr array = (AArrayTypeExpr) node;
+            return TypeFactory.getArrayType(this.getType(array.getTypeExpr()),
+                this.getIntLit(array.getExpr()).intValue());
+        } else if (node instanceof ASliceTypeExpr)
+            return TypeFactory.getSliceType(this.getType(((ASliceTypeExpr) node).getTypeExpr()));
+        else {
+            ArrayList<StructType.Field> fields = new ArrayList<StructType.Field>();
+            for (PFieldSpec e : ((AStructTypeExpr) node).getFieldSpec()) {
+                ASpecFieldSpec spec = (ASpecFieldSpec) e;
+                GoLiteType type = this.getType(spec.getTypeExpr());
+                for (POptId o : spec.getOptId()) {
+                    if (o instanceof AIdOptId)
+                        fields.add(new StructType.Field(((AIdOptId) o).getId().getText(), type));
+                }
+            }
+
+            return TypeFactory.getStructType(fields);
+        }
+    }
+
+    /**
+     * Returns the type aliased by the top-level type with the given name, resolving it if needed.
+     */
+    private GoLiteType getGlobalType(String name) {
+        GoLiteType type = this.globalTypes.get(name);
+        if (type == null) {
+            type = this.getType(this.globalTypeExprs.get(name));
+            this.globalTypes.put(name, type);
+        }
+
+        return type;
+    }
+
+    /**
+     * Returns the type of the variable with the given position in the given specification.
+     */
+    private GoLiteType getType(ASpecVarSpec node, int i) {
+        if (node.getTypeExpr() != null)
+            return this.getType(node.getTypeExpr());
+        else
+            return this.typeTable.get(node.getExpr().get(i));
+    }
+
+    /**
+     * Returns the type of the given expression.
+     */
+    private GoLiteType typeOf(PExpr node) {
+        return this.typeTable.get(node).getUnderlyingType();
+    }
+
+    /**
+     * Returns the JVM type descriptor of the given type.
+     *
+     * @param type - GoLite type
+     * @return Descriptor
+     */
+    private String getDescriptor(GoLiteType type) {
+        type = type.getUnderlyingType();
+
+        if (type instanceof IntType || type instanceof RuneType)
+            return "I";
+        else if (type instanceof FloatType)
+            return "D";
+        else if (type instanceof BoolType)
+            return "Z";
+        else if (type instanceof StringType)
+            return STRING_DESC;
+        else if (type instanceof SliceType)
+            return "L" + SLICE + ";";
+        else if (type instanceof ArrayType)
+            return "[" + this.getDescriptor(((ArrayType) type).getElemType());
+        else if (type instanceof StructType)
+            return "L" + this.getStructClass((StructType) type) + ";";
+        else
+            return "V";
+    }
+
+    /**
+     * Returns the JVM method descriptor of the given function.
+     */
+    private String getDescriptor(FunctionSymbol symbol) {
+        StringBuilder desc = new StringBuilder("(");
+        for (GoLiteType t : symbol.getArgTypes())
+            desc.append(this.getDescriptor(t));
+        desc.append(')').append(this.getDescriptor(symbol.getType()));
+
+        return desc.toString();
+    }
+
+    /**
+     * Returns the internal name of the class (or array type) of values of the given reference type.
+     */
+    private String getInternalName(GoLiteType type) {
+        String desc = this.getDescriptor(type);
+        return desc.startsWith("L") ? desc.substring(1, desc.length() - 1) : desc;
+    }
+
+    /**
+     * Returns the name of the method of the function with the given name.
+     */
+    private static String getMethodName(String name) {
+        return OBJECT_METHODS.contains(name) ? name + "$" : name;
+    }
+
+    /**
+     * Returns the suffix of the names of the Slice methods for elements with the given descriptor.
+     */
+    private static String getSliceSuffix(String desc) {
+        switch (desc.charAt(0)) {
+            case 'I': return "Int";
+            case 'D': return "Double";
+            case 'Z': return "Boolean";
+            default: return "Object";
+        }
+    }
+
+    /**
+     * Returns the descriptor of the elements of slices with the given element descriptor, as seen
+     * by the Slice methods.
+     */
+    private static String getSliceElemDesc(String desc) {
+        return desc.length() == 1 ? desc : "L" + OBJECT + ";";
+    }
+
+    private static boolean isReference(String desc) {
+        return desc.length() > 1;
+    }
+
+    private static int loadOpcode(String desc) {
+        return desc.equals("D") ? DLOAD : isReference(desc) ? ALOAD : ILOAD;
+    }
+
+    private static int storeOpcode(String desc) {
+        return desc.equals("D") ? DSTORE : isReference(desc) ? ASTORE : ISTORE;
+    }
+
+    private static int returnOpcode(String desc) {
+        return desc.equals("V") ? RETURN : desc.equals("D") ? DRETURN
+            : isReference(desc) ? ARETURN : IRETURN;
+    }
+
+    private static int arrayLoadOpcode(String desc) {
+        return desc.equals("D") ? DALOAD : desc.equals("Z") ? BALOAD
+            : isReference(desc) ? AALOAD : IALOAD;
+    }
+
+    private static int arrayStoreOpcode(String desc) {
+        return desc.equals("D") ? DASTORE : desc.equals("Z") ? BASTORE
+            : isReference(desc) ? AASTORE : IASTORE;
+    }
+
+    private static int popOpcode(String desc) {
+        return desc.equals("D") ? POP2 : POP;
+    }
+
+    /**
+     * Struct Classes
+     *
+     */
+
+    /**
+     * Returns the internal name of the class of the given struct type, generating the class the
+     * first time.
+     *
+     * @param type - Struct type
+     * @return Internal class name
+     */
+    private String getStructClass(StructType type) {
+        type = (StructType) type.getUnderlyingType();
+
+        ClassWriter c = this.structClasses.get(type);
+        if (c == null) {
+            c = new ClassWriter(ACC_PUBLIC | ACC_FINAL | ACC_SUPER,
+                MAIN_CLASS + "$Struct" + this.structClasses.size(), OBJECT, STRUCT,
+                "java/lang/Cloneable");
+            this.structClasses.put(type, c);
+            this.generateStructClass(c, type);
+        }
+
+        return c.getName();
+    }
+
+    /**
+     * Generates the fields and methods of the class of the given struct type: a constructor
+     * creating the zero value, copy() and equals().
+     */
+    private void generateStructClass(ClassWriter c, StructType type) {
+        String name = c.getName();
+
+        ArrayList<StructType.Field> fields = new ArrayList<StructType.Field>();
+        for (Iterator<StructType.Field> i = type.getFieldIterator(); i.hasNext(); ) {
+            StructType.Field f = i.next();
+            fields.add(f);
+            c.addField(ACC_PUBLIC, f.getId(), this.getDescriptor(f.getType()));
+        }
+
+        MethodWriter m = c.addMethod(ACC_PUBLIC, "<init>", "()V");
+        m.varInsn(ALOAD, 0);
+        m.methodInsn(INVOKESPECIAL, OBJECT, "<init>", "()V");
+        for (StructType.Field f : fields) {
+            m.varInsn(ALOAD, 0);
+            this.generateZero(m, f.getType());
+            m.fieldInsn(PUTFIELD, name, f.getId(), this.getDescriptor(f.getType()));
+        }
+        m.insn(RETURN);
+
+        // Shallow copy, then copy the array and struct fields.
+        m = c.addMethod(ACC_PUBLIC, "copy", "()L" + STRUCT + ";");
+        int copy = m.newLocal("L" + name + ";");
+        m.varInsn(ALOAD, 0);
+        m.methodInsn(INVOKESPECIAL, OBJECT, "clone", "()L" + OBJECT + ";");
+        m.typeInsn(CHECKCAST, name);
+        m.varInsn(ASTORE, copy);
+        for (StructType.Field f : fields) {
+            GoLiteType fieldType = f.getType().getUnderlyingType();
+            if (fieldType instanceof ArrayType || fieldType instanceof StructType) {
+                String desc = this.getDescriptor(fieldType);
+                m.varInsn(ALOAD, copy);
+                m.varInsn(ALOAD, copy);
+                m.fieldInsn(GETFIELD, name, f.getId(), desc);
+                this.generateCopy(m, fieldType);
+                m.fieldInsn(PUTFIELD, name, f.getId(), desc);
+            }
+        }
+        m.varInsn(ALOAD, copy);
+        m.insn(ARETURN);
+
+        m = c.addMethod(ACC_PUBLIC, "equals", "(L" + OBJECT + ";)Z");
+        int other = m.newLocal("L" + name + ";");
+        Label unequal = new Label();
+        m.varInsn(ALOAD, 1);
+        m.typeInsn(CHECKCAST, name);
+        m.varInsn(ASTORE, other);
+        for (StructType.Field f : fields) {
+            String desc = this.getDescriptor(f.getType());
+            m.varInsn(ALOAD, 0);
+            m.fieldInsn(GETFIELD, name, f.getId(), desc);
+            m.varInsn(ALOAD, other);
+            m.fieldInsn(GETFIELD, name, f.getId(), desc);
+            generateComparison(m, desc, IFEQ, unequal, false);
+        }
+        m.insn(ICONST_1);
+        m.insn(IRETURN);
+        m.mark(unequal);
+        m.insn(ICONST_0);
+        m.insn(IRETURN);
+    }
+
+    /**
+     * Generates the zero value of the given type.
+     *
+     * @param m - Method to write to
+     * @param type - Type
+     */
+    private void generateZero(MethodWriter m, GoLiteType type) {
+        type = type.getUnderlyingType();
+
+        if (type instanceof FloatType)
+            m.insn(DCONST_0);
+        else if (type instanceof StringType)
+            m.pushString("");
+        else if (type instanceof SliceType)
+            m.insn(ACONST_NULL);
+        else if (type instanceof StructType) {
+            String c = this.getStructClass((StructType) type);
+            m.typeInsn(NEW, c);
+            m.insn(DUP);
+            m.methodInsn(INVOKESPECIAL, c, "<init>", "()V");
+        } else if (type instanceof ArrayType) {
+            GoLiteType elemType = ((ArrayType) type).getElemType().getUnderlyingType();
+            String elemDesc = this.getDescriptor(elemType);
+
+            m.pushInt(((ArrayType) type).getBound());
+            if (elemDesc.equals("D"))
+                m.newArray(T_DOUBLE);
+            else if (elemDesc.equals("Z"))
+                m.newArray(T_BOOLEAN);
+            else if (elemDesc.equals("I"))
+                m.newArray(T_INT);
+            else {
+                m.typeInsn(ANEWARRAY, this.getInternalName(elemType));
+                // The zero slice is null, which the new array already holds.
+                if (!(elemType instanceof SliceType)) {
+                    this.generateZero(m, elemType);
+                    m.methodInsn(INVOKESTATIC, BUILTINS, "fill",
+                        "([L" + OBJECT + ";L" + OBJECT + ";)[L" + OBJECT + ";");
+                    m.typeInsn(CHECKCAST, this.getDescriptor(type));
+                }
+            }
+        } else
+            m.insn(ICONST_0);
+    }
+
+    /**
+     * Generates a copy of the array or struct on top of the stack.
+     */
+    private void generateCopy(MethodWriter m, GoLiteType type) {
+        m.methodInsn(INVOKESTATIC, BUILTINS, "copy", "(L" + OBJECT + ";)L" + OBJECT + ";");
+        m.typeInsn(CHECKCAST, this.getInternalName(type));
+    }
+
+    /**
+     * Generates a jump if the comparison of the two values on top of the stack is as given.
+     *
+     * @param m - Method to write to
+     * @param desc - Descriptor of the type of the values
+     * @param cond - Comparison, as the IF* opcode comparing with zero (IFEQ, IFNE, IFLT, ...)
+     * @param target - Target of the jump
+     * @param when - Whether to jump if the comparison holds, or if it doesn't
+     */
+    private static void generateComparison(MethodWriter m, String desc, int cond, Label target,
+            boolean when) {
+        int op = when ? cond : negate(cond);
+
+        if (desc.equals("I") || desc.equals("Z"))
+            m.jumpInsn(op - IFEQ + IF_ICMPEQ, target);
+        else if (desc.equals("D")) {
+            // NaN compares as greater with DCMPG and less with DCMPL, so comparisons with NaN are
+            // false (and their negations true).
+            m.insn((cond == IFLT || cond == IFLE) ? DCMPG : DCMPL);
+            m.jumpInsn(op, target);
+        } else if (desc.equals(STRING_DESC) && cond != IFEQ && cond != IFNE) {
+            m.methodInsn(INVOKEVIRTUAL, STRING, "compareTo", "(" + STRING_DESC + ")I");
+            m.jumpInsn(op, target);
+        } else {
+            if (desc.equals(STRING_DESC))
+                m.methodInsn(INVOKEVIRTUAL, STRING, "equals", "(L" + OBJECT + ";)Z");
+            else
+                m.methodInsn(INVOKESTATIC, BUILTINS, "equal",
+                    "(L" + OBJECT + ";L" + OBJECT + ";)Z");
+            // The result is 1 if the values are equal.
+            m.jumpInsn(op == IFEQ ? IFNE : IFEQ, target);
+        }
+    }
+
+    /**
+     * Returns the opposite of the given IF* comparison.
+     */
+    private static int negate(int cond) {
+        return ((cond - IFEQ) ^ 1) + IFEQ;
+    }
+
+    /**
+     * Scopes
+     *
+     */
+
+    private void enterScope() {
+        this.symbolTable.scope();
+        this.scopeLocals.push(this.method.getLocals());
+    }
+
+    private void exitScope() {
+        this.symbolTable.unscope();
+        this.method.setLocals(this.scopeLocals.pop());
+    }
+
+    /**
+     * Declares a local variable in the current scope.
+     *
+     * @param name - Name
+     * @param type - Type
+     * @param node - Declaring node
+     * @return Symbol of the variable
+     */
+    private Symbol declareLocal(String name, GoLiteType type, Node node) {
+        Symbol symbol = new VariableSymbol(name, type, node);
+        this.symbolTable.putSymbol(symbol);
+        this.slots.put(symbol, this.method.newLocal(this.getDescriptor(type)));
+        return symbol;
+    }
+
+    /**
+     * Returns the variable with the given name in the current scope.
+     */
+    private Symbol getVariable(String name) {
+        Symbol symbol = this.symbolTable.getSymbol(name);
+        // Functions can use top-level variables declared after them (with unordered top-level
+        // declarations).
+        return symbol != null ? symbol : this.globalVars.get(name);
+    }
+
+    /**
+     * Generates a load of the given variable.
+     */
+    private void generateLoad(Symbol symbol) {
+        String name = symbol.getName();
+        String desc = this.getDescriptor(symbol.getType());
+        Integer slot = this.slots.get(symbol);
+
+        if (slot != null)
+            this.method.varInsn(loadOpcode(desc), slot);
+        else if (this.globalVars.get(name) == symbol)
+            this.method.fieldInsn(GETSTATIC, MAIN_CLASS, name, desc);
+        // The predeclared true and false.
+        else
+            this.method.pushInt(name.equals("true") ? 1 : 0);
+    }
+
+    /**
+     * Generates a store of the value on top of the stack to the given variable.
+     */
+    private void generateStore(Symbol symbol) {
+        String desc = this.getDescriptor(symbol.getType());
+        Integer slot = this.slots.get(symbol);
+
+        if (slot != null)
+            this.method.varInsn(storeOpcode(desc), slot);
+        else
+            this.method.fieldInsn(PUTSTATIC, MAIN_CLASS, symbol.getName(), desc);
+    }
+
+    /**
+     * Program
+     *
+     */
+
+    @Override
+    public void caseStart(Start node) {
+        this.constantFolder = new ConstantFolder(this.typeTable);
+        node.apply(this.constantFolder);
+
+        this.symbolTable = new SymbolTable();
+        this.slots = new IdentityHashMap<Symbol, Integer>();
+        this.globalTypeExprs = new LinkedHashMap<String, PTypeExpr>();
+        this.globalTypes = new HashMap<String, GoLiteType>();
+        this.globalVars = new HashMap<String, Symbol>();
+        this.structClasses = new LinkedHashMap<GoLiteType, ClassWriter>();
+        this.scopeLocals = new ArrayDeque<Integer>();
+        this.breakLabels = new ArrayDeque<Label>();
+        this.continueLabels = new ArrayDeque<Label>();
+        this.classFiles = new LinkedHashMap<String, byte[]>();
+
+        // Universe scope.
+        this.symbolTable.scope();
+        this.symbolTable.putSymbol(new VariableSymbol("true", TypeFactory.getBoolType(), node));
+        this.symbolTable.putSymbol(new VariableSymbol("false", TypeFactory.getBoolType(), node));
+
+        node.getPProg().apply(this);
+
+        this.symbolTable.unscope();
+    }
+
+    @Override
+    public void caseAProgProg(AProgProg node) {
+        this.symbolTable.scope();
+        this.mainClass = new ClassWriter(ACC_PUBLIC | ACC_FINAL | ACC_SUPER, MAIN_CLASS, OBJECT);
+
+        // Declare every top-level type, variable and function first, since they can be used
+        // before their declarations with unordered top-level declarations.
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof ATypesTopDec) {
+                for (PTypeSpec t : ((ATypesTopDec) e).getTypeSpec()) {
+                    ASpecTypeSpec spec = (ASpecTypeSpec) t;
+                    if (spec.getOptId() instanceof AIdOptId)
+                        this.globalTypeExprs.put(((AIdOptId) spec.getOptId()).getId().getText(),
+                            spec.getTypeExpr());
+                }
+            }
+        }
+        for (Map.Entry<String, PTypeExpr> e : this.globalTypeExprs.entrySet()) {
+            this.symbolTable.putSymbol(new TypeAliasSymbol(e.getKey(),
+                this.getGlobalType(e.getKey()), e.getValue()));
+        }
+
+        boolean hasMain = false;
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof AVarsTopDec) {
+                for (PVarSpec v : ((AVarsTopDec) e).getVarSpec()) {
+                    ASpecVarSpec spec = (ASpecVarSpec) v;
+                    for (int i = 0; i < spec.getOptId().size(); i++) {
+                        POptId o = spec.getOptId().get(i);
+                        if (!(o instanceof AIdOptId))
+                            continue;
+
+                        String name = ((AIdOptId) o).getId().getText();
+                        GoLiteType type = this.getType(spec, i);
+                        this.globalVars.put(name, new VariableSymbol(name, type, spec));
+                        this.mainClass.addField(ACC_PRIVATE | ACC_STATIC, name,
+                            this.getDescriptor(type));
+                    }
+                }
+            } else if (e instanceof AFuncTopDec) {
+                AFuncTopDec f = (AFuncTopDec) e;
+                String name = f.getId().getText();
+                FunctionSymbol symbol = (f.getTypeExpr() == null) ? new FunctionSymbol(name, f)
+                    : new FunctionSymbol(name, this.getType(f.getTypeExpr()), f);
+                for (PArgGroup g : f.getArgGroup()) {
+                    symbol.addArgType(this.getType(((AArgArgGroup) g).getTypeExpr()),
+                        ((AArgArgGroup) g).getId().size());
+                }
+
+                this.symbolTable.putSymbol(symbol);
+                hasMain |= name.equals("main");
+            }
+        }
+
+        // The top-level variables come into scope in order, as they're initialized (a variable
+        // can shadow true or false after its first uses, for instance).
+        this.initMethod = this.mainClass.addMethod(ACC_PRIVATE | ACC_STATIC, "init$", "()V");
+        for (PTopDec e : node.getTopDec())
+            e.apply(this);
+        this.initMethod.insn(RETURN);
+
+        this.generateEntryPoint(hasMain);
+
+        this.classFiles.put(MAIN_CLASS, this.mainClass.toByteArray());
+        for (ClassWriter c : this.structClasses.values())
+            this.classFiles.put(c.getName(), c.toByteArray());
+
+        this.symbolTable.unscope();
+    }
+
+    /**
+     * Generates the JVM entry point, which initializes the top-level variables, runs main() and
+     * flushes the output (even if the program fails, whose runtime errors are reported like with
+     * the C backend).
+     */
+    private void generateEntryPoint(boolean hasMain) {
+        MethodWriter m = this.mainClass.addMethod(ACC_PUBLIC | ACC_STATIC, "main",
+            "([" + STRING_DESC + ")V");
+        Label start = new Label(), end = new Label(), handler = new Label();
+
+        m.mark(start);
+        m.methodInsn(INVOKESTATIC, MAIN_CLASS, "init$", "()V");
+        if (hasMain)
+            m.methodInsn(INVOKESTATIC, MAIN_CLASS, "main", "()V");
+        m.mark(end);
+        m.methodInsn(INVOKESTATIC, BUILTINS, "flush", "()V");
+        m.insn(RETURN);
+
+        m.markHandler(handler);
+        m.insn(DUP);
+        m.methodInsn(INVOKESTATIC, BUILTINS, "fail", "(Ljava/lang/Throwable;)V");
+        m.methodInsn(INVOKESTATIC, BUILTINS, "flush", "()V");
+        m.insn(ATHROW);
+        m.addHandler(start, end, handler);
+    }
+
+    /**
+     * Top-Level Declarations
+     *
+     */
+
+    @Override
+    public void caseAVarsTopDec(AVarsTopDec node) {
+        this.method = this.initMethod;
+
+        for (PVarSpec e : node.getVarSpec()) {
+            ASpecVarSpec spec = (ASpecVarSpec) e;
+            LinkedList<POptId> ids = spec.getOptId();
+
+            this.generateValues(spec);
+
+            Symbol[] symbols = new Symbol[ids.size()];
+            for (int i = 0; i < ids.size(); i++) {
+                if (ids.get(i) instanceof AIdOptId) {
+                    symbols[i] = this.globalVars.get(((AIdOptId) ids.get(i)).getId().getText());
+                    this.symbolTable.putSymbol(symbols[i]);
+                }
+            }
+
+            for (int i = ids.size() - 1; i >= 0; i--) {
+                if (symbols[i] != null)
+                    this.generateStore(symbols[i]);
+            }
+        }
+    }
+
+    @Override
+    public void caseATypesTopDec(ATypesTopDec node) {
+        // Already declared.
+    }
+
+    @Override
+    public void caseAFuncTopDec(AFuncTopDec node) {
+        String name = node.getId().getText();
+        FunctionSymbol symbol = (FunctionSymbol) this.symbolTable.getSymbol(name);
+
+        this.method = this.mainClass.addMethod(ACC_PUBLIC | ACC_STATIC, getMethodName(name),
+            this.getDescriptor(symbol));
+        this.returnDesc = this.getDescriptor(symbol.getType());
+        this.method.setLocals(0);
+        this.enterScope();
+
+        // The arguments take the first slots, in order.
+        for (PArgGroup e : node.getArgGroup()) {
+            AArgArgGroup g = (AArgArgGroup) e;
+            GoLiteType type = this.getType(g.getTypeExpr());
+            for (TId id : g.getId())
+                this.declareLocal(id.getText(), type, g);
+        }
+
+        this.generateStatements(node.getStmt());
+
+        // Functions with a result end in a terminating statement, so this is only reached by
+        // functions without one.
+        if (this.returnDesc.equals("V"))
+            this.method.insn(RETURN);
+        else {
+            this.generateZeroOrNull(this.returnDesc);
+            this.method.insn(returnOpcode(this.returnDesc));
+        }
+
+        this.exitScope();
+    }
+
+    /**
+     * Generates a default value for the type with the given descriptor (null for references).
+     */
+    private void generateZeroOrNull(String desc) {
+        if (desc.equals("D"))
+            this.method.insn(DCONST_0);
+        else if (isReference(desc))
+            this.method.insn(ACONST_NULL);
+        else
+            this.method.insn(ICONST_0);
+    }
+
+    /**
+     * Statements
+     *
+     */
+
+    private void generateStatements(List<PStmt> stmts) {
+        for (PStmt e : stmts)
+            e.apply(this);
+    }
+
+    /**
+     * Generates the values of the named variables of the given specification, from first to last,
+     * so that the last one ends up on top of the stack. The values of blanks are discarded.
+     */
+    private void generateValues(ASpecVarSpec node) {
+        LinkedList<POptId> ids = node.getOptId();
+
+        for (int i = 0; i < ids.size(); i++) {
+            boolean blank = !(ids.get(i) instanceof AIdOptId);
+
+            if (node.getExpr().isEmpty()) {
+                if (!blank)
+                    this.generateZero(this.method, this.getType(node, i));
+            } else {
+                PExpr e = node.getExpr().get(i);
+                this.generateValue(e);
+                if (blank)
+                    this.method.insn(popOpcode(this.getDescriptor(this.typeOf(e))));
+            }
+        }
+    }
+
+    @Override
+    public void caseAEmptyStmt(AEmptyStmt node) {
+    }
+
+    @Override
+    public void caseAVarDecStmt(AVarDecStmt node) {
+        for (PVarSpec e : node.getVarSpec()) {
+            ASpecVarSpec spec = (ASpecVarSpec) e;
+            LinkedList<POptId> ids = spec.getOptId();
+
+            // The variables come into scope after their values are computed.
+            this.generateValues(spec);
+
+            Symbol[] symbols = new Symbol[ids.size()];
+            for (int i = 0; i < ids.size(); i++) {
+                if (ids.get(i) instanceof AIdOptId)
+                    symbols[i] = this.declareLocal(((AIdOptId) ids.get(i)).getId().getText(),
+                        this.getType(spec, i), spec);
+            }
+
+            for (int i = ids.size() - 1; i >= 0; i--) {
+                if (symbols[i] != null)
+                    this.generateStore(symbols[i]);
+            }
+        }
+    }
+
+    @Override
+    public void caseAShortAssignStmt(AShortAssignStmt node) {
+        LinkedList<POptId> ids = node.getOptId();
+        LinkedList<PExpr> exprs = node.getExpr();
+
+        for (PExpr e : exprs)
+            this.generateValue(e);
+
+        // Names already declared in the current scope are assigned, the others declared.
+        Symbol[] symbols = new Symbol[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            if (!(ids.get(i) instanceof AIdOptId))
+                continue;
+
+            String name = ((AIdOptId) ids.get(i)).getId().getText();
+            if (this.symbolTable.defSymbolInCurrentScope(name))
+                symbols[i] = this.getVariable(name);
+            else
+                symbols[i] = this.declareLocal(name, this.typeTable.get(exprs.get(i)), node);
+        }
+
+        for (int i = ids.size() - 1; i >= 0; i--) {
+            if (symbols[i] != null)
+                this.generateStore(symbols[i]);
+            else
+                this.method.insn(popOpcode(this.getDescriptor(this.typeOf(exprs.get(i)))));
+        }
+    }
+
+    @Override
+    public void caseATypeDecStmt(ATypeDecStmt node) {
+        for (PTypeSpec e : node.getTypeSpec()) {
+            ASpecTypeSpec spec = (ASpecTypeSpec) e;
+            if (spec.getOptId() instanceof AIdOptId)
+                this.symbolTable.putSymbol(new TypeAliasSymbol(
+                    ((AIdOptId) spec.getOptId()).getId().getText(),
+                    this.getType(spec.getTypeExpr()), spec));
+        }
+    }
+
+    @Override
+    public void caseAAssignStmt(AAssignStmt node) {
+        LinkedList<PExpr> lhs = node.getLhs();
+        LinkedList<PExpr> rhs = node.getRhs();
+
+        if (lhs.size() == 1) {
+            this.generateStorePrefix(lhs.getFirst());
+            this.generateValue(rhs.getFirst());
+            this.generateStoreSuffix(lhs.getFirst(), this.getDescriptor(this.typeOf(rhs.getFirst())));
+            return;
+        }
+
+        // All the values are computed before any is assigned.
+        int[] temps = new int[rhs.size()];
+        String[] descs = new String[rhs.size()];
+        for (int i = 0; i < rhs.size(); i++) {
+            descs[i] = this.getDescriptor(this.typeOf(rhs.get(i)));
+            this.generateValue(rhs.get(i));
+            temps[i] = this.method.newLocal(descs[i]);
+            this.method.varInsn(storeOpcode(descs[i]), temps[i]);
+        }
+
+        for (int i = 0; i < lhs.size(); i++) {
+            this.generateStorePrefix(lhs.get(i));
+            this.method.varInsn(loadOpcode(descs[i]), temps[i]);
+            this.generateStoreSuffix(lhs.get(i), descs[i]);
+        }
+    }
+
+    /**
+     * Generates the part of a store to the given assignable that precedes the value: the array and
+     * index of an element, or the struct of a field.
+     */
+    private void generateStorePrefix(PExpr node) {
+        if (node instanceof AArrayElemExpr) {
+            this.generateExpr(((AArrayElemExpr) node).getArray());
+            this.generateExpr(((AArrayElemExpr) node).getIndex());
+        } else if (node instanceof AFieldExpr)
+            this.generateExpr(((AFieldExpr) node).getExpr());
+    }
+
+    /**
+     * Generates the part of a store to the given assignable that follows the value.
+     *
+     * @param node - Assignable
+     * @param desc - Descriptor of the type of the value
+     */
+    private void generateStoreSuffix(PExpr node, String desc) {
+        if (node instanceof AVariableExpr)
+            this.generateStore(this.getVariable(((AVariableExpr) node).getId().getText()));
+        else if (node instanceof AArrayElemExpr) {
+            if (this.typeOf(((AArrayElemExpr) node).getArray()) instanceof ArrayType)
+                this.method.insn(arrayStoreOpcode(desc));
+            else
+                this.method.methodInsn(INVOKESTATIC, SLICE, "set" + getSliceSuffix(desc),
+                    "(L" + SLICE + ";I" + getSliceElemDesc(desc) + ")V");
+        } else if (node instanceof AFieldExpr) {
+            AFieldExpr field = (AFieldExpr) node;
+            this.method.fieldInsn(PUTFIELD,
+                this.getStructClass((StructType) this.typeOf(field.getExpr())),
+                field.getId().getText(), desc);
+        } else
+            // Blank.
+            this.method.insn(popOpcode(desc));
+    }
+
+    /**
+     * Generates a load of the current value of the given assignable, after its store prefix,
+     * leaving the store prefix on the stack.
+     */
+    private void generateUpdateLoad(PExpr node) {
+        String desc = this.getDescriptor(this.typeOf(node));
+
+        if (node instanceof AVariableExpr)
+            this.generateLoad(this.getVariable(((AVariableExpr) node).getId().getText()));
+        else if (node instanceof AArrayElemExpr) {
+            this.method.insn(DUP2);
+            this.generateElementLoad((AArrayElemExpr) node, desc);
+        } else {
+            AFieldExpr field = (AFieldExpr) node;
+            this.method.insn(DUP);
+            this.method.fieldInsn(GETFIELD,
+                this.getStructClass((StructType) this.typeOf(field.getExpr())),
+                field.getId().getText(), desc);
+        }
+    }
+
+    /**
+     * Generates an operator assignment (or an increment or decrement, with a null operand).
+     *
+     * @param lhs - Assignable
+     * @param op - Operator
+     * @param rhs - Right operand, or null for 1
+     */
+    private void generateOpAssign(PExpr lhs, int op, PExpr rhs) {
+        String desc = this.getDescriptor(this.typeOf(lhs));
+
+        // Increment int locals in place.
+        Object value = rhs == null ? (Long) 1L : this.constantFolder.getValue(rhs);
+        if (lhs instanceof AVariableExpr && desc.equals("I") && (op == ADD || op == SUB)
+                && value instanceof Long && Math.abs((Long) value) <= Short.MAX_VALUE) {
+            Integer slot = this.slots.get(
+                this.getVariable(((AVariableExpr) lhs).getId().getText()));
+            if (slot != null) {
+                this.method.iinc(slot, (int) (op == ADD ? (long) (Long) value : -(Long) value));
+                return;
+            }
+        }
+
+        this.generateStorePrefix(lhs);
+        this.generateUpdateLoad(lhs);
+        if (rhs != null)
+            this.generateOperator(op, rhs, desc);
+        else {
+            if (desc.equals("D"))
+                this.method.insn(DCONST_1);
+            else
+                this.method.insn(ICONST_1);
+            this.method.insn(desc.equals("D") ? (op == ADD ? DADD : DSUB)
+                : (op == ADD ? IADD : ISUB));
+        }
+        this.generateStoreSuffix(lhs, desc);
+    }
+
+    @Override
+    public void caseAPlusAssignStmt(APlusAssignStmt node) {
+        this.generateOpAssign(node.getLhs(), ADD, node.getRhs());
+    }
+
+    @Override
+    public void caseAMinusAssignStmt(AMinusAssignStmt node) {
+        this.generateOpAssign(node.getLhs(), SUB, node.getRhs());
+    }
+
+    @Override
+    public void caseAStarAssignStmt(AStarAssignStmt node) {
+        this.generateOpAssign(node.getLhs(), MUL, node.getRhs());
+    }
+
+    @Override
+    public void caseASlashAssignStmt(ASlashAssignStmt node) {
+        this.generateOpAssign(node.getLhs(), DIV, node.getRhs());
+    }
+
+    @Override
+    public void caseAPercAssignStmt(APercAssignStmt node) {
+        this.generateOpAssign(node.getLhs(), MOD, node.getRhs());
+    }
+
+    @Override
+    public void caseAAndAssignStmt(AAndAssignStmt node) {
+        this.generateOpAssign(node.getLhs(), AND, node.getRhs());
+    }
+
+    @Override
+    public void caseAPipeAssignStmt(APipeAssignStmt node) {
+        this.generateOpAssign(node.getLhs(), OR, node.getRhs());
+    }
+
+    @Override
+    public void caseACarotAssignStmt(ACarotAssignStmt node) {
+        this.generateOpAssign(node.getLhs(), XOR, node.getRhs());
+    }
+
+    @Override
+    public void caseAAmpCarotAssignStmt(AAmpCarotAssignStmt node) {
+        this.generateOpAssign(node.getLhs(), AND_NOT, node.getRhs());
+    }
+
+    @Override
+    public void caseALshiftAssignStmt(ALshiftAssignStmt node) {
+        this.generateOpAssign(node.getLhs(), SHL, node.getRhs());
+    }
+
+    @Override
+    public void caseARshiftAssignStmt(ARshiftAssignStmt node) {
+        this.generateOpAssign(node.getLhs(), SHR, node.getRhs());
+    }
+
+    @Override
+    public void caseAIncrStmt(AIncrStmt node) {
+        this.generateOpAssign(node.getExpr(), ADD, null);
+    }
+
+    @Override
+    public void caseADecrStmt(ADecrStmt node) {
+        this.generateOpAssign(node.getExpr(), SUB, null);
+    }
+
+    @Override
+    public void caseAExprStmt(AExprStmt node) {
+        this.generateExpr(node.getExpr());
+
+        String desc = this.getDescriptor(this.typeOf(node.getExpr()));
+        if (!desc.equals("V"))
+            this.method.insn(popOpcode(desc));
+    }
+
+    @Override
+    public void caseAPrintStmt(APrintStmt node) {
+        this.generatePrint(node.getExpr(), false);
+    }
+
+    @Override
+    public void caseAPrintlnStmt(APrintlnStmt node) {
+        this.generatePrint(node.getExpr(), true);
+    }
+
+    /**
+     * Generates a print statement, with the values separated by spaces and followed by a newline
+     * for println.
+     */
+    private void generatePrint(List<PExpr> exprs, boolean ln) {
+        for (int i = 0; i < exprs.size(); i++) {
+            if (ln && i > 0) {
+                this.method.pushString(" ");
+                this.method.methodInsn(INVOKESTATIC, BUILTINS, "print", "(" + STRING_DESC + ")V");
+            }
+
+            this.generateExpr(exprs.get(i));
+            this.method.methodInsn(INVOKESTATIC, BUILTINS, "print",
+                "(" + this.getDescriptor(this.typeOf(exprs.get(i))) + ")V");
+        }
+
+        if (ln) {
+            this.method.pushString("\n");
+            this.method.methodInsn(INVOKESTATIC, BUILTINS, "print", "(" + STRING_DESC + ")V");
+        }
+    }
+
+    @Override
+    public void caseAContinueStmt(AContinueStmt node) {
+        this.method.jumpInsn(GOTO, this.continueLabels.peek());
+    }
+
+    @Override
+    public void caseABreakStmt(ABreakStmt node) {
+        this.method.jumpInsn(GOTO, this.breakLabels.peek());
+    }
+
+    @Override
+    public void caseAReturnStmt(AReturnStmt node) {
+        if (node.getExpr() != null)
+            this.generateValue(node.getExpr());
+        this.method.insn(returnOpcode(this.returnDesc));
+    }
+
+    @Override
+    public void caseAIfElseStmt(AIfElseStmt node) {
+        AConditionCondition condition = (AConditionCondition) node.getCondition();
+        Label elseLabel = new Label(), end = new Label();
+
+        // The scope of the variables of the initial statement covers both blocks.
+        this.enterScope();
+        if (condition.getStmt() != null)
+            condition.getStmt().apply(this);
+
+        this.generateJump(condition.getExpr(), elseLabel, false);
+
+        this.enterScope();
+        this.generateStatements(node.getIfBlock());
+        this.exitScope();
+
+        if (node.getElseBlock().isEmpty())
+            this.method.mark(elseLabel);
+        else {
+            this.method.jumpInsn(GOTO, end);
+            this.method.mark(elseLabel);
+            this.enterScope();
+            this.generateStatements(node.getElseBlock());
+            this.exitScope();
+            this.method.mark(end);
+        }
+
+        this.exitScope();
+    }
+
+    @Override
+    public void caseASwitchStmt(ASwitchStmt node) {
+        this.enterScope();
+        if (node.getStmt() != null)
+            node.getStmt().apply(this);
+
+        // The tag is evaluated once, into a temporary.
+        PExpr tag = node.getExpr();
+        String tagDesc = null;
+        int tagSlot = -1;
+        if (tag != null) {
+            tagDesc = this.getDescriptor(this.typeOf(tag));
+            this.generateExpr(tag);
+            tagSlot = this.method.newLocal(tagDesc);
+            this.method.varInsn(storeOpcode(tagDesc), tagSlot);
+        }
+
+        // Test the cases in order, then run the body of the first that matches.
+        LinkedList<PCaseBlock> blocks = node.getCaseBlock();
+        Label[] bodies = new Label[blocks.size()];
+        Label end = new Label(), defaultLabel = end;
+        for (int i = 0; i < blocks.size(); i++) {
+            bodies[i] = new Label();
+
+            PCaseCondition condition = ((ABlockCaseBlock) blocks.get(i)).getCaseCondition();
+            if (condition instanceof ADefaultCaseCondition) {
+                defaultLabel = bodies[i];
+                continue;
+            }
+
+            for (PExpr e : ((AExprsCaseCondition) condition).getExpr()) {
+                if (tag == null)
+                    this.generateJump(e, bodies[i], true);
+                else {
+                    this.method.varInsn(loadOpcode(tagDesc), tagSlot);
+                    this.generateExpr(e);
+                    generateComparison(this.method, tagDesc, IFEQ, bodies[i], true);
+                }
+            }
+        }
+        this.method.jumpInsn(GOTO, defaultLabel);
+
+        this.breakLabels.push(end);
+        for (int i = 0; i < blocks.size(); i++) {
+            this.method.mark(bodies[i]);
+            this.enterScope();
+            this.generateStatements(((ABlockCaseBlock) blocks.get(i)).getStmt());
+            this.exitScope();
+            if (i < blocks.size() - 1)
+                this.method.jumpInsn(GOTO, end);
+        }
+        this.breakLabels.pop();
+
+        this.method.mark(end);
+        this.exitScope();
+    }
+
+    @Override
+    public void caseALoopStmt(ALoopStmt node) {
+        PExpr condition = node.getExpr();
+        if (condition instanceof AEmptyExpr)
+            condition = null;
+
+        Label body = new Label(), next = new Label(), test = new Label(), end = new Label();
+
+        this.enterScope();
+        if (node.getInit() != null)
+            node.getInit().apply(this);
+
+        // The condition is tested at the bottom of the loop.
+        if (condition != null)
+            this.method.jumpInsn(GOTO, test);
+
+        this.method.mark(body);
+        this.breakLabels.push(end);
+        this.continueLabels.push(next);
+        this.enterScope();
+        this.generateStatements(node.getBlock());
+        this.exitScope();
+        this.continueLabels.pop();
+        this.breakLabels.pop();
+
+        this.method.mark(next);
+        if (node.getEnd() != null)
+            node.getEnd().apply(this);
+
+        if (condition != null) {
+            this.method.mark(test);
+            this.generateJump(condition, body, true);
+        } else
+            this.method.jumpInsn(GOTO, body);
+
+        this.method.mark(end);
+        this.exitScope();
+    }
+
+    @Override
+    public void caseABlockStmt(ABlockStmt node) {
+        this.enterScope();
+        this.generateStatements(node.getStmt());
+        this.exitScope();
+    }
+
+    /**
+     * Expressions
+     *
+     */
+
+    /**
+     * Generates the given expression, pushing its value.
+     *
+     * @param node - Expression
+     */
+    private void generateExpr(PExpr node) {
+        Object value = this.constantFolder.getValue(node);
+
+        if (value instanceof Long)
+            this.method.pushInt((int) (long) (Long) value);
+        else if (value instanceof Double)
+            this.method.pushDouble((Double) value);
+        else if (value instanceof Boolean)
+            this.method.pushInt((Boolean) value ? 1 : 0);
+        else
+            node.apply(this);
+    }
+
+    /**
+     * Generates the given expression as a value to assign, pass or return, i.e. copying it if it's
+     * an array or struct held by a variable, field or element.
+     *
+     * @param node - Expression
+     */
+    private void generateValue(PExpr node) {
+        this.generateExpr(node);
+
+        GoLiteType type = this.typeOf(node);
+        if ((type instanceof ArrayType || type instanceof StructType)
+                && (node instanceof AVariableExpr || node instanceof AFieldExpr
+                    || node instanceof AArrayElemExpr))
+            this.generateCopy(this.method, type);
+    }
+
+    /**
+     * Generates a jump if the given boolean expression has the given value.
+     *
+     * @param node - Boolean expression
+     * @param target - Target of the jump
+     * @param when - Value for which to jump
+     */
+    private void generateJump(PExpr node, Label target, boolean when) {
+        Object value = this.constantFolder.getValue(node);
+
+        if (value instanceof Boolean) {
+            if ((Boolean) value == when)
+                this.method.jumpInsn(GOTO, target);
+        } else if (node instanceof ANotExpr)
+            this.generateJump(((ANotExpr) node).getExpr(), target, !when);
+        else if (node instanceof AAndExpr) {
+            AAndExpr and = (AAndExpr) node;
+            if (when) {
+                Label skip = new Label();
+                this.generateJump(and.getLeft(), skip, false);
+                this.generateJump(and.getRight(), target, true);
+                this.method.mark(skip);
+            } else {
+                this.generateJump(and.getLeft(), target, false);
+                this.generateJump(and.getRight(), target, false);
+            }
+        } else if (node instanceof AOrExpr) {
+            AOrExpr or = (AOrExpr) node;
+            if (when) {
+                this.generateJump(or.getLeft(), target, true);
+                this.generateJump(or.getRight(), target, true);
+            } else {
+                Label skip = new Label();
+                this.generateJump(or.getLeft(), skip, true);
+                this.generateJump(or.getRight(), target, false);
+                this.method.mark(skip);
+            }
+        } else if (node instanceof AEqExpr)
+            this.generateComparison(((AEqExpr) node).getLeft(), ((AEqExpr) node).getRight(), IFEQ,
+                target, when);
+        else if (node instanceof ANeqExpr)
+            this.generateComparison(((ANeqExpr) node).getLeft(), ((ANeqExpr) node).getRight(),
+                IFNE, target, when);
+        else if (node instanceof ALtExpr)
+            this.generateComparison(((ALtExpr) node).getLeft(), ((ALtExpr) node).getRight(), IFLT,
+                target, when);
+        else if (node instanceof ALteExpr)
+            this.generateComparison(((ALteExpr) node).getLeft(), ((ALteExpr) node).getRight(),
+                IFLE, target, when);
+        else if (node instanceof AGtExpr)
+            this.generateComparison(((AGtExpr) node).getLeft(), ((AGtExpr) node).getRight(), IFGT,
+                target, when);
+        else if (node instanceof AGteExpr)
+            this.generateComparison(((AGteExpr) node).getLeft(), ((AGteExpr) node).getRight(),
+                IFGE, target, when);
+        else {
+            this.generateExpr(node);
+            this.method.jumpInsn(when ? IFNE : IFEQ, target);
+        }
+    }
+
+    private void generateComparison(PExpr left, PExpr right, int cond, Label target,
+            boolean when) {
+        this.generateExpr(left);
+        this.generateExpr(right);
+        generateComparison(this.method, this.getDescriptor(this.typeOf(left)), cond, target, when);
+    }
+
+    /**
+     * Generates a boolean expression as a value, through jumps.
+     */
+    private void generateBoolean(PExpr node) {
+        Label no = new Label(), end = new Label();
+
+        this.generateJump(node, no, false);
+        this.method.insn(ICONST_1);
+        this.method.jumpInsn(GOTO, end);
+        this.method.mark(no);
+        this.method.insn(ICONST_0);
+        this.method.mark(end);
+    }
+
+    /**
+     * Generates a binary operator, whose left operand is on the stack.
+     *
+     * @param op - Operator
+     * @param right - Right operand
+     * @param desc - Descriptor of the type of the operands
+     */
+    private void generateOperator(int op, PExpr right, String desc) {
+        boolean d = desc.equals("D");
+
+        // Shifts by constants below 32 are the same in Go and Java.
+        if (op == SHL || op == SHR) {
+            Object count = this.constantFolder.getValue(right);
+            this.generateExpr(right);
+            if (count instanceof Long && (Long) count >= 0 && (Long) count < 32)
+                this.method.insn(op == SHL ? ISHL : ISHR);
+            else
+                this.method.methodInsn(INVOKESTATIC, BUILTINS, op == SHL ? "shl" : "shr",
+                    "(II)I");
+            return;
+        }
+
+        this.generateExpr(right);
+        switch (op) {
+            case ADD:
+                if (desc.equals(STRING_DESC))
+                    this.method.methodInsn(INVOKEVIRTUAL, STRING, "concat",
+                        "(" + STRING_DESC + ")" + STRING_DESC);
+                else
+                    this.method.insn(d ? DADD : IADD);
+                break;
+            case SUB:
+                this.method.insn(d ? DSUB : ISUB);
+                break;
+            case MUL:
+                this.method.insn(d ? DMUL : IMUL);
+                break;
+            case DIV:
+                this.method.insn(d ? DDIV : IDIV);
+                break;
+            case MOD:
+                this.method.insn(IREM);
+                break;
+            case AND:
+                this.method.insn(IAND);
+                break;
+            case OR:
+                this.method.insn(IOR);
+                break;
+            case XOR:
+                this.method.insn(IXOR);
+                break;
+            default:
+                // x &^ y = x & ^y.
+                this.method.insn(ICONST_M1);
+                this.method.insn(IXOR);
+                this.method.insn(IAND);
+        }
+    }
+
+    private void generateBinary(PExpr node, PExpr left, PExpr right, int op) {
+        this.generateExpr(left);
+        this.generateOperator(op, right, this.getDescriptor(this.typeOf(node)));
+    }
+
+    @Override
+    public void caseAAddExpr(AAddExpr node) {
+        this.generateBinary(node, node.getLeft(), node.getRight(), ADD);
+    }
+
+    @Override
+    public void caseASubtractExpr(ASubtractExpr node) {
+        this.generateBinary(node, node.getLeft(), node.getRight(), SUB);
+    }
+
+    @Override
+    public void caseAMultExpr(AMultExpr node) {
+        this.generateBinary(node, node.getLeft(), node.getRight(), MUL);
+    }
+
+    @Override
+    public void caseADivExpr(ADivExpr node) {
+        this.generateBinary(node, node.getLeft(), node.getRight(), DIV);
+    }
+
+    @Override
+    public void caseAModExpr(AModExpr node) {
+        this.generateBinary(node, node.getLeft(), node.getRight(), MOD);
+    }
+
+    @Override
+    public void caseABitAndExpr(ABitAndExpr node) {
+        this.generateBinary(node, node.getLeft(), node.getRight(), AND);
+    }
+
+    @Override
+    public void caseABitOrExpr(ABitOrExpr node) {
+        this.generateBinary(node, node.getLeft(), node.getRight(), OR);
+    }
+
+    @Override
+    public void caseABitXorExpr(ABitXorExpr node) {
+        this.generateBinary(node, node.getLeft(), node.getRight(), XOR);
+    }
+
+    @Override
+    public void caseABitClearExpr(ABitClearExpr node) {
+        this.generateBinary(node, node.getLeft(), node.getRight(), AND_NOT);
+    }
+
+    @Override
+    public void caseABitLshiftExpr(ABitLshiftExpr node) {
+        this.generateBinary(node, node.getLeft(), node.getRight(), SHL);
+    }
+
+    @Override
+    public void caseABitRshiftExpr(ABitRshiftExpr node) {
+        this.generateBinary(node, node.getLeft(), node.getRight(), SHR);
+    }
+
+    @Override
+    public void caseAPosExpr(APosExpr node) {
+        this.generateExpr(node.getExpr());
+    }
+
+    @Override
+    public void caseANegExpr(ANegExpr node) {
+        this.generateExpr(node.getExpr());
+        this.method.insn(this.getDescriptor(this.typeOf(node)).equals("D") ? DNEG : INEG);
+    }
+
+    @Override
+    public void caseABitCompExpr(ABitCompExpr node) {
+        this.generateExpr(node.getExpr());
+        this.method.insn(ICONST_M1);
+        this.method.insn(IXOR);
+    }
+
+    @Override
+    public void caseANotExpr(ANotExpr node) {
+        this.generateExpr(node.getExpr());
+        this.method.insn(ICONST_1);
+        this.method.insn(IXOR);
+    }
+
+    @Override
+    public void caseAEqExpr(AEqExpr node) {
+        this.generateBoolean(node);
+    }
+
+    @Override
+    public void caseANeqExpr(ANeqExpr node) {
+        this.generateBoolean(node);
+    }
+
+    @Override
+    public void caseALtExpr(ALtExpr node) {
+        this.generateBoolean(node);
+    }
+
+    @Override
+    public void caseALteExpr(ALteExpr node) {
+        this.generateBoolean(node);
+    }
+
+    @Override
+    public void caseAGtExpr(AGtExpr node) {
+        this.generateBoolean(node);
+    }
+
+    @Override
+    public void caseAGteExpr(AGteExpr node) {
+        this.generateBoolean(node);
+    }
+
+    @Override
+    public void caseAAndExpr(AAndExpr node) {
+        this.generateBoolean(node);
+    }
+
+    @Override
+    public void caseAOrExpr(AOrExpr node) {
+        this.generateBoolean(node);
+    }
+
+    @Override
+    public void caseAFuncCallExpr(AFuncCallExpr node) {
+        String name = node.getId().getText();
+        Symbol symbol = this.symbolTable.getSymbol(name);
+
+        // Conversion to a type alias.
+        if (symbol instanceof TypeAliasSymbol) {
+            PExpr arg = node.getExpr().getFirst();
+            this.generateExpr(arg);
+            this.generateConversion(this.getDescriptor(this.typeOf(arg)),
+                this.getDescriptor(this.typeOf(node)));
+            return;
+        }
+
+        for (PExpr e : node.getExpr())
+            this.generateValue(e);
+        this.method.methodInsn(INVOKESTATIC, MAIN_CLASS, getMethodName(name),
+            this.getDescriptor((FunctionSymbol) symbol));
+    }
+
+    @Override
+    public void caseAAppendExpr(AAppendExpr node) {
+        String desc = this.getDescriptor(this.typeOf(node.getExpr()));
+
+        this.generateLoad(this.getVariable(node.getId().getText()));
+        this.generateValue(node.getExpr());
+        this.method.methodInsn(INVOKESTATIC, SLICE, "append" + getSliceSuffix(desc),
+            "(L" + SLICE + ";" + getSliceElemDesc(desc) + ")L" + SLICE + ";");
+    }
+
+    @Override
+    public void caseATypeCastExpr(ATypeCastExpr node) {
+        this.generateExpr(node.getExpr());
+        this.generateConversion(this.getDescriptor(this.typeOf(node.getExpr())),
+            this.getDescriptor(this.typeOf(node)));
+    }
+
+    /**
+     * Generates a conversion of the value on top of the stack between the given primitive types.
+     */
+    private void generateConversion(String from, String to) {
+        if (from.equals(to))
+            return;
+
+        if (to.equals("D"))
+            this.method.insn(I2D);
+        else if (to.equals("I")) {
+            // Out of range floats wrap around (rather than saturate) like with the Python backend.
+            if (from.equals("D"))
+                this.method.methodInsn(INVOKESTATIC, BUILTINS, "toInt", "(D)I");
+        } else {
+            // To bool, true if non-zero.
+            if (from.equals("D")) {
+                this.method.insn(DCONST_0);
+                this.method.insn(DCMPL);
+            }
+
+            Label zero = new Label(), end = new Label();
+            this.method.jumpInsn(IFEQ, zero);
+            this.method.insn(ICONST_1);
+            this.method.jumpInsn(GOTO, end);
+            this.method.mark(zero);
+            this.method.insn(ICONST_0);
+            this.method.mark(end);
+        }
+    }
+
+    @Override
+    public void caseAArrayElemExpr(AArrayElemExpr node) {
+        this.generateExpr(node.getArray());
+        this.generateExpr(node.getIndex());
+        this.generateElementLoad(node, this.getDescriptor(this.typeOf(node)));
+    }
+
+    /**
+     * Generates a load of the given element, whose array (or slice) and index are on the stack.
+     */
+    private void generateElementLoad(AArrayElemExpr node, String desc) {
+        if (this.typeOf(node.getArray()) instanceof ArrayType)
+            this.method.insn(arrayLoadOpcode(desc));
+        else {
+            this.method.methodInsn(INVOKESTATIC, SLICE, "get" + getSliceSuffix(desc),
+                "(L" + SLICE + ";I)" + getSliceElemDesc(desc));
+            if (isReference(desc))
+                this.method.typeInsn(CHECKCAST, this.getInternalName(this.typeOf(node)));
+        }
+    }
+
+    @Override
+    public void caseAFieldExpr(AFieldExpr node) {
+        this.generateExpr(node.getExpr());
+        this.method.fieldInsn(GETFIELD,
+            this.getStructClass((StructType) this.typeOf(node.getExpr())),
+            node.getId().getText(), this.getDescriptor(this.typeOf(node)));
+    }
+
+    @Override
+    public void caseAVariableExpr(AVariableExpr node) {
+        this.generateLoad(this.getVariable(node.getId().getText()));
+    }
+
+    /**
+     * Literals
+     *
+     * Numeric literals are normally folded into constants. Out of range integers wrap around.
+     */
+
+    /**
+     * Returns the value of the given integer literal.
+     */
+    private BigInteger getIntLit(PExpr node) {
+        if (node instanceof AOctLitExpr) {
+            String text = ((AOctLitExpr) node).getOctLit().getText();
+            return new BigInteger(text.length() > 1 ? text.substring(1) : "0", 8);
+        } else if (node instanceof AHexLitExpr)
+            return new BigInteger(((AHexLitExpr) node).getHexLit().getText().substring(2), 16);
+        else
+            return new BigInteger(((AIntLitExpr) node).getIntLit().getText());
+    }
+
+    @Override
+    public void caseAIntLitExpr(AIntLitExpr node) {
+        this.method.pushInt(this.getIntLit(node).intValue());
+    }
+
+    @Override
+    public void caseAOctLitExpr(AOctLitExpr node) {
+        this.method.pushInt(this.getIntLit(node).intValue());
+    }
+
+    @Override
+    public void caseAHexLitExpr(AHexLitExpr node) {
+        this.method.pushInt(this.getIntLit(node).intValue());
+    }
+
+    @Override
+    public void caseAFloatLitExpr(AFloatLitExpr node) {
+        this.method.pushDouble(Double.parseDouble(node.getFloatLit().getText()));
+    }
+
+    @Override
+    public void caseARuneLitExpr(ARuneLitExpr node) {
+        this.method.pushInt(ConstantFolder.getRuneValue(node.getRuneLit().getText()));
+    }
+
+    @Override
+    public void caseAInterpretedStringLitExpr(AInterpretedStringLitExpr node) {
+        String text = node.getInterpretedStringLit().getText();
+        StringBuilder s = new StringBuilder();
+
+        for (int i = 1; i < text.length() - 1; i++) {
+            char c = text.charAt(i);
+            if (c != '\\') {
+                s.append(c);
+                continue;
+            }
+
+            c = text.charAt(++i);
+            switch (c) {
+                case 'a': s.append('\u0007'); break;
+                case 'b': s.append('\b'); break;
+                case 'f': s.append('\f'); break;
+                case 'n': s.append('\n'); break;
+                case 'r': s.append('\r'); break;
+                case 't': s.append('\t'); break;
+                case 'v': s.append('\u000b'); break;
+                default: s.append(c);
+            }
+        }
+
+        this.method.pushString(s.toString());
+    }
+
+    @Override
+    public void caseARawStringLitExpr(ARawStringLitExpr node) {
+        String text = node.getRawStringLit().getText();
+        this.method.pushString(text.substring(1, text.length() - 1));
+    }
+
+}
@@ -0,0 +1,232 @@
+package golite.jvm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Class file writer.
+ *
+ * Builds the constant pool, fields and methods of a class and serializes them in the class file
+ * format. Classes are written with version 49.0 (Java 5), which predates stack map frames, so that
+ * the JVM infers the types of the stack and locals itself and methods only need their maximum stack
+ * size and number of locals.
+ */
+public class ClassWriter {
+
+    /** Class file version. */
+    private static final int MAJOR_VERSION = 49;
+
+    /** Constant pool tags. */
+    private static final int UTF8 = 1, INTEGER = 3, DOUBLE = 6, CLASS = 7, STRING = 8, FIELD = 9,
+        METHOD = 10, INTERFACE_METHOD = 11, NAME_AND_TYPE = 12;
+
+    /** Access flags. */
+    private final int access;
+    /** Internal name of the class. */
+    private final String name;
+    /** Internal name of the superclass. */
+    private final String superName;
+    /** Internal names of the implemented interfaces. */
+    private final String[] interfaces;
+
+    /** Serialized constant pool entries. */
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(this.pool);
+    /** Indices of the constant pool entries, keyed by their serialization. */
+    private final HashMap<String, Integer> poolIndices = new HashMap<String, Integer>();
+    /** Number of constant pool slots in use, plus one. */
+    private int poolSize = 1;
+
+    /** Serialized fields. */
+    private final ArrayList<byte[]> fields = new ArrayList<byte[]>();
+    /** Methods. */
+    private final ArrayList<MethodWriter> methods = new ArrayList<MethodWriter>();
+
+    /**
+     * Constructor.
+     *
+     * @param access - Access flags
+     * @param name - Internal name of the class (e.g. 'Main')
+     * @param superName - Internal name of the superclass
+     * @param interfaces - Internal names of the implemented interfaces
+     */
+    public ClassWriter(int access, String name, String superName, String... interfaces) {
+        this.access = access;
+        this.name = name;
+        this.superName = superName;
+        this.interfaces = interfaces;
+    }
+
+    /**
+     * Getter.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the index of the constant pool entry with the given tag and contents, adding the entry
+     * if it's new.
+     *
+     * @param key - Key of the entry
+     * @param tag - Tag
+     * @param a - First (or only) operand, an index or a value depending on the tag
+     * @param b - Second operand (for fields, methods and name and types)
+     * @return Index
+     */
+    private int newEntry(String key, int tag, Object a, int b) {
+        Integer index = this.poolIndices.get(key);
+        if (index != null)
+            return index;
+
+        try {
+            this.poolOut.writeByte(tag);
+            if (tag == UTF8)
+                this.poolOut.writeUTF((String) a);
+            else if (tag == INTEGER)
+                this.poolOut.writeInt((Integer) a);
+            else if (tag == DOUBLE)
+                this.poolOut.writeDouble((Double) a);
+            else {
+                this.poolOut.writeShort((Integer) a);
+                if (tag != CLASS && tag != STRING)
+                    this.poolOut.writeShort(b);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        index = this.poolSize;
+        // Doubles take up two slots.
+        this.poolSize += (tag == DOUBLE) ? 2 : 1;
+        if (this.poolSize > 0xFFFF)
+            throw new IllegalStateException("Too many constants in class " + this.name);
+
+        this.poolIndices.put(key, index);
+        return index;
+    }
+
+    public int newUTF8(String s) {
+        return this.newEntry("U" + s, UTF8, s, 0);
+    }
+
+    public int newInteger(int x) {
+        return this.newEntry("I" + x, INTEGER, x, 0);
+    }
+
+    public int newDouble(double x) {
+        // Keyed by the bits, to tell 0.0 from -0.0.
+        return this.newEntry("D" + Double.doubleToRawLongBits(x), DOUBLE, x, 0);
+    }
+
+    public int newClass(String internalName) {
+        return this.newEntry("C" + internalName, CLASS, this.newUTF8(internalName), 0);
+    }
+
+    public int newString(String s) {
+        return this.newEntry("S" + s, STRING, this.newUTF8(s), 0);
+    }
+
+    public int newNameAndType(String name, String desc) {
+        return this.newEntry("N" + name + " " + desc, NAME_AND_TYPE, this.newUTF8(name),
+            this.newUTF8(desc));
+    }
+
+    public int newField(String owner, String name, String desc) {
+        return this.newEntry("F" + owner + "." + name + " " + desc, FIELD, this.newClass(owner),
+            this.newNameAndType(name, desc));
+    }
+
+    public int newMethod(String owner, String name, String desc, boolean isInterface) {
+        return this.newEntry((isInterface ? "J" : "M") + owner + "." + name + desc,
+            isInterface ? INTERFACE_METHOD : METHOD, this.newClass(owner),
+            this.newNameAndType(name, desc));
+    }
+
+    /**
+     * Adds a field.
+     *
+     * @param access - Access flags
+     * @param name - Name
+     * @param desc - Type descriptor
+     */
+    public void addField(int access, String name, String desc) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            out.writeShort(access);
+            out.writeShort(this.newUTF8(name));
+            out.writeShort(this.newUTF8(desc));
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        this.fields.add(bytes.toByteArray());
+    }
+
+    /**
+     * Adds a method, whose code is written through the returned method writer.
+     *
+     * @param access - Access flags
+     * @param name - Name
+     * @param desc - Method descriptor
+     * @return Method writer
+     */
+    public MethodWriter addMethod(int access, String name, String desc) {
+        MethodWriter method = new MethodWriter(this, access, name, desc);
+        this.methods.add(method);
+        return method;
+    }
+
+    /**
+     * Serializes the class in the class file format.
+     *
+     * @return Class file bytes
+     */
+    public byte[] toByteArray() {
+        // Serialize the methods first, since they may add constants.
+        ArrayList<byte[]> methodBytes = new ArrayList<byte[]>();
+        for (MethodWriter m : this.methods)
+            methodBytes.add(m.toByteArray());
+
+        int thisIndex = this.newClass(this.name);
+        int superIndex = this.newClass(this.superName);
+        int[] interfaceIndices = new int[this.interfaces.length];
+        for (int i = 0; i < this.interfaces.length; i++)
+            interfaceIndices[i] = this.newClass(this.interfaces[i]);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(this.poolSize);
+            this.pool.writeTo(out);
+            out.writeShort(this.access);
+            out.writeShort(thisIndex);
+            out.writeShort(superIndex);
+            out.writeShort(interfaceIndices.length);
+            for (int i : interfaceIndices)
+                out.writeShort(i);
+            out.writeShort(this.fields.size());
+            for (byte[] f : this.fields)
+                out.write(f);
+            out.writeShort(methodBytes.size());
+            for (byte[] m : methodBytes)
+                out.write(m);
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+}
@@ -0,0 +1,63 @@
+package golite.jvm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Packages generated class files, along with the runtime classes they use, into an executable jar
+ * (run with 'java -jar').
+ */
+public final class JarWriter {
+
+    private JarWriter() {}
+
+    /**
+     * Writes an executable jar holding the given class files and the runtime classes, whose main
+     * class is the generated main class.
+     *
+     * @param classFiles - Class file bytes, by internal class name
+     * @param out - Stream to write the jar to (closed when done)
+     * @throws IOException
+     */
+    public static void write(Map<String, byte[]> classFiles, OutputStream out) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS,
+            BytecodeGenerator.MAIN_CLASS.replace('/', '.'));
+
+        JarOutputStream jar = new JarOutputStream(out, manifest);
+        try {
+            for (Map.Entry<String, byte[]> e : classFiles.entrySet()) {
+                jar.putNextEntry(new JarEntry(e.getKey() + ".class"));
+                jar.write(e.getValue());
+                jar.closeEntry();
+            }
+
+            // The runtime classes are copied from the compiler's own classpath.
+            for (String name : BytecodeGenerator.RUNTIME_CLASSES) {
+                InputStream in = JarWriter.class.getResourceAsStream("/" + name + ".class");
+                if (in == null)
+                    throw new IOException("Runtime class " + name + " not found");
+
+                jar.putNextEntry(new JarEntry(name + ".class"));
+                try {
+                    byte[] buffer = new byte[8192];
+                    for (int n; (n = in.read(buffer)) > 0; )
+                        jar.write(buffer, 0, n);
+                } finally {
+                    in.close();
+                }
+                jar.closeEntry();
+            }
+        } finally {
+            jar.close();
+        }
+    }
+
+}
@@ -0,0 +1,488 @@
+package golite.jvm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static golite.jvm.Opcodes.*;
+
+/**
+ * Method writer.
+ *
+ * Assembles the bytecode of a method, keeping track of the stack depth to compute the maximum stack
+ * size, allocating local variable slots, and resolving the offsets of jumps to labels once they're
+ * placed.
+ */
+public class MethodWriter {
+
+    /**
+     * Position in the code of a method, which jumps can target before it's placed.
+     */
+    public static class Label {
+
+        /** Offset in the code, or -1 if the label isn't placed yet. */
+        private int position = -1;
+        /** Stack depth at the label, or -1 if it isn't known yet. */
+        private int stack = -1;
+        /** Jumps to the label before it's placed, as pairs of instruction and operand offsets. */
+        private ArrayList<int[]> jumps = new ArrayList<int[]>();
+
+    }
+
+    /** Opcode of the wide prefix. */
+    private static final int WIDE = 196;
+
+    /** Stack effect of the instructions without operands, or MIN_VALUE for the others. */
+    private static final int[] STACK_EFFECTS = new int[256];
+
+    static {
+        Arrays.fill(STACK_EFFECTS, Integer.MIN_VALUE);
+
+        for (int op : new int[] { ACONST_NULL, ICONST_M1, ICONST_0, ICONST_1, ICONST_0 + 2,
+                ICONST_0 + 3, ICONST_0 + 4, ICONST_0 + 5, DUP, DUP_X1, DUP_X2, I2D })
+            STACK_EFFECTS[op] = 1;
+        for (int op : new int[] { DCONST_0, DCONST_1, DUP2, DUP2_X1, DUP2_X2 })
+            STACK_EFFECTS[op] = 2;
+        for (int op : new int[] { SWAP, DALOAD, INEG, DNEG, ARRAYLENGTH, D2L, RETURN })
+            STACK_EFFECTS[op] = 0;
+        for (int op : new int[] { IALOAD, AALOAD, BALOAD, POP, IADD, ISUB, IMUL, IDIV, IREM, ISHL,
+                ISHR, IAND, IOR, IXOR, D2I, L2I, IRETURN, ARETURN, ATHROW })
+            STACK_EFFECTS[op] = -1;
+        for (int op : new int[] { POP2, DADD, DSUB, DMUL, DDIV, DRETURN })
+            STACK_EFFECTS[op] = -2;
+        for (int op : new int[] { IASTORE, AASTORE, BASTORE, DCMPL, DCMPG })
+            STACK_EFFECTS[op] = -3;
+        STACK_EFFECTS[DASTORE] = -4;
+    }
+
+    /** Class of the method. */
+    private final ClassWriter owner;
+    /** Access flags. */
+    private final int access;
+    /** Name. */
+    private final String name;
+    /** Descriptor. */
+    private final String desc;
+
+    /** Code. */
+    private byte[] code = new byte[256];
+    /** Length of the code. */
+    private int length;
+    /** Current and maximum stack depth. */
+    private int stack, maxStack;
+    /** Number of local variable slots in use, and the maximum. */
+    private int locals, maxLocals;
+    /** Exception handlers, as triples of start, end and handler labels. */
+    private ArrayList<Label[]> handlers = new ArrayList<Label[]>();
+
+    /**
+     * Constructor (see ClassWriter.addMethod).
+     */
+    MethodWriter(ClassWriter owner, int access, String name, String desc) {
+        this.owner = owner;
+        this.access = access;
+        this.name = name;
+        this.desc = desc;
+
+        this.locals = getArgumentsSize(desc) + ((access & ACC_STATIC) == 0 ? 1 : 0);
+        this.maxLocals = this.locals;
+    }
+
+    /**
+     * Returns the number of slots taken by a value of the type with the given descriptor.
+     *
+     * @param desc - Type descriptor
+     * @return 2 for doubles and longs, 0 for void, 1 otherwise
+     */
+    public static int getSize(String desc) {
+        char c = desc.charAt(0);
+        return (c == 'D' || c == 'J') ? 2 : (c == 'V') ? 0 : 1;
+    }
+
+    /**
+     * Returns the number of slots taken by the arguments of a method with the given descriptor.
+     */
+    private static int getArgumentsSize(String desc) {
+        int size = 0;
+        int i = 1;
+        while (desc.charAt(i) != ')') {
+            char c = desc.charAt(i);
+            if (c == 'D' || c == 'J')
+                size += 2;
+            else {
+                size++;
+                while (desc.charAt(i) == '[')
+                    i++;
+                if (desc.charAt(i) == 'L')
+                    i = desc.indexOf(';', i);
+            }
+            i++;
+        }
+
+        return size;
+    }
+
+    /**
+     * Getter.
+     */
+    public ClassWriter getOwner() {
+        return this.owner;
+    }
+
+    /* Local variables. */
+
+    /**
+     * Allocates a local variable slot for a value of the type with the given descriptor.
+     *
+     * @param desc - Type descriptor
+     * @return Slot
+     */
+    public int newLocal(String desc) {
+        int slot = this.locals;
+        this.locals += getSize(desc);
+        this.maxLocals = Math.max(this.maxLocals, this.locals);
+        return slot;
+    }
+
+    /**
+     * Returns the number of local variable slots in use, so that the slots allocated after can be
+     * freed with setLocals (e.g. at the end of a block).
+     */
+    public int getLocals() {
+        return this.locals;
+    }
+
+    /**
+     * Setter.
+     */
+    public void setLocals(int locals) {
+        this.locals = locals;
+    }
+
+    /* Instructions. */
+
+    private void put(int b) {
+        if (this.length == this.code.length)
+            this.code = Arrays.copyOf(this.code, 2 * this.code.length);
+        this.code[this.length++] = (byte) b;
+    }
+
+    private void put2(int s) {
+        this.put(s >> 8);
+        this.put(s);
+    }
+
+    private void adjustStack(int delta) {
+        this.stack += delta;
+        this.maxStack = Math.max(this.maxStack, this.stack);
+    }
+
+    /**
+     * Writes an instruction without operands.
+     *
+     * @param opcode - Opcode
+     */
+    public void insn(int opcode) {
+        int delta = STACK_EFFECTS[opcode];
+        if (delta == Integer.MIN_VALUE)
+            throw new IllegalArgumentException("Instruction " + opcode + " takes operands");
+
+        this.put(opcode);
+        this.adjustStack(delta);
+    }
+
+    /**
+     * Pushes the given int constant.
+     *
+     * @param x - Constant
+     */
+    public void pushInt(int x) {
+        if (x >= -1 && x <= 5)
+            this.insn(ICONST_0 + x);
+        else if (x >= Byte.MIN_VALUE && x <= Byte.MAX_VALUE) {
+            this.put(BIPUSH);
+            this.put(x);
+            this.adjustStack(1);
+        } else if (x >= Short.MIN_VALUE && x <= Short.MAX_VALUE) {
+            this.put(SIPUSH);
+            this.put2(x);
+            this.adjustStack(1);
+        } else
+            this.ldc(this.owner.newInteger(x), 1);
+    }
+
+    /**
+     * Pushes the given double constant.
+     *
+     * @param x - Constant
+     */
+    public void pushDouble(double x) {
+        if (Double.doubleToRawLongBits(x) == 0L)
+            this.insn(DCONST_0);
+        else if (x == 1.0)
+            this.insn(DCONST_1);
+        else {
+            this.put(LDC2_W);
+            this.put2(this.owner.newDouble(x));
+            this.adjustStack(2);
+        }
+    }
+
+    /**
+     * Pushes the given string constant.
+     *
+     * @param s - Constant
+     */
+    public void pushString(String s) {
+        this.ldc(this.owner.newString(s), 1);
+    }
+
+    private void ldc(int index, int size) {
+        if (index < 256) {
+            this.put(LDC);
+            this.put(index);
+        } else {
+            this.put(LDC_W);
+            this.put2(index);
+        }
+        this.adjustStack(size);
+    }
+
+    /**
+     * Writes a load or store of a local variable.
+     *
+     * @param opcode - ILOAD, DLOAD, ALOAD, ISTORE, DSTORE or ASTORE
+     * @param slot - Slot of the variable
+     */
+    public void varInsn(int opcode, int slot) {
+        if (slot > 255) {
+            this.put(WIDE);
+            this.put(opcode);
+            this.put2(slot);
+        } else {
+            this.put(opcode);
+            this.put(slot);
+        }
+
+        int size = (opcode == DLOAD || opcode == DSTORE) ? 2 : 1;
+        this.adjustStack(opcode < ISTORE ? size : -size);
+    }
+
+    /**
+     * Writes an increment of an int local variable.
+     *
+     * @param slot - Slot of the variable
+     * @param increment - Increment, between -32768 and 32767
+     */
+    public void iinc(int slot, int increment) {
+        if (slot > 255 || increment < Byte.MIN_VALUE || increment > Byte.MAX_VALUE) {
+            this.put(WIDE);
+            this.put(IINC);
+            this.put2(slot);
+            this.put2(increment);
+        } else {
+            this.put(IINC);
+            this.put(slot);
+            this.put(increment);
+        }
+    }
+
+    /**
+     * Writes an instruction taking a class operand.
+     *
+     * @param opcode - NEW, ANEWARRAY, CHECKCAST or INSTANCEOF
+     * @param type - Internal name of the class (or descriptor of the array type)
+     */
+    public void typeInsn(int opcode, String type) {
+        this.put(opcode);
+        this.put2(this.owner.newClass(type));
+        if (opcode == NEW)
+            this.adjustStack(1);
+    }
+
+    /**
+     * Writes a NEWARRAY instruction.
+     *
+     * @param type - Array type code (T_INT, T_DOUBLE or T_BOOLEAN)
+     */
+    public void newArray(int type) {
+        this.put(NEWARRAY);
+        this.put(type);
+    }
+
+    /**
+     * Writes a MULTIANEWARRAY instruction.
+     *
+     * @param desc - Descriptor of the array type
+     * @param dimensions - Number of dimensions to create
+     */
+    public void multiANewArray(String desc, int dimensions) {
+        this.put(MULTIANEWARRAY);
+        this.put2(this.owner.newClass(desc));
+        this.put(dimensions);
+        this.adjustStack(1 - dimensions);
+    }
+
+    /**
+     * Writes a field access.
+     *
+     * @param opcode - GETSTATIC, PUTSTATIC, GETFIELD or PUTFIELD
+     * @param owner - Internal name of the class of the field
+     * @param name - Name of the field
+     * @param desc - Type descriptor of the field
+     */
+    public void fieldInsn(int opcode, String owner, String name, String desc) {
+        this.put(opcode);
+        this.put2(this.owner.newField(owner, name, desc));
+
+        int size = getSize(desc);
+        if (opcode == GETSTATIC)
+            this.adjustStack(size);
+        else if (opcode == PUTSTATIC)
+            this.adjustStack(-size);
+        else if (opcode == GETFIELD)
+            this.adjustStack(size - 1);
+        else
+            this.adjustStack(-size - 1);
+    }
+
+    /**
+     * Writes a method invocation.
+     *
+     * @param opcode - INVOKEVIRTUAL, INVOKESPECIAL, INVOKESTATIC or INVOKEINTERFACE
+     * @param owner - Internal name of the class of the method
+     * @param name - Name of the method
+     * @param desc - Method descriptor
+     */
+    public void methodInsn(int opcode, String owner, String name, String desc) {
+        int arguments = getArgumentsSize(desc) + (opcode == INVOKESTATIC ? 0 : 1);
+
+        this.put(opcode);
+        this.put2(this.owner.newMethod(owner, name, desc, opcode == INVOKEINTERFACE));
+        if (opcode == INVOKEINTERFACE) {
+            this.put(arguments);
+            this.put(0);
+        }
+
+        this.adjustStack(getSize(desc.substring(desc.indexOf(')') + 1)) - arguments);
+    }
+
+    /**
+     * Writes a jump.
+     *
+     * @param opcode - GOTO, or a conditional jump
+     * @param label - Target
+     */
+    public void jumpInsn(int opcode, Label label) {
+        if (opcode == GOTO)
+            this.adjustStack(0);
+        else if (opcode >= IF_ICMPEQ && opcode <= IF_ACMPNE)
+            this.adjustStack(-2);
+        else
+            this.adjustStack(-1);
+
+        int position = this.length;
+        this.put(opcode);
+        if (label.position >= 0)
+            this.put2(this.getOffset(position, label.position));
+        else {
+            label.jumps.add(new int[] { position, this.length });
+            this.put2(0);
+        }
+
+        if (label.stack < 0)
+            label.stack = this.stack;
+    }
+
+    /**
+     * Places the given label at the current position.
+     *
+     * @param label - Label
+     */
+    public void mark(Label label) {
+        label.position = this.length;
+        for (int[] jump : label.jumps) {
+            int offset = this.getOffset(jump[0], label.position);
+            this.code[jump[1]] = (byte) (offset >> 8);
+            this.code[jump[1] + 1] = (byte) offset;
+        }
+        label.jumps.clear();
+
+        if (label.stack >= 0)
+            this.stack = label.stack;
+        else
+            label.stack = this.stack;
+    }
+
+    /**
+     * Places the given label at the current position as the entry of an exception handler, where
+     * the stack holds the exception.
+     *
+     * @param label - Label
+     */
+    public void markHandler(Label label) {
+        label.stack = 1;
+        this.mark(label);
+        this.maxStack = Math.max(this.maxStack, 1);
+    }
+
+    /**
+     * Adds an exception handler catching any exception thrown between the given labels.
+     *
+     * @param start - Start of the protected code (inclusive)
+     * @param end - End of the protected code (exclusive)
+     * @param handler - Handler
+     */
+    public void addHandler(Label start, Label end, Label handler) {
+        this.handlers.add(new Label[] { start, end, handler });
+    }
+
+    private int getOffset(int from, int to) {
+        int offset = to - from;
+        if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE)
+            throw new IllegalStateException("Jump too far in method " + this.name);
+        return offset;
+    }
+
+    /**
+     * Serializes the method in the class file format.
+     *
+     * @return Method bytes
+     */
+    byte[] toByteArray() {
+        if (this.length > 0xFFFF)
+            throw new IllegalStateException("Code too large in method " + this.name);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            out.writeShort(this.access);
+            out.writeShort(this.owner.newUTF8(this.name));
+            out.writeShort(this.owner.newUTF8(this.desc));
+            out.writeShort(1);
+
+            out.writeShort(this.owner.newUTF8("Code"));
+            out.writeInt(12 + this.length + 8 * this.handlers.size());
+            out.writeShort(this.maxStack);
+            out.writeShort(this.maxLocals);
+            out.writeInt(this.length);
+            out.write(this.code, 0, this.length);
+            out.writeShort(this.handlers.size());
+            for (Label[] h : this.handlers) {
+                out.writeShort(h[0].position);
+                out.writeShort(h[1].position);
+                out.writeShort(h[2].position);
+                out.writeShort(0);
+            }
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+}
@@ -0,0 +1,134 @@
+package golite.jvm;
+
+/**
+ * JVM opcodes, access flags and array type codes used by the bytecode generator.
+ */
+public final class Opcodes {
+
+    private Opcodes() {}
+
+    // Access flags.
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_PRIVATE = 0x0002;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_FINAL = 0x0010;
+    public static final int ACC_SUPER = 0x0020;
+
+    // Array type codes of newarray.
+    public static final int T_BOOLEAN = 4;
+    public static final int T_DOUBLE = 7;
+    public static final int T_INT = 10;
+
+    // Constants.
+    public static final int ACONST_NULL = 1;
+    public static final int ICONST_M1 = 2;
+    public static final int ICONST_0 = 3;
+    public static final int ICONST_1 = 4;
+    public static final int DCONST_0 = 14;
+    public static final int DCONST_1 = 15;
+    public static final int BIPUSH = 16;
+    public static final int SIPUSH = 17;
+    public static final int LDC = 18;
+    public static final int LDC_W = 19;
+    public static final int LDC2_W = 20;
+
+    // Loads and stores.
+    public static final int ILOAD = 21;
+    public static final int DLOAD = 24;
+    public static final int ALOAD = 25;
+    public static final int IALOAD = 46;
+    public static final int DALOAD = 49;
+    public static final int AALOAD = 50;
+    public static final int BALOAD = 51;
+    public static final int ISTORE = 54;
+    public static final int DSTORE = 57;
+    public static final int ASTORE = 58;
+    public static final int IASTORE = 79;
+    public static final int DASTORE = 82;
+    public static final int AASTORE = 83;
+    public static final int BASTORE = 84;
+
+    // Stack.
+    public static final int POP = 87;
+    public static final int POP2 = 88;
+    public static final int DUP = 89;
+    public static final int DUP_X1 = 90;
+    public static final int DUP_X2 = 91;
+    public static final int DUP2 = 92;
+    public static final int DUP2_X1 = 93;
+    public static final int DUP2_X2 = 94;
+    public static final int SWAP = 95;
+
+    // Arithmetic.
+    public static final int IADD = 96;
+    public static final int DADD = 99;
+    public static final int ISUB = 100;
+    public static final int DSUB = 103;
+    public static final int IMUL = 104;
+    public static final int DMUL = 107;
+    public static final int IDIV = 108;
+    public static final int DDIV = 111;
+    public static final int IREM = 112;
+    public static final int INEG = 116;
+    public static final int DNEG = 119;
+    public static final int ISHL = 120;
+    public static final int ISHR = 122;
+    public static final int IAND = 126;
+    public static final int IOR = 128;
+    public static final int IXOR = 130;
+    public static final int IINC = 132;
+
+    // Conversions.
+    public static final int I2D = 135;
+    public static final int L2I = 136;
+    public static final int D2I = 142;
+    public static final int D2L = 143;
+
+    // Comparisons and jumps.
+    public static final int DCMPL = 151;
+    public static final int DCMPG = 152;
+    public static final int IFEQ = 153;
+    public static final int IFNE = 154;
+    public static final int IFLT = 155;
+    public static final int IFGE = 156;
+    public static final int IFGT = 157;
+    public static final int IFLE = 158;
+    public static final int IF_ICMPEQ = 159;
+    public static final int IF_ICMPNE = 160;
+    public static final int IF_ICMPLT = 161;
+    public static final int IF_ICMPGE = 162;
+    public static final int IF_ICMPGT = 163;
+    public static final int IF_ICMPLE = 164;
+    public static final int IF_ACMPEQ = 165;
+    public static final int IF_ACMPNE = 166;
+    public static final int GOTO = 167;
+
+    // Returns.
+    public static final int IRETURN = 172;
+    public static final int DRETURN = 175;
+    public static final int ARETURN = 176;
+    public static final int RETURN = 177;
+
+    // Fields and methods.
+    public static final int GETSTATIC = 178;
+    public static final int PUTSTATIC = 179;
+    public static final int GETFIELD = 180;
+    public static final int PUTFIELD = 181;
+    public static final int INVOKEVIRTUAL = 182;
+    public static final int INVOKESPECIAL = 183;
+    public static final int INVOKESTATIC = 184;
+    public static final int INVOKEINTERFACE = 185;
+
+    // Objects and arrays.
+    public static final int NEW = 187;
+    public static final int NEWARRAY = 188;
+    public static final int ANEWARRAY = 189;
+    public static final int ARRAYLENGTH = 190;
+    public static final int ATHROW = 191;
+    public static final int CHECKCAST = 192;
+    public static final int INSTANCEOF = 193;
+    public static final int MULTIANEWARRAY = 197;
+    public static final int IFNULL = 198;
+    public static final int IFNONNULL = 199;
+
+}
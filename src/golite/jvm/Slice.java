@@ -0,0 +1,132 @@
+package golite.jvm;
+
+import java.util.Arrays;
+
+/**
+ * Runtime representation of GoLite slices.
+ *
+ * A slice is an immutable header over a backing array (an int[], double[], boolean[] or Object[]
+ * depending on the element type), whose length is the capacity of the slice. Appending shares the
+ * backing array while it has room, and otherwise copies it into one twice as large, the same way the
+ * Python runtime does. The zero slice is null.
+ */
+public final class Slice {
+
+    /** Backing array. */
+    private final Object array;
+    /** Length. */
+    private final int length;
+
+    /**
+     * Constructor.
+     *
+     * @param array - Backing array
+     * @param length - Length
+     */
+    private Slice(Object array, int length) {
+        this.array = array;
+        this.length = length;
+    }
+
+    /**
+     * Returns the capacity of the slice that follows one of the given capacity when it's full.
+     */
+    private static int grow(int capacity) {
+        return capacity == 0 ? 1 : 2 * capacity;
+    }
+
+    /**
+     * Checks the given index is within the length of the given slice.
+     *
+     * @throws ArrayIndexOutOfBoundsException if it isn't
+     */
+    private static void check(Slice s, int i) {
+        if (s == null || i < 0 || i >= s.length)
+            throw new ArrayIndexOutOfBoundsException("index out of range");
+    }
+
+    /* Appending. */
+
+    public static Slice appendInt(Slice s, int x) {
+        int n = s == null ? 0 : s.length;
+        int[] a = s == null ? new int[1] : (int[]) s.array;
+        if (n == a.length)
+            a = Arrays.copyOf(a, grow(n));
+
+        a[n] = x;
+        return new Slice(a, n + 1);
+    }
+
+    public static Slice appendDouble(Slice s, double x) {
+        int n = s == null ? 0 : s.length;
+        double[] a = s == null ? new double[1] : (double[]) s.array;
+        if (n == a.length)
+            a = Arrays.copyOf(a, grow(n));
+
+        a[n] = x;
+        return new Slice(a, n + 1);
+    }
+
+    public static Slice appendBoolean(Slice s, boolean x) {
+        int n = s == null ? 0 : s.length;
+        boolean[] a = s == null ? new boolean[1] : (boolean[]) s.array;
+        if (n == a.length)
+            a = Arrays.copyOf(a, grow(n));
+
+        a[n] = x;
+        return new Slice(a, n + 1);
+    }
+
+    public static Slice appendObject(Slice s, Object x) {
+        int n = s == null ? 0 : s.length;
+        Object[] a = s == null ? new Object[1] : (Object[]) s.array;
+        if (n == a.length)
+            a = Arrays.copyOf(a, grow(n));
+
+        a[n] = x;
+        return new Slice(a, n + 1);
+    }
+
+    /* Indexing. */
+
+    public static int getInt(Slice s, int i) {
+        check(s, i);
+        return ((int[]) s.array)[i];
+    }
+
+    public static double getDouble(Slice s, int i) {
+        check(s, i);
+        return ((double[]) s.array)[i];
+    }
+
+    public static boolean getBoolean(Slice s, int i) {
+        check(s, i);
+        return ((boolean[]) s.array)[i];
+    }
+
+    public static Object getObject(Slice s, int i) {
+        check(s, i);
+        return ((Object[]) s.array)[i];
+    }
+
+    public static void setInt(Slice s, int i, int x) {
+        check(s, i);
+        ((int[]) s.array)[i] = x;
+    }
+
+    public static void setDouble(Slice s, int i, double x) {
+        check(s, i);
+        ((double[]) s.array)[i] = x;
+    }
+
+    public static void setBoolean(Slice s, int i, boolean x) {
+        check(s, i);
+        ((boolean[]) s.array)[i] = x;
+    }
+
+    public static void setObject(Slice s, int i, Object x) {
+        check(s, i);
+        ((Object[]) s.array)[i] = x;
+    }
+
+}
@@ -0,0 +1,16 @@
+package golite.jvm;
+
+/**
+ * Runtime interface of the classes generated for GoLite struct types.
+ */
+public interface Struct {
+
+    /**
+     * Returns a copy of the struct, with its array and struct fields copied too (Go structs are
+     * values).
+     *
+     * @return Copy
+     */
+    Struct copy();
+
+}
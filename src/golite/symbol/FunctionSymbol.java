@@ -1,7 +1,7 @@
 package golite.symbol;
 
 import golite.type.GoLiteType;
-import golite.type.VoidType;
+import golite.type.TypeFactory;
 import golite.node.Node;
 
 import java.lang.StringBuilder;
@@ -26,7 +26,7 @@ public class FunctionSymbol extends Symbol {
 	 */
 	public FunctionSymbol(String name, GoLiteType returnType, Node node) {
 		this.name = name;
-		this.type = (returnType == null) ? new VoidType() : returnType;
+		this.type = (returnType == null) ? TypeFactory.getVoidType() : returnType;
 		this.node = node;
 		this.argTypes = new ArrayList<GoLiteType>();
 	}
@@ -4,23 +4,51 @@ import golite.exception.SymbolTableException;
 import golite.type.GoLiteType;
 
 import java.lang.StringBuilder;
-import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Deque;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.Map;
 
 
 /**
  * Symbol table.
+ *
+ * Each name maps to a stack of its bindings, innermost first, so that looking up a symbol or its
+ * scope depth takes constant time however deep the scopes are nested. Exiting a scope only pops the
+ * bindings of the names it declared.
  */
 public class SymbolTable {
 
-	/** Scopes are stored in a deque, with each scope represented as a hash map from identifier to
-	  * symbol. */
-	private Deque<LinkedHashMap<String, Symbol>> scopes;
+	/**
+	 * Binding of a name to a symbol in some scope, shadowing the binding of the same name in an
+	 * enclosing scope (if any).
+	 */
+	private static class Binding {
+
+		/** Depth of the scope of the binding. */
+		private final int depth;
+		/** Symbol. */
+		private Symbol symbol;
+		/** Shadowed binding. */
+		private final Binding shadowed;
+
+		/**
+		 * Constructor.
+		 */
+		public Binding(int depth, Symbol symbol, Binding shadowed) {
+			this.depth = depth;
+			this.symbol = symbol;
+			this.shadowed = shadowed;
+		}
+
+	}
+
+	/** Scopes, outermost first, with each scope represented as a hash map from identifier to
+	  * symbol (in declaration order). */
+	private ArrayList<LinkedHashMap<String, Symbol>> scopes;
+	/** Innermost binding of each name. */
+	private HashMap<String, Binding> bindings;
 	/** Logs the actions performed on the symbol table. */
 	private StringBuilder logger;
 
@@ -28,7 +56,8 @@ public class SymbolTable {
 	 * Constructor.
 	 */
 	public SymbolTable() {
-		this.scopes = new ArrayDeque<LinkedHashMap<String, Symbol>>();
+		this.scopes = new ArrayList<LinkedHashMap<String, Symbol>>();
+		this.bindings = new HashMap<String, Binding>();
 		this.logger = new StringBuilder();
 
 		this.log("(KIND\tNAME\tTYPE)");
@@ -45,7 +74,7 @@ public class SymbolTable {
      * Enter a scope, pushing it onto the stack.
      */
 	public void scope() {
-		this.scopes.push(new LinkedHashMap<String, Symbol>());
+		this.scopes.add(new LinkedHashMap<String, Symbol>());
 		this.log("ENTER SCOPE");
 	}
 
@@ -53,7 +82,17 @@ public class SymbolTable {
      * Exit a scope, popping it off the stack.
      */
 	public void unscope() {
-		this.scopes.pop();
+		LinkedHashMap<String, Symbol> scope = this.scopes.remove(this.scopes.size() - 1);
+
+		// Unshadow the names the scope declared.
+		for (String name : scope.keySet()) {
+			Binding shadowed = this.bindings.get(name).shadowed;
+			if (shadowed == null)
+				this.bindings.remove(name);
+			else
+				this.bindings.put(name, shadowed);
+		}
+
 		this.log("EXIT SCOPE");
 	}
 
@@ -74,15 +113,11 @@ public class SymbolTable {
 	 * @throws SymbolTableException if no symbol with the given name exists.
 	 */
 	public int getScopeDepth(String name) {
-		int i = this.scopes.size() - 1;
-		for (LinkedHashMap<String, Symbol> scope : this.scopes) {
-			if (scope.get(name) != null)
-				return i;
+		Binding binding = this.bindings.get(name);
+		if (binding == null)
+			throw new SymbolTableException(name + " not in Symbol table");
 
-			i--;
-		}
-
-		throw new SymbolTableException(name + " not in Symbol table");
+		return binding.depth;
 	}
 
 	/**
@@ -92,14 +127,9 @@ public class SymbolTable {
      * @return The symbol if it exists, null otherwise
      */
 	public Symbol getSymbol(String name) {
-		Symbol symbol = null;
-		for (LinkedHashMap<String, Symbol> scope : this.scopes) {
-			symbol = scope.get(name);
-			if (symbol != null)
-				break;
-		}
+		Binding binding = this.bindings.get(name);
 
-		return symbol;
+		return (binding == null) ? null : binding.symbol;
 	}
 
 	/**
@@ -121,7 +151,10 @@ public class SymbolTable {
 	 * @return Corresponding symbol if it exists, null otherwise
 	 */
 	public Symbol getSymbolFromCurrentScope(String name) {
-		return this.scopes.peek().get(name);
+		Binding binding = this.bindings.get(name);
+
+		return (binding == null || binding.depth != this.scopes.size() - 1) ? null
+			: binding.symbol;
 	}
 
 	/**
@@ -130,7 +163,7 @@ public class SymbolTable {
 	 * @return Collection of symbols in the current scope
 	 */
 	public Collection<Symbol> getSymbolsFromCurrentScope() {
-		return this.scopes.peek().values();
+		return this.scopes.get(this.scopes.size() - 1).values();
 	}
 
 	/**
@@ -141,15 +174,10 @@ public class SymbolTable {
 	 * @throws SymbolTableException if the scope depth is invalid
 	 */
 	public Collection<Symbol> getSymbolsFromScope(int scopeDepth) {
-		int i = this.scopes.size() - 1;
-		for (LinkedHashMap<String, Symbol> scope : this.scopes) {
-			if (scopeDepth == i)
-				return scope.values();
+		if (scopeDepth < 0 || scopeDepth >= this.scopes.size())
+			throw new SymbolTableException("Invalid scope depth " + scopeDepth);
 
-			i--;
-		}
-
-		throw new SymbolTableException("Invalid scope depth " + scopeDepth);
+		return this.scopes.get(scopeDepth).values();
 	}
 
 	/**
@@ -159,7 +187,15 @@ public class SymbolTable {
 	 */
 	public void putSymbol(Symbol symbol) {
 		String name = symbol.getName();
-		this.scopes.peek().put(name, symbol);
+		int depth = this.scopes.size() - 1;
+		this.scopes.get(depth).put(name, symbol);
+
+		// Redeclaring a name in the same scope replaces its binding.
+		Binding binding = this.bindings.get(name);
+		if (binding != null && binding.depth == depth)
+			binding.symbol = symbol;
+		else
+			this.bindings.put(name, new Binding(depth, symbol, binding));
 
 		this.log(symbol.getClass().getSimpleName() + "\t" + name + "\t" + symbol.getTypeString());
 	}
@@ -200,12 +236,10 @@ public class SymbolTable {
 		s.append("(KIND\tNAME\tTYPE\tUNDERLYING TYPE)\n\n");
 
 		// Iterate over the scopes from outermost to innermost.
-		Iterator<LinkedHashMap<String, Symbol>> scopeIter = this.scopes.descendingIterator();
 		int i = 0;
-		while (scopeIter.hasNext()) {
+		for (LinkedHashMap<String, Symbol> scope : this.scopes) {
 			s.append("SCOPE #" + i + "\n");
 
-			LinkedHashMap<String, Symbol> scope = scopeIter.next();
 			for (Map.Entry<String, Symbol> entry : scope.entrySet()) {
 			    String name = entry.getKey();
 			    Symbol symbol = entry.getValue();
@@ -4,23 +4,19 @@ import golite.exception.SymbolTableException;
 import golite.exception.TypeException;
 import golite.type.AliasType;
 import golite.type.ArrayType;
-import golite.type.BoolType;
-import golite.type.FloatType;
 import golite.type.GoLiteType;
-import golite.type.IntType;
-import golite.type.RuneType;
 import golite.type.SliceType;
-import golite.type.StringType;
 import golite.type.StructType;
+import golite.type.TypeFactory;
 import golite.util.LineAndPosTracker;
 import golite.analysis.*;
 import golite.node.*;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.Stack;
 
 
 /**
@@ -34,6 +30,11 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
     /** Line and position tracker for AST nodes. */
     private LineAndPosTracker lineAndPosTracker = new LineAndPosTracker();
 
+    /** Resolved type of each global type alias, once resolved. */
+    private HashMap<String, AliasType> resolvedAliases = new HashMap<String, AliasType>();
+    /** Type aliases being resolved, for detecting recursive type definitions. */
+    private HashSet<String> resolvingAliases = new HashSet<String>();
+
     /** Makes the first pass over the program to initialize the table with top-level declarations. */
     private static class FirstPasser extends DepthFirstAdapter {
         
@@ -73,15 +74,15 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
                 return null;
 
             if (node instanceof ABoolTypeExpr)
-                return new BoolType();
+                return TypeFactory.getBoolType();
             else if (node instanceof AIntTypeExpr)
-                return new IntType();
+                return TypeFactory.getIntType();
             else if (node instanceof AFloatTypeExpr)
-                return new FloatType();
+                return TypeFactory.getFloatType();
             else if (node instanceof ARuneTypeExpr)
-                return new RuneType();
+                return TypeFactory.getRuneType();
             else if (node instanceof AStringTypeExpr)
-                return new StringType();
+                return TypeFactory.getStringType();
             else if (node instanceof AAliasTypeExpr)
                 return new UnTypedAliasType(((AAliasTypeExpr) node).getId().getText());
             else if (node instanceof AArrayTypeExpr) {
@@ -97,12 +98,12 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
                 else 
                     this.throwSymbolTableException(pExpr, "Non-integer array bound");
 
-                return new ArrayType(getType(((AArrayTypeExpr) node).getTypeExpr()),
+                return TypeFactory.getArrayType(getType(((AArrayTypeExpr) node).getTypeExpr()),
                     bound);
             } else if (node instanceof ASliceTypeExpr)
-                return new SliceType(getType(((ASliceTypeExpr) node).getTypeExpr()));
+                return TypeFactory.getSliceType(getType(((ASliceTypeExpr) node).getTypeExpr()));
             else if (node instanceof AStructTypeExpr) {
-                StructType structType = new StructType();
+                ArrayList<StructType.Field> fields = new ArrayList<StructType.Field>();
 
                 // Keep track of the field Id's to ensure there are no duplicates.
                 HashSet<String> fieldIds = new HashSet<String>();
@@ -123,14 +124,14 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
                                 this.throwSymbolTableException(id,
                                     "Duplicate field " + id.getText());
 
-                            structType.addField(id.getText(),
-                                getType(((ASpecFieldSpec) pFieldSpec).getTypeExpr()));
+                            fields.add(new StructType.Field(id.getText(),
+                                getType(((ASpecFieldSpec) pFieldSpec).getTypeExpr())));
                             fieldIds.add(id.getText());
                         }
                     }
                 }
 
-                return structType;
+                return TypeFactory.getStructType(fields);
             }
 
             return null;
@@ -276,16 +277,13 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
     // Intialize the 0th scope.
 	@Override
     public void inStart(Start node) {
-    	// Gather all line and position information.
-        node.apply(this.lineAndPosTracker);
-
-         // Enter the 0th scope.
+        // Enter the 0th scope.
         this.table = new SymbolTable();
         this.table.scope();
 
         // Initialize boolean literals.
-        Symbol trueSymbol = new VariableSymbol("true", new BoolType(), node);
-        Symbol falseSymbol = new VariableSymbol("false", new BoolType(), node);
+        Symbol trueSymbol = new VariableSymbol("true", TypeFactory.getBoolType(), node);
+        Symbol falseSymbol = new VariableSymbol("false", TypeFactory.getBoolType(), node);
         this.table.putSymbol(trueSymbol);
         this.table.putSymbol(falseSymbol);
     }
@@ -309,19 +307,17 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
             try {
                 // For variable and type alias symbols, resolve to the underlying type.
                 if (symbol instanceof VariableSymbol || symbol instanceof TypeAliasSymbol)
-                    symbol.setType(this.getResolvedType(symbol.getType(),
-                        new Stack<String>()));
+                    symbol.setType(this.getResolvedType(symbol.getType()));
                 // For functions symbols, resolve argument and return types to their corresponding
                 // underlying types.
                 else if (symbol instanceof FunctionSymbol) {
                     // Resolve the return type.
-                    symbol.setType(this.getResolvedType(symbol.getType(),
-                        new Stack<String>()));
+                    symbol.setType(this.getResolvedType(symbol.getType()));
 
                     // Get resolved versions of the argument types.
                     ArrayList<GoLiteType> resolvedArgTypes = new ArrayList<GoLiteType>();
                     for (GoLiteType argType : ((FunctionSymbol) symbol).getArgTypes())
-                        resolvedArgTypes.add(this.getResolvedType(argType, new Stack<String>()));
+                        resolvedArgTypes.add(this.getResolvedType(argType));
                     
                     // Set the argument types to the resolved versions.
                     ((FunctionSymbol) symbol).setArgTypes(resolvedArgTypes);
@@ -333,63 +329,47 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
     }
 
     /**
-     * Recursively resolves the given type to its most underlying type.
+     * Recursively resolves the given type to its most underlying type. Each type alias is resolved
+     * once, and its resolved type shared by the types referring to it.
      *
      * @param type - Symbol type
-     * @param aliases - Stack of aliases for checking recursive type definitions.
      * @return Resolved underlying type
      */
-    private GoLiteType getResolvedType(GoLiteType type, Stack<String> aliases) {
-        // Alias.
+    private GoLiteType getResolvedType(GoLiteType type) {
+        // Alias, which is either already resolved or refers to a global type alias of the same name.
         if (type instanceof AliasType) {
-            String alias = ((AliasType) type).getAlias();
-            GoLiteType aliasedType = ((AliasType) type).getType();
-
-            // Alias has already been encountered in the recursion and hence, throw an error.
-            if (aliases.search(alias) != -1)
-                throw new SymbolTableException("Invalid recursive type " + alias);
-
-            // Get the resolved type for the aliased type, which could be a type alias.
-            aliases.push(alias);
-            AliasType aliasType = new AliasType(alias,
-                this.getResolvedType(aliasedType, aliases));
-            aliases.pop();
-
-            return aliasType;
+            return this.getResolvedAlias(((AliasType) type).getAlias(),
+                ((AliasType) type).getType());
         // Array.
         } else if (type instanceof ArrayType) {
             int bound = ((ArrayType) type).getBound();
             GoLiteType arrayType = ((ArrayType) type).getType();
 
             // Get the resolved type for the element type, which could include a type alias.
-            return new ArrayType(this.getResolvedType(arrayType, aliases), bound);
+            return TypeFactory.getArrayType(this.getResolvedType(arrayType), bound);
         // Slice.
         } else if (type instanceof SliceType) {
             GoLiteType sliceType = ((SliceType) type).getType();
 
             // Get the resolved type for the element type, which could include a type alias.
-            return new SliceType(this.getResolvedType(sliceType, aliases));
+            return TypeFactory.getSliceType(this.getResolvedType(sliceType));
         // Struct.
         } else if (type instanceof StructType) {
-            StructType resolvedStructType = new StructType();
+            ArrayList<StructType.Field> resolvedFields = new ArrayList<StructType.Field>();
 
             // Get the resolved type for each field type.
             Iterator<StructType.Field> fieldIter = ((StructType) type).getFieldIterator();
             while (fieldIter.hasNext()) {
                 StructType.Field field = fieldIter.next();
-                resolvedStructType.addField(field.getId(),
-                    this.getResolvedType(field.getType(), aliases));
+                resolvedFields.add(new StructType.Field(field.getId(),
+                    this.getResolvedType(field.getType())));
             }
 
-            return resolvedStructType;   
+            return TypeFactory.getStructType(resolvedFields);   
         // Untyped alias.             
         } else if (type instanceof UnTypedAliasType) {
             String alias = ((UnTypedAliasType) type).getAlias();
 
-            // Alias has already been encountered in the recursion and hence, throw an error.
-            if (aliases.search(alias) != -1)
-                throw new SymbolTableException("Invalid recursive type " + alias);
-
             // Find the corresponding type alias symbol.
             Symbol typeAliasSymbol = this.table.getSymbol(alias);
 
@@ -397,17 +377,35 @@ public class SymbolTableBuilder extends DepthFirstAdapter {
             if (typeAliasSymbol == null)
                 throw new SymbolTableException("Undefined: " + alias);
 
-            // Return a typed alias type with the aliased type fully resolved.
-            aliases.push(alias);
-            AliasType aliasType = new AliasType(alias,
-                this.getResolvedType(typeAliasSymbol.getType(), aliases));
-            aliases.pop();
-
-            return aliasType;
+            return this.getResolvedAlias(alias, typeAliasSymbol.getType());
         }
 
         // For base types.
         return type;
     }
 
+    /**
+     * Returns the resolved type of the given type alias, resolving the aliased type the first time.
+     *
+     * @param alias - Type alias
+     * @param aliasedType - Aliased type
+     * @return Resolved alias type
+     */
+    private AliasType getResolvedAlias(String alias, GoLiteType aliasedType) {
+        AliasType aliasType = this.resolvedAliases.get(alias);
+        if (aliasType != null)
+            return aliasType;
+
+        // Alias has already been encountered in the recursion and hence, throw an error.
+        if (!this.resolvingAliases.add(alias))
+            throw new SymbolTableException("Invalid recursive type " + alias);
+
+        // Get the resolved type for the aliased type, which could be a type alias.
+        aliasType = TypeFactory.getAliasType(alias, this.getResolvedType(aliasedType));
+        this.resolvingAliases.remove(alias);
+
+        this.resolvedAliases.put(alias, aliasType);
+        return aliasType;
+    }
+
 }
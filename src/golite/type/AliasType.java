@@ -7,17 +7,21 @@ package golite.type;
 public class AliasType extends GoLiteType {
 
 	/** Alias. */
-	private String alias;
-	/** Underlying type. */
-	private GoLiteType type;
+	private final String alias;
+	/** Aliased type. */
+	private final GoLiteType type;
+	/** Underlying type, once computed. */
+	private GoLiteType underlyingType;
 
 	/**
-	 * Constructor.
+	 * Constructor (see TypeFactory.getAliasType).
 	 *
 	 * @param alias - Alias
-	 * @param type - Underlying type
+	 * @param type - Aliased type
+	 * @param key - Key under which the type is interned
 	 */
-	public AliasType(String alias, GoLiteType type) {
+	AliasType(String alias, GoLiteType type, TypeFactory.Key key) {
+		super(key);
 		this.alias = alias;
 		this.type = type;
 	}
@@ -38,7 +42,10 @@ public class AliasType extends GoLiteType {
 
 	@Override
 	public GoLiteType getUnderlyingType() {
-		return this.type.getUnderlyingType();
+		if (this.underlyingType == null)
+			this.underlyingType = this.type.getUnderlyingType();
+
+		return this.underlyingType;
 	}
 
 	@Override
@@ -47,7 +54,7 @@ public class AliasType extends GoLiteType {
 		// this alias type.
 		GoLiteType t = this;
 		do {
-            if (t.equals(type))
+            if (t == type)
                 return true;
 
             if (t instanceof AliasType)
@@ -57,25 +64,6 @@ public class AliasType extends GoLiteType {
         return false;
 	}
 
-	// Equality performed on the alias.
-	@Override
-    public boolean equals(Object o) {
-    	if (!(o instanceof AliasType))
-        	return false;
-
-        if (this == o)
-        	return true;
-
-        AliasType other = (AliasType) o;
-        return this.alias.equals(other.getAlias());
-    }
-
-    // Hash code derived from the alias.
-    @Override
-    public int hashCode() {
-        return this.alias.hashCode();
-    }
-
 	@Override
 	public String toString() {
 		return this.alias;
@@ -7,14 +7,17 @@ package golite.type;
 public class ArrayType extends GoLiteType {
 
 	/** Type of each element in the array. */
-	private GoLiteType type;
+	private final GoLiteType type;
 	/** Array bound. */
-	private int bound;
+	private final int bound;
+	/** Underlying type, once computed. */
+	private GoLiteType underlyingType;
 
 	/**
-	 * Constructor.
+	 * Constructor (see TypeFactory.getArrayType).
 	 */
-	public ArrayType(GoLiteType type, int bound) {
+	ArrayType(GoLiteType type, int bound, TypeFactory.Key key) {
+		super(key);
 		this.type = type;
 		this.bound = bound;
 	}
@@ -44,7 +47,13 @@ public class ArrayType extends GoLiteType {
 
 	@Override
 	public GoLiteType getUnderlyingType() {
-		return new ArrayType(this.type.getUnderlyingType(), this.bound);
+		if (this.underlyingType == null) {
+			GoLiteType elemType = this.type.getUnderlyingType();
+			this.underlyingType = (elemType == this.type) ? this
+				: TypeFactory.getArrayType(elemType, this.bound);
+		}
+
+		return this.underlyingType;
 	}
 
 	@Override
@@ -57,25 +66,6 @@ public class ArrayType extends GoLiteType {
 			&& this.type.isCompatible(((ArrayType) type).getType());
 	}
 
-	// Equality is performed on the type and bound.
-	@Override
-    public boolean equals(Object o) {
-    	if (!(o instanceof ArrayType))
-        	return false;
-
-        if (this == o)
-        	return true;
-
-        ArrayType other = (ArrayType) o;
-        return this.type.equals(other.getType()) && this.bound == other.getBound();
-    }
-
-    // Hash code is derived from the type and bound.
-    @Override
-    public int hashCode() {
-        return 1013 * (this.type.hashCode()) ^ 1009 * this.bound;
-    }
-
 	@Override
 	public String toString() {
 		return "[" + this.bound + "]" + this.type;
@@ -6,6 +6,11 @@ package golite.type;
  */
 public class BoolType extends PrimitiveGoLiteType {
 
+	/**
+	 * Constructor.
+	 */
+	BoolType() {}
+
 	@Override
     public boolean isCompatible(GoLiteType type) {
         return type.getUnderlyingType() instanceof BoolType;
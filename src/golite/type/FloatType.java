@@ -6,6 +6,11 @@ package golite.type;
  */
 public class FloatType extends PrimitiveGoLiteType {
 
+	/**
+	 * Constructor.
+	 */
+	FloatType() {}
+
 	@Override
     public boolean isCompatible(GoLiteType type) {
         return type.getUnderlyingType() instanceof FloatType;
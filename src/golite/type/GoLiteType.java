@@ -3,9 +3,31 @@ package golite.type;
 
 /**
  * GoLite type.
+ *
+ * Types are interned by the TypeFactory, so structurally equal types are the same instance and are
+ * compared by reference.
  */
 public abstract class GoLiteType {
 
+	/** Key under which the type is interned (null for types that are not interned). */
+	final TypeFactory.Key key;
+
+	/**
+	 * Constructor.
+	 */
+	protected GoLiteType() {
+		this(null);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param key - Key under which the type is interned
+	 */
+	GoLiteType(TypeFactory.Key key) {
+		this.key = key;
+	}
+
 	/**
 	 * Returns the underlying type, which for non-alias types is the type itself.
 	 *
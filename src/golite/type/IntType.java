@@ -6,6 +6,11 @@ package golite.type;
  */
 public class IntType extends PrimitiveGoLiteType {
 
+	/**
+	 * Constructor.
+	 */
+	IntType() {}
+
 	@Override
     public boolean isCompatible(GoLiteType type) {
         return type.getUnderlyingType() instanceof IntType;
@@ -6,6 +6,11 @@ package golite.type;
  */
 public class RuneType extends PrimitiveGoLiteType {
 
+	/**
+	 * Constructor.
+	 */
+	RuneType() {}
+
 	@Override
     public boolean isCompatible(GoLiteType type) {
         return type.getUnderlyingType() instanceof RuneType;
@@ -7,12 +7,15 @@ package golite.type;
 public class SliceType extends GoLiteType {
 
 	/** Type of each element in the slice. */
-	private GoLiteType type;
+	private final GoLiteType type;
+	/** Underlying type, once computed. */
+	private GoLiteType underlyingType;
 
 	/**
-	 * Constructor.
+	 * Constructor (see TypeFactory.getSliceType).
 	 */
-	public SliceType(GoLiteType type) {
+	SliceType(GoLiteType type, TypeFactory.Key key) {
+		super(key);
 		this.type = type;
 	}
 
@@ -34,7 +37,13 @@ public class SliceType extends GoLiteType {
 
 	@Override
 	public GoLiteType getUnderlyingType() {
-		return new SliceType(this.type.getUnderlyingType());
+		if (this.underlyingType == null) {
+			GoLiteType elemType = this.type.getUnderlyingType();
+			this.underlyingType = (elemType == this.type) ? this
+				: TypeFactory.getSliceType(elemType);
+		}
+
+		return this.underlyingType;
 	}
 
 	@Override
@@ -45,25 +54,6 @@ public class SliceType extends GoLiteType {
 			&& this.type.isCompatible(((SliceType) type).getType());
 	}
 
-	// Equality is performed on the type.
-	@Override
-    public boolean equals(Object o) {
-    	if (!(o instanceof SliceType))
-        	return false;
-
-        if (this == o)
-        	return true;
-
-        SliceType other = (SliceType) o;
-        return this.type.equals(other.getType());
-    }
-
-    // Hash code is derived from the type.
-    @Override
-    public int hashCode() {
-        return this.type.hashCode();
-    }
-
 	@Override
 	public String toString() {
 		return "[]" + this.type;
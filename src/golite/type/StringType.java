@@ -6,6 +6,11 @@ package golite.type;
  */
 public class StringType extends PrimitiveGoLiteType {
 
+	/**
+	 * Constructor.
+	 */
+	StringType() {}
+
 	@Override
     public boolean isCompatible(GoLiteType type) {
         return type.getUnderlyingType() instanceof StringType;
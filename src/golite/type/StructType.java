@@ -3,6 +3,7 @@ package golite.type;
 import java.lang.StringBuilder;
 import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 
 /**
@@ -16,17 +17,17 @@ public class StructType extends GoLiteType {
 	public static class Field {
 
 		/** Field Id. */
-		private String id;
+		private final String id;
 		/** Field type. */
-		private GoLiteType type;
+		private final GoLiteType type;
 
 		/**
-		 * Constructor/
+		 * Constructor.
 		 *
 		 * @param id - Id
 		 * @param type - Type
 		 */
-		private Field(String id, GoLiteType type) {
+		public Field(String id, GoLiteType type) {
 			this.id = id;
 			this.type = type;
 		}
@@ -45,25 +46,6 @@ public class StructType extends GoLiteType {
 			return this.type;
 		}
 
-		// Equality is performed on the Id and type.
-		@Override
-	    public boolean equals(Object o) {
-	    	if (!(o instanceof Field))
-	        	return false;
-
-	        if (this == o)
-	        	return true;
-
-	        Field other = (Field) o;
-	        return this.id.equals(other.getId()) && this.type.equals(other.getType());
-	    }
-
-	    // Hash code is derived from the Id and type.
-	    @Override
-	    public int hashCode() {
-	        return 997 * this.id.hashCode() ^ 991 * this.type.hashCode();
-	    }
-
 		@Override
 		public String toString() {
 			return this.id + " " + this.type;
@@ -72,14 +54,16 @@ public class StructType extends GoLiteType {
 	}
 
 	/** Fields. */
-	private ArrayList<Field> fields;
+	private final ArrayList<Field> fields;
+	/** Underlying type, once computed. */
+	private GoLiteType underlyingType;
 
 	/**
-	 * Constructor.
+	 * Constructor (see TypeFactory.getStructType).
 	 */
-	public StructType() {
-		super();
-		this.fields = new ArrayList<Field>();
+	StructType(List<Field> fields, TypeFactory.Key key) {
+		super(key);
+		this.fields = new ArrayList<Field>(fields);
 	}
 
 	/**
@@ -141,62 +125,28 @@ public class StructType extends GoLiteType {
 		return this.getField(id).getType();
 	}
 
-	/**
-	 * Adds a field to the struct type.
-	 *
-	 * @param id - Field Id
-	 * @param type - Field type
-	 */
-	public void addField(String id, GoLiteType type) {
-		this.fields.add(new Field(id, type));
-	}
-
 	@Override
 	public boolean isCompatible(GoLiteType type) {
-		return this.equals(type.getUnderlyingType());
+		return this == type.getUnderlyingType();
 	}
 
 	@Override
 	public GoLiteType getUnderlyingType() {
-		StructType underlyingStructType = new StructType();
+		if (this.underlyingType == null) {
+			ArrayList<Field> underlyingFields = new ArrayList<Field>(this.fields.size());
+			boolean same = true;
 
-		for (Field f : this.fields)
-			underlyingStructType.addField(f.getId(), f.getType().getUnderlyingType());
+			for (Field f : this.fields) {
+				GoLiteType fieldType = f.getType().getUnderlyingType();
+				underlyingFields.add(new Field(f.getId(), fieldType));
+				same &= (fieldType == f.getType());
+			}
 
-		return underlyingStructType;
-	}
+			this.underlyingType = same ? this : TypeFactory.getStructType(underlyingFields);
+		}
 
-	// Equality is performed on fields.
-	@Override
-    public boolean equals(Object o) {
-    	if (!(o instanceof StructType))
-        	return false;
-
-        if (this == o)
-        	return true;
-
-        StructType other = (StructType) o;
-
-        if (this.fields.size() != other.size())
-        	return false;
-
-        Iterator<Field> iter = other.getFieldIterator();
-        Field otherField = null;
-        for (int i = 0; iter.hasNext(); i++) {
-        	if (!this.fields.get(i).equals(iter.next()))
-        		return false;
-        }
-
-        return true;
-    }
-
-    @Override
-    public int hashCode() {
-    	int code = 1;
-		for (Field f : this.fields)
-			code = 31 * code + (f == null ? 0 : f.hashCode());
-		return code;
-    }
+		return this.underlyingType;
+	}
 
 	@Override
 	public String toString() {
@@ -12,7 +12,6 @@ import golite.node.*;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -31,7 +30,7 @@ public class TypeChecker extends DepthFirstAdapter {
     private boolean passedSymbolTable;
 
 	/** Type table. */
-	private HashMap<Node, GoLiteType> typeTable;
+	private TypeTable typeTable;
 	/** Line and position tracker for AST nodes. */
     private LineAndPosTracker lineAndPosTracker;
 
@@ -51,7 +50,7 @@ public class TypeChecker extends DepthFirstAdapter {
 		this.symbolTable = table;
         this.passedSymbolTable = true;
 
-		this.typeTable = new HashMap<Node, GoLiteType>();
+		this.typeTable = new TypeTable();
 		this.lineAndPosTracker = new LineAndPosTracker();
 	}
 	
@@ -63,7 +62,7 @@ public class TypeChecker extends DepthFirstAdapter {
         this.symbolTable = new SymbolTable();
         this.passedSymbolTable = false;
 
-        this.typeTable = new HashMap<Node, GoLiteType>();
+        this.typeTable = new TypeTable();
         this.lineAndPosTracker = new LineAndPosTracker();
     }
 
@@ -77,7 +76,7 @@ public class TypeChecker extends DepthFirstAdapter {
     /**
      * Getter.
      */
-    public HashMap<Node, GoLiteType> getTypeTable() {
+    public TypeTable getTypeTable() {
         return this.typeTable;
     }
 
@@ -93,15 +92,15 @@ public class TypeChecker extends DepthFirstAdapter {
             return null;
 
         if (node instanceof ABoolTypeExpr)
-            return new BoolType();
+            return TypeFactory.getBoolType();
         else if (node instanceof AIntTypeExpr)
-            return new IntType();
+            return TypeFactory.getIntType();
         else if (node instanceof AFloatTypeExpr)
-            return new FloatType();
+            return TypeFactory.getFloatType();
         else if (node instanceof ARuneTypeExpr)
-            return new RuneType();
+            return TypeFactory.getRuneType();
         else if (node instanceof AStringTypeExpr)
-            return new StringType();
+            return TypeFactory.getStringType();
         else if (node instanceof AAliasTypeExpr) {
         	TId id = ((AAliasTypeExpr) node).getId();
             String name = id.getText();
@@ -112,7 +111,7 @@ public class TypeChecker extends DepthFirstAdapter {
             if (!(symbol instanceof TypeAliasSymbol))
                 this.throwTypeCheckException(id, name + " is not a type");
             
-            return new AliasType(id.getText(), symbol.getType());
+            return TypeFactory.getAliasType(id.getText(), symbol.getType());
         } else if (node instanceof AArrayTypeExpr) {
             PExpr pExpr = ((AArrayTypeExpr) node).getExpr();
 
@@ -126,11 +125,11 @@ public class TypeChecker extends DepthFirstAdapter {
             else 
                 this.throwTypeCheckException(pExpr, "Non-integer array bound");
 
-            return new ArrayType(getType(((AArrayTypeExpr) node).getTypeExpr()), bound);
+            return TypeFactory.getArrayType(getType(((AArrayTypeExpr) node).getTypeExpr()), bound);
         } else if (node instanceof ASliceTypeExpr)
-            return new SliceType(getType(((ASliceTypeExpr) node).getTypeExpr()));
+            return TypeFactory.getSliceType(getType(((ASliceTypeExpr) node).getTypeExpr()));
         else if (node instanceof AStructTypeExpr) {
-            StructType structType = new StructType();
+            ArrayList<StructType.Field> fields = new ArrayList<StructType.Field>();
 
             // Keep track of the field Id's to ensure there are no duplicates.
             HashSet<String> fieldIds = new HashSet<String>();
@@ -150,14 +149,14 @@ public class TypeChecker extends DepthFirstAdapter {
                         if (fieldIds.contains(id.getText()))
                             this.throwTypeCheckException(id, "Duplicate field " + id.getText());
 
-                        structType.addField(id.getText(),
-                            getType(((ASpecFieldSpec) pFieldSpec).getTypeExpr()));
+                        fields.add(new StructType.Field(id.getText(),
+                            getType(((ASpecFieldSpec) pFieldSpec).getTypeExpr())));
                         fieldIds.add(id.getText());
                     }
                 }
             }
 
-            return structType;
+            return TypeFactory.getStructType(fields);
         }
 
         return null;
@@ -320,6 +319,67 @@ public class TypeChecker extends DepthFirstAdapter {
         return ids;
     }
 
+    /**
+     * Get the position of the given Id in the given variable specification, counting blank Id's.
+     *
+     * @param node - Variable specification
+     * @param id - Id token in the specification
+     * @return Position of the Id
+     */
+    private int getPosition(ASpecVarSpec node, TId id) {
+        int i = 0;
+        for (POptId o : node.getOptId()) {
+            if (o instanceof AIdOptId && ((AIdOptId) o).getId() == id)
+                return i;
+            i++;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Type check the values assigned to blank Id's in the given variable specification, which are
+     * still evaluated.
+     *
+     * @param node - Variable specification
+     * @param global - Flag for whether the specification is a top-level one (for error messages)
+     */
+    private void typeCheckBlankValues(ASpecVarSpec node, boolean global) {
+        if (node.getExpr().isEmpty())
+            return;
+
+        // GoLite type of the type expression, if any.
+        GoLiteType typeExprType = null;
+        if (node.getTypeExpr() != null) {
+            node.getTypeExpr().apply(this);
+            typeExprType = this.getType(node.getTypeExpr());
+        }
+
+        for (int i = 0; i < node.getOptId().size(); i++) {
+            if (node.getOptId().get(i) instanceof AIdOptId)
+                continue;
+
+            // Type check the expression.
+            PExpr pExpr = node.getExpr().get(i);
+            pExpr.apply(this);
+            GoLiteType exprType = this.getType(pExpr);
+
+            // Expression is a void function call.
+            if (exprType instanceof VoidType) {
+                TId funcId = ((AFuncCallExpr) pExpr).getId();
+                this.throwTypeCheckException(pExpr, funcId.getText() + "() used as a value");
+            }
+
+            // Check the surface types for equality, throwing an error if not.
+            if (typeExprType != null && !typeExprType.equals(exprType)) {
+                this.throwTypeCheckException(pExpr, global
+                    ? "Cannot use value of type " + exprType + " for " + typeExprType
+                    : "Cannot use type " + exprType + " as type " + typeExprType
+                        + " in assignment");
+            }
+        }
+    }
+
     /**
      * Get the variable symbol corresponding to the given Id token.
      *
@@ -344,17 +404,14 @@ public class TypeChecker extends DepthFirstAdapter {
 
 	@Override
     public void inStart(Start node) {
-    	// Gather all line and position information.
-        node.apply(this.lineAndPosTracker);
-
         if (!this.passedSymbolTable) {
              // Enter the 0th scope.
             this.symbolTable = new SymbolTable();
             this.symbolTable.scope();
 
             // Initialize boolean literals.
-            this.symbolTable.putSymbol(new VariableSymbol("true", new BoolType(), node));
-            this.symbolTable.putSymbol(new VariableSymbol("false", new BoolType(), node));
+            this.symbolTable.putSymbol(new VariableSymbol("true", TypeFactory.getBoolType(), node));
+            this.symbolTable.putSymbol(new VariableSymbol("false", TypeFactory.getBoolType(), node));
         }
     }
 
@@ -391,9 +448,11 @@ public class TypeChecker extends DepthFirstAdapter {
 	        // Flag for whether the variables are initialized with expressions.
 	        boolean isInitialized = (pExprs.size() > 0);
 
-            // Loop over each Id, tracking the position in the specfication.
-            int i = 0;
+            // Loop over each Id.
             for (TId id : this.getIds(((ASpecVarSpec) pVarSpec))) {
+                // Position in the specification (counting blanks).
+                int i = this.getPosition((ASpecVarSpec) pVarSpec, id);
+
                 // Throw an error if the name is already taken by another identifier in the
                 // global scope.
                 if (!this.passedSymbolTable)
@@ -447,10 +506,10 @@ public class TypeChecker extends DepthFirstAdapter {
                         this.symbolTable.putSymbol(new VariableSymbol(id.getText(), typeExprType,
                             pVarSpec));
                 }
-
-                // Increment to next position.
-                i++;
             }
+
+            // Values assigned to blank Id's are still evaluated, so they're type checked too.
+            this.typeCheckBlankValues((ASpecVarSpec) pVarSpec, true);
         }
     }
 
@@ -563,13 +622,15 @@ public class TypeChecker extends DepthFirstAdapter {
         // Flag for whether the variables are initialized with expressions.
         boolean isInitialized = (pExprs.size() > 0);
 
-        // Loop over each Id, tracking the position in the specfication.
-        int i = 0;
+        // Loop over each Id.
        	for (TId id : this.getIds(node)) {
            	// Skip variable specifications in the global scope, they're already taken care of.
             if (this.symbolTable.inGlobalScope())
             	return;
 
+            // Position in the specification (counting blanks).
+            int i = this.getPosition(node, id);
+
            	// Throw an error if a symbol with the given Id already exists in the current scope.
             this.checkifDeclaredInCurrentScope(id);
 
@@ -621,10 +682,11 @@ public class TypeChecker extends DepthFirstAdapter {
             	this.symbolTable.putSymbol(new VariableSymbol(id.getText(), typeExprType,
             		node));
             }
-
-            // Increment the position.
-            i++;
         }
+
+        // Values assigned to blank Id's are still evaluated, so they're type checked too.
+        if (!this.symbolTable.inGlobalScope())
+            this.typeCheckBlankValues(node, false);
     }
 
     @Override
@@ -1113,7 +1175,7 @@ public class TypeChecker extends DepthFirstAdapter {
         PExpr pExpr = node.getExpr();
         if (pExpr == null)
         	// Set the condition type to boolean if no condition is provided.
-        	this.currentSwitchCondType = new BoolType();
+        	this.currentSwitchCondType = TypeFactory.getBoolType();
         else {
         	pExpr.apply(this);
         	this.currentSwitchCondType = this.getType(pExpr);
@@ -1540,7 +1602,7 @@ public class TypeChecker extends DepthFirstAdapter {
             this.throwTypeCheckException(pExpr,
             	"Invalid oepration '!': undefined for type " + type);
 
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.getBoolType());
     }
 
     /* Type check comparison expressions. */
@@ -1563,7 +1625,7 @@ public class TypeChecker extends DepthFirstAdapter {
             this.throwTypeCheckException(node,
             	"Invalid operation '==': undefined for type " + leftExprType);
 
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.getBoolType());
     }
 
     // '!=' expression.
@@ -1584,7 +1646,7 @@ public class TypeChecker extends DepthFirstAdapter {
             this.throwTypeCheckException(node,
             	"Invalid operation '!=': undefined for type " + leftExprType);
 
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.getBoolType());
     }
 
     // "<" expression.
@@ -1605,7 +1667,7 @@ public class TypeChecker extends DepthFirstAdapter {
             this.throwTypeCheckException(node,
             	"Invalid operation '<': undefined for type " + leftExprType);
  
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.getBoolType());
     }
 
     // "<=" expression.
@@ -1626,7 +1688,7 @@ public class TypeChecker extends DepthFirstAdapter {
             this.throwTypeCheckException(node,
             	"Invalid operation '<=': undefined for type " + leftExprType);
  
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.getBoolType());
     }
 
     // ">" expression.
@@ -1647,7 +1709,7 @@ public class TypeChecker extends DepthFirstAdapter {
             this.throwTypeCheckException(node,
             	"Invalid operation '>': undefined for type " + leftExprType);
  
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.getBoolType());
     }
 
     // ">=" expression.
@@ -1668,7 +1730,7 @@ public class TypeChecker extends DepthFirstAdapter {
             this.throwTypeCheckException(node,
             	"Invalid operation '>=': undefined for type " + leftExprType);
  
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.getBoolType());
     }
 
     /* Logical expressions. */
@@ -1693,7 +1755,7 @@ public class TypeChecker extends DepthFirstAdapter {
         	this.throwTypeCheckException(node,
         		"Invalid operation '&&': undefined for type "+ leftExprType);
 
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.getBoolType());
     }
 
     // Or expression.
@@ -1716,7 +1778,7 @@ public class TypeChecker extends DepthFirstAdapter {
         	this.throwTypeCheckException(node,
         		"Invalid operation '||': undefined for type "+ leftExprType);
 
-        this.typeTable.put(node, new BoolType());
+        this.typeTable.put(node, TypeFactory.getBoolType());
     }
 
     /* Function call expressions. */
@@ -1917,43 +1979,43 @@ public class TypeChecker extends DepthFirstAdapter {
     // Decimal integer.
     @Override
     public void outAIntLitExpr(AIntLitExpr node) {
-        this.typeTable.put(node, new IntType());
+        this.typeTable.put(node, TypeFactory.getIntType());
     }
 
     // Octal integer.
     @Override
     public void outAOctLitExpr(AOctLitExpr node) {
-        this.typeTable.put(node, new IntType());
+        this.typeTable.put(node, TypeFactory.getIntType());
     }
 
     // Hexidecimal integer.
     @Override
     public void outAHexLitExpr(AHexLitExpr node) {
-        this.typeTable.put(node, new IntType());
+        this.typeTable.put(node, TypeFactory.getIntType());
     }
 
     // Float.
     @Override
     public void outAFloatLitExpr(AFloatLitExpr node) {
-        this.typeTable.put(node, new FloatType());
+        this.typeTable.put(node, TypeFactory.getFloatType());
     }
 
     // Rune.
     @Override
     public void outARuneLitExpr(ARuneLitExpr node) {
-        this.typeTable.put(node, new RuneType());
+        this.typeTable.put(node, TypeFactory.getRuneType());
     }
 
     // Interpreted string.
     @Override
     public void outAInterpretedStringLitExpr(AInterpretedStringLitExpr node) {
-        typeTable.put(node, new StringType());
+        typeTable.put(node, TypeFactory.getStringType());
     }
 
     // Raw string.
     @Override
     public void outARawStringLitExpr(ARawStringLitExpr node) {
-        typeTable.put(node, new StringType());
+        typeTable.put(node, TypeFactory.getStringType());
     }
 
 }
@@ -0,0 +1,197 @@
+package golite.type;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+
+/**
+ * Type factory. Interns types (hash-consing), so that each structurally distinct type exists
+ * exactly once and types can be compared by reference. Composite types are keyed on their (already
+ * canonical) components, so interning a type costs a single table lookup regardless of its depth.
+ *
+ * Interned types are only weakly held, and the factory is safe to use from several threads.
+ */
+public final class TypeFactory {
+
+	/**
+	 * Structural key of a composite type, made of its kind and its components.
+	 */
+	static final class Key {
+
+		/** Kind of type. */
+		private final Class<?> kind;
+		/** Components (Id's, bounds and component types). */
+		private final Object[] parts;
+		/** Hash code, computed once. */
+		private final int hash;
+
+		/**
+		 * Constructor.
+		 */
+		private Key(Class<?> kind, Object... parts) {
+			this.kind = kind;
+			this.parts = parts;
+			this.hash = 31 * kind.hashCode() + Arrays.hashCode(parts);
+		}
+
+		// Components are canonical, so this is a shallow comparison.
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+
+			Key other = (Key) o;
+			return this.hash == other.hash && this.kind == other.kind
+				&& Arrays.equals(this.parts, other.parts);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+	}
+
+	// Primitive types, which are singletons.
+	private static final BoolType BOOL_TYPE = new BoolType();
+	private static final IntType INT_TYPE = new IntType();
+	private static final FloatType FLOAT_TYPE = new FloatType();
+	private static final RuneType RUNE_TYPE = new RuneType();
+	private static final StringType STRING_TYPE = new StringType();
+	private static final VoidType VOID_TYPE = new VoidType();
+
+	/**
+	 * Interned types, by key. Each type holds on to its key, so an entry lives exactly as long as
+	 * its type is reachable.
+	 */
+	private static final Map<Key, WeakReference<GoLiteType>> types =
+		new WeakHashMap<Key, WeakReference<GoLiteType>>();
+
+	private TypeFactory() {}
+
+	/**
+	 * Returns the bool type.
+	 */
+	public static BoolType getBoolType() {
+		return BOOL_TYPE;
+	}
+
+	/**
+	 * Returns the int type.
+	 */
+	public static IntType getIntType() {
+		return INT_TYPE;
+	}
+
+	/**
+	 * Returns the float64 type.
+	 */
+	public static FloatType getFloatType() {
+		return FLOAT_TYPE;
+	}
+
+	/**
+	 * Returns the rune type.
+	 */
+	public static RuneType getRuneType() {
+		return RUNE_TYPE;
+	}
+
+	/**
+	 * Returns the string type.
+	 */
+	public static StringType getStringType() {
+		return STRING_TYPE;
+	}
+
+	/**
+	 * Returns the void type.
+	 */
+	public static VoidType getVoidType() {
+		return VOID_TYPE;
+	}
+
+	/**
+	 * Returns the alias type with the given alias and aliased type.
+	 *
+	 * @param alias - Alias
+	 * @param type - Aliased type
+	 * @return Alias type
+	 */
+	public static AliasType getAliasType(String alias, GoLiteType type) {
+		Key key = new Key(AliasType.class, alias, type);
+		synchronized (types) {
+			AliasType aliasType = (AliasType) lookUp(key);
+			return aliasType != null ? aliasType : intern(new AliasType(alias, type, key));
+		}
+	}
+
+	/**
+	 * Returns the array type with the given element type and bound.
+	 *
+	 * @param type - Element type
+	 * @param bound - Array bound
+	 * @return Array type
+	 */
+	public static ArrayType getArrayType(GoLiteType type, int bound) {
+		Key key = new Key(ArrayType.class, type, bound);
+		synchronized (types) {
+			ArrayType arrayType = (ArrayType) lookUp(key);
+			return arrayType != null ? arrayType : intern(new ArrayType(type, bound, key));
+		}
+	}
+
+	/**
+	 * Returns the slice type with the given element type.
+	 *
+	 * @param type - Element type
+	 * @return Slice type
+	 */
+	public static SliceType getSliceType(GoLiteType type) {
+		Key key = new Key(SliceType.class, type);
+		synchronized (types) {
+			SliceType sliceType = (SliceType) lookUp(key);
+			return sliceType != null ? sliceType : intern(new SliceType(type, key));
+		}
+	}
+
+	/**
+	 * Returns the struct type with the given fields, in order.
+	 *
+	 * @param fields - Fields
+	 * @return Struct type
+	 */
+	public static StructType getStructType(List<StructType.Field> fields) {
+		Object[] parts = new Object[2 * fields.size()];
+		for (int i = 0; i < fields.size(); i++) {
+			parts[2 * i] = fields.get(i).getId();
+			parts[2 * i + 1] = fields.get(i).getType();
+		}
+
+		Key key = new Key(StructType.class, parts);
+		synchronized (types) {
+			StructType structType = (StructType) lookUp(key);
+			return structType != null ? structType : intern(new StructType(fields, key));
+		}
+	}
+
+	/**
+	 * Returns the interned type with the given key, or null if there is none.
+	 */
+	private static GoLiteType lookUp(Key key) {
+		WeakReference<GoLiteType> ref = types.get(key);
+		return ref == null ? null : ref.get();
+	}
+
+	/**
+	 * Interns the given type, under the key it holds.
+	 */
+	private static <T extends GoLiteType> T intern(T type) {
+		types.put(type.key, new WeakReference<GoLiteType>(type));
+		return type;
+	}
+
+}
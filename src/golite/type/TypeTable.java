@@ -0,0 +1,148 @@
+package golite.type;
+
+import golite.node.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Type table, mapping AST nodes to their GoLite types.
+ *
+ * Nodes are keyed by identity in an open-addressing table made of two parallel arrays (with linear
+ * probing), so an entry costs two array slots instead of a separately allocated map entry, and a
+ * lookup is a few array reads.
+ */
+public class TypeTable {
+
+	/** Initial capacity (a power of two). */
+	private static final int INITIAL_CAPACITY = 1024;
+
+	/** Nodes, null for empty slots. */
+	private Node[] nodes;
+	/** Types, parallel to the nodes. */
+	private GoLiteType[] types;
+	/** Number of entries. */
+	private int size;
+
+	/**
+	 * Constructor.
+	 */
+	public TypeTable() {
+		this.nodes = new Node[INITIAL_CAPACITY];
+		this.types = new GoLiteType[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Returns the type of the given node.
+	 *
+	 * @param node - AST node
+	 * @return Type, or null if the node has none
+	 */
+	public GoLiteType get(Node node) {
+		int mask = this.nodes.length - 1;
+		for (int i = slot(node, mask); this.nodes[i] != null; i = (i + 1) & mask) {
+			if (this.nodes[i] == node)
+				return this.types[i];
+		}
+
+		return null;
+	}
+
+	/**
+	 * Sets the type of the given node, replacing its previous type if any.
+	 *
+	 * @param node - AST node
+	 * @param type - Type
+	 */
+	public void put(Node node, GoLiteType type) {
+		int mask = this.nodes.length - 1;
+		int i = slot(node, mask);
+		while (this.nodes[i] != null) {
+			if (this.nodes[i] == node) {
+				this.types[i] = type;
+				return;
+			}
+
+			i = (i + 1) & mask;
+		}
+
+		this.nodes[i] = node;
+		this.types[i] = type;
+
+		// Keep the table at most three quarters full.
+		if (++this.size > this.nodes.length - (this.nodes.length >> 2))
+			this.grow();
+	}
+
+	/**
+	 * Checks whether the given node has an entry.
+	 *
+	 * @param node - AST node
+	 * @return True if it has one, false otherwise
+	 */
+	public boolean containsKey(Node node) {
+		int mask = this.nodes.length - 1;
+		for (int i = slot(node, mask); this.nodes[i] != null; i = (i + 1) & mask) {
+			if (this.nodes[i] == node)
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns the number of entries.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the nodes with an entry, in no particular order.
+	 *
+	 * @return Nodes
+	 */
+	public List<Node> getNodes() {
+		ArrayList<Node> nodes = new ArrayList<Node>(this.size);
+		for (Node n : this.nodes) {
+			if (n != null)
+				nodes.add(n);
+		}
+
+		return nodes;
+	}
+
+	/**
+	 * Doubles the capacity, reinserting every entry.
+	 */
+	private void grow() {
+		Node[] oldNodes = this.nodes;
+		GoLiteType[] oldTypes = this.types;
+
+		this.nodes = new Node[oldNodes.length << 1];
+		this.types = new GoLiteType[oldNodes.length << 1];
+
+		int mask = this.nodes.length - 1;
+		for (int j = 0; j < oldNodes.length; j++) {
+			if (oldNodes[j] == null)
+				continue;
+
+			int i = slot(oldNodes[j], mask);
+			while (this.nodes[i] != null)
+				i = (i + 1) & mask;
+
+			this.nodes[i] = oldNodes[j];
+			this.types[i] = oldTypes[j];
+		}
+	}
+
+	/**
+	 * Returns the home slot of the given node, spreading its identity hash code over the table.
+	 */
+	private static int slot(Node node, int mask) {
+		int h = System.identityHashCode(node) * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+}
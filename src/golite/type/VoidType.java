@@ -6,23 +6,16 @@ package golite.type;
  */
 public class VoidType extends GoLiteType {
 
+	/**
+	 * Constructor.
+	 */
+	VoidType() {}
+
     @Override
     public boolean isCompatible(GoLiteType type) {
         return type.getUnderlyingType() instanceof VoidType;
     }
 
-	// Equality is performed on the class.
-	@Override
-    public boolean equals(Object o) {
-    	return o instanceof VoidType;
-    }
-
-    // Hash code is derived from the class.
-    @Override
-    public int hashCode() {
-        return this.getClass().hashCode();
-    }
-
 	@Override
 	public String toString() {
 		return "";
@@ -1,6 +1,5 @@
 package golite.util;
 
-import java.util.*;
 import golite.node.*;
 import golite.analysis.*;
 
@@ -8,63 +7,97 @@ import golite.analysis.*;
 /**
  * Program line and position tracker.
  *
- * Basically copied verbatim from:
- * <a href="http://lists.sablecc.org/pipermail/sablecc-discussion/msg00144.html">http://lists.sablecc.org/pipermail/sablecc-discussion/msg00144.html</a>
+ * The line and position of a node are those of its first token (or, for a node without tokens, of
+ * the first token after it). They are only looked up when asked for, i.e. when an error is
+ * reported, so compiling a valid program does no position bookkeeping at all.
  */
-public class LineAndPosTracker extends ReversedDepthFirstAdapter {
-    
-    /** Tracks the line number for every AST token node. */
-    private Map<Node, Integer> lines = new HashMap<Node, Integer>();
-    /** Tracks the starting position number for every AST token node. */
-    private Map<Node, Integer> positions = new HashMap<Node, Integer>();
+public class LineAndPosTracker {
 
-    /** Tracks current line and position number. */
-    private int line, pos;
+    /**
+     * Finds the first token at or after a target node, in program order.
+     */
+    private static class TokenFinder extends DepthFirstAdapter {
+
+        /** Target AST node. */
+        private final Node target;
+        /** Whether the traversal reached the target. */
+        private boolean reached;
+        /** First token at or after the target, once found. */
+        private Token token;
+
+        /**
+         * Constructor.
+         *
+         * @param target - Target AST node
+         */
+        public TokenFinder(Node target) {
+            this.target = target;
+        }
+
+        @Override
+        public void defaultIn(Node node) {
+            if (node == this.target)
+                this.reached = true;
+        }
+
+        @Override
+        public void defaultCase(Node node) {
+            if (this.token == null && (this.reached || node == this.target))
+                this.token = (Token) node;
+        }
+
+    }
+
+    /** Last node looked up, and its token (errors ask for the line and then the position). */
+    private Node node;
+    private Token token;
 
     /**
-     * Returns the line number for a given token node.
+     * Returns the line number for a given node.
      *
-     * @param node - AST node token
+     * @param node - AST node
      * @return Line number
      */
     public int getLine(Node node) {
-        return this.lines.get(node);
+        Token token = this.getToken(node);
+        return token == null ? 0 : token.getLine();
     }
 
     /**
-     * Returns the start position number for a given node token.
+     * Returns the start position number for a given node.
      *
-     * @param node - AST node token
+     * @param node - AST node
      * @return Start position number
      */
     public int getPos(Node node) {
-        return this.positions.get(node);
+        Token token = this.getToken(node);
+        return token == null ? 0 : token.getPos();
     }
 
     /**
-     * Wrapper called on every AST token node to track line and position information.
+     * Returns the first token at or after the given node, searching the whole AST it belongs to.
      *
      * @param node - AST node
+     * @return Token, or null if there is none
      */
-    @Override
-    public void defaultCase(Node node) {
-      Token token = (Token) node;
-      this.line = token.getLine();
-      this.pos = token.getPos();
-      lines.put(node, this.line);
-      positions.put(node, this.pos);
-    }
+    private Token getToken(Node node) {
+        if (node != this.node) {
+            if (node instanceof Token)
+                this.token = (Token) node;
+            else {
+                Node root = node;
+                while (root.parent() != null)
+                    root = root.parent();
 
-    /**
-     * Wrapper called on exiting every AST token node to update line and position information.
-     *
-     * @param node - AST node
-     */
-    @Override
-    public void defaultOut(Node node) {
-      // use the line/pos of the last seen token
-      lines.put(node, this.line);
-      positions.put(node, this.pos);
+                TokenFinder finder = new TokenFinder(node);
+                root.apply(finder);
+                this.token = finder.token;
+            }
+
+            this.node = node;
+        }
+
+        return this.token;
     }
 
-}
\ No newline at end of file
+}
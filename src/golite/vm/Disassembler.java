@@ -0,0 +1,103 @@
+package golite.vm;
+
+import java.util.HashMap;
+
+import static golite.vm.Opcodes.*;
+
+/**
+ * Register VM Disassembler
+ *
+ * Lists the instructions of a lowered program, one per line with its address, under a header for
+ * the global initialization and for each function. Registers are written with the letter of their
+ * kind (i, d or o, prefixed by g in the global frame), constants by their value and calls by the
+ * name of the function.
+ */
+public class Disassembler {
+
+    /**
+     * Returns the listing of the given program.
+     *
+     * @param program - Lowered program
+     * @return Listing
+     */
+    public static String disassemble(Program program) {
+        HashMap<Integer, Integer> functions = new HashMap<Integer, Integer>();
+        for (int f = 0; f < program.names.length; f++)
+            functions.put(program.entries[f], f);
+
+        StringBuilder s = new StringBuilder();
+        s.append(String.format("init (ints %d, doubles %d, objects %d):\n", program.globalInts,
+            program.globalDoubles, program.globalObjects));
+
+        int[] code = program.code;
+        for (int pc = 0; pc < code.length; pc += length(code[pc])) {
+            Integer f = functions.get(pc);
+            if (f != null)
+                s.append(String.format("\nfunc %s (ints %d, doubles %d, objects %d):\n",
+                    program.names[f], program.frameInts[f], program.frameDoubles[f],
+                    program.frameObjects[f]));
+
+            int op = code[pc];
+            String format = FORMATS[op];
+            StringBuilder operands = new StringBuilder();
+            for (int i = 0; i < format.length(); i++) {
+                if (i > 0)
+                    operands.append(", ");
+                operands.append(operand(program, format.charAt(i), code[pc + 1 + i]));
+            }
+
+            if (format.isEmpty())
+                s.append(String.format("%6d  %s\n", pc, NAMES[op]));
+            else
+                s.append(String.format("%6d  %-9s %s\n", pc, NAMES[op], operands));
+        }
+
+        return s.toString();
+    }
+
+    /**
+     * Returns the text of the given operand.
+     *
+     * @param program - Lowered program
+     * @param kind - Kind of the operand, from the format of its instruction
+     * @param x - Operand
+     * @return Text
+     */
+    private static String operand(Program program, char kind, int x) {
+        switch (kind) {
+            case 'i': return "i" + x;
+            case 'd': return "d" + x;
+            case 'o': return "o" + x;
+            case 'I': return "gi" + x;
+            case 'D': return "gd" + x;
+            case 'O': return "go" + x;
+            case 'c': return Double.toString(program.doubles[x]);
+            case 's':
+                Object value = program.objects[x];
+                return (value instanceof String) ? quote((String) value) : "<zero value>";
+            case 'L': return "@" + x;
+            case 'f': return program.names[x];
+            default: return Integer.toString(x);
+        }
+    }
+
+    /**
+     * Returns the given string as an interpreted string literal.
+     */
+    private static String quote(String value) {
+        StringBuilder s = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '\n': s.append("\\n"); break;
+                case '\t': s.append("\\t"); break;
+                case '\r': s.append("\\r"); break;
+                case '"': s.append("\\\""); break;
+                case '\\': s.append("\\\\"); break;
+                default: s.append(c);
+            }
+        }
+
+        return s.append('"').toString();
+    }
+
+}
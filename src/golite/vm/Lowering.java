@@ -0,0 +1,1644 @@
+package golite.vm;
+
+import golite.analysis.*;
+import golite.generator.ConstantFolder;
+import golite.interp.Record;
+import golite.node.*;
+import golite.symbol.*;
+import golite.type.*;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static golite.vm.Opcodes.*;
+
+/**
+ * GoLite Lowering
+ *
+ * Lowers a type checked program to the instructions of the register VM. Every variable gets a
+ * register of its kind (int for ints, runes and bools, double for float64s and object for the
+ * rest), resolved from the scope depth of its symbol like with the interpreter, and temporaries
+ * get the registers after those of the variables in scope, for the duration of a statement. Each
+ * expression is lowered to the register holding its value: a local variable is its own register,
+ * and the outermost operation of the value assigned to a local variable writes to the variable's
+ * register directly. Conditions are lowered to compare-and-branch instructions where possible, and
+ * loops test their condition at the bottom.
+ */
+public class Lowering extends DepthFirstAdapter {
+
+    /** Kinds of values. Bools are stored in int registers. */
+    private static final int INT = 0, DOUBLE = 1, OBJECT = 2, BOOL = 3;
+
+    /** Binary operators. */
+    private static final int ADD = 0, SUB = 1, MUL = 2, DIV = 3, MOD = 4, AND = 5, OR = 6, XOR = 7,
+        AND_NOT = 8, SHL = 9, SHR = 10;
+    /** Comparisons. */
+    private static final int EQ = 0, NEQ = 1, LT = 2, LTE = 3, GT = 4, GTE = 5;
+
+    /** Locations of variables. */
+    private static final int UNIVERSE = 0, GLOBAL = 1, LOCAL = 2;
+
+    /** Instructions of each binary operator on ints, and on doubles (-1 where there's none). */
+    private static final int[] INT_OPS = { IADD, ISUB, IMUL, IDIV, IMOD, IAND, IOR, IXOR, IANDNOT,
+        ISHL, ISHR };
+    private static final int[] DOUBLE_OPS = { DADD, DSUB, DMUL, DDIV, -1, -1, -1, -1, -1, -1, -1 };
+    /** Instructions of each comparison, by kind of operands, and of each int compare-and-branch. */
+    private static final int[] INT_CMPS = { ICMPEQ, ICMPNE, ICMPLT, ICMPLE, ICMPGT, ICMPGE };
+    private static final int[] DOUBLE_CMPS = { DCMPEQ, DCMPNE, DCMPLT, DCMPLE, DCMPGT, DCMPGE };
+    private static final int[] OBJECT_CMPS = { OCMPEQ, OCMPNE, SCMPLT, SCMPLE, SCMPGT, SCMPGE };
+    private static final int[] BRANCHES = { IFEQ, IFNE, IFLT, IFLE, IFGT, IFGE };
+    /** Negation of each comparison. */
+    private static final int[] NEGATIONS = { NEQ, EQ, GTE, GT, LTE, LT };
+
+    /** Instructions moving a value of each kind, by kind. */
+    private static final int[] MOVES = { IMOV, DMOV, OMOV, IMOV };
+    private static final int[] GLOBAL_LOADS = { IGLOAD, DGLOAD, OGLOAD, IGLOAD };
+    private static final int[] GLOBAL_STORES = { IGSTORE, DGSTORE, OGSTORE, IGSTORE };
+    private static final int[] ARGS = { IARG, DARG, OARG, IARG };
+    private static final int[] RESULTS = { IRESULT, DRESULT, ORESULT, IRESULT };
+    private static final int[] RETURNS = { IRET, DRET, ORET, IRET };
+    private static final int[] PRINT_OPS = { PRINTI, PRINTD, PRINTS, PRINTB };
+    /** Element and field instructions, by kind of the element or field. */
+    private static final int[] ARRAY_LOADS = { IALOAD, DALOAD, OALOAD, BALOAD };
+    private static final int[] ARRAY_STORES = { IASTORE, DASTORE, OASTORE, BASTORE };
+    private static final int[] SLICE_LOADS = { ISLOAD, DSLOAD, OSLOAD, BSLOAD };
+    private static final int[] SLICE_STORES = { ISSTORE, DSSTORE, OSSTORE, BSSTORE };
+    private static final int[] APPENDS = { IAPPEND, DAPPEND, OAPPEND, BAPPEND };
+    private static final int[] FIELD_LOADS = { IFLOAD, DFLOAD, OFLOAD, IFLOAD };
+    private static final int[] FIELD_STORES = { IFSTORE, DFSTORE, OFSTORE, IFSTORE };
+
+    /**
+     * Layout of the records of a struct type: the kind and slot of each field.
+     */
+    private static class Layout {
+
+        private final HashMap<String, Integer> kinds = new HashMap<String, Integer>();
+        private final HashMap<String, Integer> slots = new HashMap<String, Integer>();
+        /** Zero value. */
+        private Record zero;
+
+    }
+
+    /** Type table from the type checker. */
+    private final TypeTable typeTable;
+    /** Values of the constant expressions. */
+    private ConstantFolder constantFolder;
+    /** Symbol table, rebuilt while lowering. */
+    private SymbolTable symbolTable;
+    /** Registers of the variables. */
+    private IdentityHashMap<Symbol, Integer> registers;
+    /** Type expressions of the top-level types, and the types resolved from them, by name. */
+    private LinkedHashMap<String, PTypeExpr> globalTypeExprs;
+    private HashMap<String, GoLiteType> globalTypes;
+    /** Top-level variables, by name. */
+    private HashMap<String, Symbol> globalVars;
+    /** Layouts of the struct types, by underlying type. */
+    private HashMap<GoLiteType, Layout> layouts;
+
+    /** Indices of the functions, by name, and their parameter kinds and registers. */
+    private HashMap<String, Integer> functions;
+    private ArrayList<int[]> paramKinds, paramRegisters;
+    /** Names, entry points and frame sizes of the functions, by index. */
+    private ArrayList<String> names;
+    private int[] entries, frameInts, frameDoubles, frameObjects;
+
+    /** Code. */
+    private int[] code = new int[1 << 10];
+    private int size;
+    /** Constant pools, and the indices of the strings in the object pool. */
+    private ArrayList<Double> doubles;
+    private ArrayList<Object> objects;
+    private HashMap<String, Integer> strings;
+
+    /** Next free register of each kind in the current frame, and the number it needs. */
+    private int[] nextRegisters, frameSizes;
+    /** Next free registers when each enclosing scope was entered. */
+    private ArrayDeque<int[]> scopeRegisters;
+
+    /** Jumps of the break statements of each enclosing loop or switch, to patch at its end. */
+    private ArrayDeque<ArrayList<Integer>> breaks;
+    /** Jumps of the continue statements of each enclosing loop, to patch at its end. */
+    private ArrayDeque<ArrayList<Integer>> continues;
+
+    /** Lowered program. */
+    private Program program;
+
+    /**
+     * Constructor.
+     *
+     * @param typeTable - Type table from the type checker
+     */
+    public Lowering(TypeTable typeTable) {
+        this.typeTable = typeTable;
+    }
+
+    /**
+     * Getter (after the AST was applied to the lowering).
+     */
+    public Program getProgram() {
+        return this.program;
+    }
+
+    /**
+     * Code
+     *
+     */
+
+    /**
+     * Appends an instruction.
+     *
+     * @param op - Opcode
+     * @param operands - Operands
+     */
+    private void emit(int op, int... operands) {
+        if (this.size + operands.length + 1 > this.code.length)
+            this.code = Arrays.copyOf(this.code, 2 * (this.size + operands.length + 1));
+
+        this.code[this.size++] = op;
+        for (int x : operands)
+            this.code[this.size++] = x;
+    }
+
+    /**
+     * Appends a jump instruction whose target (its last operand) is patched later.
+     *
+     * @param jumps - List to add the position of the target to
+     * @param op - Opcode
+     * @param operands - Operands before the target
+     */
+    private void emitJump(ArrayList<Integer> jumps, int op, int... operands) {
+        int[] all = Arrays.copyOf(operands, operands.length + 1);
+        this.emit(op, all);
+        jumps.add(this.size - 1);
+    }
+
+    /**
+     * Sets the target of the given jumps to the current position.
+     */
+    private void patch(List<Integer> jumps) {
+        for (int i : jumps)
+            this.code[i] = this.size;
+    }
+
+    private int doubleConstant(double x) {
+        this.doubles.add(x);
+        return this.doubles.size() - 1;
+    }
+
+    private int objectConstant(Object x) {
+        if (x instanceof String) {
+            Integer i = this.strings.get(x);
+            if (i != null)
+                return i;
+            this.strings.put((String) x, this.objects.size());
+        }
+
+        this.objects.add(x);
+        return this.objects.size() - 1;
+    }
+
+    /**
+     * Types
+     *
+     */
+
+    /**
+     * Returns the GoLite type for the given type expression, in the current scope.
+     *
+     * @param node - Type expression
+     * @return Corresponding GoLite type
+     */
+    private GoLiteType getType(PTypeExpr node) {
+        if (node instanceof ABoolTypeExpr)
+            return TypeFactory.getBoolType();
+        else if (node instanceof AIntTypeExpr)
+            return TypeFactory.getIntType();
+        else if (node instanceof AFloatTypeExpr)
+            return TypeFactory.getFloatType();
+        else if (node instanceof ARuneTypeExpr)
+            return TypeFactory.getRuneType();
+        else if (node instanceof AStringTypeExpr)
+            return TypeFactory.getStringType();
+        else if (node instanceof AAliasTypeExpr) {
+            String name = ((AAliasTypeExpr) node).getId().getText();
+            Symbol symbol = this.symbolTable.getSymbol(name);
+            // Top-level types can be used before they're declared (with unordered declarations).
+            GoLiteType type = (symbol instanceof TypeAliasSymbol) ? symbol.getType()
+                : this.getGlobalType(name);
+            return TypeFactory.getAliasType(name, type);
+        } else if (node instanceof AArrayTypeExpr) {
+            AArrayTypeExpr array = (AArrayTypeExpr) node;
+            return TypeFactory.getArrayType(this.getType(array.getTypeExpr()),
+                getIntLit(array.getExpr()).intValue());
+        } else if (node instanceof ASliceTypeExpr)
+            return TypeFactory.getSliceType(this.getType(((ASliceTypeExpr) node).getTypeExpr()));
+        else {
+            ArrayList<StructType.Field> fields = new ArrayList<StructType.Field>();
+            for (PFieldSpec e : ((AStructTypeExpr) node).getFieldSpec()) {
+                ASpecFieldSpec spec = (ASpecFieldSpec) e;
+                GoLiteType type = this.getType(spec.getTypeExpr());
+                for (POptId o : spec.getOptId()) {
+                    if (o instanceof AIdOptId)
+                        fields.add(new StructType.Field(((AIdOptId) o).getId().getText(), type));
+                }
+            }
+
+            return TypeFactory.getStructType(fields);
+        }
+    }
+
+    /**
+     * Returns the type aliased by the top-level type with the given name, resolving it if needed.
+     */
+    private GoLiteType getGlobalType(String name) {
+        GoLiteType type = this.globalTypes.get(name);
+        if (type == null) {
+            type = this.getType(this.globalTypeExprs.get(name));
+            this.globalTypes.put(name, type);
+        }
+
+        return type;
+    }
+
+    /**
+     * Returns the type of the variable with the given position in the given specification.
+     */
+    private GoLiteType getType(ASpecVarSpec node, int i) {
+        if (node.getTypeExpr() != null)
+            return this.getType(node.getTypeExpr());
+        else
+            return this.typeTable.get(node.getExpr().get(i));
+    }
+
+    /**
+     * Returns the underlying type of the given expression.
+     */
+    private GoLiteType typeOf(PExpr node) {
+        return this.typeTable.get(node).getUnderlyingType();
+    }
+
+    /**
+     * Returns the kind of the values of the given type.
+     */
+    private static int kindOf(GoLiteType type) {
+        type = type.getUnderlyingType();
+
+        if (type instanceof IntType || type instanceof RuneType)
+            return INT;
+        else if (type instanceof FloatType)
+            return DOUBLE;
+        else if (type instanceof BoolType)
+            return BOOL;
+        else
+            return OBJECT;
+    }
+
+    /**
+     * Returns the kind of the values of the given expression.
+     */
+    private int kindOf(PExpr node) {
+        return kindOf(this.typeOf(node));
+    }
+
+    /**
+     * Returns the kind of register holding values of the given kind.
+     */
+    private static int registerKind(int kind) {
+        return kind == BOOL ? INT : kind;
+    }
+
+    /**
+     * Returns the kind of the elements of the given array or slice type.
+     */
+    private static int elemKind(GoLiteType type) {
+        return kindOf(type instanceof ArrayType ? ((ArrayType) type).getElemType()
+            : ((SliceType) type).getElemType());
+    }
+
+    /**
+     * Returns the layout of the records of the given struct type.
+     */
+    private Layout getLayout(GoLiteType type) {
+        type = type.getUnderlyingType();
+
+        Layout layout = this.layouts.get(type);
+        if (layout == null) {
+            layout = new Layout();
+
+            int[] counts = new int[3];
+            ArrayList<Object> zeros = new ArrayList<Object>();
+            for (Iterator<StructType.Field> i = ((StructType) type).getFieldIterator();
+                    i.hasNext(); ) {
+                StructType.Field field = i.next();
+                int kind = kindOf(field.getType());
+
+                layout.kinds.put(field.getId(), kind);
+                layout.slots.put(field.getId(), counts[registerKind(kind)]++);
+                if (kind == OBJECT)
+                    zeros.add(this.getZero(field.getType()));
+            }
+
+            layout.zero = new Record(new int[counts[INT]], new double[counts[DOUBLE]],
+                zeros.toArray());
+            this.layouts.put(type, layout);
+        }
+
+        return layout;
+    }
+
+    /**
+     * Returns a (new) zero value of the given type, of object kind.
+     */
+    private Object getZero(GoLiteType type) {
+        type = type.getUnderlyingType();
+
+        if (type instanceof StringType)
+            return "";
+        else if (type instanceof StructType)
+            return this.getLayout(type).zero.copy();
+        else if (type instanceof ArrayType) {
+            GoLiteType elemType = ((ArrayType) type).getElemType();
+            int bound = ((ArrayType) type).getBound();
+
+            switch (kindOf(elemType)) {
+                case INT: return new int[bound];
+                case DOUBLE: return new double[bound];
+                case BOOL: return new boolean[bound];
+                default:
+                    Object[] a = new Object[bound];
+                    for (int i = 0; i < bound; i++)
+                        a[i] = this.getZero(elemType);
+                    return a;
+            }
+        } else
+            // Slice.
+            return null;
+    }
+
+    /**
+     * Stores a (new) zero value of the given type to the given register.
+     */
+    private void zero(GoLiteType type, int register) {
+        switch (kindOf(type)) {
+            case INT:
+            case BOOL:
+                this.emit(ICONST, register, 0);
+                break;
+            case DOUBLE:
+                this.emit(DCONST, register, this.doubleConstant(0.0));
+                break;
+            default:
+                GoLiteType u = type.getUnderlyingType();
+                // Arrays and structs are mutable, so each variable gets its own copy.
+                this.emit(u instanceof ArrayType || u instanceof StructType ? OZERO : OCONST,
+                    register, this.objectConstant(this.getZero(type)));
+        }
+    }
+
+    /**
+     * Scopes, Variables and Registers
+     *
+     */
+
+    private void enterScope() {
+        this.symbolTable.scope();
+        this.scopeRegisters.push(this.nextRegisters.clone());
+    }
+
+    private void exitScope() {
+        this.symbolTable.unscope();
+        this.nextRegisters = this.scopeRegisters.pop();
+    }
+
+    /**
+     * Allocates a register for a value of the given kind in the current frame.
+     */
+    private int newRegister(int kind) {
+        int k = registerKind(kind);
+        int register = this.nextRegisters[k]++;
+        this.frameSizes[k] = Math.max(this.frameSizes[k], this.nextRegisters[k]);
+        return register;
+    }
+
+    /**
+     * Returns the given register if it's one (non-negative), or a new one of the given kind.
+     */
+    private int target(int register, int kind) {
+        return register >= 0 ? register : this.newRegister(kind);
+    }
+
+    /**
+     * Returns a local variable with a new register, without declaring it yet.
+     */
+    private Symbol newLocal(String name, GoLiteType type, Node node) {
+        Symbol symbol = new VariableSymbol(name, type, node);
+        this.registers.put(symbol, this.newRegister(kindOf(type)));
+        return symbol;
+    }
+
+    /**
+     * Returns the variable with the given name in the current scope.
+     */
+    private Symbol getVariable(String name) {
+        Symbol symbol = this.symbolTable.getSymbol(name);
+        // Functions can use top-level variables declared after them (with unordered top-level
+        // declarations).
+        return symbol != null ? symbol : this.globalVars.get(name);
+    }
+
+    /**
+     * Returns the location of the given variable, from the depth of its scope.
+     */
+    private int getLocation(Symbol symbol) {
+        String name = symbol.getName();
+        if (this.symbolTable.getSymbol(name) != symbol)
+            return GLOBAL;
+
+        int depth = this.symbolTable.getScopeDepth(name);
+        return depth == 0 ? UNIVERSE : depth == 1 ? GLOBAL : LOCAL;
+    }
+
+    /**
+     * Moves the value of the given kind in the given register to the given target register, unless
+     * there's no target (-1) or it's the same register.
+     *
+     * @return Register holding the value
+     */
+    private int move(int kind, int dst, int src) {
+        if (dst < 0 || dst == src)
+            return src;
+
+        this.emit(MOVES[kind], dst, src);
+        return dst;
+    }
+
+    /**
+     * Returns the register holding the value of the given variable, loading it to the given
+     * register (or a new one if -1) if it isn't local.
+     */
+    private int load(Symbol symbol, int dst) {
+        int kind = kindOf(symbol.getType());
+        int location = this.getLocation(symbol);
+
+        if (location == UNIVERSE) {
+            int t = this.target(dst, kind);
+            this.emit(ICONST, t, symbol.getName().equals("true") ? 1 : 0);
+            return t;
+        } else if (location == LOCAL)
+            return this.move(kind, dst, this.registers.get(symbol));
+
+        int t = this.target(dst, kind);
+        this.emit(GLOBAL_LOADS[kind], t, this.registers.get(symbol));
+        return t;
+    }
+
+    /**
+     * Stores the value in the given register to the given variable.
+     */
+    private void store(Symbol symbol, int src) {
+        int kind = kindOf(symbol.getType());
+
+        if (this.getLocation(symbol) == LOCAL)
+            this.move(kind, this.registers.get(symbol), src);
+        else
+            this.emit(GLOBAL_STORES[kind], this.registers.get(symbol), src);
+    }
+
+    /**
+     * Program
+     *
+     */
+
+    @Override
+    public void caseStart(Start node) {
+        this.constantFolder = new ConstantFolder(this.typeTable);
+        node.apply(this.constantFolder);
+
+        this.symbolTable = new SymbolTable();
+        this.registers = new IdentityHashMap<Symbol, Integer>();
+        this.globalTypeExprs = new LinkedHashMap<String, PTypeExpr>();
+        this.globalTypes = new HashMap<String, GoLiteType>();
+        this.globalVars = new HashMap<String, Symbol>();
+        this.layouts = new HashMap<GoLiteType, Layout>();
+        this.functions = new HashMap<String, Integer>();
+        this.paramKinds = new ArrayList<int[]>();
+        this.paramRegisters = new ArrayList<int[]>();
+        this.names = new ArrayList<String>();
+        this.doubles = new ArrayList<Double>();
+        this.objects = new ArrayList<Object>();
+        this.strings = new HashMap<String, Integer>();
+        this.scopeRegisters = new ArrayDeque<int[]>();
+        this.breaks = new ArrayDeque<ArrayList<Integer>>();
+        this.continues = new ArrayDeque<ArrayList<Integer>>();
+
+        // Universe scope.
+        this.symbolTable.scope();
+        this.symbolTable.putSymbol(new VariableSymbol("true", TypeFactory.getBoolType(), node));
+        this.symbolTable.putSymbol(new VariableSymbol("false", TypeFactory.getBoolType(), node));
+
+        node.getPProg().apply(this);
+
+        this.symbolTable.unscope();
+    }
+
+    @Override
+    public void caseAProgProg(AProgProg node) {
+        this.symbolTable.scope();
+
+        // Declare every top-level type and function, and allocate the registers of the top-level
+        // variables, first, since they can be used before their declarations with unordered
+        // top-level declarations.
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof ATypesTopDec) {
+                for (PTypeSpec t : ((ATypesTopDec) e).getTypeSpec()) {
+                    ASpecTypeSpec spec = (ASpecTypeSpec) t;
+                    if (spec.getOptId() instanceof AIdOptId)
+                        this.globalTypeExprs.put(((AIdOptId) spec.getOptId()).getId().getText(),
+                            spec.getTypeExpr());
+                }
+            }
+        }
+        for (Map.Entry<String, PTypeExpr> e : this.globalTypeExprs.entrySet()) {
+            this.symbolTable.putSymbol(new TypeAliasSymbol(e.getKey(),
+                this.getGlobalType(e.getKey()), e.getValue()));
+        }
+
+        this.nextRegisters = new int[3];
+        this.frameSizes = new int[3];
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof AVarsTopDec) {
+                for (PVarSpec v : ((AVarsTopDec) e).getVarSpec()) {
+                    ASpecVarSpec spec = (ASpecVarSpec) v;
+                    for (int i = 0; i < spec.getOptId().size(); i++) {
+                        POptId o = spec.getOptId().get(i);
+                        if (o instanceof AIdOptId) {
+                            String name = ((AIdOptId) o).getId().getText();
+                            this.globalVars.put(name, this.newLocal(name, this.getType(spec, i),
+                                spec));
+                        }
+                    }
+                }
+            } else if (e instanceof AFuncTopDec)
+                this.declareFunction((AFuncTopDec) e);
+        }
+
+        int n = this.names.size();
+        this.entries = new int[n];
+        this.frameInts = new int[n];
+        this.frameDoubles = new int[n];
+        this.frameObjects = new int[n];
+
+        // The code starts with the initialization of the top-level variables, in the global frame
+        // (whose first registers are the variables), which come into scope in order.
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof AVarsTopDec) {
+                for (PVarSpec v : ((AVarsTopDec) e).getVarSpec())
+                    this.declareGlobals((ASpecVarSpec) v);
+            }
+        }
+        Integer main = this.functions.get("main");
+        if (main != null)
+            this.emit(CALL, main);
+        this.emit(HALT);
+        int[] globalSizes = this.frameSizes;
+
+        for (PTopDec e : node.getTopDec()) {
+            if (e instanceof AFuncTopDec)
+                this.defineFunction((AFuncTopDec) e);
+        }
+
+        this.symbolTable.unscope();
+
+        double[] doubles = new double[this.doubles.size()];
+        for (int i = 0; i < doubles.length; i++)
+            doubles[i] = this.doubles.get(i);
+
+        this.program = new Program(Arrays.copyOf(this.code, this.size), doubles,
+            this.objects.toArray(), this.names.toArray(new String[n]), this.entries,
+            this.frameInts, this.frameDoubles, this.frameObjects, globalSizes[INT],
+            globalSizes[DOUBLE], globalSizes[OBJECT]);
+    }
+
+    /**
+     * Declares the given function, computing the registers of its parameters.
+     */
+    private void declareFunction(AFuncTopDec node) {
+        String name = node.getId().getText();
+        FunctionSymbol symbol = (node.getTypeExpr() == null) ? new FunctionSymbol(name, node)
+            : new FunctionSymbol(name, this.getType(node.getTypeExpr()), node);
+
+        for (PArgGroup g : node.getArgGroup()) {
+            symbol.addArgType(this.getType(((AArgArgGroup) g).getTypeExpr()),
+                ((AArgArgGroup) g).getId().size());
+        }
+        this.symbolTable.putSymbol(symbol);
+
+        // The parameters take the first registers of each kind, in order.
+        List<GoLiteType> argTypes = symbol.getArgTypes();
+        int[] kinds = new int[argTypes.size()], registers = new int[argTypes.size()];
+        int[] counts = new int[3];
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = kindOf(argTypes.get(i));
+            registers[i] = counts[registerKind(kinds[i])]++;
+        }
+
+        this.functions.put(name, this.names.size());
+        this.names.add(name);
+        this.paramKinds.add(kinds);
+        this.paramRegisters.add(registers);
+    }
+
+    /**
+     * Lowers the body of the given function.
+     */
+    private void defineFunction(AFuncTopDec node) {
+        int f = this.functions.get(node.getId().getText());
+        this.entries[f] = this.size;
+
+        this.nextRegisters = new int[3];
+        this.frameSizes = new int[3];
+        this.enterScope();
+
+        for (PArgGroup e : node.getArgGroup()) {
+            AArgArgGroup g = (AArgArgGroup) e;
+            GoLiteType type = this.getType(g.getTypeExpr());
+            for (TId id : g.getId())
+                this.symbolTable.putSymbol(this.newLocal(id.getText(), type, g));
+        }
+
+        this.block(node.getStmt());
+        this.emit(RET);
+
+        this.exitScope();
+        this.frameInts[f] = this.frameSizes[INT];
+        this.frameDoubles[f] = this.frameSizes[DOUBLE];
+        this.frameObjects[f] = this.frameSizes[OBJECT];
+    }
+
+    /**
+     * Lowers the initialization of the top-level variables of the given specification, bringing
+     * them into scope.
+     */
+    private void declareGlobals(ASpecVarSpec node) {
+        int[] mark = this.nextRegisters.clone();
+
+        LinkedList<POptId> ids = node.getOptId();
+        for (int i = 0; i < ids.size(); i++) {
+            if (ids.get(i) instanceof AIdOptId) {
+                Symbol symbol = this.globalVars.get(((AIdOptId) ids.get(i)).getId().getText());
+                int kind = kindOf(symbol.getType());
+                int t = this.newRegister(kind);
+
+                if (node.getExpr().isEmpty())
+                    this.zero(symbol.getType(), t);
+                else
+                    t = this.value(node.getExpr().get(i), t);
+                this.emit(GLOBAL_STORES[kind], this.registers.get(symbol), t);
+            } else if (!node.getExpr().isEmpty())
+                this.expr(node.getExpr().get(i), -1);
+        }
+
+        for (POptId o : ids) {
+            if (o instanceof AIdOptId)
+                this.symbolTable.putSymbol(this.globalVars.get(((AIdOptId) o).getId().getText()));
+        }
+
+        this.nextRegisters = mark;
+    }
+
+    /**
+     * Statements
+     *
+     */
+
+    /**
+     * Lowers the given statements, in the current scope.
+     */
+    private void block(List<PStmt> nodes) {
+        for (PStmt e : nodes)
+            this.stmt(e);
+    }
+
+    /**
+     * Lowers the given block, in a new scope.
+     */
+    private void scopedBlock(List<PStmt> nodes) {
+        this.enterScope();
+        this.block(nodes);
+        this.exitScope();
+    }
+
+    /**
+     * Lowers the given statement. The temporaries of a statement are free again after it, but not
+     * the variables it declares.
+     */
+    private void stmt(PStmt node) {
+        if (node instanceof AVarDecStmt) {
+            this.varDec((AVarDecStmt) node);
+            return;
+        } else if (node instanceof AShortAssignStmt) {
+            this.shortAssign((AShortAssignStmt) node);
+            return;
+        }
+
+        int[] mark = this.nextRegisters.clone();
+
+        if (node instanceof AEmptyStmt)
+            ;
+        else if (node instanceof ATypeDecStmt) {
+            for (PTypeSpec e : ((ATypeDecStmt) node).getTypeSpec()) {
+                ASpecTypeSpec spec = (ASpecTypeSpec) e;
+                if (spec.getOptId() instanceof AIdOptId)
+                    this.symbolTable.putSymbol(new TypeAliasSymbol(
+                        ((AIdOptId) spec.getOptId()).getId().getText(),
+                        this.getType(spec.getTypeExpr()), spec));
+            }
+        } else if (node instanceof AAssignStmt)
+            this.assign((AAssignStmt) node);
+        else if (node instanceof APlusAssignStmt)
+            this.opAssign(((APlusAssignStmt) node).getLhs(), ADD,
+                ((APlusAssignStmt) node).getRhs());
+        else if (node instanceof AMinusAssignStmt)
+            this.opAssign(((AMinusAssignStmt) node).getLhs(), SUB,
+                ((AMinusAssignStmt) node).getRhs());
+        else if (node instanceof AStarAssignStmt)
+            this.opAssign(((AStarAssignStmt) node).getLhs(), MUL,
+                ((AStarAssignStmt) node).getRhs());
+        else if (node instanceof ASlashAssignStmt)
+            this.opAssign(((ASlashAssignStmt) node).getLhs(), DIV,
+                ((ASlashAssignStmt) node).getRhs());
+        else if (node instanceof APercAssignStmt)
+            this.opAssign(((APercAssignStmt) node).getLhs(), MOD,
+                ((APercAssignStmt) node).getRhs());
+        else if (node instanceof AAndAssignStmt)
+            this.opAssign(((AAndAssignStmt) node).getLhs(), AND,
+                ((AAndAssignStmt) node).getRhs());
+        else if (node instanceof APipeAssignStmt)
+            this.opAssign(((APipeAssignStmt) node).getLhs(), OR,
+                ((APipeAssignStmt) node).getRhs());
+        else if (node instanceof ACarotAssignStmt)
+            this.opAssign(((ACarotAssignStmt) node).getLhs(), XOR,
+                ((ACarotAssignStmt) node).getRhs());
+        else if (node instanceof AAmpCarotAssignStmt)
+            this.opAssign(((AAmpCarotAssignStmt) node).getLhs(), AND_NOT,
+                ((AAmpCarotAssignStmt) node).getRhs());
+        else if (node instanceof ALshiftAssignStmt)
+            this.opAssign(((ALshiftAssignStmt) node).getLhs(), SHL,
+                ((ALshiftAssignStmt) node).getRhs());
+        else if (node instanceof ARshiftAssignStmt)
+            this.opAssign(((ARshiftAssignStmt) node).getLhs(), SHR,
+                ((ARshiftAssignStmt) node).getRhs());
+        else if (node instanceof AIncrStmt)
+            this.opAssign(((AIncrStmt) node).getExpr(), ADD, null);
+        else if (node instanceof ADecrStmt)
+            this.opAssign(((ADecrStmt) node).getExpr(), SUB, null);
+        else if (node instanceof AExprStmt) {
+            PExpr e = ((AExprStmt) node).getExpr();
+            if (e instanceof AFuncCallExpr && this.typeOf(e) instanceof VoidType)
+                this.invoke((AFuncCallExpr) e);
+            else
+                this.expr(e, -1);
+        } else if (node instanceof APrintStmt)
+            this.print(((APrintStmt) node).getExpr(), false);
+        else if (node instanceof APrintlnStmt)
+            this.print(((APrintlnStmt) node).getExpr(), true);
+        else if (node instanceof AContinueStmt)
+            this.emitJump(this.continues.peek(), JMP);
+        else if (node instanceof ABreakStmt)
+            this.emitJump(this.breaks.peek(), JMP);
+        else if (node instanceof AReturnStmt)
+            this.returnStmt((AReturnStmt) node);
+        else if (node instanceof AIfElseStmt)
+            this.ifElse((AIfElseStmt) node);
+        else if (node instanceof ASwitchStmt)
+            this.switchStmt((ASwitchStmt) node);
+        else if (node instanceof ALoopStmt)
+            this.loop((ALoopStmt) node);
+        else
+            this.scopedBlock(((ABlockStmt) node).getStmt());
+
+        this.nextRegisters = mark;
+    }
+
+    private void varDec(AVarDecStmt node) {
+        for (PVarSpec e : node.getVarSpec()) {
+            ASpecVarSpec spec = (ASpecVarSpec) e;
+            LinkedList<POptId> ids = spec.getOptId();
+
+            // The variables come into scope after their values are computed, straight into their
+            // registers.
+            Symbol[] symbols = new Symbol[ids.size()];
+            for (int i = 0; i < ids.size(); i++) {
+                if (ids.get(i) instanceof AIdOptId)
+                    symbols[i] = this.newLocal(((AIdOptId) ids.get(i)).getId().getText(),
+                        this.getType(spec, i), spec);
+            }
+
+            int[] mark = this.nextRegisters.clone();
+            for (int i = 0; i < ids.size(); i++) {
+                if (spec.getExpr().isEmpty()) {
+                    if (symbols[i] != null)
+                        this.zero(symbols[i].getType(), this.registers.get(symbols[i]));
+                } else if (symbols[i] != null)
+                    this.value(spec.getExpr().get(i), this.registers.get(symbols[i]));
+                else
+                    this.expr(spec.getExpr().get(i), -1);
+            }
+            this.nextRegisters = mark;
+
+            for (Symbol s : symbols) {
+                if (s != null)
+                    this.symbolTable.putSymbol(s);
+            }
+        }
+    }
+
+    private void shortAssign(AShortAssignStmt node) {
+        LinkedList<POptId> ids = node.getOptId();
+        LinkedList<PExpr> exprs = node.getExpr();
+
+        // The new variables get their registers first, so that they outlive the temporaries.
+        Symbol[] symbols = new Symbol[ids.size()];
+        boolean[] declared = new boolean[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            if (!(ids.get(i) instanceof AIdOptId))
+                continue;
+
+            String name = ((AIdOptId) ids.get(i)).getId().getText();
+            if (this.symbolTable.defSymbolInCurrentScope(name))
+                symbols[i] = this.getVariable(name);
+            else {
+                symbols[i] = this.newLocal(name, this.typeTable.get(exprs.get(i)), node);
+                declared[i] = true;
+            }
+        }
+
+        int[] mark = this.nextRegisters.clone();
+        if (ids.size() == 1) {
+            if (symbols[0] == null)
+                this.expr(exprs.get(0), -1);
+            else if (declared[0])
+                this.value(exprs.get(0), this.registers.get(symbols[0]));
+            else
+                this.assign(symbols[0], exprs.get(0));
+        } else {
+            // With several variables, some of which may be assigned, the values all go through
+            // temporaries first.
+            int[] temps = new int[exprs.size()];
+            for (int i = 0; i < temps.length; i++)
+                temps[i] = this.value(exprs.get(i), this.newRegister(this.kindOf(exprs.get(i))));
+            // The new variables aren't in scope yet, so they're moved straight into their
+            // registers (store() would take them for globals).
+            for (int i = 0; i < ids.size(); i++) {
+                if (declared[i])
+                    this.move(this.kindOf(exprs.get(i)), this.registers.get(symbols[i]), temps[i]);
+                else if (symbols[i] != null)
+                    this.store(symbols[i], temps[i]);
+            }
+        }
+        this.nextRegisters = mark;
+
+        for (int i = 0; i < ids.size(); i++) {
+            if (declared[i])
+                this.symbolTable.putSymbol(symbols[i]);
+        }
+    }
+
+    /**
+     * Lowers the assignment of the given value to the given variable, computing it straight into
+     * the variable's register if it's local.
+     */
+    private void assign(Symbol symbol, PExpr value) {
+        if (this.getLocation(symbol) == LOCAL)
+            this.value(value, this.registers.get(symbol));
+        else
+            this.store(symbol, this.value(value, -1));
+    }
+
+    private void assign(AAssignStmt node) {
+        LinkedList<PExpr> lhs = node.getLhs();
+        LinkedList<PExpr> rhs = node.getRhs();
+
+        if (lhs.size() == 1) {
+            PExpr l = lhs.getFirst();
+            if (l instanceof AVariableExpr)
+                this.assign(this.getVariable(((AVariableExpr) l).getId().getText()),
+                    rhs.getFirst());
+            else if (l instanceof AArrayElemExpr) {
+                AArrayElemExpr elem = (AArrayElemExpr) l;
+                int c = this.expr(elem.getArray(), -1);
+                int i = this.expr(elem.getIndex(), -1);
+                this.storeElement(this.typeOf(elem.getArray()), c, i,
+                    this.value(rhs.getFirst(), -1));
+            } else if (l instanceof AFieldExpr) {
+                AFieldExpr field = (AFieldExpr) l;
+                int r = this.expr(field.getExpr(), -1);
+                this.storeField(this.typeOf(field.getExpr()), r, field.getId().getText(),
+                    this.value(rhs.getFirst(), -1));
+            } else
+                // Blank.
+                this.expr(rhs.getFirst(), -1);
+            return;
+        }
+
+        // All the values are computed before any is assigned.
+        int[] temps = new int[rhs.size()];
+        for (int i = 0; i < rhs.size(); i++)
+            temps[i] = this.value(rhs.get(i), this.newRegister(this.kindOf(rhs.get(i))));
+        for (int i = 0; i < lhs.size(); i++) {
+            PExpr l = lhs.get(i);
+            if (l instanceof AVariableExpr)
+                this.store(this.getVariable(((AVariableExpr) l).getId().getText()), temps[i]);
+            else if (l instanceof AArrayElemExpr) {
+                AArrayElemExpr elem = (AArrayElemExpr) l;
+                this.storeElement(this.typeOf(elem.getArray()), this.expr(elem.getArray(), -1),
+                    this.expr(elem.getIndex(), -1), temps[i]);
+            } else if (l instanceof AFieldExpr) {
+                AFieldExpr field = (AFieldExpr) l;
+                this.storeField(this.typeOf(field.getExpr()), this.expr(field.getExpr(), -1),
+                    field.getId().getText(), temps[i]);
+            }
+        }
+    }
+
+    /**
+     * Stores the value in the given register to an element of an array or slice.
+     *
+     * @param type - Type of the array or slice
+     * @param container - Register of the array or slice
+     * @param index - Register of the index
+     * @param src - Register of the value
+     */
+    private void storeElement(GoLiteType type, int container, int index, int src) {
+        int kind = elemKind(type);
+        this.emit(type instanceof ArrayType ? ARRAY_STORES[kind] : SLICE_STORES[kind], container,
+            index, src);
+    }
+
+    /**
+     * Loads an element of an array or slice.
+     *
+     * @param type - Type of the array or slice
+     * @param container - Register of the array or slice
+     * @param index - Register of the index
+     * @param dst - Target register, or -1 for a new one
+     * @return Register holding the element
+     */
+    private int loadElement(GoLiteType type, int container, int index, int dst) {
+        int kind = elemKind(type);
+        int t = this.target(dst, kind);
+        this.emit(type instanceof ArrayType ? ARRAY_LOADS[kind] : SLICE_LOADS[kind], t, container,
+            index);
+        return t;
+    }
+
+    /**
+     * Stores the value in the given register to a field of a struct.
+     *
+     * @param type - Type of the struct
+     * @param record - Register of the struct
+     * @param name - Field name
+     * @param src - Register of the value
+     */
+    private void storeField(GoLiteType type, int record, String name, int src) {
+        Layout layout = this.getLayout(type);
+        this.emit(FIELD_STORES[layout.kinds.get(name)], record, layout.slots.get(name), src);
+    }
+
+    /**
+     * Loads a field of a struct.
+     *
+     * @param type - Type of the struct
+     * @param record - Register of the struct
+     * @param name - Field name
+     * @param dst - Target register, or -1 for a new one
+     * @return Register holding the field
+     */
+    private int loadField(GoLiteType type, int record, String name, int dst) {
+        Layout layout = this.getLayout(type);
+        int kind = layout.kinds.get(name);
+        int t = this.target(dst, kind);
+        this.emit(FIELD_LOADS[kind], t, record, layout.slots.get(name));
+        return t;
+    }
+
+    /**
+     * Lowers an operator assignment (or an increment or decrement, with a null operand).
+     *
+     * @param lhs - Assignable
+     * @param op - Operator
+     * @param rhs - Right operand, or null for 1
+     */
+    private void opAssign(PExpr lhs, int op, PExpr rhs) {
+        int kind = this.kindOf(lhs);
+        Object rightValue = (rhs != null) ? this.constantFolder.getValue(rhs) : (Long) 1L;
+
+        if (lhs instanceof AVariableExpr) {
+            Symbol symbol = this.getVariable(((AVariableExpr) lhs).getId().getText());
+
+            // Int locals are updated in place.
+            if (this.getLocation(symbol) == LOCAL) {
+                int v = this.registers.get(symbol);
+                this.binary(op, kind, v, rhs, rightValue, v);
+            } else {
+                int v = this.load(symbol, -1);
+                this.store(symbol, this.binary(op, kind, v, rhs, rightValue, v));
+            }
+        } else if (lhs instanceof AArrayElemExpr) {
+            // The array and index are evaluated once.
+            AArrayElemExpr elem = (AArrayElemExpr) lhs;
+            GoLiteType type = this.typeOf(elem.getArray());
+            int c = this.expr(elem.getArray(), -1);
+            int i = this.expr(elem.getIndex(), -1);
+
+            int v = this.loadElement(type, c, i, -1);
+            this.storeElement(type, c, i, this.binary(op, kind, v, rhs, rightValue, v));
+        } else {
+            AFieldExpr field = (AFieldExpr) lhs;
+            GoLiteType type = this.typeOf(field.getExpr());
+            int r = this.expr(field.getExpr(), -1);
+            String name = field.getId().getText();
+
+            int v = this.loadField(type, r, name, -1);
+            this.storeField(type, r, name, this.binary(op, kind, v, rhs, rightValue, v));
+        }
+    }
+
+    /**
+     * Lowers a print statement, with the values separated by spaces and followed by a newline for
+     * println.
+     */
+    private void print(List<PExpr> exprs, boolean ln) {
+        for (int i = 0; i < exprs.size(); i++) {
+            if (ln && i > 0)
+                this.emit(PRINTC, ' ');
+
+            PExpr e = exprs.get(i);
+            this.emit(PRINT_OPS[this.kindOf(e)], this.expr(e, -1));
+        }
+        if (ln)
+            this.emit(PRINTC, '\n');
+    }
+
+    private void returnStmt(AReturnStmt node) {
+        if (node.getExpr() == null)
+            this.emit(RET);
+        else
+            this.emit(RETURNS[this.kindOf(node.getExpr())], this.value(node.getExpr(), -1));
+    }
+
+    private void ifElse(AIfElseStmt node) {
+        AConditionCondition condition = (AConditionCondition) node.getCondition();
+
+        // The scope of the variables of the initial statement covers both blocks.
+        this.enterScope();
+        if (condition.getStmt() != null)
+            this.stmt(condition.getStmt());
+
+        ArrayList<Integer> elseJumps = new ArrayList<Integer>();
+        this.branch(condition.getExpr(), false, elseJumps);
+        this.scopedBlock(node.getIfBlock());
+
+        if (node.getElseBlock().isEmpty())
+            this.patch(elseJumps);
+        else {
+            ArrayList<Integer> endJumps = new ArrayList<Integer>();
+            this.emitJump(endJumps, JMP);
+            this.patch(elseJumps);
+            this.scopedBlock(node.getElseBlock());
+            this.patch(endJumps);
+        }
+
+        this.exitScope();
+    }
+
+    private void switchStmt(ASwitchStmt node) {
+        this.enterScope();
+        if (node.getStmt() != null)
+            this.stmt(node.getStmt());
+
+        // The tag is evaluated once, into a temporary.
+        PExpr tag = node.getExpr();
+        int tagKind = (tag != null) ? this.kindOf(tag) : BOOL;
+        int t = (tag != null) ? this.expr(tag, this.newRegister(tagKind)) : -1;
+
+        // The cases are tested in order, jumping to the body of the first one that matches.
+        LinkedList<PCaseBlock> blocks = node.getCaseBlock();
+        ArrayList<ArrayList<Integer>> caseJumps = new ArrayList<ArrayList<Integer>>();
+        int defaultCase = -1;
+        for (int i = 0; i < blocks.size(); i++) {
+            ABlockCaseBlock block = (ABlockCaseBlock) blocks.get(i);
+            ArrayList<Integer> jumps = new ArrayList<Integer>();
+            caseJumps.add(jumps);
+
+            if (block.getCaseCondition() instanceof ADefaultCaseCondition) {
+                defaultCase = i;
+                continue;
+            }
+
+            for (PExpr e : ((AExprsCaseCondition) block.getCaseCondition()).getExpr()) {
+                if (tag == null)
+                    this.branch(e, true, jumps);
+                else if (registerKind(tagKind) == INT)
+                    this.emitJump(jumps, IFEQ, t, this.expr(e, -1));
+                else {
+                    int b = this.newRegister(BOOL);
+                    this.emit(tagKind == DOUBLE ? DCMPEQ : OCMPEQ, b, t, this.expr(e, -1));
+                    this.emitJump(jumps, JNZ, b);
+                }
+            }
+        }
+
+        ArrayList<Integer> endJumps = new ArrayList<Integer>();
+        this.emitJump(defaultCase >= 0 ? caseJumps.get(defaultCase) : endJumps, JMP);
+
+        this.breaks.push(endJumps);
+        for (int i = 0; i < blocks.size(); i++) {
+            this.patch(caseJumps.get(i));
+            this.scopedBlock(((ABlockCaseBlock) blocks.get(i)).getStmt());
+            if (i < blocks.size() - 1)
+                this.emitJump(endJumps, JMP);
+        }
+        this.breaks.pop();
+
+        this.patch(endJumps);
+        this.exitScope();
+    }
+
+    private void loop(ALoopStmt node) {
+        this.enterScope();
+        if (node.getInit() != null)
+            this.stmt(node.getInit());
+
+        // The condition is tested at the bottom, after the post statement.
+        ArrayList<Integer> testJumps = new ArrayList<Integer>();
+        this.emitJump(testJumps, JMP);
+
+        int top = this.size;
+        ArrayList<Integer> breakJumps = new ArrayList<Integer>();
+        ArrayList<Integer> continueJumps = new ArrayList<Integer>();
+        this.breaks.push(breakJumps);
+        this.continues.push(continueJumps);
+        this.scopedBlock(node.getBlock());
+        this.continues.pop();
+        this.breaks.pop();
+
+        this.patch(continueJumps);
+        if (node.getEnd() != null)
+            this.stmt(node.getEnd());
+
+        this.patch(testJumps);
+        ArrayList<Integer> bodyJumps = new ArrayList<Integer>();
+        if (node.getExpr() == null || node.getExpr() instanceof AEmptyExpr)
+            this.emitJump(bodyJumps, JMP);
+        else
+            this.branch(node.getExpr(), true, bodyJumps);
+        for (int i : bodyJumps)
+            this.code[i] = top;
+
+        this.patch(breakJumps);
+        this.exitScope();
+    }
+
+    /**
+     * Conditions
+     *
+     */
+
+    /**
+     * Lowers a jump taken if the given condition has the given value.
+     *
+     * @param node - Condition
+     * @param when - Value of the condition for which to jump
+     * @param jumps - List to add the jumps to, to patch
+     */
+    private void branch(PExpr node, boolean when, ArrayList<Integer> jumps) {
+        Object value = this.constantFolder.getValue(node);
+        if (value instanceof Boolean) {
+            if ((Boolean) value == when)
+                this.emitJump(jumps, JMP);
+            return;
+        }
+
+        if (node instanceof ANotExpr)
+            this.branch(((ANotExpr) node).getExpr(), !when, jumps);
+        else if (node instanceof AAndExpr || node instanceof AOrExpr) {
+            boolean and = node instanceof AAndExpr;
+            PExpr left = and ? ((AAndExpr) node).getLeft() : ((AOrExpr) node).getLeft();
+            PExpr right = and ? ((AAndExpr) node).getRight() : ((AOrExpr) node).getRight();
+
+            // a && b is false as soon as a is, and a || b true as soon as a is.
+            if (and != when) {
+                this.branch(left, when, jumps);
+                this.branch(right, when, jumps);
+            } else {
+                ArrayList<Integer> skip = new ArrayList<Integer>();
+                this.branch(left, !when, skip);
+                this.branch(right, when, jumps);
+                this.patch(skip);
+            }
+        } else {
+            int cond = comparison(node);
+            if (cond >= 0 && registerKind(this.kindOf(left(node))) == INT) {
+                int l = this.expr(left(node), -1);
+                int r = this.expr(right(node), -1);
+                this.emitJump(jumps, BRANCHES[when ? cond : NEGATIONS[cond]], l, r);
+            } else
+                this.emitJump(jumps, when ? JNZ : JZ, this.expr(node, -1));
+        }
+    }
+
+    /**
+     * Returns the comparison of the given expression, or -1 if it isn't one.
+     */
+    private static int comparison(PExpr node) {
+        if (node instanceof AEqExpr)
+            return EQ;
+        else if (node instanceof ANeqExpr)
+            return NEQ;
+        else if (node instanceof ALtExpr)
+            return LT;
+        else if (node instanceof ALteExpr)
+            return LTE;
+        else if (node instanceof AGtExpr)
+            return GT;
+        else if (node instanceof AGteExpr)
+            return GTE;
+        else
+            return -1;
+    }
+
+    /**
+     * Returns the left operand of the given comparison.
+     */
+    private static PExpr left(PExpr node) {
+        if (node instanceof AEqExpr)
+            return ((AEqExpr) node).getLeft();
+        else if (node instanceof ANeqExpr)
+            return ((ANeqExpr) node).getLeft();
+        else if (node instanceof ALtExpr)
+            return ((ALtExpr) node).getLeft();
+        else if (node instanceof ALteExpr)
+            return ((ALteExpr) node).getLeft();
+        else if (node instanceof AGtExpr)
+            return ((AGtExpr) node).getLeft();
+        else
+            return ((AGteExpr) node).getLeft();
+    }
+
+    /**
+     * Returns the right operand of the given comparison.
+     */
+    private static PExpr right(PExpr node) {
+        if (node instanceof AEqExpr)
+            return ((AEqExpr) node).getRight();
+        else if (node instanceof ANeqExpr)
+            return ((ANeqExpr) node).getRight();
+        else if (node instanceof ALtExpr)
+            return ((ALtExpr) node).getRight();
+        else if (node instanceof ALteExpr)
+            return ((ALteExpr) node).getRight();
+        else if (node instanceof AGtExpr)
+            return ((AGtExpr) node).getRight();
+        else
+            return ((AGteExpr) node).getRight();
+    }
+
+    /**
+     * Expressions
+     *
+     */
+
+    /**
+     * Lowers the given expression.
+     *
+     * @param node - Expression
+     * @param dst - Register to compute the value into, or -1 for any register (a local variable is
+     *  then its own register)
+     * @return Register holding the value
+     */
+    private int expr(PExpr node, int dst) {
+        int kind = this.kindOf(node);
+
+        Object value = this.constantFolder.getValue(node);
+        if (value instanceof Long) {
+            int t = this.target(dst, kind);
+            this.emit(ICONST, t, (int) (long) (Long) value);
+            return t;
+        } else if (value instanceof Double) {
+            int t = this.target(dst, kind);
+            this.emit(DCONST, t, this.doubleConstant((Double) value));
+            return t;
+        } else if (value instanceof Boolean) {
+            int t = this.target(dst, kind);
+            this.emit(ICONST, t, (Boolean) value ? 1 : 0);
+            return t;
+        }
+
+        if (node instanceof AAddExpr)
+            return this.binary(ADD, kind, ((AAddExpr) node).getLeft(),
+                ((AAddExpr) node).getRight(), dst);
+        else if (node instanceof ASubtractExpr)
+            return this.binary(SUB, kind, ((ASubtractExpr) node).getLeft(),
+                ((ASubtractExpr) node).getRight(), dst);
+        else if (node instanceof AMultExpr)
+            return this.binary(MUL, kind, ((AMultExpr) node).getLeft(),
+                ((AMultExpr) node).getRight(), dst);
+        else if (node instanceof ADivExpr)
+            return this.binary(DIV, kind, ((ADivExpr) node).getLeft(),
+                ((ADivExpr) node).getRight(), dst);
+        else if (node instanceof AModExpr)
+            return this.binary(MOD, kind, ((AModExpr) node).getLeft(),
+                ((AModExpr) node).getRight(), dst);
+        else if (node instanceof ABitAndExpr)
+            return this.binary(AND, kind, ((ABitAndExpr) node).getLeft(),
+                ((ABitAndExpr) node).getRight(), dst);
+        else if (node instanceof ABitOrExpr)
+            return this.binary(OR, kind, ((ABitOrExpr) node).getLeft(),
+                ((ABitOrExpr) node).getRight(), dst);
+        else if (node instanceof ABitXorExpr)
+            return this.binary(XOR, kind, ((ABitXorExpr) node).getLeft(),
+                ((ABitXorExpr) node).getRight(), dst);
+        else if (node instanceof ABitClearExpr)
+            return this.binary(AND_NOT, kind, ((ABitClearExpr) node).getLeft(),
+                ((ABitClearExpr) node).getRight(), dst);
+        else if (node instanceof ABitLshiftExpr)
+            return this.binary(SHL, kind, ((ABitLshiftExpr) node).getLeft(),
+                ((ABitLshiftExpr) node).getRight(), dst);
+        else if (node instanceof ABitRshiftExpr)
+            return this.binary(SHR, kind, ((ABitRshiftExpr) node).getLeft(),
+                ((ABitRshiftExpr) node).getRight(), dst);
+        else if (node instanceof APosExpr)
+            return this.expr(((APosExpr) node).getExpr(), dst);
+        else if (node instanceof ANegExpr) {
+            int e = this.expr(((ANegExpr) node).getExpr(), -1);
+            int t = this.target(dst, kind);
+            this.emit(kind == DOUBLE ? DNEG : INEG, t, e);
+            return t;
+        } else if (node instanceof ABitCompExpr) {
+            int e = this.expr(((ABitCompExpr) node).getExpr(), -1);
+            int t = this.target(dst, kind);
+            this.emit(ICOMP, t, e);
+            return t;
+        } else if (node instanceof ANotExpr) {
+            int e = this.expr(((ANotExpr) node).getExpr(), -1);
+            int t = this.target(dst, kind);
+            this.emit(BNOT, t, e);
+            return t;
+        } else if (comparison(node) >= 0) {
+            int operandKind = this.kindOf(left(node));
+            int l = this.expr(left(node), -1);
+            int r = this.expr(right(node), -1);
+            int t = this.target(dst, BOOL);
+            int cond = comparison(node);
+
+            if (registerKind(operandKind) == INT)
+                this.emit(INT_CMPS[cond], t, l, r);
+            else if (operandKind == DOUBLE)
+                this.emit(DOUBLE_CMPS[cond], t, l, r);
+            else
+                this.emit(OBJECT_CMPS[cond], t, l, r);
+            return t;
+        } else if (node instanceof AAndExpr || node instanceof AOrExpr) {
+            // The value is only written once the condition is known, since the target may be one
+            // of its variables.
+            ArrayList<Integer> falseJumps = new ArrayList<Integer>();
+            ArrayList<Integer> endJumps = new ArrayList<Integer>();
+            this.branch(node, false, falseJumps);
+            int t = this.target(dst, BOOL);
+            this.emit(ICONST, t, 1);
+            this.emitJump(endJumps, JMP);
+            this.patch(falseJumps);
+            this.emit(ICONST, t, 0);
+            this.patch(endJumps);
+            return t;
+        } else if (node instanceof AFuncCallExpr)
+            return this.call((AFuncCallExpr) node, kind, dst);
+        else if (node instanceof AAppendExpr) {
+            AAppendExpr append = (AAppendExpr) node;
+            int s = this.load(this.getVariable(append.getId().getText()), -1);
+            int e = this.value(append.getExpr(), -1);
+            int t = this.target(dst, OBJECT);
+            this.emit(APPENDS[this.kindOf(append.getExpr())], t, s, e);
+            return t;
+        } else if (node instanceof ATypeCastExpr) {
+            PExpr arg = ((ATypeCastExpr) node).getExpr();
+            return this.convert(this.kindOf(arg), kind, this.expr(arg, -1), dst);
+        } else if (node instanceof AArrayElemExpr) {
+            AArrayElemExpr elem = (AArrayElemExpr) node;
+            int c = this.expr(elem.getArray(), -1);
+            int i = this.expr(elem.getIndex(), -1);
+            return this.loadElement(this.typeOf(elem.getArray()), c, i, dst);
+        } else if (node instanceof AFieldExpr) {
+            AFieldExpr field = (AFieldExpr) node;
+            int r = this.expr(field.getExpr(), -1);
+            return this.loadField(this.typeOf(field.getExpr()), r, field.getId().getText(), dst);
+        } else if (node instanceof AVariableExpr)
+            return this.load(this.getVariable(((AVariableExpr) node).getId().getText()), dst);
+        else if (node instanceof AIntLitExpr || node instanceof AOctLitExpr
+                || node instanceof AHexLitExpr) {
+            int t = this.target(dst, INT);
+            this.emit(ICONST, t, getIntLit(node).intValue());
+            return t;
+        } else if (node instanceof AFloatLitExpr) {
+            int t = this.target(dst, DOUBLE);
+            this.emit(DCONST, t, this.doubleConstant(
+                Double.parseDouble(((AFloatLitExpr) node).getFloatLit().getText())));
+            return t;
+        } else if (node instanceof ARuneLitExpr) {
+            int t = this.target(dst, INT);
+            this.emit(ICONST, t,
+                ConstantFolder.getRuneValue(((ARuneLitExpr) node).getRuneLit().getText()));
+            return t;
+        } else if (node instanceof AInterpretedStringLitExpr) {
+            int t = this.target(dst, OBJECT);
+            this.emit(OCONST, t, this.objectConstant(getInterpretedString(
+                ((AInterpretedStringLitExpr) node).getInterpretedStringLit().getText())));
+            return t;
+        } else {
+            String text = ((ARawStringLitExpr) node).getRawStringLit().getText();
+            int t = this.target(dst, OBJECT);
+            this.emit(OCONST, t, this.objectConstant(text.substring(1, text.length() - 1)));
+            return t;
+        }
+    }
+
+    /**
+     * Lowers the given expression as a value to assign, pass or return, i.e. copying it if it's an
+     * array or struct held by a variable, field or element.
+     */
+    private int value(PExpr node, int dst) {
+        GoLiteType type = this.typeOf(node);
+        if ((type instanceof ArrayType || type instanceof StructType)
+                && (node instanceof AVariableExpr || node instanceof AFieldExpr
+                    || node instanceof AArrayElemExpr)) {
+            int e = this.expr(node, -1);
+            int t = this.target(dst, OBJECT);
+            this.emit(OCOPY, t, e);
+            return t;
+        }
+
+        return this.expr(node, dst);
+    }
+
+    private int binary(int op, int kind, PExpr left, PExpr right, int dst) {
+        int l = this.expr(left, -1);
+        return this.binary(op, kind, l, right, this.constantFolder.getValue(right), dst);
+    }
+
+    /**
+     * Lowers a binary operation.
+     *
+     * @param op - Operator
+     * @param kind - Kind of the operands
+     * @param left - Register of the left operand
+     * @param right - Right operand, or null for 1
+     * @param rightValue - Value of the right operand if it's constant, null otherwise
+     * @param dst - Target register, or -1 for a new one
+     * @return Register holding the result
+     */
+    private int binary(int op, int kind, int left, PExpr right, Object rightValue, int dst) {
+        // Adding or subtracting an int constant takes it as an immediate.
+        if (kind == INT && (op == ADD || op == SUB) && rightValue instanceof Long) {
+            int k = (int) (long) (Long) rightValue;
+            int t = this.target(dst, kind);
+            this.emit(IADDK, t, left, op == ADD ? k : -k);
+            return t;
+        }
+
+        int r;
+        if (right != null)
+            r = this.expr(right, -1);
+        else {
+            // Increment or decrement of a float.
+            r = this.newRegister(DOUBLE);
+            this.emit(DCONST, r, this.doubleConstant(1.0));
+        }
+
+        int t = this.target(dst, kind);
+        if (kind == DOUBLE)
+            this.emit(DOUBLE_OPS[op], t, left, r);
+        else if (kind == OBJECT)
+            // String concatenation.
+            this.emit(SCONCAT, t, left, r);
+        else
+            this.emit(INT_OPS[op], t, left, r);
+        return t;
+    }
+
+    /**
+     * Lowers a conversion of the value in the given register from and to the given kinds.
+     *
+     * @return Register holding the converted value
+     */
+    private int convert(int from, int to, int src, int dst) {
+        if (to == DOUBLE && from != DOUBLE) {
+            int t = this.target(dst, to);
+            this.emit(I2D, t, src);
+            return t;
+        } else if (to != DOUBLE && from == DOUBLE && to != OBJECT) {
+            int t = this.target(dst, to);
+            // Out of range floats wrap around like with the Python backend.
+            this.emit(to == BOOL ? D2B : D2I, t, src);
+            return t;
+        } else if (to == BOOL && from == INT) {
+            int t = this.target(dst, to);
+            this.emit(I2B, t, src);
+            return t;
+        }
+
+        return this.move(to, dst, src);
+    }
+
+    /**
+     * Lowers a call to the given function (or a conversion to a type alias).
+     */
+    private int call(AFuncCallExpr node, int kind, int dst) {
+        Symbol symbol = this.symbolTable.getSymbol(node.getId().getText());
+        if (symbol instanceof TypeAliasSymbol) {
+            PExpr arg = node.getExpr().getFirst();
+            return this.convert(this.kindOf(arg), kind, this.expr(arg, -1), dst);
+        }
+
+        this.invoke(node);
+        int t = this.target(dst, kind);
+        this.emit(RESULTS[kind], t);
+        return t;
+    }
+
+    /**
+     * Lowers a call to the given function. The arguments are all computed before they're passed,
+     * since computing one may call another function, whose frame would take the place of the
+     * callee's.
+     */
+    private void invoke(AFuncCallExpr node) {
+        int f = this.functions.get(node.getId().getText());
+        LinkedList<PExpr> exprs = node.getExpr();
+
+        int[] args = new int[exprs.size()];
+        for (int i = 0; i < args.length; i++)
+            args[i] = this.value(exprs.get(i), -1);
+
+        int[] kinds = this.paramKinds.get(f), registers = this.paramRegisters.get(f);
+        for (int i = 0; i < args.length; i++)
+            this.emit(ARGS[kinds[i]], registers[i], args[i]);
+        this.emit(CALL, f);
+    }
+
+    /**
+     * Literals
+     *
+     */
+
+    /**
+     * Returns the value of the given integer literal.
+     */
+    private static BigInteger getIntLit(PExpr node) {
+        if (node instanceof AOctLitExpr) {
+            String text = ((AOctLitExpr) node).getOctLit().getText();
+            return new BigInteger(text.length() > 1 ? text.substring(1) : "0", 8);
+        } else if (node instanceof AHexLitExpr)
+            return new BigInteger(((AHexLitExpr) node).getHexLit().getText().substring(2), 16);
+        else
+            return new BigInteger(((AIntLitExpr) node).getIntLit().getText());
+    }
+
+    /**
+     * Returns the value of the given interpreted string literal (with its quotes).
+     */
+    private static String getInterpretedString(String text) {
+        StringBuilder s = new StringBuilder();
+
+        for (int i = 1; i < text.length() - 1; i++) {
+            char c = text.charAt(i);
+            if (c != '\\') {
+                s.append(c);
+                continue;
+            }
+
+            c = text.charAt(++i);
+            switch (c) {
+                case 'a': s.append('\u0007'); break;
+                case 'b': s.append('\b'); break;
+                case 'f': s.append('\f'); break;
+                case 'n': s.append('\n'); break;
+                case 'r': s.append('\r'); break;
+                case 't': s.append('\t'); break;
+                case 'v': s.append('\u000b'); break;
+                default: s.append(c);
+            }
+        }
+
+        return s.toString();
+    }
+
+}
@@ -0,0 +1,297 @@
+package golite.vm;
+
+/**
+ * Opcodes of the register VM, with the name and operand format of each instruction.
+ *
+ * An instruction is its opcode followed by its operands, all ints in the code array. Registers are
+ * indices in the int, double or object register file of the current frame. The characters of the
+ * format of an instruction give the kinds of its operands, in order:
+ *
+ *  i, d, o - Int, double or object register
+ *  I, D, O - Int, double or object register of the global frame
+ *  k       - Int immediate
+ *  c       - Index in the double constant pool
+ *  s       - Index in the object constant pool
+ *  L       - Code address
+ *  f       - Function index
+ *
+ * Bools are stored in int registers, as 0 or 1.
+ */
+public final class Opcodes {
+
+    private Opcodes() {}
+
+    // Control.
+    public static final int HALT = 0;
+    public static final int JMP = 1;
+    public static final int JZ = 2;
+    public static final int JNZ = 3;
+    public static final int IFEQ = 4;
+    public static final int IFNE = 5;
+    public static final int IFLT = 6;
+    public static final int IFLE = 7;
+    public static final int IFGT = 8;
+    public static final int IFGE = 9;
+
+    // Constants and moves.
+    public static final int ICONST = 10;
+    public static final int DCONST = 11;
+    public static final int OCONST = 12;
+    public static final int OZERO = 13;
+    public static final int IMOV = 14;
+    public static final int DMOV = 15;
+    public static final int OMOV = 16;
+    public static final int OCOPY = 17;
+
+    // Globals.
+    public static final int IGLOAD = 18;
+    public static final int DGLOAD = 19;
+    public static final int OGLOAD = 20;
+    public static final int IGSTORE = 21;
+    public static final int DGSTORE = 22;
+    public static final int OGSTORE = 23;
+
+    // Int arithmetic.
+    public static final int IADD = 24;
+    public static final int ISUB = 25;
+    public static final int IMUL = 26;
+    public static final int IDIV = 27;
+    public static final int IMOD = 28;
+    public static final int IAND = 29;
+    public static final int IOR = 30;
+    public static final int IXOR = 31;
+    public static final int IANDNOT = 32;
+    public static final int ISHL = 33;
+    public static final int ISHR = 34;
+    public static final int IADDK = 35;
+    public static final int INEG = 36;
+    public static final int ICOMP = 37;
+    public static final int BNOT = 38;
+
+    // Float arithmetic and string concatenation.
+    public static final int DADD = 39;
+    public static final int DSUB = 40;
+    public static final int DMUL = 41;
+    public static final int DDIV = 42;
+    public static final int DNEG = 43;
+    public static final int SCONCAT = 44;
+
+    // Comparisons, to a bool.
+    public static final int ICMPEQ = 45;
+    public static final int ICMPNE = 46;
+    public static final int ICMPLT = 47;
+    public static final int ICMPLE = 48;
+    public static final int ICMPGT = 49;
+    public static final int ICMPGE = 50;
+    public static final int DCMPEQ = 51;
+    public static final int DCMPNE = 52;
+    public static final int DCMPLT = 53;
+    public static final int DCMPLE = 54;
+    public static final int DCMPGT = 55;
+    public static final int DCMPGE = 56;
+    public static final int OCMPEQ = 57;
+    public static final int OCMPNE = 58;
+    public static final int SCMPLT = 59;
+    public static final int SCMPLE = 60;
+    public static final int SCMPGT = 61;
+    public static final int SCMPGE = 62;
+
+    // Conversions.
+    public static final int I2D = 63;
+    public static final int D2I = 64;
+    public static final int I2B = 65;
+    public static final int D2B = 66;
+
+    // Arrays.
+    public static final int IALOAD = 67;
+    public static final int DALOAD = 68;
+    public static final int BALOAD = 69;
+    public static final int OALOAD = 70;
+    public static final int IASTORE = 71;
+    public static final int DASTORE = 72;
+    public static final int BASTORE = 73;
+    public static final int OASTORE = 74;
+
+    // Slices.
+    public static final int ISLOAD = 75;
+    public static final int DSLOAD = 76;
+    public static final int BSLOAD = 77;
+    public static final int OSLOAD = 78;
+    public static final int ISSTORE = 79;
+    public static final int DSSTORE = 80;
+    public static final int BSSTORE = 81;
+    public static final int OSSTORE = 82;
+    public static final int IAPPEND = 83;
+    public static final int DAPPEND = 84;
+    public static final int BAPPEND = 85;
+    public static final int OAPPEND = 86;
+
+    // Struct fields (bool fields are int fields).
+    public static final int IFLOAD = 87;
+    public static final int DFLOAD = 88;
+    public static final int OFLOAD = 89;
+    public static final int IFSTORE = 90;
+    public static final int DFSTORE = 91;
+    public static final int OFSTORE = 92;
+
+    // Calls.
+    public static final int IARG = 93;
+    public static final int DARG = 94;
+    public static final int OARG = 95;
+    public static final int CALL = 96;
+    public static final int IRESULT = 97;
+    public static final int DRESULT = 98;
+    public static final int ORESULT = 99;
+    public static final int RET = 100;
+    public static final int IRET = 101;
+    public static final int DRET = 102;
+    public static final int ORET = 103;
+
+    // Printing.
+    public static final int PRINTI = 104;
+    public static final int PRINTD = 105;
+    public static final int PRINTB = 106;
+    public static final int PRINTS = 107;
+    public static final int PRINTC = 108;
+
+    /** Names of the instructions, by opcode. */
+    static final String[] NAMES = new String[109];
+    /** Operand formats of the instructions, by opcode. */
+    static final String[] FORMATS = new String[109];
+
+    static {
+        define(HALT, "HALT", "");
+        define(JMP, "JMP", "L");
+        define(JZ, "JZ", "iL");
+        define(JNZ, "JNZ", "iL");
+        define(IFEQ, "IFEQ", "iiL");
+        define(IFNE, "IFNE", "iiL");
+        define(IFLT, "IFLT", "iiL");
+        define(IFLE, "IFLE", "iiL");
+        define(IFGT, "IFGT", "iiL");
+        define(IFGE, "IFGE", "iiL");
+
+        define(ICONST, "ICONST", "ik");
+        define(DCONST, "DCONST", "dc");
+        define(OCONST, "OCONST", "os");
+        define(OZERO, "OZERO", "os");
+        define(IMOV, "IMOV", "ii");
+        define(DMOV, "DMOV", "dd");
+        define(OMOV, "OMOV", "oo");
+        define(OCOPY, "OCOPY", "oo");
+
+        define(IGLOAD, "IGLOAD", "iI");
+        define(DGLOAD, "DGLOAD", "dD");
+        define(OGLOAD, "OGLOAD", "oO");
+        define(IGSTORE, "IGSTORE", "Ii");
+        define(DGSTORE, "DGSTORE", "Dd");
+        define(OGSTORE, "OGSTORE", "Oo");
+
+        define(IADD, "IADD", "iii");
+        define(ISUB, "ISUB", "iii");
+        define(IMUL, "IMUL", "iii");
+        define(IDIV, "IDIV", "iii");
+        define(IMOD, "IMOD", "iii");
+        define(IAND, "IAND", "iii");
+        define(IOR, "IOR", "iii");
+        define(IXOR, "IXOR", "iii");
+        define(IANDNOT, "IANDNOT", "iii");
+        define(ISHL, "ISHL", "iii");
+        define(ISHR, "ISHR", "iii");
+        define(IADDK, "IADDK", "iik");
+        define(INEG, "INEG", "ii");
+        define(ICOMP, "ICOMP", "ii");
+        define(BNOT, "BNOT", "ii");
+
+        define(DADD, "DADD", "ddd");
+        define(DSUB, "DSUB", "ddd");
+        define(DMUL, "DMUL", "ddd");
+        define(DDIV, "DDIV", "ddd");
+        define(DNEG, "DNEG", "dd");
+        define(SCONCAT, "SCONCAT", "ooo");
+
+        define(ICMPEQ, "ICMPEQ", "iii");
+        define(ICMPNE, "ICMPNE", "iii");
+        define(ICMPLT, "ICMPLT", "iii");
+        define(ICMPLE, "ICMPLE", "iii");
+        define(ICMPGT, "ICMPGT", "iii");
+        define(ICMPGE, "ICMPGE", "iii");
+        define(DCMPEQ, "DCMPEQ", "idd");
+        define(DCMPNE, "DCMPNE", "idd");
+        define(DCMPLT, "DCMPLT", "idd");
+        define(DCMPLE, "DCMPLE", "idd");
+        define(DCMPGT, "DCMPGT", "idd");
+        define(DCMPGE, "DCMPGE", "idd");
+        define(OCMPEQ, "OCMPEQ", "ioo");
+        define(OCMPNE, "OCMPNE", "ioo");
+        define(SCMPLT, "SCMPLT", "ioo");
+        define(SCMPLE, "SCMPLE", "ioo");
+        define(SCMPGT, "SCMPGT", "ioo");
+        define(SCMPGE, "SCMPGE", "ioo");
+
+        define(I2D, "I2D", "di");
+        define(D2I, "D2I", "id");
+        define(I2B, "I2B", "ii");
+        define(D2B, "D2B", "id");
+
+        define(IALOAD, "IALOAD", "ioi");
+        define(DALOAD, "DALOAD", "doi");
+        define(BALOAD, "BALOAD", "ioi");
+        define(OALOAD, "OALOAD", "ooi");
+        define(IASTORE, "IASTORE", "oii");
+        define(DASTORE, "DASTORE", "oid");
+        define(BASTORE, "BASTORE", "oii");
+        define(OASTORE, "OASTORE", "oio");
+
+        define(ISLOAD, "ISLOAD", "ioi");
+        define(DSLOAD, "DSLOAD", "doi");
+        define(BSLOAD, "BSLOAD", "ioi");
+        define(OSLOAD, "OSLOAD", "ooi");
+        define(ISSTORE, "ISSTORE", "oii");
+        define(DSSTORE, "DSSTORE", "oid");
+        define(BSSTORE, "BSSTORE", "oii");
+        define(OSSTORE, "OSSTORE", "oio");
+        define(IAPPEND, "IAPPEND", "ooi");
+        define(DAPPEND, "DAPPEND", "ood");
+        define(BAPPEND, "BAPPEND", "ooi");
+        define(OAPPEND, "OAPPEND", "ooo");
+
+        define(IFLOAD, "IFLOAD", "iok");
+        define(DFLOAD, "DFLOAD", "dok");
+        define(OFLOAD, "OFLOAD", "ook");
+        define(IFSTORE, "IFSTORE", "oki");
+        define(DFSTORE, "DFSTORE", "okd");
+        define(OFSTORE, "OFSTORE", "oko");
+
+        define(IARG, "IARG", "ki");
+        define(DARG, "DARG", "kd");
+        define(OARG, "OARG", "ko");
+        define(CALL, "CALL", "f");
+        define(IRESULT, "IRESULT", "i");
+        define(DRESULT, "DRESULT", "d");
+        define(ORESULT, "ORESULT", "o");
+        define(RET, "RET", "");
+        define(IRET, "IRET", "i");
+        define(DRET, "DRET", "d");
+        define(ORET, "ORET", "o");
+
+        define(PRINTI, "PRINTI", "i");
+        define(PRINTD, "PRINTD", "d");
+        define(PRINTB, "PRINTB", "i");
+        define(PRINTS, "PRINTS", "o");
+        define(PRINTC, "PRINTC", "k");
+    }
+
+    private static void define(int op, String name, String format) {
+        NAMES[op] = name;
+        FORMATS[op] = format;
+    }
+
+    /**
+     * Returns the length of the instruction with the given opcode, counting the opcode.
+     */
+    static int length(int op) {
+        return 1 + FORMATS[op].length();
+    }
+
+}
@@ -0,0 +1,64 @@
+package golite.vm;
+
+/**
+ * Program lowered for the register VM: the code of every function in a single int array, the
+ * constant pools, and the entry point and frame size of each function.
+ *
+ * The code starts with the initialization of the global variables, which runs in the global frame
+ * (the global variables take its first registers), calls main() and halts.
+ */
+public final class Program {
+
+    /** Instructions. */
+    final int[] code;
+    /** Double constants. */
+    final double[] doubles;
+    /** Object constants: strings, and the zero values of arrays and structs. */
+    final Object[] objects;
+
+    /** Names, entry points and numbers of registers of each kind of the functions. */
+    final String[] names;
+    final int[] entries, frameInts, frameDoubles, frameObjects;
+
+    /** Numbers of registers of each kind of the global frame. */
+    final int globalInts, globalDoubles, globalObjects;
+    /** Largest numbers of registers of each kind of a function. */
+    final int maxInts, maxDoubles, maxObjects;
+
+    /**
+     * Constructor.
+     */
+    Program(int[] code, double[] doubles, Object[] objects, String[] names, int[] entries,
+            int[] frameInts, int[] frameDoubles, int[] frameObjects, int globalInts,
+            int globalDoubles, int globalObjects) {
+        this.code = code;
+        this.doubles = doubles;
+        this.objects = objects;
+        this.names = names;
+        this.entries = entries;
+        this.frameInts = frameInts;
+        this.frameDoubles = frameDoubles;
+        this.frameObjects = frameObjects;
+        this.globalInts = globalInts;
+        this.globalDoubles = globalDoubles;
+        this.globalObjects = globalObjects;
+
+        int maxInts = 0, maxDoubles = 0, maxObjects = 0;
+        for (int i = 0; i < names.length; i++) {
+            maxInts = Math.max(maxInts, frameInts[i]);
+            maxDoubles = Math.max(maxDoubles, frameDoubles[i]);
+            maxObjects = Math.max(maxObjects, frameObjects[i]);
+        }
+        this.maxInts = maxInts;
+        this.maxDoubles = maxDoubles;
+        this.maxObjects = maxObjects;
+    }
+
+    /**
+     * Returns the number of instruction words (opcodes and operands) of the program.
+     */
+    public int size() {
+        return this.code.length;
+    }
+
+}
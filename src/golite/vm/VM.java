@@ -0,0 +1,617 @@
+package golite.vm;
+
+import golite.exception.InterpreterException;
+import golite.interp.Record;
+import golite.jvm.Builtins;
+import golite.jvm.Slice;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import static golite.vm.Opcodes.*;
+
+/**
+ * Register VM
+ *
+ * Runs a lowered program with a single dispatch loop over its code. The registers of all the active
+ * frames live in three stacks, one per kind (int, double and object), with each frame a window at
+ * its own base in each of them, so calls allocate nothing. A call moves the windows up by the sizes
+ * of the caller's frame; the arguments are written there beforehand, and the return address, bases
+ * and sizes of the caller are saved on an int call stack. Frames are on the heap, so deep
+ * recursions don't need a deep Java stack.
+ */
+public final class VM {
+
+    /** Ints saved on the call stack by each call: return address, bases and frame sizes. */
+    private static final int CALL_SIZE = 7;
+    /** Initial numbers of registers of each kind, and of calls. */
+    private static final int INITIAL_REGISTERS = 1 << 10, INITIAL_CALLS = 1 << 6;
+    /** Output buffer size. */
+    private static final int BUFFER_SIZE = 1 << 13;
+
+    /** Program to run. */
+    private final Program program;
+
+    /**
+     * Constructor.
+     *
+     * @param program - Lowered program
+     */
+    public VM(Program program) {
+        this.program = program;
+    }
+
+    /**
+     * Runs the program: initializes the global variables and calls main().
+     *
+     * @param out - Stream to print to
+     * @throws InterpreterException if the program fails
+     */
+    public void run(PrintStream out) {
+        StringBuilder buffer = new StringBuilder();
+
+        try {
+            this.execute(out, buffer);
+        } catch (ArithmeticException e) {
+            throw new InterpreterException(e.getMessage());
+        } catch (IndexOutOfBoundsException|NegativeArraySizeException e) {
+            throw new InterpreterException("index out of range");
+        } finally {
+            out.print(buffer);
+            out.flush();
+        }
+    }
+
+    private void execute(PrintStream out, StringBuilder buffer) {
+        final Program p = this.program;
+        final int[] code = p.code;
+        final double[] dconsts = p.doubles;
+        final Object[] oconsts = p.objects;
+
+        // Register stacks, with room for the global frame and the arguments of a call from it.
+        int[] is = new int[p.globalInts + p.maxInts + INITIAL_REGISTERS];
+        double[] ds = new double[p.globalDoubles + p.maxDoubles + INITIAL_REGISTERS];
+        Object[] os = new Object[p.globalObjects + p.maxObjects + INITIAL_REGISTERS];
+        // Bases and sizes of the current frame.
+        int ib = 0, db = 0, ob = 0;
+        int isz = p.globalInts, dsz = p.globalDoubles, osz = p.globalObjects;
+
+        int[] calls = new int[CALL_SIZE * INITIAL_CALLS];
+        int sp = 0;
+
+        // Result of the last call.
+        int iresult = 0;
+        double dresult = 0;
+        Object oresult = null;
+
+        int pc = 0;
+        for (;;) {
+            switch (code[pc]) {
+                case HALT:
+                    return;
+
+                case JMP:
+                    pc = code[pc + 1];
+                    break;
+                case JZ:
+                    pc = is[ib + code[pc + 1]] == 0 ? code[pc + 2] : pc + 3;
+                    break;
+                case JNZ:
+                    pc = is[ib + code[pc + 1]] != 0 ? code[pc + 2] : pc + 3;
+                    break;
+                case IFEQ:
+                    pc = is[ib + code[pc + 1]] == is[ib + code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case IFNE:
+                    pc = is[ib + code[pc + 1]] != is[ib + code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case IFLT:
+                    pc = is[ib + code[pc + 1]] < is[ib + code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case IFLE:
+                    pc = is[ib + code[pc + 1]] <= is[ib + code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case IFGT:
+                    pc = is[ib + code[pc + 1]] > is[ib + code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+                case IFGE:
+                    pc = is[ib + code[pc + 1]] >= is[ib + code[pc + 2]] ? code[pc + 3] : pc + 4;
+                    break;
+
+                case ICONST:
+                    is[ib + code[pc + 1]] = code[pc + 2];
+                    pc += 3;
+                    break;
+                case DCONST:
+                    ds[db + code[pc + 1]] = dconsts[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case OCONST:
+                    os[ob + code[pc + 1]] = oconsts[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case OZERO:
+                    os[ob + code[pc + 1]] = Builtins.copy(oconsts[code[pc + 2]]);
+                    pc += 3;
+                    break;
+                case IMOV:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case DMOV:
+                    ds[db + code[pc + 1]] = ds[db + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case OMOV:
+                    os[ob + code[pc + 1]] = os[ob + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case OCOPY:
+                    os[ob + code[pc + 1]] = Builtins.copy(os[ob + code[pc + 2]]);
+                    pc += 3;
+                    break;
+
+                case IGLOAD:
+                    is[ib + code[pc + 1]] = is[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case DGLOAD:
+                    ds[db + code[pc + 1]] = ds[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case OGLOAD:
+                    os[ob + code[pc + 1]] = os[code[pc + 2]];
+                    pc += 3;
+                    break;
+                case IGSTORE:
+                    is[code[pc + 1]] = is[ib + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case DGSTORE:
+                    ds[code[pc + 1]] = ds[db + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case OGSTORE:
+                    os[code[pc + 1]] = os[ob + code[pc + 2]];
+                    pc += 3;
+                    break;
+
+                case IADD:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] + is[ib + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case ISUB:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] - is[ib + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case IMUL:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] * is[ib + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case IDIV:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] / is[ib + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case IMOD:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] % is[ib + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case IAND:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] & is[ib + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case IOR:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] | is[ib + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case IXOR:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] ^ is[ib + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case IANDNOT:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] & ~is[ib + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case ISHL:
+                    is[ib + code[pc + 1]] = Builtins.shl(is[ib + code[pc + 2]],
+                        is[ib + code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case ISHR:
+                    is[ib + code[pc + 1]] = Builtins.shr(is[ib + code[pc + 2]],
+                        is[ib + code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case IADDK:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] + code[pc + 3];
+                    pc += 4;
+                    break;
+                case INEG:
+                    is[ib + code[pc + 1]] = -is[ib + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case ICOMP:
+                    is[ib + code[pc + 1]] = ~is[ib + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case BNOT:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] ^ 1;
+                    pc += 3;
+                    break;
+
+                case DADD:
+                    ds[db + code[pc + 1]] = ds[db + code[pc + 2]] + ds[db + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case DSUB:
+                    ds[db + code[pc + 1]] = ds[db + code[pc + 2]] - ds[db + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case DMUL:
+                    ds[db + code[pc + 1]] = ds[db + code[pc + 2]] * ds[db + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case DDIV:
+                    ds[db + code[pc + 1]] = ds[db + code[pc + 2]] / ds[db + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case DNEG:
+                    ds[db + code[pc + 1]] = -ds[db + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case SCONCAT:
+                    os[ob + code[pc + 1]] = ((String) os[ob + code[pc + 2]])
+                        .concat((String) os[ob + code[pc + 3]]);
+                    pc += 4;
+                    break;
+
+                case ICMPEQ:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] == is[ib + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case ICMPNE:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] != is[ib + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case ICMPLT:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] < is[ib + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case ICMPLE:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] <= is[ib + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case ICMPGT:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] > is[ib + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case ICMPGE:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] >= is[ib + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case DCMPEQ:
+                    is[ib + code[pc + 1]] = ds[db + code[pc + 2]] == ds[db + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case DCMPNE:
+                    is[ib + code[pc + 1]] = ds[db + code[pc + 2]] != ds[db + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case DCMPLT:
+                    is[ib + code[pc + 1]] = ds[db + code[pc + 2]] < ds[db + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case DCMPLE:
+                    is[ib + code[pc + 1]] = ds[db + code[pc + 2]] <= ds[db + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case DCMPGT:
+                    is[ib + code[pc + 1]] = ds[db + code[pc + 2]] > ds[db + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case DCMPGE:
+                    is[ib + code[pc + 1]] = ds[db + code[pc + 2]] >= ds[db + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case OCMPEQ:
+                    is[ib + code[pc + 1]] = Builtins.equal(os[ob + code[pc + 2]],
+                        os[ob + code[pc + 3]]) ? 1 : 0;
+                    pc += 4;
+                    break;
+                case OCMPNE:
+                    is[ib + code[pc + 1]] = Builtins.equal(os[ob + code[pc + 2]],
+                        os[ob + code[pc + 3]]) ? 0 : 1;
+                    pc += 4;
+                    break;
+                case SCMPLT:
+                    is[ib + code[pc + 1]] = ((String) os[ob + code[pc + 2]])
+                        .compareTo((String) os[ob + code[pc + 3]]) < 0 ? 1 : 0;
+                    pc += 4;
+                    break;
+                case SCMPLE:
+                    is[ib + code[pc + 1]] = ((String) os[ob + code[pc + 2]])
+                        .compareTo((String) os[ob + code[pc + 3]]) <= 0 ? 1 : 0;
+                    pc += 4;
+                    break;
+                case SCMPGT:
+                    is[ib + code[pc + 1]] = ((String) os[ob + code[pc + 2]])
+                        .compareTo((String) os[ob + code[pc + 3]]) > 0 ? 1 : 0;
+                    pc += 4;
+                    break;
+                case SCMPGE:
+                    is[ib + code[pc + 1]] = ((String) os[ob + code[pc + 2]])
+                        .compareTo((String) os[ob + code[pc + 3]]) >= 0 ? 1 : 0;
+                    pc += 4;
+                    break;
+
+                case I2D:
+                    ds[db + code[pc + 1]] = is[ib + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case D2I:
+                    // Out of range floats wrap around like with the Python backend.
+                    is[ib + code[pc + 1]] = Builtins.toInt(ds[db + code[pc + 2]]);
+                    pc += 3;
+                    break;
+                case I2B:
+                    is[ib + code[pc + 1]] = is[ib + code[pc + 2]] != 0 ? 1 : 0;
+                    pc += 3;
+                    break;
+                case D2B:
+                    is[ib + code[pc + 1]] = ds[db + code[pc + 2]] != 0 ? 1 : 0;
+                    pc += 3;
+                    break;
+
+                case IALOAD:
+                    is[ib + code[pc + 1]] = ((int[]) os[ob + code[pc + 2]])[is[ib + code[pc + 3]]];
+                    pc += 4;
+                    break;
+                case DALOAD:
+                    ds[db + code[pc + 1]] =
+                        ((double[]) os[ob + code[pc + 2]])[is[ib + code[pc + 3]]];
+                    pc += 4;
+                    break;
+                case BALOAD:
+                    is[ib + code[pc + 1]] =
+                        ((boolean[]) os[ob + code[pc + 2]])[is[ib + code[pc + 3]]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case OALOAD:
+                    os[ob + code[pc + 1]] =
+                        ((Object[]) os[ob + code[pc + 2]])[is[ib + code[pc + 3]]];
+                    pc += 4;
+                    break;
+                case IASTORE:
+                    ((int[]) os[ob + code[pc + 1]])[is[ib + code[pc + 2]]] = is[ib + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case DASTORE:
+                    ((double[]) os[ob + code[pc + 1]])[is[ib + code[pc + 2]]] =
+                        ds[db + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case BASTORE:
+                    ((boolean[]) os[ob + code[pc + 1]])[is[ib + code[pc + 2]]] =
+                        is[ib + code[pc + 3]] != 0;
+                    pc += 4;
+                    break;
+                case OASTORE:
+                    ((Object[]) os[ob + code[pc + 1]])[is[ib + code[pc + 2]]] =
+                        os[ob + code[pc + 3]];
+                    pc += 4;
+                    break;
+
+                case ISLOAD:
+                    is[ib + code[pc + 1]] = Slice.getInt((Slice) os[ob + code[pc + 2]],
+                        is[ib + code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case DSLOAD:
+                    ds[db + code[pc + 1]] = Slice.getDouble((Slice) os[ob + code[pc + 2]],
+                        is[ib + code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case BSLOAD:
+                    is[ib + code[pc + 1]] = Slice.getBoolean((Slice) os[ob + code[pc + 2]],
+                        is[ib + code[pc + 3]]) ? 1 : 0;
+                    pc += 4;
+                    break;
+                case OSLOAD:
+                    os[ob + code[pc + 1]] = Slice.getObject((Slice) os[ob + code[pc + 2]],
+                        is[ib + code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case ISSTORE:
+                    Slice.setInt((Slice) os[ob + code[pc + 1]], is[ib + code[pc + 2]],
+                        is[ib + code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case DSSTORE:
+                    Slice.setDouble((Slice) os[ob + code[pc + 1]], is[ib + code[pc + 2]],
+                        ds[db + code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case BSSTORE:
+                    Slice.setBoolean((Slice) os[ob + code[pc + 1]], is[ib + code[pc + 2]],
+                        is[ib + code[pc + 3]] != 0);
+                    pc += 4;
+                    break;
+                case OSSTORE:
+                    Slice.setObject((Slice) os[ob + code[pc + 1]], is[ib + code[pc + 2]],
+                        os[ob + code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case IAPPEND:
+                    os[ob + code[pc + 1]] = Slice.appendInt((Slice) os[ob + code[pc + 2]],
+                        is[ib + code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case DAPPEND:
+                    os[ob + code[pc + 1]] = Slice.appendDouble((Slice) os[ob + code[pc + 2]],
+                        ds[db + code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case BAPPEND:
+                    os[ob + code[pc + 1]] = Slice.appendBoolean((Slice) os[ob + code[pc + 2]],
+                        is[ib + code[pc + 3]] != 0);
+                    pc += 4;
+                    break;
+                case OAPPEND:
+                    os[ob + code[pc + 1]] = Slice.appendObject((Slice) os[ob + code[pc + 2]],
+                        os[ob + code[pc + 3]]);
+                    pc += 4;
+                    break;
+
+                case IFLOAD:
+                    is[ib + code[pc + 1]] = ((Record) os[ob + code[pc + 2]]).ints[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case DFLOAD:
+                    ds[db + code[pc + 1]] = ((Record) os[ob + code[pc + 2]]).doubles[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case OFLOAD:
+                    os[ob + code[pc + 1]] = ((Record) os[ob + code[pc + 2]]).objects[code[pc + 3]];
+                    pc += 4;
+                    break;
+                case IFSTORE:
+                    ((Record) os[ob + code[pc + 1]]).ints[code[pc + 2]] = is[ib + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case DFSTORE:
+                    ((Record) os[ob + code[pc + 1]]).doubles[code[pc + 2]] = ds[db + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case OFSTORE:
+                    ((Record) os[ob + code[pc + 1]]).objects[code[pc + 2]] = os[ob + code[pc + 3]];
+                    pc += 4;
+                    break;
+
+                // Arguments go to the registers of the callee's frame, just above the current one.
+                case IARG:
+                    is[ib + isz + code[pc + 1]] = is[ib + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case DARG:
+                    ds[db + dsz + code[pc + 1]] = ds[db + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case OARG:
+                    os[ob + osz + code[pc + 1]] = os[ob + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case CALL: {
+                    int f = code[pc + 1];
+
+                    if (sp + CALL_SIZE > calls.length)
+                        calls = Arrays.copyOf(calls, 2 * calls.length);
+                    calls[sp] = pc + 2;
+                    calls[sp + 1] = ib;
+                    calls[sp + 2] = db;
+                    calls[sp + 3] = ob;
+                    calls[sp + 4] = isz;
+                    calls[sp + 5] = dsz;
+                    calls[sp + 6] = osz;
+                    sp += CALL_SIZE;
+
+                    ib += isz;
+                    db += dsz;
+                    ob += osz;
+                    isz = p.frameInts[f];
+                    dsz = p.frameDoubles[f];
+                    osz = p.frameObjects[f];
+
+                    // Leave room for the arguments of any call from the callee.
+                    if (ib + isz + p.maxInts > is.length)
+                        is = Arrays.copyOf(is, 2 * (ib + isz + p.maxInts));
+                    if (db + dsz + p.maxDoubles > ds.length)
+                        ds = Arrays.copyOf(ds, 2 * (db + dsz + p.maxDoubles));
+                    if (ob + osz + p.maxObjects > os.length)
+                        os = Arrays.copyOf(os, 2 * (ob + osz + p.maxObjects));
+
+                    pc = p.entries[f];
+                    break;
+                }
+                case IRESULT:
+                    is[ib + code[pc + 1]] = iresult;
+                    pc += 2;
+                    break;
+                case DRESULT:
+                    ds[db + code[pc + 1]] = dresult;
+                    pc += 2;
+                    break;
+                case ORESULT:
+                    os[ob + code[pc + 1]] = oresult;
+                    // Don't keep the result alive.
+                    oresult = null;
+                    pc += 2;
+                    break;
+                case RET:
+                case IRET:
+                case DRET:
+                case ORET: {
+                    int op = code[pc];
+                    if (op == IRET)
+                        iresult = is[ib + code[pc + 1]];
+                    else if (op == DRET)
+                        dresult = ds[db + code[pc + 1]];
+                    else if (op == ORET)
+                        oresult = os[ob + code[pc + 1]];
+
+                    // Release the objects of the frame.
+                    Arrays.fill(os, ob, ob + osz, null);
+
+                    sp -= CALL_SIZE;
+                    pc = calls[sp];
+                    ib = calls[sp + 1];
+                    db = calls[sp + 2];
+                    ob = calls[sp + 3];
+                    isz = calls[sp + 4];
+                    dsz = calls[sp + 5];
+                    osz = calls[sp + 6];
+                    break;
+                }
+
+                case PRINTI:
+                    buffer.append(is[ib + code[pc + 1]]);
+                    spill(out, buffer);
+                    pc += 2;
+                    break;
+                case PRINTD:
+                    buffer.append(Builtins.formatFloat(ds[db + code[pc + 1]]));
+                    spill(out, buffer);
+                    pc += 2;
+                    break;
+                case PRINTB:
+                    buffer.append(is[ib + code[pc + 1]] != 0 ? "True" : "False");
+                    spill(out, buffer);
+                    pc += 2;
+                    break;
+                case PRINTS:
+                    buffer.append((String) os[ob + code[pc + 1]]);
+                    spill(out, buffer);
+                    pc += 2;
+                    break;
+                case PRINTC:
+                    buffer.append((char) code[pc + 1]);
+                    spill(out, buffer);
+                    pc += 2;
+                    break;
+
+                default:
+                    throw new IllegalStateException("Unknown opcode " + code[pc] + " at " + pc);
+            }
+        }
+    }
+
+    /**
+     * Writes out the output buffer once it's full.
+     */
+    private static void spill(PrintStream out, StringBuilder buffer) {
+        if (buffer.length() > BUFFER_SIZE) {
+            out.print(buffer);
+            buffer.setLength(0);
+        }
+    }
+
+}
@@ -6,12 +6,19 @@
 
 
 usage() {
-	echo -e "Usage: $0 <scan | tokens | parse | pretty | ast | type | dumpsymtab | pptype | gen | help> [-safe] filepath"
+	echo -e "Usage: $0 <scan | tokens | parse | pretty | ast | type | dumpsymtab | pptype | gen | dumpinline | jvm | c | run | bytecode | vm | java | help> [-safe] filepath"
+	echo -e "       $0 server"
 }
 
 # Compiler option.
 OPT=$1
 
+# Persistent compiler reading requests from stdin.
+if [[ $OPT == "server" ]]
+then
+	exec java -cp ../lib/commons-cli-1.3.1.jar: golite.Main -server
+fi
+
 # No safe flag.
 if [[ -z $3 ]]
 then
@@ -23,7 +30,7 @@ else
 	PROG_PATH=$3
 fi
 
-if [[ $OPT != "scan" && $OPT != "tokens" && $OPT != "parse" && $OPT != "pretty" && $OPT != "ast" && $OPT != "type" && $OPT != "dumpsymtab" && $OPT != "pptype" && $OPT != "gen" && $OPT != "help" ]]
+if [[ $OPT != "scan" && $OPT != "tokens" && $OPT != "parse" && $OPT != "pretty" && $OPT != "ast" && $OPT != "type" && $OPT != "dumpsymtab" && $OPT != "pptype" && $OPT != "gen" && $OPT != "dumpinline" && $OPT != "jvm" && $OPT != "c" && $OPT != "run" && $OPT != "bytecode" && $OPT != "vm" && $OPT != "java" && $OPT != "help" ]]
 then
 	usage
 	exit -1